@@ -56,25 +56,40 @@ import edu.uci.ics.hyracks.algebricks.runtime.base.ICopySerializableAggregateFun
 import edu.uci.ics.hyracks.algebricks.runtime.operators.aggreg.SerializableAggregatorDescriptorFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFamily;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.ITuplePartitionComputerFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
 import edu.uci.ics.hyracks.api.job.IOperatorDescriptorRegistry;
 import edu.uci.ics.hyracks.dataflow.common.data.partition.FieldHashPartitionComputerFactory;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractOperatorDescriptor;
 import edu.uci.ics.hyracks.dataflow.std.group.HashSpillableTableFactory;
 import edu.uci.ics.hyracks.dataflow.std.group.IAggregatorDescriptorFactory;
 import edu.uci.ics.hyracks.dataflow.std.group.external.ExternalGroupOperatorDescriptor;
+import edu.uci.ics.hyracks.dataflow.std.group.hybridhash.HybridHashGroupOperatorDescriptor;
 
 public class ExternalGroupByPOperator extends AbstractPhysicalOperator {
 
     private int tableSize = 0;
     private int frameLimit = 0;
+    private boolean hybridHash = false;
     private List<LogicalVariable> columnSet = new ArrayList<LogicalVariable>();
 
     public ExternalGroupByPOperator(List<Pair<LogicalVariable, Mutable<ILogicalExpression>>> gbyList, int frameLimit,
             int tableSize) {
+        this(gbyList, frameLimit, tableSize, false);
+    }
+
+    /**
+     * @param hybridHash
+     *            - whether to use the hybrid hash group-by, which spills only the hash partitions that do not fit
+     *            and never sorts; it falls back to the sort-based one if a key type has no hash function family
+     */
+    public ExternalGroupByPOperator(List<Pair<LogicalVariable, Mutable<ILogicalExpression>>> gbyList, int frameLimit,
+            int tableSize, boolean hybridHash) {
         this.tableSize = tableSize;
         this.frameLimit = frameLimit;
+        this.hybridHash = hybridHash;
         computeColumnSet(gbyList);
     }
 
@@ -245,12 +260,28 @@ public class ExternalGroupByPOperator extends AbstractPhysicalOperator {
         IAggregatorDescriptorFactory aggregatorFactory = new SerializableAggregatorDescriptorFactory(aff);
         IAggregatorDescriptorFactory mergeFactory = new SerializableAggregatorDescriptorFactory(merges);
 
-        ITuplePartitionComputerFactory tpcf = new FieldHashPartitionComputerFactory(keys, hashFunctionFactories);
-        INormalizedKeyComputerFactory normalizedKeyFactory = JobGenHelper.variablesToAscNormalizedKeyComputerFactory(
-                gbyCols, aggOpInputEnv, context);
-        ExternalGroupOperatorDescriptor gbyOpDesc = new ExternalGroupOperatorDescriptor(spec, keyAndDecFields,
-                frameLimit, comparatorFactories, normalizedKeyFactory, aggregatorFactory, mergeFactory,
-                recordDescriptor, new HashSpillableTableFactory(tpcf, tableSize), false);
+        IBinaryHashFunctionFamily[] hashFunctionFamilies = hybridHash ? JobGenHelper
+                .variablesToBinaryHashFunctionFamilies(gbyCols, aggOpInputEnv, context) : null;
+        if (hashFunctionFamilies != null) {
+            for (IBinaryHashFunctionFamily family : hashFunctionFamilies) {
+                if (family == null) {
+                    hashFunctionFamilies = null;
+                    break;
+                }
+            }
+        }
+        AbstractOperatorDescriptor gbyOpDesc;
+        if (hashFunctionFamilies != null) {
+            gbyOpDesc = new HybridHashGroupOperatorDescriptor(spec, keyAndDecFields, frameLimit, tableSize,
+                    comparatorFactories, hashFunctionFamilies, aggregatorFactory, mergeFactory, recordDescriptor);
+        } else {
+            ITuplePartitionComputerFactory tpcf = new FieldHashPartitionComputerFactory(keys, hashFunctionFactories);
+            INormalizedKeyComputerFactory normalizedKeyFactory = JobGenHelper
+                    .variablesToAscNormalizedKeyComputerFactory(gbyCols, aggOpInputEnv, context);
+            gbyOpDesc = new ExternalGroupOperatorDescriptor(spec, keyAndDecFields, frameLimit, comparatorFactories,
+                    normalizedKeyFactory, aggregatorFactory, mergeFactory, recordDescriptor,
+                    new HashSpillableTableFactory(tpcf, tableSize), false);
+        }
 
         contributeOpDesc(builder, gby, gbyOpDesc);
         ILogicalOperator src = op.getInputs().get(0).getValue();
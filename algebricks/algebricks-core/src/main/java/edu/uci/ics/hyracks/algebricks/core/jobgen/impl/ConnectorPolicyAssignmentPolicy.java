@@ -18,19 +18,22 @@ import edu.uci.ics.hyracks.api.dataflow.IConnectorDescriptor;
 import edu.uci.ics.hyracks.api.dataflow.connectors.IConnectorPolicy;
 import edu.uci.ics.hyracks.api.dataflow.connectors.IConnectorPolicyAssignmentPolicy;
 import edu.uci.ics.hyracks.api.dataflow.connectors.PipeliningConnectorPolicy;
-import edu.uci.ics.hyracks.api.dataflow.connectors.SendSideMaterializedPipeliningConnectorPolicy;
+import edu.uci.ics.hyracks.api.dataflow.connectors.SendSideSpillingPipeliningConnectorPolicy;
 import edu.uci.ics.hyracks.dataflow.std.connectors.MToNPartitioningMergingConnectorDescriptor;
 
 public class ConnectorPolicyAssignmentPolicy implements IConnectorPolicyAssignmentPolicy {
     private static final long serialVersionUID = 1L;
-    private IConnectorPolicy senderSideMaterializePolicy = new SendSideMaterializedPipeliningConnectorPolicy();
+    /**
+     * The frames a sender of a merging connector may buffer in memory, shared by its partitions to all consumers.
+     */
+    private static final int SENDER_MEMORY_FRAMES = SendSideSpillingPipeliningConnectorPolicy.DEFAULT_MEMORY_FRAMES;
     private IConnectorPolicy pipeliningPolicy = new PipeliningConnectorPolicy();
 
     @Override
     public IConnectorPolicy getConnectorPolicyAssignment(IConnectorDescriptor c, int nProducers, int nConsumers,
             int[] fanouts) {
         if (c instanceof MToNPartitioningMergingConnectorDescriptor) {
-            return senderSideMaterializePolicy;
+            return new SendSideSpillingPipeliningConnectorPolicy(Math.max(1, SENDER_MEMORY_FRAMES / nConsumers));
         } else {
             return pipeliningPolicy;
         }
@@ -26,6 +26,7 @@ public class PhysicalOptimizationConfig {
     private static final String MAX_FRAMES_HYBRID_HASH = "MAX_FRAMES_HYBRID_HASH";
     private static final String FUDGE_FACTOR = "FUDGE_FACTOR";
     private static final String MAX_RECORDS_PER_FRAME = "MAX_RECORDS_PER_FRAME";
+    private static final String HYBRID_HASH_GROUP_BY = "HYBRID_HASH_GROUP_BY";
     
     private static final String DEFAULT_HASH_GROUP_TABLE_SIZE = "DEFAULT_HASH_GROUP_TABLE_SIZE";
     private static final String DEFAULT_EXTERNAL_GROUP_TABLE_SIZE = "DEFAULT_EXTERNAL_GROUP_TABLE_SIZE";
@@ -96,6 +97,18 @@ public class PhysicalOptimizationConfig {
         setInt(MAX_FRAMES_EXTERNAL_GROUP_BY, frameLimit);
     }
     
+    /**
+     * @return whether the external group-by partitions by hash and spills only victim partitions, instead of
+     *         spilling sorted runs and merging them
+     */
+    public boolean isHybridHashGroupBy() {
+        return getBoolean(HYBRID_HASH_GROUP_BY, false);
+    }
+
+    public void setHybridHashGroupBy(boolean hybridHash) {
+        setBoolean(HYBRID_HASH_GROUP_BY, hybridHash);
+    }
+
     public int getMaxFramesExternalSort() {
         int frameSize = getFrameSize();
         return getInt(MAX_FRAMES_EXTERNAL_SORT, (int) (((long) 32 * MB) / frameSize));
@@ -153,4 +166,16 @@ public class PhysicalOptimizationConfig {
             return Double.parseDouble(value);
     }
 
+    private void setBoolean(String property, boolean value) {
+        properties.setProperty(property, Boolean.toString(value));
+    }
+
+    private boolean getBoolean(String property, boolean defaultValue) {
+        String value = properties.getProperty(property);
+        if (value == null)
+            return defaultValue;
+        else
+            return Boolean.parseBoolean(value);
+    }
+
 }
@@ -16,6 +16,7 @@ package edu.uci.ics.hyracks.api.application;
 
 import edu.uci.ics.hyracks.api.context.IHyracksRootContext;
 import edu.uci.ics.hyracks.api.lifecycle.ILifeCycleComponentManager;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
 import edu.uci.ics.hyracks.api.resources.memory.IMemoryManager;
 
 /**
@@ -67,6 +68,13 @@ public interface INCApplicationContext extends IApplicationContext {
      */
     public IMemoryManager getMemoryManager();
 
+    /**
+     * Get the memory budget shared by the bloom filters of the indexes at the node.
+     * 
+     * @return Bloom Filter Memory Budget
+     */
+    public BloomFilterMemoryBudget getBloomFilterMemoryBudget();
+
     /**
      * Set the handler for state dumps.
      * 
@@ -24,6 +24,7 @@ import edu.uci.ics.hyracks.api.dataset.ResultSetId;
 import edu.uci.ics.hyracks.api.deployment.DeploymentId;
 import edu.uci.ics.hyracks.api.job.JobFlag;
 import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 
 public class HyracksClientInterfaceFunctions {
     public enum FunctionId {
@@ -41,7 +42,10 @@ public class HyracksClientInterfaceFunctions {
         GET_NODE_CONTROLLERS_INFO,
         CLI_DEPLOY_BINARY,
         CLI_UNDEPLOY_BINARY,
-        CLUSTER_SHUTDOWN
+        CLUSTER_SHUTDOWN,
+        PREPARE_JOB,
+        START_PREPARED_JOB,
+        DESTROY_PREPARED_JOB
     }
 
     public abstract static class Function implements Serializable {
@@ -290,4 +294,79 @@ public class HyracksClientInterfaceFunctions {
         }
     }
 
+    public static class PrepareJobFunction extends Function {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] acggfBytes;
+        private final EnumSet<JobFlag> jobFlags;
+        private final DeploymentId deploymentId;
+
+        public PrepareJobFunction(DeploymentId deploymentId, byte[] acggfBytes, EnumSet<JobFlag> jobFlags) {
+            this.acggfBytes = acggfBytes;
+            this.jobFlags = jobFlags;
+            this.deploymentId = deploymentId;
+        }
+
+        @Override
+        public FunctionId getFunctionId() {
+            return FunctionId.PREPARE_JOB;
+        }
+
+        public byte[] getACGGFBytes() {
+            return acggfBytes;
+        }
+
+        public EnumSet<JobFlag> getJobFlags() {
+            return jobFlags;
+        }
+
+        public DeploymentId getDeploymentId() {
+            return deploymentId;
+        }
+    }
+
+    public static class StartPreparedJobFunction extends Function {
+        private static final long serialVersionUID = 1L;
+
+        private final PreparedJobId preparedJobId;
+        private final byte[] jobParameters;
+
+        public StartPreparedJobFunction(PreparedJobId preparedJobId, byte[] jobParameters) {
+            this.preparedJobId = preparedJobId;
+            this.jobParameters = jobParameters;
+        }
+
+        @Override
+        public FunctionId getFunctionId() {
+            return FunctionId.START_PREPARED_JOB;
+        }
+
+        public PreparedJobId getPreparedJobId() {
+            return preparedJobId;
+        }
+
+        public byte[] getJobParameters() {
+            return jobParameters;
+        }
+    }
+
+    public static class DestroyPreparedJobFunction extends Function {
+        private static final long serialVersionUID = 1L;
+
+        private final PreparedJobId preparedJobId;
+
+        public DestroyPreparedJobFunction(PreparedJobId preparedJobId) {
+            this.preparedJobId = preparedJobId;
+        }
+
+        @Override
+        public FunctionId getFunctionId() {
+            return FunctionId.DESTROY_PREPARED_JOB;
+        }
+
+        public PreparedJobId getPreparedJobId() {
+            return preparedJobId;
+        }
+    }
+
 }
\ No newline at end of file
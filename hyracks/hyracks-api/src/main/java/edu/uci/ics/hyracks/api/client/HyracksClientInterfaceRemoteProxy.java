@@ -25,6 +25,7 @@ import edu.uci.ics.hyracks.api.job.JobFlag;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobInfo;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.topology.ClusterTopology;
 import edu.uci.ics.hyracks.ipc.api.IIPCHandle;
 import edu.uci.ics.hyracks.ipc.api.RPCInterface;
@@ -67,6 +68,28 @@ public class HyracksClientInterfaceRemoteProxy implements IHyracksClientInterfac
         return (JobId) rpci.call(ipcHandle, sjf);
     }
 
+    @Override
+    public PreparedJobId prepareJob(DeploymentId deploymentId, byte[] acggfBytes, EnumSet<JobFlag> jobFlags)
+            throws Exception {
+        HyracksClientInterfaceFunctions.PrepareJobFunction pjf = new HyracksClientInterfaceFunctions.PrepareJobFunction(
+                deploymentId, acggfBytes, jobFlags);
+        return (PreparedJobId) rpci.call(ipcHandle, pjf);
+    }
+
+    @Override
+    public JobId startJob(PreparedJobId preparedJobId, byte[] jobParameters) throws Exception {
+        HyracksClientInterfaceFunctions.StartPreparedJobFunction spjf = new HyracksClientInterfaceFunctions.StartPreparedJobFunction(
+                preparedJobId, jobParameters);
+        return (JobId) rpci.call(ipcHandle, spjf);
+    }
+
+    @Override
+    public void destroyPreparedJob(PreparedJobId preparedJobId) throws Exception {
+        HyracksClientInterfaceFunctions.DestroyPreparedJobFunction dpjf = new HyracksClientInterfaceFunctions.DestroyPreparedJobFunction(
+                preparedJobId);
+        rpci.call(ipcHandle, dpjf);
+    }
+
     @Override
     public NetworkAddress getDatasetDirectoryServiceInfo() throws Exception {
         HyracksClientInterfaceFunctions.GetDatasetDirectoryServiceInfoFunction gddsf = new HyracksClientInterfaceFunctions.GetDatasetDirectoryServiceInfoFunction();
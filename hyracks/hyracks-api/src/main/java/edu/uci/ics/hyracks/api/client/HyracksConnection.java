@@ -39,6 +39,7 @@ import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobInfo;
 import edu.uci.ics.hyracks.api.job.JobSpecification;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.topology.ClusterTopology;
 import edu.uci.ics.hyracks.api.util.JavaSerializationUtils;
 import edu.uci.ics.hyracks.ipc.api.IIPCHandle;
@@ -178,6 +179,34 @@ public final class HyracksConnection implements IHyracksClientConnection {
         return hci.startJob(deploymentId, JavaSerializationUtils.serialize(acggf), jobFlags);
     }
 
+    @Override
+    public PreparedJobId prepareJob(JobSpecification jobSpec) throws Exception {
+        return prepareJob(jobSpec, EnumSet.noneOf(JobFlag.class));
+    }
+
+    @Override
+    public PreparedJobId prepareJob(JobSpecification jobSpec, EnumSet<JobFlag> jobFlags) throws Exception {
+        return prepareJob(null, jobSpec, jobFlags);
+    }
+
+    @Override
+    public PreparedJobId prepareJob(DeploymentId deploymentId, JobSpecification jobSpec, EnumSet<JobFlag> jobFlags)
+            throws Exception {
+        JobSpecificationActivityClusterGraphGeneratorFactory jsacggf = new JobSpecificationActivityClusterGraphGeneratorFactory(
+                jobSpec);
+        return hci.prepareJob(deploymentId, JavaSerializationUtils.serialize(jsacggf), jobFlags);
+    }
+
+    @Override
+    public JobId startJob(PreparedJobId preparedJobId, byte[] jobParameters) throws Exception {
+        return hci.startJob(preparedJobId, jobParameters);
+    }
+
+    @Override
+    public void destroyPreparedJob(PreparedJobId preparedJobId) throws Exception {
+        hci.destroyPreparedJob(preparedJobId);
+    }
+
     @Override
     public JobInfo getJobInfo(JobId jobId) throws Exception {
         return hci.getJobInfo(jobId);
@@ -26,6 +26,7 @@ import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobInfo;
 import edu.uci.ics.hyracks.api.job.JobSpecification;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.topology.ClusterTopology;
 
 /**
@@ -179,6 +180,64 @@ public interface IHyracksClientConnection {
     public JobId startJob(DeploymentId deploymentId, IActivityClusterGraphGeneratorFactory acggf,
             EnumSet<JobFlag> jobFlags) throws Exception;
 
+    /**
+     * Prepares the specified Job, so that it can be started many times without shipping and planning it again.
+     * 
+     * @param jobSpec
+     *            Job Specification
+     * @return the id to start the prepared job with
+     * @throws Exception
+     */
+    public PreparedJobId prepareJob(JobSpecification jobSpec) throws Exception;
+
+    /**
+     * Prepares the specified Job, so that it can be started many times without shipping and planning it again.
+     * 
+     * @param jobSpec
+     *            Job Specification
+     * @param jobFlags
+     *            Flags, which apply to every run of the prepared job
+     * @return the id to start the prepared job with
+     * @throws Exception
+     */
+    public PreparedJobId prepareJob(JobSpecification jobSpec, EnumSet<JobFlag> jobFlags) throws Exception;
+
+    /**
+     * Prepares the specified Job, so that it can be started many times without shipping and planning it again.
+     * 
+     * @param deploymentId
+     *            the id of the specific deployment
+     * @param jobSpec
+     *            Job Specification
+     * @param jobFlags
+     *            Flags, which apply to every run of the prepared job
+     * @return the id to start the prepared job with
+     * @throws Exception
+     */
+    public PreparedJobId prepareJob(DeploymentId deploymentId, JobSpecification jobSpec, EnumSet<JobFlag> jobFlags)
+            throws Exception;
+
+    /**
+     * Starts a run of a prepared Job.
+     * 
+     * @param preparedJobId
+     *            the id returned by {@link #prepareJob(JobSpecification)}
+     * @param jobParameters
+     *            parameters of this run, available to the operators through
+     *            {@link edu.uci.ics.hyracks.api.context.IHyracksJobletContext#getJobParameters()}; may be null
+     * @throws Exception
+     */
+    public JobId startJob(PreparedJobId preparedJobId, byte[] jobParameters) throws Exception;
+
+    /**
+     * Removes a prepared Job from the cluster. Runs that were already started are not affected.
+     * 
+     * @param preparedJobId
+     *            the id returned by {@link #prepareJob(JobSpecification)}
+     * @throws Exception
+     */
+    public void destroyPreparedJob(PreparedJobId preparedJobId) throws Exception;
+
     /**
      * Shuts down all NCs and then the CC.
      */
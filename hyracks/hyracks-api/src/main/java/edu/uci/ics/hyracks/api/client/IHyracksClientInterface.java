@@ -25,6 +25,7 @@ import edu.uci.ics.hyracks.api.job.JobFlag;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobInfo;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.topology.ClusterTopology;
 
 public interface IHyracksClientInterface {
@@ -52,4 +53,11 @@ public interface IHyracksClientInterface {
 
     public void stopCluster() throws Exception;
 
+    public PreparedJobId prepareJob(DeploymentId deploymentId, byte[] acggfBytes, EnumSet<JobFlag> jobFlags)
+            throws Exception;
+
+    public JobId startJob(PreparedJobId preparedJobId, byte[] jobParameters) throws Exception;
+
+    public void destroyPreparedJob(PreparedJobId preparedJobId) throws Exception;
+
 }
\ No newline at end of file
@@ -86,6 +86,9 @@ public class JobSpecificationActivityClusterGraphGeneratorFactory implements IAc
             @Override
             public void visit(IOperatorDescriptor op) {
                 op.contributeSchedulingConstraints(acceptor, ccAppCtx);
+                if (op.getRequiredMemoryFrames() > 0) {
+                    acg.getRequiredMemoryFramesMap().put(op.getOperatorId(), op.getRequiredMemoryFrames());
+                }
             }
         });
         PlanUtils.visit(spec, new IConnectorDescriptorVisitor() {
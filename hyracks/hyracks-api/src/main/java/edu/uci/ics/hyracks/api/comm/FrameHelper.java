@@ -32,7 +32,7 @@ public class FrameHelper {
     }
 
     public static void serializeFrameSize(ByteBuffer outputFrame, int start, byte numberOfMinFrame) {
-        outputFrame.array()[start + FrameConstants.META_DATA_FRAME_COUNT_OFFSET] = (byte) (numberOfMinFrame & 0xff);
+        outputFrame.put(start + FrameConstants.META_DATA_FRAME_COUNT_OFFSET, (byte) (numberOfMinFrame & 0xff));
     }
 
     public static byte deserializeNumOfMinFrame(ByteBuffer frame) {
@@ -40,7 +40,7 @@ public class FrameHelper {
     }
 
     public static byte deserializeNumOfMinFrame(ByteBuffer buffer, int start) {
-        return (byte) (buffer.array()[start + FrameConstants.META_DATA_FRAME_COUNT_OFFSET] & 0xff);
+        return (byte) (buffer.get(start + FrameConstants.META_DATA_FRAME_COUNT_OFFSET) & 0xff);
     }
 
     /**
@@ -69,7 +69,7 @@ public class FrameHelper {
     }
 
     public static void clearRemainingFrame(ByteBuffer buffer, int position) {
-        buffer.array()[position] = 0;
+        buffer.put(position, (byte) 0);
     }
 
     public static boolean hasBeenCleared(ByteBuffer buffer, int position) {
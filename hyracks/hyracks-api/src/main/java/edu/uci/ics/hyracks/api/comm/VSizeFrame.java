@@ -34,9 +34,17 @@ public class VSizeFrame implements IFrame {
     }
 
     public VSizeFrame(IHyracksFrameMgrContext ctx, int frameSize) throws HyracksDataException {
+        this(ctx, frameSize, false);
+    }
+
+    /**
+     * @param output
+     *            whether the frame is an output frame, see {@link IHyracksFrameMgrContext#allocateOutputFrame(int)}
+     */
+    public VSizeFrame(IHyracksFrameMgrContext ctx, int frameSize, boolean output) throws HyracksDataException {
         this.minFrameSize = ctx.getInitialFrameSize();
         this.ctx = ctx;
-        buffer = ctx.allocateFrame(frameSize);
+        buffer = output ? ctx.allocateOutputFrame(frameSize) : ctx.allocateFrame(frameSize);
     }
 
     public ByteBuffer getBuffer() {
@@ -27,6 +27,21 @@ public interface IHyracksFrameMgrContext {
 
     ByteBuffer allocateFrame(int bytes) throws HyracksDataException;
 
+    /**
+     * Allocate a frame that is only filled through the frame appenders and then handed to a sink that never reads it
+     * as an array: a partition writer, which copies it into network or channel buffers or writes it to a file, or a run
+     * file writer. Frames that reach another operator must come from {@link #allocateFrame(int)}, since operators read
+     * frames through {@link ByteBuffer#array()}. If the node runs with direct frames, the frame is off-heap so that
+     * the network and file I/O can write it without another copy. Frames from {@link #allocateFrame(int)} are always
+     * on-heap.
+     *
+     * @param bytes
+     */
+    ByteBuffer allocateOutputFrame(int bytes) throws HyracksDataException;
+
+    /**
+     * Replace a frame by one of the given size. The new frame is off-heap if and only if the old one is.
+     */
     ByteBuffer reallocateFrame(ByteBuffer tobeDeallocate, int newSizeInBytes, boolean copyOldData)
             throws HyracksDataException;
 
@@ -36,4 +51,13 @@ public interface IHyracksFrameMgrContext {
      * @param bytes
      */
     void deallocateFrames(int bytes);
+
+    /**
+     * Return a frame that was obtained through {@link #allocateFrame(int)} or
+     * {@link #reallocateFrame(ByteBuffer, int, boolean)}, so that it can be recycled.
+     * The caller must not keep any reference to the frame afterwards.
+     *
+     * @param frame
+     */
+    void deallocateFrame(ByteBuffer frame);
 }
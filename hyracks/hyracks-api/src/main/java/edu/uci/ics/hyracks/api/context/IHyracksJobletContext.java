@@ -29,6 +29,11 @@ public interface IHyracksJobletContext extends IWorkspaceFileFactory, IDeallocat
 
     public Object getGlobalJobData();
 
+    /**
+     * @return the parameters the job was started with, if it is a run of a prepared job, or null
+     */
+    public byte[] getJobParameters();
+
     public Class<?> loadClass(String className);
 
     public ClassLoader getClassLoader();
@@ -125,6 +125,17 @@ public interface IConnectorDescriptor extends Serializable {
      */
     public void setDisplayName(String displayName);
 
+    /**
+     * Indicate whether the frames sent over the network by this connector are compressed.
+     */
+    public boolean isFrameCompressionEnabled();
+
+    /**
+     * Sets whether the frames sent over the network by this connector are compressed. Compression pays off for
+     * network-bound exchanges of compressible data, and turns itself off while the frames do not compress well.
+     */
+    public void setFrameCompressionEnabled(boolean frameCompressionEnabled);
+
     /**
      * Translate this connector descriptor to JSON.
      * 
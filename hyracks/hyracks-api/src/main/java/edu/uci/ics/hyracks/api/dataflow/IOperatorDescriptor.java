@@ -57,6 +57,14 @@ public interface IOperatorDescriptor extends Serializable {
      */
     public RecordDescriptor[] getOutputRecordDescriptors();
 
+    /**
+     * Gets the memory one partition of this operator works with, such as the sort or hash table budget, which the
+     * cluster controller takes into account when it admits jobs.
+     * 
+     * @return the number of frames, or 0 if the operator only needs a few frames for its inputs and outputs
+     */
+    public int getRequiredMemoryFrames();
+
     /**
      * Contributes the activity graph that describes the behavior of this
      * operator.
@@ -43,6 +43,8 @@ public class ConnectorPolicyFactory {
                 return new SendSideMaterializedReceiveSideMaterializedPipeliningConnectorPolicy();
             case 5:
                 return new SendSidePipeliningReceiveSideMaterializedBlockingConnectorPolicy();
+            case 6:
+                return new SendSideSpillingPipeliningConnectorPolicy(input.readInt());
         }
         return null;
     }
@@ -60,6 +62,9 @@ public class ConnectorPolicyFactory {
             output.writeInt(4);
         } else if (policy instanceof SendSidePipeliningReceiveSideMaterializedBlockingConnectorPolicy) {
             output.writeInt(5);
+        } else if (policy instanceof SendSideSpillingPipeliningConnectorPolicy) {
+            output.writeInt(6);
+            output.writeInt(((SendSideSpillingPipeliningConnectorPolicy) policy).getMemoryFrames());
         }
     }
 
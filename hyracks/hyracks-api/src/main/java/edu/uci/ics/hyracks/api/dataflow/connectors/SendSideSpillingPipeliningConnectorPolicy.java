@@ -0,0 +1,67 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.api.dataflow.connectors;
+
+/**
+ * A pipelining policy whose producers never block on a slow or not yet connected consumer. Each sender partition
+ * keeps up to {@link #getMemoryFrames()} frames in memory and spills the overflow to a run file, which is drained
+ * before the partition returns to forwarding frames from memory. Unlike
+ * {@link SendSideMaterializedPipeliningConnectorPolicy}, nothing is written to disk while the consumer keeps up.
+ */
+public final class SendSideSpillingPipeliningConnectorPolicy implements IConnectorPolicy {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_MEMORY_FRAMES = 32;
+
+    private final int memoryFrames;
+
+    public SendSideSpillingPipeliningConnectorPolicy() {
+        this(DEFAULT_MEMORY_FRAMES);
+    }
+
+    public SendSideSpillingPipeliningConnectorPolicy(int memoryFrames) {
+        if (memoryFrames < 1) {
+            throw new IllegalArgumentException("At least one frame of memory is required: " + memoryFrames);
+        }
+        this.memoryFrames = memoryFrames;
+    }
+
+    /**
+     * @return the number of frames each sender partition buffers in memory before it spills
+     */
+    public int getMemoryFrames() {
+        return memoryFrames;
+    }
+
+    @Override
+    public boolean requiresProducerConsumerCoscheduling() {
+        return false;
+    }
+
+    @Override
+    public boolean consumerWaitsForProducerToFinish() {
+        return false;
+    }
+
+    @Override
+    public boolean materializeOnSendSide() {
+        return true;
+    }
+
+    @Override
+    public boolean materializeOnReceiveSide() {
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.api.dataflow.value;
+
+/**
+ * A normalized key computer that can describe a value with more than one word. The words of two values compare
+ * as unsigned ints, the first word being the most significant, and their order never contradicts the order of the
+ * values. {@link #normalize(byte[], int, int)} still returns a single word for the callers that only use one.
+ */
+public interface IMultiWordNormalizedKeyComputer extends INormalizedKeyComputer {
+    /**
+     * @return the number of words written for every value
+     */
+    public int getWordCount();
+
+    /**
+     * Writes {@link #getWordCount()} words for the value into the given array.
+     */
+    public void normalize(byte[] bytes, int start, int length, int[] words, int offset);
+
+    /**
+     * @return whether two values with equal words always compare as equal, so that the words alone decide their
+     *         order
+     */
+    public boolean isDecisive();
+}
@@ -39,6 +39,13 @@ public interface IIOManager {
 
     public int syncWrite(IFileHandle fHandle, long offset, ByteBuffer data) throws HyracksDataException;
 
+    /**
+     * Writes the remaining bytes of all buffers back to back, starting at the given offset, with gathering writes.
+     *
+     * @return the number of bytes written
+     */
+    public long syncWrite(IFileHandle fHandle, long offset, ByteBuffer[] dataArray) throws HyracksDataException;
+
     public int syncRead(IFileHandle fHandle, long offset, ByteBuffer data) throws HyracksDataException;
 
     public IIOFuture asyncWrite(IFileHandle fHandle, long offset, ByteBuffer data);
@@ -50,4 +57,10 @@ public interface IIOManager {
     public void sync(IFileHandle fileHandle, boolean metadata) throws HyracksDataException;
 
     public void setExecutor(Executor executor);
+
+    /**
+     * @return whether run files created without an explicit format choice should be written compressed and
+     *         checksummed
+     */
+    public boolean isRunFileCompressionEnabled();
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ import org.json.JSONObject;
 import edu.uci.ics.hyracks.api.dataflow.ActivityId;
 import edu.uci.ics.hyracks.api.dataflow.ConnectorDescriptorId;
 import edu.uci.ics.hyracks.api.dataflow.IConnectorDescriptor;
+import edu.uci.ics.hyracks.api.dataflow.OperatorDescriptorId;
 import edu.uci.ics.hyracks.api.dataflow.connectors.IConnectorPolicyAssignmentPolicy;
 
 public class ActivityClusterGraph implements Serializable {
@@ -54,11 +55,14 @@ public class ActivityClusterGraph implements Serializable {
 
     private boolean reportTaskDetails;
 
+    private final Map<OperatorDescriptorId, Integer> requiredMemoryFramesMap;
+
     public ActivityClusterGraph() {
         version = 0;
         activityClusterMap = new HashMap<ActivityClusterId, ActivityCluster>();
         activityMap = new HashMap<ActivityId, ActivityCluster>();
         connectorMap = new HashMap<ConnectorDescriptorId, ActivityCluster>();
+        requiredMemoryFramesMap = new HashMap<OperatorDescriptorId, Integer>();
         frameSize = 32768;
         reportTaskDetails = true;
     }
@@ -148,6 +152,13 @@ public class ActivityClusterGraph implements Serializable {
         this.reportTaskDetails = reportTaskDetails;
     }
 
+    /**
+     * @return the frames each partition of an operator needs, for the operators that declared a memory requirement
+     */
+    public Map<OperatorDescriptorId, Integer> getRequiredMemoryFramesMap() {
+        return requiredMemoryFramesMap;
+    }
+
     public List<IConnectorDescriptor> getActivityInputs(ActivityId activityId) {
         ActivityCluster ac = activityMap.get(activityId);
         return ac.getActivityInputMap().get(activityId);
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.hyracks.api.resources.memory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The memory that the bloom filters of a node controller may hold outside of the buffer cache. A filter that gets a
+ * reservation keeps a copy of its bits in an off-heap buffer while it is active and is probed without pinning pages.
+ * A filter that does not fit falls back to the buffer cache. The node controller creates one instance, which is
+ * shared by all indexes of the node and available through
+ * {@link edu.uci.ics.hyracks.api.application.INCApplicationContext#getBloomFilterMemoryBudget()}; the reservations
+ * are also reported to the node's {@link IMemoryManager} if one is given.
+ */
+public class BloomFilterMemoryBudget {
+    private final long capacity;
+    private final IMemoryManager memoryManager;
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong peakUsed = new AtomicLong();
+    private final AtomicInteger residentFilters = new AtomicInteger();
+    private final AtomicLong rejectedReservations = new AtomicLong();
+
+    public BloomFilterMemoryBudget(long capacity) {
+        this(capacity, null);
+    }
+
+    public BloomFilterMemoryBudget(long capacity, IMemoryManager memoryManager) {
+        this.capacity = capacity;
+        this.memoryManager = memoryManager;
+    }
+
+    /**
+     * @return whether the bytes were reserved. A successful reservation must be returned with {@link #release(long)}.
+     */
+    public boolean reserve(long bytes) {
+        while (true) {
+            long current = used.get();
+            if (current + bytes > capacity) {
+                rejectedReservations.incrementAndGet();
+                return false;
+            }
+            if (used.compareAndSet(current, current + bytes)) {
+                break;
+            }
+        }
+        if (memoryManager != null && !memoryManager.allocate(bytes)) {
+            used.addAndGet(-bytes);
+            rejectedReservations.incrementAndGet();
+            return false;
+        }
+        residentFilters.incrementAndGet();
+        long current = used.get();
+        long peak = peakUsed.get();
+        while (current > peak && !peakUsed.compareAndSet(peak, current)) {
+            peak = peakUsed.get();
+        }
+        return true;
+    }
+
+    public void release(long bytes) {
+        used.addAndGet(-bytes);
+        residentFilters.decrementAndGet();
+        if (memoryManager != null) {
+            memoryManager.deallocate(bytes);
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    public long getPeakUsed() {
+        return peakUsed.get();
+    }
+
+    public int getResidentFilterCount() {
+        return residentFilters.get();
+    }
+
+    /**
+     * @return the number of filters that stayed in the buffer cache because the budget was exhausted
+     */
+    public long getRejectedReservationCount() {
+        return rejectedReservations.get();
+    }
+}
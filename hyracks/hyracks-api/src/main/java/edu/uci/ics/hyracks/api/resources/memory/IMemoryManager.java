@@ -7,5 +7,11 @@ public interface IMemoryManager {
 
     public boolean allocate(long memory);
 
+    /**
+     * Charge memory without checking it against the available memory, for callers whose usage is tracked but not
+     * limited. The available memory may become negative, and is restored by {@link #deallocate(long)}.
+     */
+    public void charge(long memory);
+
     public void deallocate(long memory);
 }
\ No newline at end of file
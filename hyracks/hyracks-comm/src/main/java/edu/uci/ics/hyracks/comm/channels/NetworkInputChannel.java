@@ -33,7 +33,12 @@ import edu.uci.ics.hyracks.net.protocols.muxdemux.ChannelControlBlock;
 public class NetworkInputChannel implements IInputChannel {
     private static final Logger LOGGER = Logger.getLogger(NetworkInputChannel.class.getName());
 
-    static final int INITIAL_MESSAGE_SIZE = 20;
+    static final int INITIAL_MESSAGE_SIZE = 24;
+
+    /**
+     * Flag of the partition request that asks the sender to compress the frames.
+     */
+    public static final int COMPRESS_FLAG = 0x1;
 
     private final IChannelConnectionFactory netManager;
 
@@ -45,6 +50,8 @@ public class NetworkInputChannel implements IInputChannel {
 
     private final int nBuffers;
 
+    private final boolean compress;
+
     private ChannelControlBlock ccb;
 
     private IInputChannelMonitor monitor;
@@ -53,11 +60,21 @@ public class NetworkInputChannel implements IInputChannel {
 
     public NetworkInputChannel(IChannelConnectionFactory netManager, SocketAddress remoteAddress,
             PartitionId partitionId, int nBuffers) {
+        this(netManager, remoteAddress, partitionId, nBuffers, false);
+    }
+
+    /**
+     * @param compress
+     *            - whether to ask the sender to compress the frames
+     */
+    public NetworkInputChannel(IChannelConnectionFactory netManager, SocketAddress remoteAddress,
+            PartitionId partitionId, int nBuffers, boolean compress) {
         this.netManager = netManager;
         this.remoteAddress = remoteAddress;
         this.partitionId = partitionId;
         fullQueue = new ArrayDeque<ByteBuffer>(nBuffers);
         this.nBuffers = nBuffers;
+        this.compress = compress;
     }
 
     @Override
@@ -95,12 +112,14 @@ public class NetworkInputChannel implements IInputChannel {
         }
         ccb.getReadInterface().setFullBufferAcceptor(new ReadFullBufferAcceptor());
         ccb.getWriteInterface().setEmptyBufferAcceptor(new WriteEmptyBufferAcceptor());
+        ccb.getReadInterface().setCompressed(compress);
         ccb.getReadInterface().setBufferFactory(new ReadBufferFactory(nBuffers, ctx), nBuffers, ctx.getInitialFrameSize());
         ByteBuffer writeBuffer = ByteBuffer.allocate(INITIAL_MESSAGE_SIZE);
         writeBuffer.putLong(partitionId.getJobId().getId());
         writeBuffer.putInt(partitionId.getConnectorDescriptorId().getId());
         writeBuffer.putInt(partitionId.getSenderIndex());
         writeBuffer.putInt(partitionId.getReceiverIndex());
+        writeBuffer.putInt(compress ? COMPRESS_FLAG : 0);
         writeBuffer.flip();
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.fine("Sending partition request: " + partitionId + " on channel: " + ccb);
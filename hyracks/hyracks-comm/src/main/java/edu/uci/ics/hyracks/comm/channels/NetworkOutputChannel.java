@@ -21,6 +21,7 @@ import java.util.Deque;
 import edu.uci.ics.hyracks.api.comm.IFrameWriter;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.net.buffers.IBufferAcceptor;
+import edu.uci.ics.hyracks.net.compression.BlockCompressor;
 import edu.uci.ics.hyracks.net.protocols.muxdemux.ChannelControlBlock;
 
 public class NetworkOutputChannel implements IFrameWriter {
@@ -30,6 +31,8 @@ public class NetworkOutputChannel implements IFrameWriter {
 
     private final Deque<ByteBuffer> emptyStack;
 
+    private final BlockCompressor compressor;
+
     private boolean aborted;
 
     private int frameSize = 32768;
@@ -37,10 +40,20 @@ public class NetworkOutputChannel implements IFrameWriter {
     private int allocateCounter = 0;
 
     public NetworkOutputChannel(ChannelControlBlock ccb, int nBuffers) {
+        this(ccb, nBuffers, false);
+    }
+
+    /**
+     * @param compress
+     *            - whether to send the frames as compressed blocks, which the receiver must have asked for
+     */
+    public NetworkOutputChannel(ChannelControlBlock ccb, int nBuffers, boolean compress) {
         this.ccb = ccb;
         this.nBuffers = nBuffers;
         emptyStack = new ArrayDeque<ByteBuffer>(nBuffers);
+        compressor = compress ? new BlockCompressor() : null;
         ccb.getWriteInterface().setEmptyBufferAcceptor(new WriteEmptyBufferAcceptor());
+        ccb.getWriteInterface().setCompressed(compress);
     }
 
     public void setFrameSize(int frameSize) {
@@ -63,7 +76,8 @@ public class NetworkOutputChannel implements IFrameWriter {
                     }
                     destBuffer = emptyStack.poll();
                     if (destBuffer == null && allocateCounter < nBuffers) {
-                        destBuffer = ByteBuffer.allocateDirect(frameSize);
+                        destBuffer = ByteBuffer.allocateDirect(compressor == null ? frameSize : BlockCompressor
+                                .getMaxBlockSize(frameSize));
                         allocateCounter++;
                     }
                     if (destBuffer != null) {
@@ -77,10 +91,18 @@ public class NetworkOutputChannel implements IFrameWriter {
                 }
             }
             buffer.position(startPos);
-            startPos = Math.min(startPos + destBuffer.capacity(), buffer.capacity());
-            buffer.limit(startPos);
-            destBuffer.clear();
-            destBuffer.put(buffer);
+            if (compressor == null) {
+                startPos = Math.min(startPos + destBuffer.capacity(), buffer.capacity());
+                buffer.limit(startPos);
+                destBuffer.clear();
+                destBuffer.put(buffer);
+            } else {
+                startPos = Math.min(startPos + destBuffer.capacity() - BlockCompressor.HEADER_SIZE,
+                        buffer.capacity());
+                buffer.limit(startPos);
+                destBuffer.clear();
+                compressor.compress(buffer, destBuffer);
+            }
             destBuffer.flip();
             ccb.getWriteInterface().getFullBufferAcceptor().accept(destBuffer);
         } while (startPos < buffer.capacity());
@@ -45,17 +45,22 @@ import edu.uci.ics.hyracks.api.deployment.DeploymentId;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobInfo;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.topology.ClusterTopology;
 import edu.uci.ics.hyracks.api.topology.TopologyDefinitionParser;
 import edu.uci.ics.hyracks.control.cc.application.CCApplicationContext;
 import edu.uci.ics.hyracks.control.cc.dataset.DatasetDirectoryService;
 import edu.uci.ics.hyracks.control.cc.dataset.IDatasetDirectoryService;
 import edu.uci.ics.hyracks.control.cc.job.JobRun;
+import edu.uci.ics.hyracks.control.cc.job.PreparedJob;
+import edu.uci.ics.hyracks.control.cc.scheduler.JobAdmissionController;
+import edu.uci.ics.hyracks.control.cc.scheduler.SchedulerStatistics;
 import edu.uci.ics.hyracks.control.cc.web.WebServer;
 import edu.uci.ics.hyracks.control.cc.work.ApplicationMessageWork;
 import edu.uci.ics.hyracks.control.cc.work.CliDeployBinaryWork;
 import edu.uci.ics.hyracks.control.cc.work.CliUnDeployBinaryWork;
 import edu.uci.ics.hyracks.control.cc.work.ClusterShutdownWork;
+import edu.uci.ics.hyracks.control.cc.work.DestroyPreparedJobWork;
 import edu.uci.ics.hyracks.control.cc.work.GatherStateDumpsWork.StateDumpRun;
 import edu.uci.ics.hyracks.control.cc.work.GetDatasetDirectoryServiceInfoWork;
 import edu.uci.ics.hyracks.control.cc.work.GetIpAddressNodeNameMapWork;
@@ -66,10 +71,12 @@ import edu.uci.ics.hyracks.control.cc.work.GetResultPartitionLocationsWork;
 import edu.uci.ics.hyracks.control.cc.work.GetResultStatusWork;
 import edu.uci.ics.hyracks.control.cc.work.JobStartWork;
 import edu.uci.ics.hyracks.control.cc.work.JobletCleanupNotificationWork;
+import edu.uci.ics.hyracks.control.cc.work.JobletCompleteWork;
 import edu.uci.ics.hyracks.control.cc.work.NodeHeartbeatWork;
 import edu.uci.ics.hyracks.control.cc.work.NotifyDeployBinaryWork;
 import edu.uci.ics.hyracks.control.cc.work.NotifyShutdownWork;
 import edu.uci.ics.hyracks.control.cc.work.NotifyStateDumpResponse;
+import edu.uci.ics.hyracks.control.cc.work.PrepareJobWork;
 import edu.uci.ics.hyracks.control.cc.work.RegisterNodeWork;
 import edu.uci.ics.hyracks.control.cc.work.RegisterPartitionAvailibilityWork;
 import edu.uci.ics.hyracks.control.cc.work.RegisterPartitionRequestWork;
@@ -146,6 +153,14 @@ public class ClusterControllerService extends AbstractRemoteService {
 
     private final Map<DeploymentId, DeploymentRun> deploymentRunMap;
 
+    private final Map<PreparedJobId, PreparedJob> preparedJobMap;
+
+    private long preparedJobCounter;
+
+    private final SchedulerStatistics schedulerStatistics;
+
+    private final JobAdmissionController jobAdmissionController;
+
     private final Map<String, StateDumpRun> stateDumpRunMap;
 
     private ShutdownRun shutdownCallback;
@@ -181,7 +196,7 @@ public class ClusterControllerService extends AbstractRemoteService {
                 return size() > allowedSize;
             }
         };
-        workQueue = new WorkQueue();
+        workQueue = new WorkQueue(ccConfig.jobWorkQueueThreads);
         this.timer = new Timer(true);
         final ClusterTopology topology = computeClusterTopology(ccConfig);
         ccContext = new ICCContext() {
@@ -206,6 +221,10 @@ public class ClusterControllerService extends AbstractRemoteService {
         jobCounter = 0;
 
         deploymentRunMap = new HashMap<DeploymentId, DeploymentRun>();
+        preparedJobMap = new HashMap<PreparedJobId, PreparedJob>();
+        preparedJobCounter = 0;
+        schedulerStatistics = new SchedulerStatistics();
+        jobAdmissionController = new JobAdmissionController(this);
         stateDumpRunMap = new HashMap<>();
     }
 
@@ -319,6 +338,22 @@ public class ClusterControllerService extends AbstractRemoteService {
         return new JobId(jobCounter++);
     }
 
+    public PreparedJobId createPreparedJobId() {
+        return new PreparedJobId(preparedJobCounter++);
+    }
+
+    public Map<PreparedJobId, PreparedJob> getPreparedJobMap() {
+        return preparedJobMap;
+    }
+
+    public SchedulerStatistics getSchedulerStatistics() {
+        return schedulerStatistics;
+    }
+
+    public JobAdmissionController getJobAdmissionController() {
+        return jobAdmissionController;
+    }
+
     public ClusterControllerInfo getClusterControllerInfo() {
         return info;
     }
@@ -382,6 +417,28 @@ public class ClusterControllerService extends AbstractRemoteService {
                     return;
                 }
 
+                case PREPARE_JOB: {
+                    HyracksClientInterfaceFunctions.PrepareJobFunction pjf = (HyracksClientInterfaceFunctions.PrepareJobFunction) fn;
+                    workQueue.schedule(new PrepareJobWork(ClusterControllerService.this, pjf.getDeploymentId(), pjf
+                            .getACGGFBytes(), pjf.getJobFlags(), new IPCResponder<PreparedJobId>(handle, mid)));
+                    return;
+                }
+
+                case START_PREPARED_JOB: {
+                    HyracksClientInterfaceFunctions.StartPreparedJobFunction spjf = (HyracksClientInterfaceFunctions.StartPreparedJobFunction) fn;
+                    JobId jobId = createJobId();
+                    workQueue.schedule(new JobStartWork(ClusterControllerService.this, spjf.getPreparedJobId(), spjf
+                            .getJobParameters(), jobId, new IPCResponder<JobId>(handle, mid)));
+                    return;
+                }
+
+                case DESTROY_PREPARED_JOB: {
+                    HyracksClientInterfaceFunctions.DestroyPreparedJobFunction dpjf = (HyracksClientInterfaceFunctions.DestroyPreparedJobFunction) fn;
+                    workQueue.schedule(new DestroyPreparedJobWork(ClusterControllerService.this, dpjf
+                            .getPreparedJobId(), new IPCResponder<PreparedJobId>(handle, mid)));
+                    return;
+                }
+
                 case GET_DATASET_DIRECTORY_SERIVICE_INFO: {
                     workQueue.schedule(new GetDatasetDirectoryServiceInfoWork(ClusterControllerService.this,
                             new IPCResponder<NetworkAddress>(handle, mid)));
@@ -503,6 +560,12 @@ public class ClusterControllerService extends AbstractRemoteService {
                             .getTaskId(), ntcf.getNodeId(), ntcf.getStatistics()));
                     return;
                 }
+                case NOTIFY_JOBLET_COMPLETE: {
+                    CCNCFunctions.NotifyJobletCompleteFunction njcf = (CCNCFunctions.NotifyJobletCompleteFunction) fn;
+                    workQueue.schedule(new JobletCompleteWork(ClusterControllerService.this, njcf.getJobId(), njcf
+                            .getNodeId(), njcf.getTaskProfiles()));
+                    return;
+                }
                 case NOTIFY_TASK_FAILURE: {
                     CCNCFunctions.NotifyTaskFailureFunction ntff = (CCNCFunctions.NotifyTaskFailureFunction) fn;
                     workQueue.schedule(new TaskFailureWork(ClusterControllerService.this, ntff.getJobId(), ntff
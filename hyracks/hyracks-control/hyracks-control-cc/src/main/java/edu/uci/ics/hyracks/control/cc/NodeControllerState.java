@@ -14,10 +14,11 @@
  */
 package edu.uci.ics.hyracks.control.cc;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -131,6 +132,10 @@ public class NodeControllerState {
 
     private int rrdPtr;
 
+    private long jobMemoryMaxSize;
+
+    private long jobMemoryAvailableSize;
+
     private int lastHeartbeatDuration;
 
     public NodeControllerState(INodeController nodeController, NodeRegistration reg) {
@@ -138,7 +143,7 @@ public class NodeControllerState {
         ncConfig = reg.getNCConfig();
         dataPort = reg.getDataPort();
         datasetPort = reg.getDatasetPort();
-        activeJobIds = new HashSet<JobId>();
+        activeJobIds = Collections.newSetFromMap(new ConcurrentHashMap<JobId, Boolean>());
 
         osName = reg.getOSName();
         arch = reg.getArch();
@@ -228,6 +233,8 @@ public class NodeControllerState {
             ipcMessageBytesReceived[rrdPtr] = hbData.ipcMessageBytesReceived;
             diskReads[rrdPtr] = hbData.diskReads;
             diskWrites[rrdPtr] = hbData.diskWrites;
+            jobMemoryMaxSize = hbData.jobMemoryMaxSize;
+            jobMemoryAvailableSize = hbData.jobMemoryAvailableSize;
             rrdPtr = (rrdPtr + 1) % RRD_SIZE;
         }
     }
@@ -260,6 +267,17 @@ public class NodeControllerState {
         return datasetPort;
     }
 
+    /**
+     * @return the memory the node makes available to jobs, as of the last heartbeat, or 0 if unknown
+     */
+    public long getJobMemoryMaxSize() {
+        return jobMemoryMaxSize;
+    }
+
+    public long getJobMemoryAvailableSize() {
+        return jobMemoryAvailableSize;
+    }
+
     public JSONObject toSummaryJSON() throws JSONException {
         JSONObject o = new JSONObject();
         o.put("node-id", ncConfig.nodeId);
@@ -314,6 +332,8 @@ public class NodeControllerState {
         o.put("ipc-message-bytes-received", ipcMessageBytesReceived);
         o.put("disk-reads", diskReads);
         o.put("disk-writes", diskWrites);
+        o.put("job-memory-max-size", jobMemoryMaxSize);
+        o.put("job-memory-available-size", jobMemoryAvailableSize);
 
         return o;
     }
@@ -31,6 +31,7 @@ import org.json.JSONObject;
 import edu.uci.ics.hyracks.api.dataflow.ActivityId;
 import edu.uci.ics.hyracks.api.dataflow.ConnectorDescriptorId;
 import edu.uci.ics.hyracks.api.dataflow.OperatorDescriptorId;
+import edu.uci.ics.hyracks.api.dataflow.TaskAttemptId;
 import edu.uci.ics.hyracks.api.dataflow.TaskId;
 import edu.uci.ics.hyracks.api.dataflow.connectors.IConnectorPolicy;
 import edu.uci.ics.hyracks.api.deployment.DeploymentId;
@@ -91,8 +92,25 @@ public class JobRun implements IJobStatusConditionVariable {
 
     private Map<OperatorDescriptorId, Map<Integer, String>> operatorLocations;
 
+    private final PreparedJob preparedJob;
+
+    private final byte[] jobParameters;
+
+    private final long createNanoTime;
+
     public JobRun(ClusterControllerService ccs, DeploymentId deploymentId, JobId jobId,
             IActivityClusterGraphGenerator acgg, EnumSet<JobFlag> jobFlags) {
+        this(ccs, deploymentId, jobId, acgg, jobFlags, null, null);
+    }
+
+    public JobRun(ClusterControllerService ccs, JobId jobId, PreparedJob preparedJob, byte[] jobParameters) {
+        this(ccs, preparedJob.getDeploymentId(), jobId, preparedJob.createActivityClusterGraphGenerator(),
+                preparedJob.getJobFlags(), preparedJob, jobParameters);
+    }
+
+    private JobRun(ClusterControllerService ccs, DeploymentId deploymentId, JobId jobId,
+            IActivityClusterGraphGenerator acgg, EnumSet<JobFlag> jobFlags, PreparedJob preparedJob,
+            byte[] jobParameters) {
         this.deploymentId = deploymentId;
         this.jobId = jobId;
         this.acgg = acgg;
@@ -106,6 +124,10 @@ public class JobRun implements IJobStatusConditionVariable {
         profile = new JobProfile(jobId);
         connectorPolicyMap = new HashMap<ConnectorDescriptorId, IConnectorPolicy>();
         operatorLocations = new HashMap<OperatorDescriptorId, Map<Integer, String>>();
+        this.preparedJob = preparedJob;
+        this.jobParameters = jobParameters;
+        createTime = System.currentTimeMillis();
+        createNanoTime = System.nanoTime();
     }
 
     public DeploymentId getDeploymentId() {
@@ -128,6 +150,41 @@ public class JobRun implements IJobStatusConditionVariable {
         return activityClusterPlanMap;
     }
 
+    /**
+     * @return the prepared job this is a run of, or null if the job was submitted on its own
+     */
+    public PreparedJob getPreparedJob() {
+        return preparedJob;
+    }
+
+    public byte[] getJobParameters() {
+        return jobParameters;
+    }
+
+    /**
+     * @return the task attempt with the given id, or null if the task or the attempt is unknown
+     */
+    public TaskAttempt findTaskAttempt(TaskAttemptId taId) {
+        TaskId tid = taId.getTaskId();
+        ActivityCluster ac = acg.getActivityMap().get(tid.getActivityId());
+        if (ac == null) {
+            return null;
+        }
+        ActivityClusterPlan acp = activityClusterPlanMap.get(ac.getId());
+        if (acp == null) {
+            return null;
+        }
+        Task[] taskStates = acp.getActivityPlanMap().get(tid.getActivityId()).getTasks();
+        if (taskStates == null || taskStates.length <= tid.getPartition()) {
+            return null;
+        }
+        List<TaskClusterAttempt> taskClusterAttempts = taskStates[tid.getPartition()].getTaskCluster().getAttempts();
+        if (taskClusterAttempts == null || taskClusterAttempts.size() <= taId.getAttempt()) {
+            return null;
+        }
+        return taskClusterAttempts.get(taId.getAttempt()).getTaskAttempts().get(tid);
+    }
+
     public PartitionMatchMaker getPartitionMatchMaker() {
         return pmm;
     }
@@ -163,6 +220,13 @@ public class JobRun implements IJobStatusConditionVariable {
         return createTime;
     }
 
+    /**
+     * @return the {@link System#nanoTime()} at which the run was created
+     */
+    public long getCreateNanoTime() {
+        return createNanoTime;
+    }
+
     public void setCreateTime(long createTime) {
         this.createTime = createTime;
     }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.cc.job;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.uci.ics.hyracks.api.constraints.Constraint;
+import edu.uci.ics.hyracks.api.deployment.DeploymentId;
+import edu.uci.ics.hyracks.api.job.ActivityClusterGraph;
+import edu.uci.ics.hyracks.api.job.IActivityClusterGraphGenerator;
+import edu.uci.ics.hyracks.api.job.IActivityClusterGraphGeneratorFactory;
+import edu.uci.ics.hyracks.api.job.JobFlag;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
+
+/**
+ * A job whose activity cluster graph was built once and is shared by all of its runs. The graph is also kept in
+ * serialized form, and the node controllers cache it after the first run that starts tasks on them, so later runs
+ * ship neither the job specification nor the plan.
+ */
+public class PreparedJob {
+    private final PreparedJobId preparedJobId;
+
+    private final DeploymentId deploymentId;
+
+    private final IActivityClusterGraphGeneratorFactory acggf;
+
+    private final EnumSet<JobFlag> jobFlags;
+
+    private final ActivityClusterGraph acg;
+
+    private final Set<Constraint> constraints;
+
+    private final byte[] acgBytes;
+
+    private final Set<String> cachingNodeIds;
+
+    private boolean destroyed;
+
+    public PreparedJob(PreparedJobId preparedJobId, DeploymentId deploymentId,
+            IActivityClusterGraphGeneratorFactory acggf, EnumSet<JobFlag> jobFlags, ActivityClusterGraph acg,
+            Set<Constraint> constraints, byte[] acgBytes) {
+        this.preparedJobId = preparedJobId;
+        this.deploymentId = deploymentId;
+        this.acggf = acggf;
+        this.jobFlags = jobFlags;
+        this.acg = acg;
+        this.constraints = constraints;
+        this.acgBytes = acgBytes;
+        cachingNodeIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+
+    public PreparedJobId getPreparedJobId() {
+        return preparedJobId;
+    }
+
+    public DeploymentId getDeploymentId() {
+        return deploymentId;
+    }
+
+    public IActivityClusterGraphGeneratorFactory getActivityClusterGraphGeneratorFactory() {
+        return acggf;
+    }
+
+    public EnumSet<JobFlag> getJobFlags() {
+        return jobFlags;
+    }
+
+    public byte[] getActivityClusterGraphBytes() {
+        return acgBytes;
+    }
+
+    /**
+     * @return the nodes that have the activity cluster graph of this job in their cache
+     */
+    public Set<String> getCachingNodeIds() {
+        return cachingNodeIds;
+    }
+
+    /**
+     * Mark the job destroyed. Runs that are still in progress then send the plan with their tasks as for a job that is
+     * not prepared, since the node caches are being dropped.
+     *
+     * @return the nodes that have to drop the plan from their cache
+     */
+    public synchronized Set<String> destroy() {
+        destroyed = true;
+        Set<String> nodeIds = new HashSet<String>(cachingNodeIds);
+        cachingNodeIds.clear();
+        return nodeIds;
+    }
+
+    public synchronized boolean isDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * @return a generator for a new run of this job, which hands out the shared activity cluster graph
+     */
+    public IActivityClusterGraphGenerator createActivityClusterGraphGenerator() {
+        return new IActivityClusterGraphGenerator() {
+            @Override
+            public Set<Constraint> getConstraints() {
+                return constraints;
+            }
+
+            @Override
+            public ActivityClusterGraph initialize() {
+                return acg;
+            }
+        };
+    }
+}
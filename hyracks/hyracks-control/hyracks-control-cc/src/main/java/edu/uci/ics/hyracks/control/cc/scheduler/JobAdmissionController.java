@@ -0,0 +1,246 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.cc.scheduler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import edu.uci.ics.hyracks.api.constraints.expressions.LValueConstraintExpression;
+import edu.uci.ics.hyracks.api.constraints.expressions.PartitionCountExpression;
+import edu.uci.ics.hyracks.api.dataflow.OperatorDescriptorId;
+import edu.uci.ics.hyracks.api.job.ActivityClusterGraph;
+import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
+import edu.uci.ics.hyracks.control.cc.NodeControllerState;
+import edu.uci.ics.hyracks.control.cc.job.JobRun;
+import edu.uci.ics.hyracks.control.cc.work.JobCleanupWork;
+import edu.uci.ics.hyracks.control.common.controllers.CCConfig;
+import edu.uci.ics.hyracks.control.common.job.profiling.counters.LatencyHistogram;
+
+/**
+ * Decides when submitted jobs start. A job is queued while the number of running jobs is at the configured limit, or
+ * while the memory its operators declare ({@link ActivityClusterGraph#getRequiredMemoryFramesMap()}, times the
+ * partition count of each operator) does not fit into the configured fraction of the job memory the node controllers
+ * report, less the memory of the running jobs. A job is always started when no other job runs, so that a job that
+ * does not fit at all still runs, alone.
+ * Queued jobs are started as running jobs finish, in the order of the {@link Policy}.
+ */
+public class JobAdmissionController {
+    private static final Logger LOGGER = Logger.getLogger(JobAdmissionController.class.getName());
+
+    /**
+     * The number of times {@link Policy#BACKFILL} lets later jobs start ahead of the job at the head of the queue.
+     */
+    private static final int MAX_HEAD_BYPASSES = 16;
+
+    public enum Policy {
+        /**
+         * Jobs start in the order they were submitted.
+         */
+        FIFO,
+        /**
+         * Jobs that fit may start ahead of a job at the head of the queue that does not, until that job was passed
+         * {@link JobAdmissionController#MAX_HEAD_BYPASSES} times.
+         */
+        BACKFILL,
+    }
+
+    private final ClusterControllerService ccs;
+
+    private final int maxRunningJobs;
+
+    private final double memoryFraction;
+
+    private final Policy policy;
+
+    private final LinkedList<QueuedJob> queue;
+
+    private final Map<JobId, Long> runningJobMemory;
+
+    private final LatencyHistogram queueLatency;
+
+    private long reservedMemory;
+
+    private int headBypasses;
+
+    private long queuedJobCount;
+
+    public JobAdmissionController(ClusterControllerService ccs) {
+        this.ccs = ccs;
+        CCConfig ccConfig = ccs.getCCConfig();
+        maxRunningJobs = ccConfig.maxRunningJobs;
+        memoryFraction = ccConfig.jobMemoryFraction;
+        policy = Policy.valueOf(ccConfig.jobQueuePolicy.toUpperCase());
+        queue = new LinkedList<QueuedJob>();
+        runningJobMemory = new HashMap<JobId, Long>();
+        queueLatency = new LatencyHistogram("queue");
+    }
+
+    /**
+     * Starts the given job if it is admitted, or queues it otherwise. A queued job stays in the
+     * {@link JobStatus#INITIALIZED} state.
+     */
+    public synchronized void submit(JobRun run) {
+        QueuedJob qj = new QueuedJob(run, computeRequiredMemory(run));
+        if (queue.isEmpty() && isAdmissible(qj.memory)) {
+            start(qj);
+            return;
+        }
+        queue.add(qj);
+        ++queuedJobCount;
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Queueing " + run.getJobId() + " (" + qj.memory + " bytes), " + runningJobMemory.size()
+                    + " jobs running with " + reservedMemory + " bytes, " + queue.size() + " jobs queued");
+        }
+    }
+
+    /**
+     * Releases the admission of a finished job and starts the queued jobs that are admitted now.
+     */
+    public synchronized void notifyJobFinish(JobId jobId) {
+        Long memory = runningJobMemory.remove(jobId);
+        if (memory == null) {
+            return;
+        }
+        reservedMemory -= memory;
+        Iterator<QueuedJob> i = queue.iterator();
+        boolean atHead = true;
+        while (i.hasNext()) {
+            if (maxRunningJobs > 0 && runningJobMemory.size() >= maxRunningJobs) {
+                break;
+            }
+            QueuedJob qj = i.next();
+            if (isAdmissible(qj.memory)) {
+                i.remove();
+                if (atHead) {
+                    headBypasses = 0;
+                } else {
+                    ++headBypasses;
+                }
+                start(qj);
+                continue;
+            }
+            if (policy == Policy.FIFO || headBypasses >= MAX_HEAD_BYPASSES) {
+                break;
+            }
+            atHead = false;
+        }
+    }
+
+    private boolean isAdmissible(long memory) {
+        if (runningJobMemory.isEmpty()) {
+            return true;
+        }
+        if (maxRunningJobs > 0 && runningJobMemory.size() >= maxRunningJobs) {
+            return false;
+        }
+        if (memoryFraction > 0) {
+            long capacity = (long) (getClusterJobMemory() * memoryFraction);
+            if (capacity > 0 && reservedMemory + memory > capacity) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void start(QueuedJob qj) {
+        JobRun run = qj.run;
+        runningJobMemory.put(run.getJobId(), qj.memory);
+        reservedMemory += qj.memory;
+        queueLatency.recordSince(qj.queueTime);
+        run.setStatus(JobStatus.RUNNING, null);
+        try {
+            run.getScheduler().startJob();
+        } catch (Exception e) {
+            ccs.getWorkQueue().schedule(
+                    new JobCleanupWork(ccs, run.getJobId(), JobStatus.FAILURE, Collections.singletonList(e)));
+        }
+    }
+
+    private long computeRequiredMemory(JobRun run) {
+        ActivityClusterGraph acg = run.getActivityClusterGraph();
+        Map<OperatorDescriptorId, Integer> framesMap = acg.getRequiredMemoryFramesMap();
+        if (memoryFraction <= 0 || framesMap.isEmpty()) {
+            return 0;
+        }
+        PartitionConstraintSolver solver = run.getScheduler().getSolver();
+        Set<LValueConstraintExpression> lValues = new HashSet<LValueConstraintExpression>();
+        for (OperatorDescriptorId opId : framesMap.keySet()) {
+            lValues.add(new PartitionCountExpression(opId));
+        }
+        solver.solve(lValues);
+        long memory = 0;
+        for (Map.Entry<OperatorDescriptorId, Integer> e : framesMap.entrySet()) {
+            Object nParts = solver.getValue(new PartitionCountExpression(e.getKey()));
+            int n = nParts instanceof Number ? Math.max(1, ((Number) nParts).intValue()) : 1;
+            memory += (long) e.getValue() * acg.getFrameSize() * n;
+        }
+        return memory;
+    }
+
+    private long getClusterJobMemory() {
+        long memory = 0;
+        for (NodeControllerState ncs : ccs.getNodeMap().values()) {
+            memory += ncs.getJobMemoryMaxSize();
+        }
+        return memory;
+    }
+
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    public synchronized int getRunningJobCount() {
+        return runningJobMemory.size();
+    }
+
+    public synchronized JSONObject toJSON() throws JSONException {
+        JSONObject jo = new JSONObject();
+        jo.put("policy", policy.name());
+        jo.put("max-running-jobs", maxRunningJobs);
+        jo.put("memory-fraction", memoryFraction);
+        jo.put("reserved-memory", reservedMemory);
+        jo.put("running-jobs", runningJobMemory.size());
+        jo.put("queued-jobs", queue.size());
+        jo.put("total-queued-jobs", queuedJobCount);
+        jo.put("queue", queueLatency.toJSON());
+        return jo;
+    }
+
+    private static class QueuedJob {
+        final JobRun run;
+
+        final long memory;
+
+        final long queueTime;
+
+        QueuedJob(JobRun run, long memory) {
+            this.run = run;
+            this.memory = memory;
+            queueTime = System.nanoTime();
+        }
+    }
+}
@@ -15,8 +15,10 @@
 package edu.uci.ics.hyracks.control.cc.scheduler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -47,6 +49,7 @@ import edu.uci.ics.hyracks.api.job.ActivityCluster;
 import edu.uci.ics.hyracks.api.job.ActivityClusterGraph;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.partitions.PartitionId;
 import edu.uci.ics.hyracks.api.util.JavaSerializationUtils;
 import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
@@ -54,6 +57,7 @@ import edu.uci.ics.hyracks.control.cc.NodeControllerState;
 import edu.uci.ics.hyracks.control.cc.application.CCApplicationContext;
 import edu.uci.ics.hyracks.control.cc.job.ActivityClusterPlan;
 import edu.uci.ics.hyracks.control.cc.job.JobRun;
+import edu.uci.ics.hyracks.control.cc.job.PreparedJob;
 import edu.uci.ics.hyracks.control.cc.job.Task;
 import edu.uci.ics.hyracks.control.cc.job.TaskAttempt;
 import edu.uci.ics.hyracks.control.cc.job.TaskCluster;
@@ -76,12 +80,20 @@ public class JobScheduler {
 
     private final Set<TaskCluster> inProgressTaskClusters;
 
+    private final SchedulerStatistics statistics;
+
+    /**
+     * The node that runs all the tasks of the job if it was started as a local job, or null.
+     */
+    private String localNodeId;
+
     public JobScheduler(ClusterControllerService ccs, JobRun jobRun, Collection<Constraint> constraints) {
         this.ccs = ccs;
         this.jobRun = jobRun;
         solver = new PartitionConstraintSolver();
         partitionProducingTaskClusterMap = new HashMap<PartitionId, TaskCluster>();
         inProgressTaskClusters = new HashSet<TaskCluster>();
+        statistics = ccs.getSchedulerStatistics();
         solver.addConstraints(constraints);
     }
 
@@ -94,10 +106,147 @@ public class JobScheduler {
     }
 
     public void startJob() throws HyracksException {
-        startRunnableActivityClusters();
+        if (!startLocalJob()) {
+            startRunnableActivityClusters();
+        }
         ccs.getApplicationContext().notifyJobStart(jobRun.getJobId());
     }
 
+    /**
+     * @return true if all the tasks of the job were shipped to one node at once
+     */
+    public boolean isLocal() {
+        return localNodeId != null;
+    }
+
+    /**
+     * Starts a small job whose tasks can all run on one node with a single message to that node. All the activity
+     * clusters are planned up front and each task is tagged with the depth of its activity cluster in the dependency
+     * graph, so that the node can run the stages in order by itself and report the completion of the whole job once,
+     * instead of exchanging a message per task and a scheduling round per task cluster with the cluster controller.
+     * 
+     * @return false if the job does not qualify, in which case it must be scheduled normally
+     */
+    private boolean startLocalJob() throws HyracksException {
+        int maxTasks = ccs.getCCConfig().localJobMaxTasks;
+        if (maxTasks <= 0) {
+            return false;
+        }
+        Map<ActivityCluster, Integer> stageMap = new HashMap<ActivityCluster, Integer>();
+        for (ActivityCluster ac : jobRun.getActivityClusterGraph().getActivityClusterMap().values()) {
+            planStages(ac, stageMap);
+        }
+        int nTasks = 0;
+        for (ActivityCluster ac : stageMap.keySet()) {
+            for (TaskCluster tc : getActivityClusterPlan(ac).getTaskClusters()) {
+                nTasks += tc.getTasks().length;
+            }
+        }
+        if (nTasks > maxTasks) {
+            return false;
+        }
+        String nodeId = findLocalNode(stageMap.keySet());
+        if (nodeId == null) {
+            return false;
+        }
+        localNodeId = nodeId;
+
+        long startTime = System.nanoTime();
+        List<ActivityCluster> acs = new ArrayList<ActivityCluster>(stageMap.keySet());
+        Collections.sort(acs, new StageComparator(stageMap));
+        Map<String, List<TaskAttemptDescriptor>> taskAttemptMap = new HashMap<String, List<TaskAttemptDescriptor>>();
+        for (ActivityCluster ac : acs) {
+            int stage = stageMap.get(ac);
+            for (TaskCluster tc : getActivityClusterPlan(ac).getTaskClusters()) {
+                List<TaskAttemptDescriptor> tads = taskAttemptMap.get(localNodeId);
+                int nAssigned = tads == null ? 0 : tads.size();
+                assignTaskLocations(tc, taskAttemptMap);
+                tads = taskAttemptMap.get(localNodeId);
+                for (int i = nAssigned; i < tads.size(); ++i) {
+                    tads.get(i).setLocalStage(stage);
+                }
+            }
+        }
+        statistics.getAssignLatency().recordSince(startTime);
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Starting " + jobRun.getJobId() + " as a local job with " + nTasks + " tasks on " + localNodeId);
+        }
+        startTasks(taskAttemptMap);
+        return true;
+    }
+
+    private int planStages(ActivityCluster ac, Map<ActivityCluster, Integer> stageMap) throws HyracksException {
+        Integer stage = stageMap.get(ac);
+        if (stage != null) {
+            return stage;
+        }
+        int s = 0;
+        for (ActivityCluster depAC : ac.getDependencies()) {
+            s = Math.max(s, planStages(depAC, stageMap) + 1);
+        }
+        if (!isPlanned(ac)) {
+            planActivityCluster(ac);
+        }
+        stageMap.put(ac, s);
+        return s;
+    }
+
+    /**
+     * @return a live node that satisfies the location constraints of all the tasks of the given activity clusters, or
+     *         null if there is none
+     */
+    private String findLocalNode(Collection<ActivityCluster> acs) {
+        Set<String> candidates = new HashSet<String>(ccs.getNodeMap().keySet());
+        Map<TaskId, LValueConstraintExpression> locationMap = new HashMap<TaskId, LValueConstraintExpression>();
+        for (ActivityCluster ac : acs) {
+            for (TaskCluster tc : getActivityClusterPlan(ac).getTaskClusters()) {
+                for (Task ts : tc.getTasks()) {
+                    TaskId tid = ts.getTaskId();
+                    locationMap.put(tid, new PartitionLocationExpression(tid.getActivityId().getOperatorDescriptorId(),
+                            tid.getPartition()));
+                }
+            }
+        }
+        solver.solve(locationMap.values());
+        for (LValueConstraintExpression pLocationExpr : locationMap.values()) {
+            Object location = solver.getValue(pLocationExpr);
+            if (location instanceof String) {
+                candidates.retainAll(Collections.singleton(location));
+            } else if (location instanceof String[]) {
+                candidates.retainAll(Arrays.asList((String[]) location));
+            } else if (location != null) {
+                return null;
+            }
+            if (candidates.isEmpty()) {
+                return null;
+            }
+        }
+        String[] choices = candidates.toArray(new String[candidates.size()]);
+        return choices[Math.abs(new Random().nextInt()) % choices.length];
+    }
+
+    private static class StageComparator implements Comparator<ActivityCluster> {
+        private final Map<ActivityCluster, Integer> stageMap;
+
+        StageComparator(Map<ActivityCluster, Integer> stageMap) {
+            this.stageMap = stageMap;
+        }
+
+        @Override
+        public int compare(ActivityCluster ac1, ActivityCluster ac2) {
+            return stageMap.get(ac1).compareTo(stageMap.get(ac2));
+        }
+    }
+
+    private void planActivityCluster(ActivityCluster ac) throws HyracksException {
+        long startTime = System.nanoTime();
+        ActivityClusterPlanner acp = new ActivityClusterPlanner(this);
+        ActivityClusterPlan acPlan = acp.planActivityCluster(ac);
+        jobRun.getActivityClusterPlanMap().put(ac.getId(), acPlan);
+        partitionProducingTaskClusterMap.putAll(acp.getPartitionProducingTaskClusterMap());
+        statistics.getPlanLatency().recordSince(startTime);
+    }
+
     private void findRunnableTaskClusterRoots(Set<TaskCluster> frontier, Collection<ActivityCluster> roots)
             throws HyracksException {
         for (ActivityCluster root : roots) {
@@ -131,10 +280,7 @@ public class JobScheduler {
         }
         if (depsComplete) {
             if (!isPlanned(candidate)) {
-                ActivityClusterPlanner acp = new ActivityClusterPlanner(this);
-                ActivityClusterPlan acPlan = acp.planActivityCluster(candidate);
-                jobRun.getActivityClusterPlanMap().put(candidate.getId(), acPlan);
-                partitionProducingTaskClusterMap.putAll(acp.getPartitionProducingTaskClusterMap());
+                planActivityCluster(candidate);
             }
             for (TaskCluster tc : getActivityClusterPlan(candidate).getTaskClusters()) {
                 if (tc.getProducedPartitions().isEmpty()) {
@@ -171,6 +317,7 @@ public class JobScheduler {
     }
 
     private void startRunnableTaskClusters(Set<TaskCluster> tcRoots) throws HyracksException {
+        long startTime = System.nanoTime();
         Map<TaskCluster, Runnability> runnabilityMap = new HashMap<TaskCluster, Runnability>();
         for (TaskCluster tc : tcRoots) {
             assignRunnabilityRank(tc, runnabilityMap);
@@ -205,6 +352,7 @@ public class JobScheduler {
             }
             assignTaskLocations(tc, taskAttemptMap);
         }
+        statistics.getAssignLatency().recordSince(startTime);
 
         if (taskAttemptMap.isEmpty()) {
             return;
@@ -370,7 +518,8 @@ public class JobScheduler {
                             partitionLocations[i] = new NetworkAddress[inPartitionCounts[i]];
                             for (int j = 0; j < inPartitionCounts[i]; ++j) {
                                 TaskId producerTaskId = new TaskId(producerAid, j);
-                                String nodeId = findTaskLocation(producerTaskId);
+                                String nodeId = localNodeId != null ? localNodeId
+                                        : findTaskLocation(producerTaskId);
                                 partitionLocations[i][j] = ccs.getNodeMap().get(nodeId).getDataPort();
                             }
                         }
@@ -387,6 +536,12 @@ public class JobScheduler {
 
     private String assignLocation(ActivityClusterGraph acg, Map<TaskId, LValueConstraintExpression> locationMap,
             TaskId tid, TaskAttempt taskAttempt) throws HyracksException {
+        if (localNodeId != null) {
+            if (!ccs.getNodeMap().containsKey(localNodeId)) {
+                throw new HyracksException("Node " + localNodeId + " not live");
+            }
+            return localNodeId;
+        }
         ActivityId aid = tid.getActivityId();
         ActivityCluster ac = acg.getActivityMap().get(aid);
         Set<ActivityId> blockers = ac.getBlocked2BlockerMap().get(aid);
@@ -460,26 +615,44 @@ public class JobScheduler {
         final ActivityClusterGraph acg = jobRun.getActivityClusterGraph();
         final Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicies = new HashMap<ConnectorDescriptorId, IConnectorPolicy>(
                 jobRun.getConnectorPolicyMap());
+        final PreparedJob preparedJob = jobRun.getPreparedJob();
+        long startTime = System.nanoTime();
         try {
-            byte[] acgBytes = JavaSerializationUtils.serialize(acg);
-            for (Map.Entry<String, List<TaskAttemptDescriptor>> entry : taskAttemptMap.entrySet()) {
-                String nodeId = entry.getKey();
-                final List<TaskAttemptDescriptor> taskDescriptors = entry.getValue();
-                final NodeControllerState node = ccs.getNodeMap().get(nodeId);
-                if (node != null) {
-                    node.getActiveJobIds().add(jobRun.getJobId());
-                    boolean changed = jobRun.getParticipatingNodeIds().add(nodeId);
-                    if (LOGGER.isLoggable(Level.FINE)) {
-                        LOGGER.fine("Starting: " + taskDescriptors + " at " + entry.getKey());
+            byte[] acgBytes = preparedJob == null ? JavaSerializationUtils.serialize(acg) : preparedJob
+                    .getActivityClusterGraphBytes();
+            // Runs of the same prepared job are scheduled on different job workers. A node must receive the plan
+            // before any tasks that rely on its cached copy, so the plan is sent and the node marked as caching it
+            // under the lock of the prepared job.
+            synchronized (preparedJob == null ? this : preparedJob) {
+                // a run of a prepared job that was destroyed meanwhile no longer uses the node caches
+                boolean cached = preparedJob != null && !preparedJob.isDestroyed();
+                PreparedJobId preparedJobId = cached ? preparedJob.getPreparedJobId() : null;
+                for (Map.Entry<String, List<TaskAttemptDescriptor>> entry : taskAttemptMap.entrySet()) {
+                    String nodeId = entry.getKey();
+                    final List<TaskAttemptDescriptor> taskDescriptors = entry.getValue();
+                    final NodeControllerState node = ccs.getNodeMap().get(nodeId);
+                    if (node != null) {
+                        node.getActiveJobIds().add(jobRun.getJobId());
+                        boolean changed = jobRun.getParticipatingNodeIds().add(nodeId);
+                        if (LOGGER.isLoggable(Level.FINE)) {
+                            LOGGER.fine("Starting: " + taskDescriptors + " at " + entry.getKey());
+                        }
+                        // Nodes that ran the prepared job before still have its plan.
+                        boolean sendPlan = changed && (!cached || !preparedJob.getCachingNodeIds().contains(nodeId));
+                        byte[] jagBytes = sendPlan ? acgBytes : null;
+                        byte[] jobParameters = changed ? jobRun.getJobParameters() : null;
+                        node.getNodeController().startTasks(deploymentId, jobId, preparedJobId, jagBytes,
+                                jobParameters, taskDescriptors, connectorPolicies, jobRun.getFlags());
+                        if (sendPlan && cached) {
+                            preparedJob.getCachingNodeIds().add(nodeId);
+                        }
                     }
-                    byte[] jagBytes = changed ? acgBytes : null;
-                    node.getNodeController().startTasks(deploymentId, jobId, jagBytes, taskDescriptors,
-                            connectorPolicies, jobRun.getFlags());
                 }
             }
         } catch (Exception e) {
             throw new HyracksException(e);
         }
+        statistics.getDispatchLatency().recordSince(startTime);
     }
 
     private void abortJob(List<Exception> exceptions) {
@@ -598,6 +771,32 @@ public class JobScheduler {
     }
 
     public void notifyTaskComplete(TaskAttempt ta) throws HyracksException {
+        long startTime = System.nanoTime();
+        if (markTaskComplete(ta)) {
+            startRunnableActivityClusters();
+        }
+        statistics.getCompletionLatency().recordSince(startTime);
+    }
+
+    /**
+     * Indicates that a set of task attempts has completed, as reported at once by the node of a local job.
+     */
+    public void notifyTasksComplete(Collection<TaskAttempt> tas) throws HyracksException {
+        long startTime = System.nanoTime();
+        boolean taskClusterCompleted = false;
+        for (TaskAttempt ta : tas) {
+            taskClusterCompleted |= markTaskComplete(ta);
+        }
+        if (taskClusterCompleted) {
+            startRunnableActivityClusters();
+        }
+        statistics.getCompletionLatency().recordSince(startTime);
+    }
+
+    /**
+     * @return true if the task attempt was the last pending one of its task cluster attempt
+     */
+    private boolean markTaskComplete(TaskAttempt ta) {
         TaskAttemptId taId = ta.getTaskAttemptId();
         TaskCluster tc = ta.getTask().getTaskCluster();
         TaskClusterAttempt lastAttempt = findLastTaskClusterAttempt(tc);
@@ -610,7 +809,7 @@ public class JobScheduler {
                     lastAttempt.setStatus(TaskClusterAttempt.TaskClusterStatus.COMPLETED);
                     lastAttempt.setEndTime(System.currentTimeMillis());
                     inProgressTaskClusters.remove(tc);
-                    startRunnableActivityClusters();
+                    return true;
                 }
             } else {
                 LOGGER.warning("Spurious task complete notification: " + taId + " Current state = " + taStatus);
@@ -618,6 +817,7 @@ public class JobScheduler {
         } else {
             LOGGER.warning("Ignoring task complete notification: " + taId + " -- Current last attempt = " + lastAttempt);
         }
+        return false;
     }
 
     /**
@@ -639,6 +839,11 @@ public class JobScheduler {
             if (lastAttempt != null && taId.getAttempt() == lastAttempt.getAttempt()) {
                 LOGGER.fine("Marking TaskAttempt " + ta.getTaskAttemptId() + " as failed");
                 ta.setStatus(TaskAttempt.TaskStatus.FAILED, exceptions);
+                if (localNodeId != null) {
+                    // The node does not report which tasks of a local job completed, so the job cannot be resumed.
+                    abortJob(exceptions);
+                    return;
+                }
                 abortTaskCluster(lastAttempt, TaskClusterAttempt.TaskClusterStatus.FAILED);
                 abortDoomedTaskClusters();
                 if (lastAttempt.getAttempt() >= jobRun.getActivityClusterGraph().getMaxReattempts()) {
@@ -670,6 +875,13 @@ public class JobScheduler {
                 finishJob(jobRun);
                 return;
             }
+            if (localNodeId != null) {
+                if (deadNodes.contains(localNodeId) && jobRun.getPendingStatus() == null) {
+                    abortJob(Collections.<Exception> singletonList(new HyracksException("Node " + localNodeId
+                            + " failed")));
+                }
+                return;
+            }
             for (ActivityCluster ac : jobRun.getActivityClusterGraph().getActivityClusterMap().values()) {
                 if (isPlanned(ac)) {
                     TaskCluster[] taskClusters = getActivityClusterPlan(ac).getTaskClusters();
@@ -718,9 +930,11 @@ public class JobScheduler {
             }
         }
         run.setStatus(run.getPendingStatus(), run.getPendingExceptions());
+        ccs.getSchedulerStatistics().notifyJobFinish(run.getCreateNanoTime(), isLocal());
         ccs.getActiveRunMap().remove(jobId);
         ccs.getRunMapArchive().put(jobId, run);
         ccs.getRunHistory().put(jobId, run.getExceptions());
+        ccs.getJobAdmissionController().notifyJobFinish(jobId);
 
         if (run.getActivityClusterGraph().isReportTaskDetails()) {
             /**
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.cc.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import edu.uci.ics.hyracks.control.common.job.profiling.counters.LatencyHistogram;
+
+/**
+ * Latencies of the phases of job scheduling on the cluster controller, shared by all the jobs.
+ */
+public class SchedulerStatistics {
+    /**
+     * Planning an activity cluster into task clusters.
+     */
+    private final LatencyHistogram planLatency;
+
+    /**
+     * Ranking the runnable task clusters and assigning their tasks to nodes.
+     */
+    private final LatencyHistogram assignLatency;
+
+    /**
+     * Sending the start messages for a scheduling round.
+     */
+    private final LatencyHistogram dispatchLatency;
+
+    /**
+     * Handling a completion report, including the scheduling round it triggers.
+     */
+    private final LatencyHistogram completionLatency;
+
+    /**
+     * Whole jobs scheduled one task cluster at a time, from submission to the end of their cleanup.
+     */
+    private final LatencyHistogram jobLatency;
+
+    /**
+     * Whole jobs that were shipped to a single node at once, from submission to the end of their cleanup.
+     */
+    private final LatencyHistogram localJobLatency;
+
+    private final AtomicLong localJobs;
+
+    private final AtomicLong jobs;
+
+    public SchedulerStatistics() {
+        planLatency = new LatencyHistogram("plan");
+        assignLatency = new LatencyHistogram("assign");
+        dispatchLatency = new LatencyHistogram("dispatch");
+        completionLatency = new LatencyHistogram("completion");
+        jobLatency = new LatencyHistogram("job");
+        localJobLatency = new LatencyHistogram("local-job");
+        localJobs = new AtomicLong();
+        jobs = new AtomicLong();
+    }
+
+    public LatencyHistogram getPlanLatency() {
+        return planLatency;
+    }
+
+    public LatencyHistogram getAssignLatency() {
+        return assignLatency;
+    }
+
+    public LatencyHistogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+
+    public LatencyHistogram getCompletionLatency() {
+        return completionLatency;
+    }
+
+    public LatencyHistogram getJobLatency() {
+        return jobLatency;
+    }
+
+    public LatencyHistogram getLocalJobLatency() {
+        return localJobLatency;
+    }
+
+    public void notifyJobFinish(long createNanoTime, boolean local) {
+        if (local) {
+            localJobs.incrementAndGet();
+            localJobLatency.recordSince(createNanoTime);
+        } else {
+            jobs.incrementAndGet();
+            jobLatency.recordSince(createNanoTime);
+        }
+    }
+
+    public long getLocalJobCount() {
+        return localJobs.get();
+    }
+
+    public long getJobCount() {
+        return jobs.get();
+    }
+
+    public JSONObject toJSON() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("jobs", jobs.get());
+        json.put("local-jobs", localJobs.get());
+        JSONArray histograms = new JSONArray();
+        for (LatencyHistogram h : new LatencyHistogram[] { planLatency, assignLatency, dispatchLatency,
+                completionLatency, jobLatency, localJobLatency }) {
+            histograms.put(h.toJSON());
+        }
+        json.put("latencies", histograms);
+        return json;
+    }
+}
@@ -66,6 +66,7 @@ public class WebServer {
         rh.addHandler("jobs", new JSONOutputRequestHandler(new JobsRESTAPIFunction(ccs)));
         rh.addHandler("nodes", new JSONOutputRequestHandler(new NodesRESTAPIFunction(ccs)));
         rh.addHandler("statedump", new JSONOutputRequestHandler(new StateDumpRESTAPIFunction(ccs)));
+        rh.addHandler("scheduler", new JSONOutputRequestHandler(new SchedulerRESTAPIFunction(ccs)));
         handler.setHandler(rh);
         addHandler(handler);
 
@@ -14,21 +14,11 @@
  */
 package edu.uci.ics.hyracks.control.cc.work;
 
-import java.util.List;
-import java.util.Map;
-
-import edu.uci.ics.hyracks.api.dataflow.ActivityId;
 import edu.uci.ics.hyracks.api.dataflow.TaskAttemptId;
-import edu.uci.ics.hyracks.api.dataflow.TaskId;
-import edu.uci.ics.hyracks.api.job.ActivityCluster;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
-import edu.uci.ics.hyracks.control.cc.job.ActivityPlan;
 import edu.uci.ics.hyracks.control.cc.job.JobRun;
-import edu.uci.ics.hyracks.control.cc.job.Task;
 import edu.uci.ics.hyracks.control.cc.job.TaskAttempt;
-import edu.uci.ics.hyracks.control.cc.job.TaskCluster;
-import edu.uci.ics.hyracks.control.cc.job.TaskClusterAttempt;
 
 public abstract class AbstractTaskLifecycleWork extends AbstractHeartbeatWork {
     protected final ClusterControllerService ccs;
@@ -44,29 +34,18 @@ public abstract class AbstractTaskLifecycleWork extends AbstractHeartbeatWork {
         this.nodeId = nodeId;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     public final void runWork() {
         JobRun run = ccs.getActiveRunMap().get(jobId);
         if (run != null) {
-            TaskId tid = taId.getTaskId();
-            Map<ActivityId, ActivityCluster> activityClusterMap = run.getActivityClusterGraph().getActivityMap();
-            ActivityCluster ac = activityClusterMap.get(tid.getActivityId());
-            if (ac != null) {
-                Map<ActivityId, ActivityPlan> taskStateMap = run.getActivityClusterPlanMap().get(ac.getId())
-                        .getActivityPlanMap();
-                Task[] taskStates = taskStateMap.get(tid.getActivityId()).getTasks();
-                if (taskStates != null && taskStates.length > tid.getPartition()) {
-                    Task ts = taskStates[tid.getPartition()];
-                    TaskCluster tc = ts.getTaskCluster();
-                    List<TaskClusterAttempt> taskClusterAttempts = tc.getAttempts();
-                    if (taskClusterAttempts != null && taskClusterAttempts.size() > taId.getAttempt()) {
-                        TaskClusterAttempt tca = taskClusterAttempts.get(taId.getAttempt());
-                        TaskAttempt ta = tca.getTaskAttempts().get(tid);
-                        if (ta != null) {
-                            performEvent(ta);
-                        }
-                    }
-                }
+            TaskAttempt ta = run.findTaskAttempt(taId);
+            if (ta != null) {
+                performEvent(ta);
             }
         }
     }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.cc.work;
+
+import edu.uci.ics.hyracks.api.exceptions.HyracksException;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
+import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
+import edu.uci.ics.hyracks.control.cc.NodeControllerState;
+import edu.uci.ics.hyracks.control.cc.job.PreparedJob;
+import edu.uci.ics.hyracks.control.common.work.IResultCallback;
+import edu.uci.ics.hyracks.control.common.work.SynchronizableWork;
+
+public class DestroyPreparedJobWork extends SynchronizableWork {
+    private final ClusterControllerService ccs;
+    private final PreparedJobId preparedJobId;
+    private final IResultCallback<PreparedJobId> callback;
+
+    public DestroyPreparedJobWork(ClusterControllerService ccs, PreparedJobId preparedJobId,
+            IResultCallback<PreparedJobId> callback) {
+        this.ccs = ccs;
+        this.preparedJobId = preparedJobId;
+        this.callback = callback;
+    }
+
+    @Override
+    protected void doRun() throws Exception {
+        try {
+            PreparedJob preparedJob = ccs.getPreparedJobMap().remove(preparedJobId);
+            if (preparedJob == null) {
+                throw new HyracksException("Unknown prepared job " + preparedJobId);
+            }
+            for (String nodeId : preparedJob.destroy()) {
+                NodeControllerState node = ccs.getNodeMap().get(nodeId);
+                if (node != null) {
+                    node.getNodeController().destroyPreparedJob(preparedJobId);
+                }
+            }
+            callback.setValue(preparedJobId);
+        } catch (Exception e) {
+            callback.setException(e);
+        }
+    }
+}
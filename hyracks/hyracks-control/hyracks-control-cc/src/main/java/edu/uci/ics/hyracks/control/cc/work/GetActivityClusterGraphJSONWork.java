@@ -31,6 +31,11 @@ public class GetActivityClusterGraphJSONWork extends SynchronizableWork {
         this.jobId = jobId;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     protected void doRun() throws Exception {
         JobRun run = ccs.getActiveRunMap().get(jobId);
@@ -32,6 +32,11 @@ public class GetJobStatusWork extends SynchronizableWork {
         this.callback = callback;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     protected void doRun() throws Exception {
         try {
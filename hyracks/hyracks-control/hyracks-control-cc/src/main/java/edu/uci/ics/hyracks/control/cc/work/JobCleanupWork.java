@@ -102,9 +102,11 @@ public class JobCleanupWork extends AbstractWork {
             }
         }
         run.setStatus(run.getPendingStatus(), run.getPendingExceptions());
+        ccs.getSchedulerStatistics().notifyJobFinish(run.getCreateNanoTime(), run.getScheduler().isLocal());
         ccs.getActiveRunMap().remove(jobId);
         ccs.getRunMapArchive().put(jobId, run);
         ccs.getRunHistory().put(jobId, run.getExceptions());
+        ccs.getJobAdmissionController().notifyJobFinish(jobId);
 
         if (run.getActivityClusterGraph().isReportTaskDetails()) {
             /**
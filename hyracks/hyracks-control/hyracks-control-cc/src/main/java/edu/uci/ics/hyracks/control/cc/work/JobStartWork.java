@@ -14,18 +14,20 @@
  */
 package edu.uci.ics.hyracks.control.cc.work;
 
-import java.util.Collections;
 import java.util.EnumSet;
 
 import edu.uci.ics.hyracks.api.deployment.DeploymentId;
+import edu.uci.ics.hyracks.api.exceptions.HyracksException;
 import edu.uci.ics.hyracks.api.job.IActivityClusterGraphGenerator;
 import edu.uci.ics.hyracks.api.job.IActivityClusterGraphGeneratorFactory;
 import edu.uci.ics.hyracks.api.job.JobFlag;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
 import edu.uci.ics.hyracks.control.cc.application.CCApplicationContext;
 import edu.uci.ics.hyracks.control.cc.job.JobRun;
+import edu.uci.ics.hyracks.control.cc.job.PreparedJob;
 import edu.uci.ics.hyracks.control.common.deployment.DeploymentUtils;
 import edu.uci.ics.hyracks.control.common.work.IResultCallback;
 import edu.uci.ics.hyracks.control.common.work.SynchronizableWork;
@@ -35,6 +37,8 @@ public class JobStartWork extends SynchronizableWork {
     private final byte[] acggfBytes;
     private final EnumSet<JobFlag> jobFlags;
     private final DeploymentId deploymentId;
+    private final PreparedJobId preparedJobId;
+    private final byte[] jobParameters;
     private final JobId jobId;
     private final IResultCallback<JobId> callback;
 
@@ -45,6 +49,20 @@ public class JobStartWork extends SynchronizableWork {
         this.ccs = ccs;
         this.acggfBytes = acggfBytes;
         this.jobFlags = jobFlags;
+        this.preparedJobId = null;
+        this.jobParameters = null;
+        this.callback = callback;
+    }
+
+    public JobStartWork(ClusterControllerService ccs, PreparedJobId preparedJobId, byte[] jobParameters, JobId jobId,
+            IResultCallback<JobId> callback) {
+        this.deploymentId = null;
+        this.jobId = jobId;
+        this.ccs = ccs;
+        this.acggfBytes = null;
+        this.jobFlags = null;
+        this.preparedJobId = preparedJobId;
+        this.jobParameters = jobParameters;
         this.callback = callback;
     }
 
@@ -52,20 +70,26 @@ public class JobStartWork extends SynchronizableWork {
     protected void doRun() throws Exception {
         try {
             final CCApplicationContext appCtx = ccs.getApplicationContext();
-            IActivityClusterGraphGeneratorFactory acggf = (IActivityClusterGraphGeneratorFactory) DeploymentUtils
-                    .deserialize(acggfBytes, deploymentId, appCtx);
-            IActivityClusterGraphGenerator acgg = acggf.createActivityClusterGraphGenerator(jobId, appCtx, jobFlags);
-            JobRun run = new JobRun(ccs, deploymentId, jobId, acgg, jobFlags);
+            IActivityClusterGraphGeneratorFactory acggf;
+            JobRun run;
+            if (preparedJobId != null) {
+                PreparedJob preparedJob = ccs.getPreparedJobMap().get(preparedJobId);
+                if (preparedJob == null) {
+                    throw new HyracksException("Unknown prepared job " + preparedJobId);
+                }
+                acggf = preparedJob.getActivityClusterGraphGeneratorFactory();
+                run = new JobRun(ccs, jobId, preparedJob, jobParameters);
+            } else {
+                acggf = (IActivityClusterGraphGeneratorFactory) DeploymentUtils.deserialize(acggfBytes, deploymentId,
+                        appCtx);
+                IActivityClusterGraphGenerator acgg = acggf.createActivityClusterGraphGenerator(jobId, appCtx,
+                        jobFlags);
+                run = new JobRun(ccs, deploymentId, jobId, acgg, jobFlags);
+            }
             run.setStatus(JobStatus.INITIALIZED, null);
             ccs.getActiveRunMap().put(jobId, run);
             appCtx.notifyJobCreation(jobId, acggf);
-            run.setStatus(JobStatus.RUNNING, null);
-            try {
-                run.getScheduler().startJob();
-            } catch (Exception e) {
-                ccs.getWorkQueue().schedule(
-                        new JobCleanupWork(ccs, run.getJobId(), JobStatus.FAILURE, Collections.singletonList(e)));
-            }
+            ccs.getJobAdmissionController().submit(run);
             callback.setValue(jobId);
         } catch (Exception e) {
             callback.setException(e);
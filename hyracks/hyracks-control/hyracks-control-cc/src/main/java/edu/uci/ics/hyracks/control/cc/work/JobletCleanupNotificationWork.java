@@ -64,9 +64,11 @@ public class JobletCleanupNotificationWork extends AbstractHeartbeatWork {
                 }
             }
             run.setStatus(run.getPendingStatus(), run.getPendingExceptions());
+            ccs.getSchedulerStatistics().notifyJobFinish(run.getCreateNanoTime(), run.getScheduler().isLocal());
             ccs.getActiveRunMap().remove(jobId);
             ccs.getRunMapArchive().put(jobId, run);
             ccs.getRunHistory().put(jobId, run.getExceptions());
+            ccs.getJobAdmissionController().notifyJobFinish(jobId);
         }
     }
 }
\ No newline at end of file
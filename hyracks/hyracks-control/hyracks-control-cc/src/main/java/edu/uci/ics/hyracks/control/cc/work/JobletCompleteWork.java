@@ -0,0 +1,83 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.cc.work;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import edu.uci.ics.hyracks.api.exceptions.HyracksException;
+import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
+import edu.uci.ics.hyracks.control.cc.job.JobRun;
+import edu.uci.ics.hyracks.control.cc.job.TaskAttempt;
+import edu.uci.ics.hyracks.control.common.job.profiling.om.JobletProfile;
+import edu.uci.ics.hyracks.control.common.job.profiling.om.TaskProfile;
+
+public class JobletCompleteWork extends AbstractHeartbeatWork {
+    private static final Logger LOGGER = Logger.getLogger(JobletCompleteWork.class.getName());
+
+    private final ClusterControllerService ccs;
+    private final JobId jobId;
+    private final String nodeId;
+    private final List<TaskProfile> taskProfiles;
+
+    public JobletCompleteWork(ClusterControllerService ccs, JobId jobId, String nodeId, List<TaskProfile> taskProfiles) {
+        super(ccs, nodeId, null);
+        this.ccs = ccs;
+        this.jobId = jobId;
+        this.nodeId = nodeId;
+        this.taskProfiles = taskProfiles;
+    }
+
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public void runWork() {
+        JobRun run = ccs.getActiveRunMap().get(jobId);
+        if (run == null) {
+            LOGGER.warning("Ignoring joblet complete notification for unknown job: " + jobId);
+            return;
+        }
+        Map<String, JobletProfile> jobletProfiles = run.getJobProfile().getJobletProfiles();
+        JobletProfile jobletProfile = jobletProfiles.get(nodeId);
+        if (jobletProfile == null) {
+            jobletProfile = new JobletProfile(nodeId);
+            jobletProfiles.put(nodeId, jobletProfile);
+        }
+        List<TaskAttempt> taskAttempts = new ArrayList<TaskAttempt>();
+        for (TaskProfile taskProfile : taskProfiles) {
+            TaskAttempt ta = run.findTaskAttempt(taskProfile.getTaskId());
+            if (ta != null) {
+                jobletProfile.getTaskProfiles().put(taskProfile.getTaskId(), taskProfile);
+                taskAttempts.add(ta);
+            }
+        }
+        try {
+            run.getScheduler().notifyTasksComplete(taskAttempts);
+        } catch (HyracksException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName() + ": [" + nodeId + "[" + jobId + ": " + taskProfiles.size() + " tasks]";
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.cc.work;
+
+import java.util.EnumSet;
+
+import edu.uci.ics.hyracks.api.deployment.DeploymentId;
+import edu.uci.ics.hyracks.api.job.ActivityClusterGraph;
+import edu.uci.ics.hyracks.api.job.IActivityClusterGraphGenerator;
+import edu.uci.ics.hyracks.api.job.IActivityClusterGraphGeneratorFactory;
+import edu.uci.ics.hyracks.api.job.JobFlag;
+import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
+import edu.uci.ics.hyracks.api.util.JavaSerializationUtils;
+import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
+import edu.uci.ics.hyracks.control.cc.application.CCApplicationContext;
+import edu.uci.ics.hyracks.control.cc.job.PreparedJob;
+import edu.uci.ics.hyracks.control.common.deployment.DeploymentUtils;
+import edu.uci.ics.hyracks.control.common.work.IResultCallback;
+import edu.uci.ics.hyracks.control.common.work.SynchronizableWork;
+
+public class PrepareJobWork extends SynchronizableWork {
+    /*
+     * Activity clusters are named after the job they belong to, but nothing looks at that job id, so all the runs of a
+     * prepared job share the graph built for this placeholder.
+     */
+    private static final JobId PREPARED_JOB_ID = new JobId(-1);
+
+    private final ClusterControllerService ccs;
+    private final byte[] acggfBytes;
+    private final EnumSet<JobFlag> jobFlags;
+    private final DeploymentId deploymentId;
+    private final IResultCallback<PreparedJobId> callback;
+
+    public PrepareJobWork(ClusterControllerService ccs, DeploymentId deploymentId, byte[] acggfBytes,
+            EnumSet<JobFlag> jobFlags, IResultCallback<PreparedJobId> callback) {
+        this.ccs = ccs;
+        this.deploymentId = deploymentId;
+        this.acggfBytes = acggfBytes;
+        this.jobFlags = jobFlags;
+        this.callback = callback;
+    }
+
+    @Override
+    protected void doRun() throws Exception {
+        try {
+            CCApplicationContext appCtx = ccs.getApplicationContext();
+            IActivityClusterGraphGeneratorFactory acggf = (IActivityClusterGraphGeneratorFactory) DeploymentUtils
+                    .deserialize(acggfBytes, deploymentId, appCtx);
+            IActivityClusterGraphGenerator acgg = acggf.createActivityClusterGraphGenerator(PREPARED_JOB_ID, appCtx,
+                    jobFlags);
+            ActivityClusterGraph acg = acgg.initialize();
+            byte[] acgBytes = JavaSerializationUtils.serialize(acg);
+            PreparedJobId preparedJobId = ccs.createPreparedJobId();
+            ccs.getPreparedJobMap().put(preparedJobId,
+                    new PreparedJob(preparedJobId, deploymentId, acggf, jobFlags, acg, acgg.getConstraints(), acgBytes));
+            callback.setValue(preparedJobId);
+        } catch (Exception e) {
+            callback.setException(e);
+        }
+    }
+}
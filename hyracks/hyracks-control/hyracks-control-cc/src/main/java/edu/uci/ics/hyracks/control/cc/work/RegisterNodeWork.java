@@ -24,6 +24,7 @@ import java.util.logging.Logger;
 
 import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
 import edu.uci.ics.hyracks.control.cc.NodeControllerState;
+import edu.uci.ics.hyracks.control.cc.job.PreparedJob;
 import edu.uci.ics.hyracks.control.common.base.INodeController;
 import edu.uci.ics.hyracks.control.common.controllers.NodeParameters;
 import edu.uci.ics.hyracks.control.common.controllers.NodeRegistration;
@@ -59,6 +60,10 @@ public class RegisterNodeWork extends SynchronizableWork {
                 throw new Exception("Node with this name already registered.");
             }
             nodeMap.put(id, state);
+            // A node that registers again has lost the plans it cached.
+            for (PreparedJob preparedJob : ccs.getPreparedJobMap().values()) {
+                preparedJob.getCachingNodeIds().remove(id);
+            }
             Map<InetAddress, Set<String>> ipAddressNodeNameMap = ccs.getIpAddressNodeNameMap();
             // QQQ Breach of encapsulation here - way too much duplicated data
             // in NodeRegistration
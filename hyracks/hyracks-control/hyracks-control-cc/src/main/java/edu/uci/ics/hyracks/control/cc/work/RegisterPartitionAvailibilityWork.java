@@ -18,6 +18,7 @@ import java.util.List;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.partitions.PartitionId;
 import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
 import edu.uci.ics.hyracks.control.cc.job.JobRun;
@@ -36,6 +37,11 @@ public class RegisterPartitionAvailibilityWork extends AbstractWork {
         this.partitionDescriptor = partitionDescriptor;
     }
 
+    @Override
+    public JobId getJobId() {
+        return partitionDescriptor.getPartitionId().getJobId();
+    }
+
     @Override
     public void run() {
         final PartitionId pid = partitionDescriptor.getPartitionId();
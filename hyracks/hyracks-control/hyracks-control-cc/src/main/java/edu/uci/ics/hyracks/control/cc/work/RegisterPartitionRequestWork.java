@@ -16,6 +16,7 @@ package edu.uci.ics.hyracks.control.cc.work;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.partitions.PartitionId;
 import edu.uci.ics.hyracks.control.cc.ClusterControllerService;
 import edu.uci.ics.hyracks.control.cc.job.JobRun;
@@ -34,6 +35,11 @@ public class RegisterPartitionRequestWork extends AbstractWork {
         this.partitionRequest = partitionRequest;
     }
 
+    @Override
+    public JobId getJobId() {
+        return partitionRequest.getPartitionId().getJobId();
+    }
+
     @Override
     public void run() {
         PartitionId pid = partitionRequest.getPartitionId();
@@ -33,6 +33,11 @@ public class WaitForJobCompletionWork extends SynchronizableWork {
         this.callback = callback;
     }
 
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
     @Override
     protected void doRun() throws Exception {
         final IJobStatusConditionVariable cRunningVar = ccs.getActiveRunMap().get(jobId);
@@ -40,6 +40,11 @@ public interface IClusterController {
     public void notifyTaskFailure(JobId jobId, TaskAttemptId taskId, String nodeId, List<Exception> exceptions)
             throws Exception;
 
+    /**
+     * Reports that all the tasks of a job that runs entirely on one node have completed.
+     */
+    public void notifyJobletComplete(JobId jobId, String nodeId, List<TaskProfile> taskProfiles) throws Exception;
+
     public void notifyJobletCleanup(JobId jobId, String nodeId) throws Exception;
 
     public void notifyDeployBinary(DeploymentId deploymentId, String nodeId, DeploymentStatus status) throws Exception;
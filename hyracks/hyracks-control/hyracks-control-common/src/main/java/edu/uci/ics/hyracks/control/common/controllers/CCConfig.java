@@ -58,6 +58,21 @@ public class CCConfig {
     @Option(name = "-result-sweep-threshold", usage = "The duration within which an instance of the result cleanup should be invoked in milliseconds. (default: 1 minute)")
     public long resultSweepThreshold = 60000;
 
+    @Option(name = "-local-job-max-tasks", usage = "Jobs with at most this many tasks that can all run on one node are shipped to that node at once and report their completion once. 0 to disable. (default: 0)")
+    public int localJobMaxTasks = 0;
+
+    @Option(name = "-job-work-queue-threads", usage = "Number of threads that process the events of jobs in parallel, with the events of each job in order. 0 to process all events on one thread. (default: 0)")
+    public int jobWorkQueueThreads = 0;
+
+    @Option(name = "-max-running-jobs", usage = "Limits the number of jobs that run at the same time. Further jobs are queued. 0 for no limit. (default: 0)")
+    public int maxRunningJobs = 0;
+
+    @Option(name = "-job-memory-fraction", usage = "Fraction of the job memory reported by the node controllers that the memory requirements of running jobs may add up to. Further jobs are queued. 0 to not queue jobs for memory. (default: 0)")
+    public double jobMemoryFraction = 0;
+
+    @Option(name = "-job-queue-policy", usage = "Order in which queued jobs are started: FIFO starts them strictly in order, BACKFILL lets jobs that fit pass a job at the head of the queue that does not fit, a limited number of times. (default: FIFO)")
+    public String jobQueuePolicy = "FIFO";
+
     @Option(name = "-cc-root", usage = "Sets the root folder used for file operations. (default: ClusterControllerService)")
     public String ccRoot = "ClusterControllerService";
 
@@ -96,6 +111,16 @@ public class CCConfig {
         cList.add(String.valueOf(resultTTL));
         cList.add("-result-sweep-threshold");
         cList.add(String.valueOf(resultSweepThreshold));
+        cList.add("-local-job-max-tasks");
+        cList.add(String.valueOf(localJobMaxTasks));
+        cList.add("-job-work-queue-threads");
+        cList.add(String.valueOf(jobWorkQueueThreads));
+        cList.add("-max-running-jobs");
+        cList.add(String.valueOf(maxRunningJobs));
+        cList.add("-job-memory-fraction");
+        cList.add(String.valueOf(jobMemoryFraction));
+        cList.add("-job-queue-policy");
+        cList.add(jobQueuePolicy);
         cList.add("-cc-root");
         cList.add(ccRoot);
         if (clusterTopologyDefinition != null) {
@@ -82,6 +82,24 @@ public class NCConfig implements Serializable {
     @Option(name = "-max-memory", usage = "Maximum memory usable at this Node Controller in bytes (default: -1 auto)")
     public int maxMemory = -1;
 
+    @Option(name = "-frame-pool-mode", usage = "Frame allocation mode: none allocates a new frame for every request, pooled recycles deallocated frames (default: none)")
+    public String framePoolMode = "none";
+
+    @Option(name = "-frame-pool-memory", usage = "Memory retained by the node-wide frame pool in bytes (default: 67108864)")
+    public long framePoolMemory = 64L * 1024 * 1024;
+
+    @Option(name = "-frame-pool-joblet-memory", usage = "Memory retained by the frame pool of each joblet in bytes (default: 8388608)")
+    public long framePoolJobletMemory = 8L * 1024 * 1024;
+
+    @Option(name = "-bloom-filter-memory", usage = "Off-heap memory in bytes that the bloom filters of active LSM components may be kept in, so that they are probed without the buffer cache (default: 0)")
+    public long bloomFilterMemory = 0;
+
+    @Option(name = "-direct-frames", usage = "Allocate the output frames of partitioning connectors and of parallel merge passes off-heap, so that they are written to the network and to run files without another copy (default: false)")
+    public boolean directFrames = false;
+
+    @Option(name = "-compress-run-files", usage = "Write the run files of spilling operators compressed, with a checksum per frame (default: false)")
+    public boolean compressRunFiles = false;
+
     @Option(name = "-result-time-to-live", usage = "Limits the amount of time results for asynchronous jobs should be retained by the system in milliseconds. (default: 24 hours)")
     public long resultTTL = 86400000;
 
@@ -137,6 +155,20 @@ public class NCConfig implements Serializable {
         cList.add(String.valueOf(nNetBuffers));
         cList.add("-max-memory");
         cList.add(String.valueOf(maxMemory));
+        cList.add("-frame-pool-mode");
+        cList.add(framePoolMode);
+        cList.add("-frame-pool-memory");
+        cList.add(String.valueOf(framePoolMemory));
+        cList.add("-frame-pool-joblet-memory");
+        cList.add(String.valueOf(framePoolJobletMemory));
+        cList.add("-bloom-filter-memory");
+        cList.add(String.valueOf(bloomFilterMemory));
+        if (directFrames) {
+            cList.add("-direct-frames");
+        }
+        if (compressRunFiles) {
+            cList.add("-compress-run-files");
+        }
         cList.add("-result-time-to-live");
         cList.add(String.valueOf(resultTTL));
         cList.add("-result-sweep-threshold");
@@ -176,6 +208,12 @@ public class NCConfig implements Serializable {
         configuration.put("net-thread-count", String.valueOf(nNetThreads));
         configuration.put("net-buffer-count", String.valueOf(nNetBuffers));
         configuration.put("max-memory", String.valueOf(maxMemory));
+        configuration.put("frame-pool-mode", framePoolMode);
+        configuration.put("frame-pool-memory", String.valueOf(framePoolMemory));
+        configuration.put("frame-pool-joblet-memory", String.valueOf(framePoolJobletMemory));
+        configuration.put("bloom-filter-memory", String.valueOf(bloomFilterMemory));
+        configuration.put("direct-frames", String.valueOf(directFrames));
+        configuration.put("compress-run-files", String.valueOf(compressRunFiles));
         configuration.put("result-time-to-live", String.valueOf(resultTTL));
         configuration.put("result-sweep-threshold", String.valueOf(resultSweepThreshold));
         configuration.put("result-manager-memory", String.valueOf(resultManagerMemory));
@@ -48,6 +48,8 @@ public class HeartbeatData {
     public long ipcMessageBytesReceived;
     public long diskReads;
     public long diskWrites;
+    public long jobMemoryMaxSize;
+    public long jobMemoryAvailableSize;
 
     public void readFields(DataInput dis) throws IOException {
         heapInitSize = dis.readLong();
@@ -66,7 +68,7 @@ public class HeartbeatData {
         netPayloadBytesWritten = dis.readLong();
         netSignalingBytesRead = dis.readLong();
         netSignalingBytesWritten = dis.readLong();
-        netSignalingBytesWritten = dis.readLong();
+        datasetNetPayloadBytesRead = dis.readLong();
         datasetNetPayloadBytesWritten = dis.readLong();
         datasetNetSignalingBytesRead = dis.readLong();
         datasetNetSignalingBytesWritten = dis.readLong();
@@ -76,6 +78,8 @@ public class HeartbeatData {
         ipcMessageBytesReceived = dis.readLong();
         diskReads = dis.readLong();
         diskWrites = dis.readLong();
+        jobMemoryMaxSize = dis.readLong();
+        jobMemoryAvailableSize = dis.readLong();
 
         int gcCounts = dis.readInt();
         gcCollectionCounts = new long[gcCounts];
@@ -116,6 +120,8 @@ public class HeartbeatData {
         dos.writeLong(ipcMessageBytesReceived);
         dos.writeLong(diskReads);
         dos.writeLong(diskWrites);
+        dos.writeLong(jobMemoryMaxSize);
+        dos.writeLong(jobMemoryAvailableSize);
 
         dos.writeInt(gcCollectionCounts.length);
         for (int i = 0; i < gcCollectionCounts.length; i++) {
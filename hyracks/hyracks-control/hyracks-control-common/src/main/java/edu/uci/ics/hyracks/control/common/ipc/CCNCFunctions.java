@@ -19,10 +19,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -32,7 +37,9 @@ import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import edu.uci.ics.hyracks.api.client.ClusterControllerInfo;
 import edu.uci.ics.hyracks.api.client.NodeControllerInfo;
+import edu.uci.ics.hyracks.api.client.NodeStatus;
 import edu.uci.ics.hyracks.api.comm.NetworkAddress;
 import edu.uci.ics.hyracks.api.dataflow.ActivityId;
 import edu.uci.ics.hyracks.api.dataflow.ConnectorDescriptorId;
@@ -46,11 +53,15 @@ import edu.uci.ics.hyracks.api.deployment.DeploymentId;
 import edu.uci.ics.hyracks.api.job.JobFlag;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.partitions.PartitionId;
+import edu.uci.ics.hyracks.control.common.controllers.NCConfig;
 import edu.uci.ics.hyracks.control.common.controllers.NodeParameters;
 import edu.uci.ics.hyracks.control.common.controllers.NodeRegistration;
 import edu.uci.ics.hyracks.control.common.deployment.DeploymentStatus;
 import edu.uci.ics.hyracks.control.common.heartbeat.HeartbeatData;
+import edu.uci.ics.hyracks.control.common.heartbeat.HeartbeatSchema;
+import edu.uci.ics.hyracks.control.common.heartbeat.HeartbeatSchema.GarbageCollectorInfo;
 import edu.uci.ics.hyracks.control.common.job.PartitionDescriptor;
 import edu.uci.ics.hyracks.control.common.job.PartitionRequest;
 import edu.uci.ics.hyracks.control.common.job.PartitionState;
@@ -65,6 +76,16 @@ public class CCNCFunctions {
 
     private static final int FID_CODE_SIZE = 1;
 
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int VERSION_CODE_SIZE = 1;
+
+    /**
+     * Version of the binary encoding of the functions, which follows the function id of every message other than
+     * {@link FunctionId#OTHER}. It must change whenever the encoding of any function changes.
+     */
+    public static final byte SERIALIZATION_VERSION = 5;
+
     public enum FunctionId {
         REGISTER_NODE,
         UNREGISTER_NODE,
@@ -97,6 +118,9 @@ public class CCNCFunctions {
         STATE_DUMP_REQUEST,
         STATE_DUMP_RESPONSE,
 
+        DESTROY_PREPARED_JOB,
+        NOTIFY_JOBLET_COMPLETE,
+
         OTHER
     }
 
@@ -133,6 +157,24 @@ public class CCNCFunctions {
             return FunctionId.SEND_APPLICATION_MESSAGE;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            byte[] data = readBytes(dis);
+            DeploymentId deploymentId = readDeploymentId(dis);
+            String nodeId = readString(dis);
+            return new SendApplicationMessageFunction(data, deploymentId, nodeId);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            SendApplicationMessageFunction fn = (SendApplicationMessageFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            writeBytes(dos, fn.serializedMessage);
+            writeDeploymentId(dos, fn.deploymentId);
+            writeString(dos, fn.nodeId);
+        }
+
     }
 
     public static abstract class Function implements Serializable {
@@ -155,6 +197,90 @@ public class CCNCFunctions {
             return FunctionId.REGISTER_NODE;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            InetSocketAddress ncAddress = readInetSocketAddress(dis);
+            String nodeId = dis.readUTF();
+            NCConfig ncConfig = (NCConfig) readSerializable(dis);
+            NetworkAddress dataPort = readOptionalNetworkAddress(dis);
+            NetworkAddress datasetPort = readOptionalNetworkAddress(dis);
+            String osName = readString(dis);
+            String arch = readString(dis);
+            String osVersion = readString(dis);
+            int nProcessors = dis.readInt();
+            String vmName = readString(dis);
+            String vmVersion = readString(dis);
+            String vmVendor = readString(dis);
+            String classpath = readString(dis);
+            String libraryPath = readString(dis);
+            String bootClasspath = readString(dis);
+
+            int nInputArguments = dis.readInt();
+            List<String> inputArguments = new ArrayList<String>(nInputArguments);
+            for (int i = 0; i < nInputArguments; ++i) {
+                inputArguments.add(readString(dis));
+            }
+
+            int nSystemProperties = dis.readInt();
+            Map<String, String> systemProperties = new HashMap<String, String>();
+            for (int i = 0; i < nSystemProperties; ++i) {
+                String key = readString(dis);
+                systemProperties.put(key, readString(dis));
+            }
+
+            int nGCInfos = dis.readInt();
+            GarbageCollectorInfo[] gcInfos = new GarbageCollectorInfo[nGCInfos];
+            for (int i = 0; i < nGCInfos; ++i) {
+                gcInfos[i] = new GarbageCollectorInfo(readString(dis));
+            }
+
+            return new RegisterNodeFunction(new NodeRegistration(ncAddress, nodeId, ncConfig, dataPort, datasetPort,
+                    osName, arch, osVersion, nProcessors, vmName, vmVersion, vmVendor, classpath, libraryPath,
+                    bootClasspath, inputArguments, systemProperties, new HeartbeatSchema(gcInfos)));
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            RegisterNodeFunction fn = (RegisterNodeFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            NodeRegistration reg = fn.reg;
+            writeInetSocketAddress(dos, reg.getNodeControllerAddress());
+            dos.writeUTF(reg.getNodeId());
+            writeSerializable(dos, reg.getNCConfig());
+            writeOptionalNetworkAddress(dos, reg.getDataPort());
+            writeOptionalNetworkAddress(dos, reg.getDatasetPort());
+            writeString(dos, reg.getOSName());
+            writeString(dos, reg.getArch());
+            writeString(dos, reg.getOSVersion());
+            dos.writeInt(reg.getNProcessors());
+            writeString(dos, reg.getVmName());
+            writeString(dos, reg.getVmVersion());
+            writeString(dos, reg.getVmVendor());
+            writeString(dos, reg.getClasspath());
+            writeString(dos, reg.getLibraryPath());
+            writeString(dos, reg.getBootClasspath());
+
+            List<String> inputArguments = reg.getInputArguments();
+            dos.writeInt(inputArguments.size());
+            for (String argument : inputArguments) {
+                writeString(dos, argument);
+            }
+
+            Map<String, String> systemProperties = reg.getSystemProperties();
+            dos.writeInt(systemProperties.size());
+            for (Entry<String, String> entry : systemProperties.entrySet()) {
+                writeString(dos, entry.getKey());
+                writeString(dos, entry.getValue());
+            }
+
+            GarbageCollectorInfo[] gcInfos = reg.getHeartbeatSchema().getGarbageCollectorInfos();
+            dos.writeInt(gcInfos.length);
+            for (GarbageCollectorInfo gcInfo : gcInfos) {
+                writeString(dos, gcInfo.getName());
+            }
+        }
+
         public NodeRegistration getNodeRegistration() {
             return reg;
         }
@@ -174,6 +300,20 @@ public class CCNCFunctions {
             return FunctionId.UNREGISTER_NODE;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            String nodeId = dis.readUTF();
+            return new UnregisterNodeFunction(nodeId);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            UnregisterNodeFunction fn = (UnregisterNodeFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeUTF(fn.nodeId);
+        }
+
         public String getNodeId() {
             return nodeId;
         }
@@ -256,6 +396,33 @@ public class CCNCFunctions {
             return FunctionId.NOTIFY_TASK_FAILURE;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            JobId jobId = JobId.create(dis);
+            TaskAttemptId taskId = TaskAttemptId.create(dis);
+            String nodeId = dis.readUTF();
+            int nExceptions = dis.readInt();
+            List<Exception> exceptions = new ArrayList<Exception>(nExceptions);
+            for (int i = 0; i < nExceptions; ++i) {
+                exceptions.add((Exception) readSerializable(dis));
+            }
+            return new NotifyTaskFailureFunction(jobId, taskId, nodeId, exceptions);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            NotifyTaskFailureFunction fn = (NotifyTaskFailureFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.jobId.writeFields(dos);
+            fn.taskId.writeFields(dos);
+            dos.writeUTF(fn.nodeId);
+            dos.writeInt(fn.exceptions.size());
+            for (Exception e : fn.exceptions) {
+                writeSerializable(dos, e);
+            }
+        }
+
         public JobId getJobId() {
             return jobId;
         }
@@ -373,6 +540,29 @@ public class CCNCFunctions {
             return FunctionId.REPORT_PROFILE;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            String nodeId = dis.readUTF();
+            int nProfiles = dis.readInt();
+            List<JobProfile> profiles = new ArrayList<JobProfile>(nProfiles);
+            for (int i = 0; i < nProfiles; ++i) {
+                profiles.add(JobProfile.create(dis));
+            }
+            return new ReportProfileFunction(nodeId, profiles);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            ReportProfileFunction fn = (ReportProfileFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeUTF(fn.nodeId);
+            dos.writeInt(fn.profiles.size());
+            for (JobProfile profile : fn.profiles) {
+                profile.writeFields(dos);
+            }
+        }
+
         public String getNodeId() {
             return nodeId;
         }
@@ -540,6 +730,33 @@ public class CCNCFunctions {
             return FunctionId.REGISTER_RESULT_PARTITION_LOCATION;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            JobId jobId = JobId.create(dis);
+            ResultSetId rsId = new ResultSetId(dis.readLong());
+            boolean orderedResult = dis.readBoolean();
+            boolean emptyResult = dis.readBoolean();
+            int partition = dis.readInt();
+            int nPartitions = dis.readInt();
+            NetworkAddress networkAddress = NetworkAddress.create(dis);
+            return new RegisterResultPartitionLocationFunction(jobId, rsId, orderedResult, emptyResult, partition,
+                    nPartitions, networkAddress);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            RegisterResultPartitionLocationFunction fn = (RegisterResultPartitionLocationFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.jobId.writeFields(dos);
+            dos.writeLong(fn.rsId.getId());
+            dos.writeBoolean(fn.orderedResult);
+            dos.writeBoolean(fn.emptyResult);
+            dos.writeInt(fn.partition);
+            dos.writeInt(fn.nPartitions);
+            fn.networkAddress.writeFields(dos);
+        }
+
         public JobId getJobId() {
             return jobId;
         }
@@ -589,6 +806,24 @@ public class CCNCFunctions {
             return FunctionId.REPORT_RESULT_PARTITION_WRITE_COMPLETION;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            JobId jobId = JobId.create(dis);
+            ResultSetId rsId = new ResultSetId(dis.readLong());
+            int partition = dis.readInt();
+            return new ReportResultPartitionWriteCompletionFunction(jobId, rsId, partition);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            ReportResultPartitionWriteCompletionFunction fn = (ReportResultPartitionWriteCompletionFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.jobId.writeFields(dos);
+            dos.writeLong(fn.rsId.getId());
+            dos.writeInt(fn.partition);
+        }
+
         public JobId getJobId() {
             return jobId;
         }
@@ -622,6 +857,24 @@ public class CCNCFunctions {
             return FunctionId.REPORT_RESULT_PARTITION_FAILURE;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            JobId jobId = JobId.create(dis);
+            ResultSetId rsId = new ResultSetId(dis.readLong());
+            int partition = dis.readInt();
+            return new ReportResultPartitionFailureFunction(jobId, rsId, partition);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            ReportResultPartitionFailureFunction fn = (ReportResultPartitionFailureFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.jobId.writeFields(dos);
+            dos.writeLong(fn.rsId.getId());
+            dos.writeInt(fn.partition);
+        }
+
         public JobId getJobId() {
             return jobId;
         }
@@ -652,6 +905,46 @@ public class CCNCFunctions {
             return FunctionId.NODE_REGISTRATION_RESULT;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            NodeParameters params = null;
+            if (dis.readBoolean()) {
+                params = new NodeParameters();
+                if (dis.readBoolean()) {
+                    String clientNetAddress = dis.readUTF();
+                    int clientNetPort = dis.readInt();
+                    int webPort = dis.readInt();
+                    params.setClusterControllerInfo(new ClusterControllerInfo(clientNetAddress, clientNetPort, webPort));
+                }
+                params.setDistributedState(readSerializable(dis));
+                params.setHeartbeatPeriod(dis.readInt());
+                params.setProfileDumpPeriod(dis.readInt());
+            }
+            Exception exception = (Exception) readSerializable(dis);
+            return new NodeRegistrationResult(params, exception);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            NodeRegistrationResult fn = (NodeRegistrationResult) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeBoolean(fn.params != null);
+            if (fn.params != null) {
+                ClusterControllerInfo ccInfo = fn.params.getClusterControllerInfo();
+                dos.writeBoolean(ccInfo != null);
+                if (ccInfo != null) {
+                    dos.writeUTF(ccInfo.getClientNetAddress());
+                    dos.writeInt(ccInfo.getClientNetPort());
+                    dos.writeInt(ccInfo.getWebPort());
+                }
+                writeSerializable(dos, fn.params.getDistributedState());
+                dos.writeInt(fn.params.getHeartbeatPeriod());
+                dos.writeInt(fn.params.getProfileDumpPeriod());
+            }
+            writeSerializable(dos, fn.exception);
+        }
+
         public NodeParameters getNodeParameters() {
             return params;
         }
@@ -666,17 +959,21 @@ public class CCNCFunctions {
 
         private final DeploymentId deploymentId;
         private final JobId jobId;
+        private final PreparedJobId preparedJobId;
         private final byte[] planBytes;
+        private final byte[] jobParameters;
         private final List<TaskAttemptDescriptor> taskDescriptors;
         private final Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicies;
         private final EnumSet<JobFlag> flags;
 
-        public StartTasksFunction(DeploymentId deploymentId, JobId jobId, byte[] planBytes,
-                List<TaskAttemptDescriptor> taskDescriptors,
+        public StartTasksFunction(DeploymentId deploymentId, JobId jobId, PreparedJobId preparedJobId,
+                byte[] planBytes, byte[] jobParameters, List<TaskAttemptDescriptor> taskDescriptors,
                 Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicies, EnumSet<JobFlag> flags) {
             this.deploymentId = deploymentId;
             this.jobId = jobId;
+            this.preparedJobId = preparedJobId;
             this.planBytes = planBytes;
+            this.jobParameters = jobParameters;
             this.taskDescriptors = taskDescriptors;
             this.connectorPolicies = connectorPolicies;
             this.flags = flags;
@@ -695,10 +992,18 @@ public class CCNCFunctions {
             return jobId;
         }
 
+        public PreparedJobId getPreparedJobId() {
+            return preparedJobId;
+        }
+
         public byte[] getPlanBytes() {
             return planBytes;
         }
 
+        public byte[] getJobParameters() {
+            return jobParameters;
+        }
+
         public List<TaskAttemptDescriptor> getTaskDescriptors() {
             return taskDescriptors;
         }
@@ -723,6 +1028,11 @@ public class CCNCFunctions {
                 deploymentId = DeploymentId.create(dis);
             }
 
+            PreparedJobId preparedJobId = null;
+            if (dis.readBoolean()) {
+                preparedJobId = PreparedJobId.create(dis);
+            }
+
             // read plan bytes
             int planBytesSize = dis.readInt();
             byte[] planBytes = null;
@@ -731,6 +1041,8 @@ public class CCNCFunctions {
                 dis.read(planBytes, 0, planBytesSize);
             }
 
+            byte[] jobParameters = readBytes(dis);
+
             // read task attempt descriptors
             int tadSize = dis.readInt();
             List<TaskAttemptDescriptor> taskDescriptors = new ArrayList<TaskAttemptDescriptor>();
@@ -755,7 +1067,8 @@ public class CCNCFunctions {
                 flags.add(JobFlag.values()[(dis.readInt())]);
             }
 
-            return new StartTasksFunction(deploymentId, jobId, planBytes, taskDescriptors, connectorPolicies, flags);
+            return new StartTasksFunction(deploymentId, jobId, preparedJobId, planBytes, jobParameters,
+                    taskDescriptors, connectorPolicies, flags);
         }
 
         public static void serialize(OutputStream out, Object object) throws Exception {
@@ -769,12 +1082,19 @@ public class CCNCFunctions {
                 fn.deploymentId.writeFields(dos);
             }
 
+            dos.writeBoolean(fn.preparedJobId != null);
+            if (fn.preparedJobId != null) {
+                fn.preparedJobId.writeFields(dos);
+            }
+
             //write plan bytes
             dos.writeInt(fn.planBytes == null ? -1 : fn.planBytes.length);
             if (fn.planBytes != null) {
                 dos.write(fn.planBytes, 0, fn.planBytes.length);
             }
 
+            writeBytes(dos, fn.jobParameters);
+
             //write task descriptors
             dos.writeInt(fn.taskDescriptors.size());
             for (int i = 0; i < fn.taskDescriptors.size(); i++) {
@@ -812,6 +1132,29 @@ public class CCNCFunctions {
             return FunctionId.ABORT_TASKS;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            JobId jobId = JobId.create(dis);
+            int nTasks = dis.readInt();
+            List<TaskAttemptId> tasks = new ArrayList<TaskAttemptId>(nTasks);
+            for (int i = 0; i < nTasks; ++i) {
+                tasks.add(TaskAttemptId.create(dis));
+            }
+            return new AbortTasksFunction(jobId, tasks);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            AbortTasksFunction fn = (AbortTasksFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.jobId.writeFields(dos);
+            dos.writeInt(fn.tasks.size());
+            for (TaskAttemptId task : fn.tasks) {
+                task.writeFields(dos);
+            }
+        }
+
         public JobId getJobId() {
             return jobId;
         }
@@ -870,6 +1213,13 @@ public class CCNCFunctions {
         public FunctionId getFunctionId() {
             return FunctionId.GET_NODE_CONTROLLERS_INFO;
         }
+
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            return new GetNodeControllersInfoFunction();
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+        }
     }
 
     public static class GetNodeControllersInfoResponseFunction extends Function {
@@ -886,6 +1236,34 @@ public class CCNCFunctions {
             return FunctionId.GET_NODE_CONTROLLERS_INFO_RESPONSE;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            int nInfos = dis.readInt();
+            Map<String, NodeControllerInfo> ncInfos = new HashMap<String, NodeControllerInfo>();
+            for (int i = 0; i < nInfos; ++i) {
+                String nodeId = dis.readUTF();
+                NodeStatus status = NodeStatus.values()[dis.readByte()];
+                NetworkAddress netAddress = readOptionalNetworkAddress(dis);
+                NetworkAddress datasetNetworkAddress = readOptionalNetworkAddress(dis);
+                ncInfos.put(nodeId, new NodeControllerInfo(nodeId, status, netAddress, datasetNetworkAddress));
+            }
+            return new GetNodeControllersInfoResponseFunction(ncInfos);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            GetNodeControllersInfoResponseFunction fn = (GetNodeControllersInfoResponseFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeInt(fn.ncInfos.size());
+            for (NodeControllerInfo ncInfo : fn.ncInfos.values()) {
+                dos.writeUTF(ncInfo.getNodeId());
+                dos.writeByte(ncInfo.getStatus().ordinal());
+                writeOptionalNetworkAddress(dos, ncInfo.getNetworkAddress());
+                writeOptionalNetworkAddress(dos, ncInfo.getDatasetNetworkAddress());
+            }
+        }
+
         public Map<String, NodeControllerInfo> getNodeControllerInfos() {
             return ncInfos;
         }
@@ -957,6 +1335,29 @@ public class CCNCFunctions {
             return FunctionId.DEPLOY_BINARY;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            DeploymentId deploymentId = DeploymentId.create(dis);
+            int nURLs = dis.readInt();
+            List<URL> binaryURLs = new ArrayList<URL>(nURLs);
+            for (int i = 0; i < nURLs; ++i) {
+                binaryURLs.add(new URL(readString(dis)));
+            }
+            return new DeployBinaryFunction(deploymentId, binaryURLs);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            DeployBinaryFunction fn = (DeployBinaryFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.deploymentId.writeFields(dos);
+            dos.writeInt(fn.binaryURLs.size());
+            for (URL url : fn.binaryURLs) {
+                writeString(dos, url.toString());
+            }
+        }
+
         public List<URL> getBinaryURLs() {
             return binaryURLs;
         }
@@ -980,6 +1381,20 @@ public class CCNCFunctions {
             return FunctionId.UNDEPLOY_BINARY;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            DeploymentId deploymentId = DeploymentId.create(dis);
+            return new UnDeployBinaryFunction(deploymentId);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            UnDeployBinaryFunction fn = (UnDeployBinaryFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.deploymentId.writeFields(dos);
+        }
+
         public DeploymentId getDeploymentId() {
             return deploymentId;
         }
@@ -1033,6 +1448,24 @@ public class CCNCFunctions {
             return FunctionId.NOTIFY_DEPLOY_BINARY;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            DeploymentId deploymentId = DeploymentId.create(dis);
+            String nodeId = dis.readUTF();
+            DeploymentStatus deploymentStatus = DeploymentStatus.values()[dis.readByte()];
+            return new NotifyDeployBinaryFunction(deploymentId, nodeId, deploymentStatus);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            NotifyDeployBinaryFunction fn = (NotifyDeployBinaryFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.deploymentId.writeFields(dos);
+            dos.writeUTF(fn.nodeId);
+            dos.writeByte(fn.deploymentStatus.ordinal());
+        }
+
         public String getNodeId() {
             return nodeId;
         }
@@ -1064,6 +1497,20 @@ public class CCNCFunctions {
             return FunctionId.STATE_DUMP_REQUEST;
         }
 
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            String stateDumpId = dis.readUTF();
+            return new StateDumpRequestFunction(stateDumpId);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            StateDumpRequestFunction fn = (StateDumpRequestFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeUTF(fn.stateDumpId);
+        }
+
     }
 
     public static class StateDumpResponseFunction extends Function {
@@ -1098,6 +1545,113 @@ public class CCNCFunctions {
         public FunctionId getFunctionId() {
             return FunctionId.STATE_DUMP_RESPONSE;
         }
+
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            String nodeId = dis.readUTF();
+            String stateDumpId = dis.readUTF();
+            String state = readString(dis);
+            return new StateDumpResponseFunction(nodeId, stateDumpId, state);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            StateDumpResponseFunction fn = (StateDumpResponseFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeUTF(fn.nodeId);
+            dos.writeUTF(fn.stateDumpId);
+            writeString(dos, fn.state);
+        }
+    }
+
+    public static class DestroyPreparedJobFunction extends Function {
+        private static final long serialVersionUID = 1L;
+
+        private final PreparedJobId preparedJobId;
+
+        public DestroyPreparedJobFunction(PreparedJobId preparedJobId) {
+            this.preparedJobId = preparedJobId;
+        }
+
+        @Override
+        public FunctionId getFunctionId() {
+            return FunctionId.DESTROY_PREPARED_JOB;
+        }
+
+        public PreparedJobId getPreparedJobId() {
+            return preparedJobId;
+        }
+
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            PreparedJobId preparedJobId = PreparedJobId.create(dis);
+            return new DestroyPreparedJobFunction(preparedJobId);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            DestroyPreparedJobFunction fn = (DestroyPreparedJobFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.preparedJobId.writeFields(dos);
+        }
+    }
+
+    public static class NotifyJobletCompleteFunction extends Function {
+        private static final long serialVersionUID = 1L;
+
+        private final JobId jobId;
+        private final String nodeId;
+        private final List<TaskProfile> taskProfiles;
+
+        public NotifyJobletCompleteFunction(JobId jobId, String nodeId, List<TaskProfile> taskProfiles) {
+            this.jobId = jobId;
+            this.nodeId = nodeId;
+            this.taskProfiles = taskProfiles;
+        }
+
+        @Override
+        public FunctionId getFunctionId() {
+            return FunctionId.NOTIFY_JOBLET_COMPLETE;
+        }
+
+        public JobId getJobId() {
+            return jobId;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        public List<TaskProfile> getTaskProfiles() {
+            return taskProfiles;
+        }
+
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            JobId jobId = JobId.create(dis);
+            String nodeId = dis.readUTF();
+            int size = dis.readInt();
+            List<TaskProfile> taskProfiles = new ArrayList<TaskProfile>(size);
+            for (int i = 0; i < size; i++) {
+                taskProfiles.add(TaskProfile.create(dis));
+            }
+            return new NotifyJobletCompleteFunction(jobId, nodeId, taskProfiles);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            NotifyJobletCompleteFunction fn = (NotifyJobletCompleteFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            fn.jobId.writeFields(dos);
+            dos.writeUTF(fn.nodeId);
+            dos.writeInt(fn.taskProfiles.size());
+            for (TaskProfile taskProfile : fn.taskProfiles) {
+                taskProfile.writeFields(dos);
+            }
+        }
     }
 
     public static class ShutdownRequestFunction extends Function {
@@ -1107,9 +1661,17 @@ public class CCNCFunctions {
         public FunctionId getFunctionId() {
             return FunctionId.SHUTDOWN_REQUEST;
         }
+
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            return new ShutdownRequestFunction();
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+        }
     }
 
     public static class ShutdownResponseFunction extends Function {
+        private static final long serialVersionUID = 1L;
 
         private final String nodeId;
 
@@ -1125,6 +1687,20 @@ public class CCNCFunctions {
         public FunctionId getFunctionId() {
             return FunctionId.SHUTDOWN_RESPONSE;
         }
+
+        public static Object deserialize(ByteBuffer buffer, int length) throws Exception {
+            ByteArrayInputStream bais = new ByteArrayInputStream(buffer.array(), buffer.position(), length);
+            DataInputStream dis = new DataInputStream(bais);
+
+            String nodeId = dis.readUTF();
+            return new ShutdownResponseFunction(nodeId);
+        }
+
+        public static void serialize(OutputStream out, Object object) throws Exception {
+            ShutdownResponseFunction fn = (ShutdownResponseFunction) object;
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeUTF(fn.nodeId);
+        }
     }
 
     public static class SerializerDeserializer implements IPayloadSerializerDeserializer {
@@ -1140,7 +1716,18 @@ public class CCNCFunctions {
                 throw new IllegalStateException("Message size too small: " + length);
             }
             byte fid = buffer.get();
-            return deserialize(fid, buffer, length - FID_CODE_SIZE);
+            if (fid == FunctionId.OTHER.ordinal()) {
+                return deserialize(fid, buffer, length - FID_CODE_SIZE);
+            }
+            if (length < FID_CODE_SIZE + VERSION_CODE_SIZE) {
+                throw new IllegalStateException("Message size too small: " + length);
+            }
+            byte version = buffer.get();
+            if (version != SERIALIZATION_VERSION) {
+                throw new IllegalStateException("Unsupported serialization version " + version + " for "
+                        + FunctionId.values()[fid] + ", expected " + SERIALIZATION_VERSION);
+            }
+            return deserialize(fid, buffer, length - FID_CODE_SIZE - VERSION_CODE_SIZE);
         }
 
         @Override
@@ -1157,7 +1744,10 @@ public class CCNCFunctions {
 
         @Override
         public byte[] serializeObject(Object object) throws Exception {
-            if (object instanceof Function) {
+            if (object instanceof Function && !(object instanceof RequestShutdownFunction)
+                    && !(object instanceof NotifyShutdownFunction)) {
+                // RequestShutdownFunction and NotifyShutdownFunction share their function ids with
+                // ShutdownRequestFunction and ShutdownResponseFunction, so they keep the generic encoding.
                 Function fn = (Function) object;
                 return serialize(object, (byte) fn.getFunctionId().ordinal());
             } else {
@@ -1173,6 +1763,9 @@ public class CCNCFunctions {
         private byte[] serialize(Object object, byte fid) throws Exception {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             baos.write(fid);
+            if (fid != FunctionId.OTHER.ordinal()) {
+                baos.write(SERIALIZATION_VERSION);
+            }
             try {
                 serialize(baos, object, fid);
             } catch (Exception e) {
@@ -1185,6 +1778,34 @@ public class CCNCFunctions {
 
         private void serialize(OutputStream out, Object object, byte fid) throws Exception {
             switch (FunctionId.values()[fid]) {
+                case REGISTER_NODE:
+                    RegisterNodeFunction.serialize(out, object);
+                    return;
+
+                case UNREGISTER_NODE:
+                    UnregisterNodeFunction.serialize(out, object);
+                    return;
+
+                case NOTIFY_JOBLET_CLEANUP:
+                    NotifyJobletCleanupFunction.serialize(out, object);
+                    return;
+
+                case NOTIFY_TASK_COMPLETE:
+                    NotifyTaskCompleteFunction.serialize(out, object);
+                    return;
+
+                case NOTIFY_TASK_FAILURE:
+                    NotifyTaskFailureFunction.serialize(out, object);
+                    return;
+
+                case NODE_HEARTBEAT:
+                    NodeHeartbeatFunction.serialize(out, object);
+                    return;
+
+                case REPORT_PROFILE:
+                    ReportProfileFunction.serialize(out, object);
+                    return;
+
                 case REGISTER_PARTITION_PROVIDER:
                     RegisterPartitionProviderFunction.serialize(out, object);
                     return;
@@ -1193,57 +1814,177 @@ public class CCNCFunctions {
                     RegisterPartitionRequestFunction.serialize(out, object);
                     return;
 
-                case REPORT_PARTITION_AVAILABILITY:
-                    ReportPartitionAvailabilityFunction.serialize(out, object);
+                case REGISTER_RESULT_PARTITION_LOCATION:
+                    RegisterResultPartitionLocationFunction.serialize(out, object);
                     return;
 
-                case NODE_HEARTBEAT:
-                    NodeHeartbeatFunction.serialize(out, object);
+                case REPORT_RESULT_PARTITION_WRITE_COMPLETION:
+                    ReportResultPartitionWriteCompletionFunction.serialize(out, object);
+                    return;
+
+                case REPORT_RESULT_PARTITION_FAILURE:
+                    ReportResultPartitionFailureFunction.serialize(out, object);
+                    return;
+
+                case NODE_REGISTRATION_RESULT:
+                    NodeRegistrationResult.serialize(out, object);
                     return;
 
                 case START_TASKS:
                     StartTasksFunction.serialize(out, object);
                     return;
 
-                case NOTIFY_TASK_COMPLETE:
-                    NotifyTaskCompleteFunction.serialize(out, object);
+                case ABORT_TASKS:
+                    AbortTasksFunction.serialize(out, object);
                     return;
 
-                case NOTIFY_JOBLET_CLEANUP:
-                    NotifyJobletCleanupFunction.serialize(out, object);
-                    return;
                 case CLEANUP_JOBLET:
                     CleanupJobletFunction.serialize(out, object);
                     return;
+
+                case REPORT_PARTITION_AVAILABILITY:
+                    ReportPartitionAvailabilityFunction.serialize(out, object);
+                    return;
+
+                case SEND_APPLICATION_MESSAGE:
+                    SendApplicationMessageFunction.serialize(out, object);
+                    return;
+
+                case GET_NODE_CONTROLLERS_INFO:
+                    GetNodeControllersInfoFunction.serialize(out, object);
+                    return;
+
+                case GET_NODE_CONTROLLERS_INFO_RESPONSE:
+                    GetNodeControllersInfoResponseFunction.serialize(out, object);
+                    return;
+
+                case DEPLOY_BINARY:
+                    DeployBinaryFunction.serialize(out, object);
+                    return;
+
+                case NOTIFY_DEPLOY_BINARY:
+                    NotifyDeployBinaryFunction.serialize(out, object);
+                    return;
+
+                case UNDEPLOY_BINARY:
+                    UnDeployBinaryFunction.serialize(out, object);
+                    return;
+
+                case SHUTDOWN_REQUEST:
+                    ShutdownRequestFunction.serialize(out, object);
+                    return;
+
+                case SHUTDOWN_RESPONSE:
+                    ShutdownResponseFunction.serialize(out, object);
+                    return;
+
+                case STATE_DUMP_REQUEST:
+                    StateDumpRequestFunction.serialize(out, object);
+                    return;
+
+                case STATE_DUMP_RESPONSE:
+                    StateDumpResponseFunction.serialize(out, object);
+                    return;
+
+                case DESTROY_PREPARED_JOB:
+                    DestroyPreparedJobFunction.serialize(out, object);
+                    return;
+
+                case NOTIFY_JOBLET_COMPLETE:
+                    NotifyJobletCompleteFunction.serialize(out, object);
+                    return;
             }
             JavaSerializationBasedPayloadSerializerDeserializer.serialize(out, object);
         }
 
         private Object deserialize(byte fid, ByteBuffer buffer, int length) throws Exception {
             switch (FunctionId.values()[fid]) {
+                case REGISTER_NODE:
+                    return RegisterNodeFunction.deserialize(buffer, length);
+
+                case UNREGISTER_NODE:
+                    return UnregisterNodeFunction.deserialize(buffer, length);
+
+                case NOTIFY_JOBLET_CLEANUP:
+                    return NotifyJobletCleanupFunction.deserialize(buffer, length);
+
+                case NOTIFY_TASK_COMPLETE:
+                    return NotifyTaskCompleteFunction.deserialize(buffer, length);
+
+                case NOTIFY_TASK_FAILURE:
+                    return NotifyTaskFailureFunction.deserialize(buffer, length);
+
+                case NODE_HEARTBEAT:
+                    return NodeHeartbeatFunction.deserialize(buffer, length);
+
+                case REPORT_PROFILE:
+                    return ReportProfileFunction.deserialize(buffer, length);
+
                 case REGISTER_PARTITION_PROVIDER:
                     return RegisterPartitionProviderFunction.deserialize(buffer, length);
 
                 case REGISTER_PARTITION_REQUEST:
                     return RegisterPartitionRequestFunction.deserialize(buffer, length);
 
-                case REPORT_PARTITION_AVAILABILITY:
-                    return ReportPartitionAvailabilityFunction.deserialize(buffer, length);
+                case REGISTER_RESULT_PARTITION_LOCATION:
+                    return RegisterResultPartitionLocationFunction.deserialize(buffer, length);
 
-                case NODE_HEARTBEAT:
-                    return NodeHeartbeatFunction.deserialize(buffer, length);
+                case REPORT_RESULT_PARTITION_WRITE_COMPLETION:
+                    return ReportResultPartitionWriteCompletionFunction.deserialize(buffer, length);
+
+                case REPORT_RESULT_PARTITION_FAILURE:
+                    return ReportResultPartitionFailureFunction.deserialize(buffer, length);
+
+                case NODE_REGISTRATION_RESULT:
+                    return NodeRegistrationResult.deserialize(buffer, length);
 
                 case START_TASKS:
                     return StartTasksFunction.deserialize(buffer, length);
 
-                case NOTIFY_TASK_COMPLETE:
-                    return NotifyTaskCompleteFunction.deserialize(buffer, length);
-
-                case NOTIFY_JOBLET_CLEANUP:
-                    return NotifyJobletCleanupFunction.deserialize(buffer, length);
+                case ABORT_TASKS:
+                    return AbortTasksFunction.deserialize(buffer, length);
 
                 case CLEANUP_JOBLET:
                     return CleanupJobletFunction.deserialize(buffer, length);
+
+                case REPORT_PARTITION_AVAILABILITY:
+                    return ReportPartitionAvailabilityFunction.deserialize(buffer, length);
+
+                case SEND_APPLICATION_MESSAGE:
+                    return SendApplicationMessageFunction.deserialize(buffer, length);
+
+                case GET_NODE_CONTROLLERS_INFO:
+                    return GetNodeControllersInfoFunction.deserialize(buffer, length);
+
+                case GET_NODE_CONTROLLERS_INFO_RESPONSE:
+                    return GetNodeControllersInfoResponseFunction.deserialize(buffer, length);
+
+                case DEPLOY_BINARY:
+                    return DeployBinaryFunction.deserialize(buffer, length);
+
+                case NOTIFY_DEPLOY_BINARY:
+                    return NotifyDeployBinaryFunction.deserialize(buffer, length);
+
+                case UNDEPLOY_BINARY:
+                    return UnDeployBinaryFunction.deserialize(buffer, length);
+
+                case SHUTDOWN_REQUEST:
+                    return ShutdownRequestFunction.deserialize(buffer, length);
+
+                case SHUTDOWN_RESPONSE:
+                    return ShutdownResponseFunction.deserialize(buffer, length);
+
+                case STATE_DUMP_REQUEST:
+                    return StateDumpRequestFunction.deserialize(buffer, length);
+
+                case STATE_DUMP_RESPONSE:
+                    return StateDumpResponseFunction.deserialize(buffer, length);
+
+                case DESTROY_PREPARED_JOB:
+                    return DestroyPreparedJobFunction.deserialize(buffer, length);
+
+                case NOTIFY_JOBLET_COMPLETE:
+                    return NotifyJobletCompleteFunction.deserialize(buffer, length);
             }
 
             return javaSerde.deserializeObject(buffer, length);
@@ -1306,4 +2047,102 @@ public class CCNCFunctions {
         dos.writeUTF(networkAddress.getAddress());
         dos.writeInt(networkAddress.getPort());
     }
+
+    private static void writeOptionalNetworkAddress(DataOutputStream dos, NetworkAddress networkAddress)
+            throws IOException {
+        dos.writeBoolean(networkAddress != null);
+        if (networkAddress != null) {
+            writeNetworkAddress(dos, networkAddress);
+        }
+    }
+
+    private static NetworkAddress readOptionalNetworkAddress(DataInputStream dis) throws IOException {
+        return dis.readBoolean() ? readNetworkAddress(dis) : null;
+    }
+
+    private static void writeInetSocketAddress(DataOutputStream dos, InetSocketAddress address) throws IOException {
+        // The resolved address goes along with the host name, so that the receiver does not have to look it up.
+        writeString(dos, address.getHostString());
+        InetAddress inetAddress = address.getAddress();
+        writeBytes(dos, inetAddress == null ? null : inetAddress.getAddress());
+        dos.writeInt(address.getPort());
+    }
+
+    private static InetSocketAddress readInetSocketAddress(DataInputStream dis) throws IOException {
+        String host = readString(dis);
+        byte[] ipAddress = readBytes(dis);
+        int port = dis.readInt();
+        if (ipAddress == null) {
+            return InetSocketAddress.createUnresolved(host, port);
+        }
+        return new InetSocketAddress(InetAddress.getByAddress(host, ipAddress), port);
+    }
+
+    private static void writeDeploymentId(DataOutputStream dos, DeploymentId deploymentId) throws IOException {
+        dos.writeBoolean(deploymentId != null);
+        if (deploymentId != null) {
+            deploymentId.writeFields(dos);
+        }
+    }
+
+    private static DeploymentId readDeploymentId(DataInputStream dis) throws IOException {
+        return dis.readBoolean() ? DeploymentId.create(dis) : null;
+    }
+
+    private static void writeBytes(DataOutputStream dos, byte[] bytes) throws IOException {
+        dos.writeInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            dos.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream dis) throws IOException {
+        int length = dis.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        dis.readFully(bytes);
+        return bytes;
+    }
+
+    /*
+     * Unlike DataOutput.writeUTF, strings written this way may be null and longer than 64KB.
+     */
+    private static void writeString(DataOutputStream dos, String string) throws IOException {
+        writeBytes(dos, string == null ? null : string.getBytes(UTF8));
+    }
+
+    private static String readString(DataInputStream dis) throws IOException {
+        byte[] bytes = readBytes(dis);
+        return bytes == null ? null : new String(bytes, UTF8);
+    }
+
+    /*
+     * Opaque values, such as exceptions and configurations, are embedded with Java serialization.
+     */
+    private static void writeSerializable(DataOutputStream dos, Serializable object) throws IOException {
+        if (object == null) {
+            writeBytes(dos, null);
+            return;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(object);
+        oos.close();
+        writeBytes(dos, baos.toByteArray());
+    }
+
+    private static Serializable readSerializable(DataInputStream dis) throws IOException, ClassNotFoundException {
+        byte[] bytes = readBytes(dis);
+        if (bytes == null) {
+            return null;
+        }
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        try {
+            return (Serializable) ois.readObject();
+        } finally {
+            ois.close();
+        }
+    }
 }
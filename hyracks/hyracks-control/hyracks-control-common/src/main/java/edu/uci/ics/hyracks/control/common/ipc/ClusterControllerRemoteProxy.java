@@ -66,6 +66,13 @@ public class ClusterControllerRemoteProxy implements IClusterController {
         ipcHandle.send(-1, fn, null);
     }
 
+    @Override
+    public void notifyJobletComplete(JobId jobId, String nodeId, List<TaskProfile> taskProfiles) throws Exception {
+        CCNCFunctions.NotifyJobletCompleteFunction fn = new CCNCFunctions.NotifyJobletCompleteFunction(jobId, nodeId,
+                taskProfiles);
+        ipcHandle.send(-1, fn, null);
+    }
+
     @Override
     public void notifyJobletCleanup(JobId jobId, String nodeId) throws Exception {
         CCNCFunctions.NotifyJobletCleanupFunction fn = new CCNCFunctions.NotifyJobletCleanupFunction(jobId, nodeId);
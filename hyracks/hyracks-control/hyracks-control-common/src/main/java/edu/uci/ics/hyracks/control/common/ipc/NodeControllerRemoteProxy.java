@@ -27,6 +27,7 @@ import edu.uci.ics.hyracks.api.deployment.DeploymentId;
 import edu.uci.ics.hyracks.api.job.JobFlag;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.partitions.PartitionId;
 import edu.uci.ics.hyracks.control.common.base.INodeController;
 import edu.uci.ics.hyracks.control.common.job.TaskAttemptDescriptor;
@@ -40,14 +41,20 @@ public class NodeControllerRemoteProxy implements INodeController {
     }
 
     @Override
-    public void startTasks(DeploymentId deploymentId, JobId jobId, byte[] planBytes,
-            List<TaskAttemptDescriptor> taskDescriptors,
+    public void startTasks(DeploymentId deploymentId, JobId jobId, PreparedJobId preparedJobId, byte[] planBytes,
+            byte[] jobParameters, List<TaskAttemptDescriptor> taskDescriptors,
             Map<ConnectorDescriptorId, IConnectorPolicy> connectorPolicies, EnumSet<JobFlag> flags) throws Exception {
-        CCNCFunctions.StartTasksFunction stf = new CCNCFunctions.StartTasksFunction(deploymentId, jobId, planBytes,
-                taskDescriptors, connectorPolicies, flags);
+        CCNCFunctions.StartTasksFunction stf = new CCNCFunctions.StartTasksFunction(deploymentId, jobId,
+                preparedJobId, planBytes, jobParameters, taskDescriptors, connectorPolicies, flags);
         ipcHandle.send(-1, stf, null);
     }
 
+    @Override
+    public void destroyPreparedJob(PreparedJobId preparedJobId) throws Exception {
+        CCNCFunctions.DestroyPreparedJobFunction dpjf = new CCNCFunctions.DestroyPreparedJobFunction(preparedJobId);
+        ipcHandle.send(-1, dpjf, null);
+    }
+
     @Override
     public void abortTasks(JobId jobId, List<TaskAttemptId> tasks) throws Exception {
         CCNCFunctions.AbortTasksFunction atf = new CCNCFunctions.AbortTasksFunction(jobId, tasks);
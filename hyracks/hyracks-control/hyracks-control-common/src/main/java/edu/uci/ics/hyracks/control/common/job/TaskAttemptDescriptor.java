@@ -37,6 +37,8 @@ public class TaskAttemptDescriptor implements IWritable, Serializable {
 
     private NetworkAddress[][] inputPartitionLocations;
 
+    private int localStage = -1;
+
     public static TaskAttemptDescriptor create(DataInput dis) throws IOException {
         TaskAttemptDescriptor taskAttemptDescriptor = new TaskAttemptDescriptor();
         taskAttemptDescriptor.readFields(dis);
@@ -78,11 +80,27 @@ public class TaskAttemptDescriptor implements IWritable, Serializable {
         return inputPartitionLocations;
     }
 
+    /**
+     * Marks the task as part of a job that runs entirely on one node. The node starts the tasks of a stage once all
+     * the tasks of the earlier stages are done, and reports the completion of the whole job at once.
+     */
+    public void setLocalStage(int localStage) {
+        this.localStage = localStage;
+    }
+
+    /**
+     * @return the stage of the task in a job that runs entirely on one node, or -1 if the task is scheduled by the
+     *         cluster controller
+     */
+    public int getLocalStage() {
+        return localStage;
+    }
+
     @Override
     public String toString() {
         return "TaskAttemptDescriptor[taId = " + taId + ", nPartitions = " + nPartitions + ", nInputPartitions = "
                 + Arrays.toString(nInputPartitions) + ", nOutputPartitions = " + Arrays.toString(nOutputPartitions)
-                + "]";
+                + ", localStage = " + localStage + "]";
     }
 
     @Override
@@ -117,6 +135,7 @@ public class TaskAttemptDescriptor implements IWritable, Serializable {
                 }
             }
         }
+        output.writeInt(localStage);
     }
 
     @Override
@@ -153,5 +172,6 @@ public class TaskAttemptDescriptor implements IWritable, Serializable {
                 }
             }
         }
+        localStage = input.readInt();
     }
 }
\ No newline at end of file
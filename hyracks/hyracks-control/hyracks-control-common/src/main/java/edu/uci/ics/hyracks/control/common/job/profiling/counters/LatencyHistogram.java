@@ -0,0 +1,139 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.common.job.profiling.counters;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A histogram of latencies with one bucket per power of two microseconds. Bucket 0 counts latencies below 1us and
+ * bucket i latencies in [2^(i-1), 2^i) us. Recording is lock-free, so one histogram can be shared by many threads.
+ */
+public class LatencyHistogram {
+    private static final int N_BUCKETS = 40;
+
+    private final String name;
+
+    private final AtomicLongArray buckets;
+
+    private final AtomicLong count;
+
+    private final AtomicLong totalNanos;
+
+    private final AtomicLong maxNanos;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+        buckets = new AtomicLongArray(N_BUCKETS);
+        count = new AtomicLong();
+        totalNanos = new AtomicLong();
+        maxNanos = new AtomicLong();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a latency that started at the given {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(getBucket(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    private static int getBucket(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        return Math.min(N_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @return an upper bound in microseconds of the latency below which the given fraction of the recorded latencies
+     *         fall, or 0 if nothing was recorded
+     */
+    public long getPercentileMicros(double fraction) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * n);
+        long seen = 0;
+        for (int i = 0; i < N_BUCKETS; ++i) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (N_BUCKETS - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < N_BUCKETS; ++i) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    public JSONObject toJSON() throws JSONException {
+        JSONObject json = new JSONObject();
+        long n = count.get();
+        json.put("name", name);
+        json.put("count", n);
+        json.put("mean-us", n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.get() / n));
+        json.put("p50-us", getPercentileMicros(0.5));
+        json.put("p90-us", getPercentileMicros(0.9));
+        json.put("p99-us", getPercentileMicros(0.99));
+        json.put("max-us", TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+        JSONObject histogram = new JSONObject();
+        for (int i = 0; i < N_BUCKETS; ++i) {
+            long b = buckets.get(i);
+            if (b > 0) {
+                histogram.put("<" + (1L << i), b);
+            }
+        }
+        json.put("buckets-us", histogram);
+        return json;
+    }
+}
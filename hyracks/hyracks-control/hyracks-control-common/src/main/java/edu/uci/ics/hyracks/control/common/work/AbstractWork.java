@@ -16,11 +16,34 @@ package edu.uci.ics.hyracks.control.common.work;
 
 import java.util.logging.Level;
 
+import edu.uci.ics.hyracks.api.job.JobId;
+
 public abstract class AbstractWork implements Runnable {
+    private long enqueueTime;
+
     public Level logLevel() {
         return Level.INFO;
     }
 
+    /**
+     * A {@link WorkQueue} with job workers runs the work of different jobs in parallel, and the work of one job in the
+     * order it was scheduled. Work that returns null here runs alone, after all the work scheduled before it and
+     * before all the work scheduled after it.
+     * 
+     * @return the job whose state this work is confined to, or null if it may touch state shared by jobs
+     */
+    public JobId getJobId() {
+        return null;
+    }
+
+    void setEnqueueTime(long enqueueTime) {
+        this.enqueueTime = enqueueTime;
+    }
+
+    long getEnqueueTime() {
+        return enqueueTime;
+    }
+
     public String getName() {
         final String className = getClass().getName();
         final int endIndex = className.endsWith("Work") ? className.length() - 4 : className.length();
@@ -17,31 +17,73 @@ package edu.uci.ics.hyracks.control.common.work;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import edu.uci.ics.hyracks.api.exceptions.HyracksException;
+import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.control.common.job.profiling.counters.LatencyHistogram;
 
+/**
+ * Runs work items in the order they were scheduled on a single dispatcher thread. A queue created with job workers
+ * hands the work of each job ({@link AbstractWork#getJobId()}) to one of its job workers, chosen by the job id, so
+ * that the work of one job keeps its order while the work of unrelated jobs runs in parallel. Work that is not
+ * confined to a job waits for all the job work scheduled before it to finish and runs alone on the dispatcher.
+ */
 public class WorkQueue {
     private static final Logger LOGGER = Logger.getLogger(WorkQueue.class.getName());
     private static final Level COUNT_LOGGING_LEVEL = Level.FINEST;
 
     private final LinkedBlockingQueue<AbstractWork> queue;
     private final WorkerThread thread;
+    private final JobWorkerThread[] jobWorkers;
     private final Semaphore stopSemaphore;
     private boolean stopped;
     private AtomicInteger enqueueCount;
     private AtomicInteger dequeueCount;
 
+    private final Object jobWorkLock;
+    private int pendingJobWork;
+
+    private final AtomicInteger depth;
+    private final AtomicInteger maxDepth;
+    private final AtomicLong executedCount;
+    private final LatencyHistogram waitLatency;
+    private final LatencyHistogram executeLatency;
+    private final LatencyHistogram barrierLatency;
+
     public WorkQueue() {
+        this(0);
+    }
+
+    /**
+     * @param nJobWorkers
+     *            the number of threads that run the work of jobs, or 0 to run all the work on the dispatcher thread
+     */
+    public WorkQueue(int nJobWorkers) {
         queue = new LinkedBlockingQueue<AbstractWork>();
         thread = new WorkerThread();
+        jobWorkers = new JobWorkerThread[Math.max(0, nJobWorkers)];
+        for (int i = 0; i < jobWorkers.length; ++i) {
+            jobWorkers[i] = new JobWorkerThread(i);
+        }
         stopSemaphore = new Semaphore(1);
         stopped = true;
         if (LOGGER.isLoggable(COUNT_LOGGING_LEVEL)) {
             enqueueCount = new AtomicInteger(0);
             dequeueCount = new AtomicInteger(0);
         }
+        jobWorkLock = new Object();
+        depth = new AtomicInteger();
+        maxDepth = new AtomicInteger();
+        executedCount = new AtomicLong();
+        waitLatency = new LatencyHistogram("wait");
+        executeLatency = new LatencyHistogram("execute");
+        barrierLatency = new LatencyHistogram("barrier");
     }
 
     public void start() throws HyracksException {
@@ -55,6 +97,9 @@ public class WorkQueue {
             dequeueCount.set(0);
         }
         stopped = false;
+        for (JobWorkerThread jobWorker : jobWorkers) {
+            jobWorker.start();
+        }
         thread.start();
     }
 
@@ -81,6 +126,12 @@ public class WorkQueue {
         if (LOGGER.isLoggable(Level.FINER)) {
             LOGGER.finer("Scheduling: " + event);
         }
+        event.setEnqueueTime(System.nanoTime());
+        int d = depth.incrementAndGet();
+        int max = maxDepth.get();
+        while (d > max && !maxDepth.compareAndSet(max, d)) {
+            max = maxDepth.get();
+        }
         queue.offer(event);
     }
 
@@ -89,6 +140,105 @@ public class WorkQueue {
         sRunnable.sync();
     }
 
+    public int getJobWorkerCount() {
+        return jobWorkers.length;
+    }
+
+    /**
+     * @return the number of work items that were scheduled and have not finished yet
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    /**
+     * @return the times from scheduling to the start of execution
+     */
+    public LatencyHistogram getWaitLatency() {
+        return waitLatency;
+    }
+
+    public LatencyHistogram getExecuteLatency() {
+        return executeLatency;
+    }
+
+    /**
+     * @return the times that work not confined to a job waited for the job work scheduled before it
+     */
+    public LatencyHistogram getBarrierLatency() {
+        return barrierLatency;
+    }
+
+    public JSONObject toJSON() throws JSONException {
+        JSONObject jo = new JSONObject();
+        jo.put("job-workers", jobWorkers.length);
+        jo.put("depth", depth.get());
+        jo.put("max-depth", maxDepth.get());
+        jo.put("executed", executedCount.get());
+        jo.put("wait", waitLatency.toJSON());
+        jo.put("execute", executeLatency.toJSON());
+        jo.put("barrier", barrierLatency.toJSON());
+        return jo;
+    }
+
+    private void execute(AbstractWork r) {
+        long startTime = System.nanoTime();
+        waitLatency.record(startTime - r.getEnqueueTime());
+        try {
+            if (LOGGER.isLoggable(r.logLevel())) {
+                LOGGER.log(r.logLevel(), "Executing: " + r);
+            }
+            r.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            executeLatency.recordSince(startTime);
+            executedCount.incrementAndGet();
+            depth.decrementAndGet();
+        }
+    }
+
+    private void dispatchJobWork(JobId jobId, AbstractWork r) {
+        synchronized (jobWorkLock) {
+            ++pendingJobWork;
+        }
+        jobWorkers[(jobId.hashCode() & Integer.MAX_VALUE) % jobWorkers.length].queue.offer(r);
+    }
+
+    private void awaitJobWork() {
+        synchronized (jobWorkLock) {
+            if (pendingJobWork == 0) {
+                return;
+            }
+            long startTime = System.nanoTime();
+            boolean interrupted = false;
+            while (pendingJobWork > 0) {
+                try {
+                    jobWorkLock.wait();
+                } catch (InterruptedException e) {
+                    // keep waiting, global work must not overlap job work
+                    interrupted = true;
+                }
+            }
+            barrierLatency.recordSince(startTime);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void jobWorkDone() {
+        synchronized (jobWorkLock) {
+            if (--pendingJobWork == 0) {
+                jobWorkLock.notifyAll();
+            }
+        }
+    }
+
     private class WorkerThread extends Thread {
         WorkerThread() {
             setDaemon(true);
@@ -115,18 +265,49 @@ public class WorkQueue {
                                 "Dequeue (" + WorkQueue.this.hashCode() + "): " + dequeueCount.incrementAndGet() + "/"
                                         + enqueueCount);
                     }
-                    try {
-                        if (LOGGER.isLoggable(r.logLevel())) {
-                            LOGGER.log(r.logLevel(), "Executing: " + r);
-                        }
-                        r.run();
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                    JobId jobId = jobWorkers.length > 0 ? r.getJobId() : null;
+                    if (jobId != null) {
+                        dispatchJobWork(jobId, r);
+                    } else {
+                        awaitJobWork();
+                        execute(r);
                     }
                 }
             } finally {
+                awaitJobWork();
+                for (JobWorkerThread jobWorker : jobWorkers) {
+                    jobWorker.interrupt();
+                }
                 stopSemaphore.release();
             }
         }
     }
-}
\ No newline at end of file
+
+    private class JobWorkerThread extends Thread {
+        private final LinkedBlockingQueue<AbstractWork> queue;
+
+        JobWorkerThread(int index) {
+            super("WorkQueue job worker " + index);
+            queue = new LinkedBlockingQueue<AbstractWork>();
+            setDaemon(true);
+            setPriority(MAX_PRIORITY);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                AbstractWork r;
+                try {
+                    r = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    execute(r);
+                } finally {
+                    jobWorkDone();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.common.ipc;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.client.ClusterControllerInfo;
+import edu.uci.ics.hyracks.api.client.NodeControllerInfo;
+import edu.uci.ics.hyracks.api.client.NodeStatus;
+import edu.uci.ics.hyracks.api.comm.NetworkAddress;
+import edu.uci.ics.hyracks.api.dataflow.ActivityId;
+import edu.uci.ics.hyracks.api.dataflow.ConnectorDescriptorId;
+import edu.uci.ics.hyracks.api.dataflow.OperatorDescriptorId;
+import edu.uci.ics.hyracks.api.dataflow.TaskAttemptId;
+import edu.uci.ics.hyracks.api.dataflow.TaskId;
+import edu.uci.ics.hyracks.api.dataflow.connectors.IConnectorPolicy;
+import edu.uci.ics.hyracks.api.dataflow.connectors.PipeliningConnectorPolicy;
+import edu.uci.ics.hyracks.api.dataflow.connectors.SendSideSpillingPipeliningConnectorPolicy;
+import edu.uci.ics.hyracks.api.dataset.ResultSetId;
+import edu.uci.ics.hyracks.api.deployment.DeploymentId;
+import edu.uci.ics.hyracks.api.job.JobFlag;
+import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.api.job.JobStatus;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
+import edu.uci.ics.hyracks.api.partitions.PartitionId;
+import edu.uci.ics.hyracks.control.common.controllers.NCConfig;
+import edu.uci.ics.hyracks.control.common.controllers.NodeParameters;
+import edu.uci.ics.hyracks.control.common.controllers.NodeRegistration;
+import edu.uci.ics.hyracks.control.common.deployment.DeploymentStatus;
+import edu.uci.ics.hyracks.control.common.heartbeat.HeartbeatData;
+import edu.uci.ics.hyracks.control.common.heartbeat.HeartbeatSchema;
+import edu.uci.ics.hyracks.control.common.heartbeat.HeartbeatSchema.GarbageCollectorInfo;
+import edu.uci.ics.hyracks.control.common.ipc.CCNCFunctions.*;
+import edu.uci.ics.hyracks.control.common.job.PartitionDescriptor;
+import edu.uci.ics.hyracks.control.common.job.PartitionRequest;
+import edu.uci.ics.hyracks.control.common.job.PartitionState;
+import edu.uci.ics.hyracks.control.common.job.TaskAttemptDescriptor;
+import edu.uci.ics.hyracks.control.common.job.profiling.om.JobProfile;
+import edu.uci.ics.hyracks.control.common.job.profiling.om.JobletProfile;
+import edu.uci.ics.hyracks.control.common.job.profiling.om.PartitionProfile;
+import edu.uci.ics.hyracks.control.common.job.profiling.om.TaskProfile;
+import edu.uci.ics.hyracks.ipc.impl.JavaSerializationBasedPayloadSerializerDeserializer;
+
+public class CCNCFunctionsTest {
+    private static final Logger LOGGER = Logger.getLogger(CCNCFunctionsTest.class.getName());
+
+    private static final JobId JOB_ID = new JobId(42);
+
+    private static final TaskAttemptId TASK_ID = createTaskAttemptId(3, 1, 7, 2);
+
+    private static final NetworkAddress ADDRESS = new NetworkAddress("10.0.0.1", 1099);
+
+    private final CCNCFunctions.SerializerDeserializer serde = new CCNCFunctions.SerializerDeserializer();
+
+    @Test
+    public void registerNodeTest() throws Exception {
+        NCConfig ncConfig = new NCConfig();
+        ncConfig.nodeId = "nc1";
+        ncConfig.ioDevices = "/tmp/io1,/tmp/io2";
+        Map<String, String> systemProperties = new HashMap<String, String>();
+        systemProperties.put("java.version", "1.7.0");
+        StringBuilder classpath = new StringBuilder();
+        while (classpath.length() < 70000) {
+            classpath.append("/some/lib/dir/library.jar:");
+        }
+        InetSocketAddress ncAddress = new InetSocketAddress(InetAddress.getByAddress("nc1.local", new byte[] { 10,
+                0, 0, 2 }), 4001);
+        NodeRegistration reg = new NodeRegistration(ncAddress, "nc1", ncConfig, ADDRESS, null, "Linux", "amd64",
+                "3.2", 8, "OpenJDK", "24.0", "Oracle", classpath.toString(), "/usr/lib", "/boot", Arrays.asList(
+                        "-Xmx1g", "-server"), systemProperties, new HeartbeatSchema(new GarbageCollectorInfo[] {
+                        new GarbageCollectorInfo("PS Scavenge"), new GarbageCollectorInfo("PS MarkSweep") }));
+        RegisterNodeFunction fn = (RegisterNodeFunction) roundTrip(new RegisterNodeFunction(reg));
+        NodeRegistration result = fn.getNodeRegistration();
+        Assert.assertEquals(ncAddress, result.getNodeControllerAddress());
+        Assert.assertEquals("nc1.local", result.getNodeControllerAddress().getHostString());
+        Assert.assertEquals("nc1", result.getNodeId());
+        Assert.assertEquals("/tmp/io1,/tmp/io2", result.getNCConfig().ioDevices);
+        Assert.assertEquals(ADDRESS, result.getDataPort());
+        Assert.assertNull(result.getDatasetPort());
+        Assert.assertEquals(8, result.getNProcessors());
+        Assert.assertEquals(classpath.toString(), result.getClasspath());
+        Assert.assertEquals(Arrays.asList("-Xmx1g", "-server"), result.getInputArguments());
+        Assert.assertEquals(systemProperties, result.getSystemProperties());
+        Assert.assertEquals("PS MarkSweep", result.getHeartbeatSchema().getGarbageCollectorInfos()[1].getName());
+    }
+
+    @Test
+    public void unregisterNodeTest() throws Exception {
+        UnregisterNodeFunction fn = (UnregisterNodeFunction) roundTrip(new UnregisterNodeFunction("nc1"));
+        Assert.assertEquals("nc1", fn.getNodeId());
+    }
+
+    @Test
+    public void notifyJobletCleanupTest() throws Exception {
+        NotifyJobletCleanupFunction fn = (NotifyJobletCleanupFunction) roundTrip(new NotifyJobletCleanupFunction(
+                JOB_ID, "nc1"));
+        Assert.assertEquals(JOB_ID, fn.getJobId());
+        Assert.assertEquals("nc1", fn.getNodeId());
+    }
+
+    @Test
+    public void notifyTaskCompleteTest() throws Exception {
+        NotifyTaskCompleteFunction fn = (NotifyTaskCompleteFunction) roundTrip(new NotifyTaskCompleteFunction(JOB_ID,
+                TASK_ID, "nc1", createTaskProfile(TASK_ID)));
+        Assert.assertEquals(JOB_ID, fn.getJobId());
+        Assert.assertEquals(TASK_ID, fn.getTaskId());
+        Assert.assertEquals(Long.valueOf(17), fn.getStatistics().getCounters().get("tuples"));
+    }
+
+    @Test
+    public void notifyJobletCompleteTest() throws Exception {
+        TaskAttemptId taId = createTaskAttemptId(2, 0, 1, 0);
+        List<TaskProfile> profiles = Arrays.asList(createTaskProfile(TASK_ID), createTaskProfile(taId));
+        NotifyJobletCompleteFunction fn = (NotifyJobletCompleteFunction) roundTrip(new NotifyJobletCompleteFunction(
+                JOB_ID, "nc1", profiles));
+        Assert.assertEquals(JOB_ID, fn.getJobId());
+        Assert.assertEquals("nc1", fn.getNodeId());
+        Assert.assertEquals(2, fn.getTaskProfiles().size());
+        Assert.assertEquals(taId, fn.getTaskProfiles().get(1).getTaskId());
+    }
+
+    @Test
+    public void notifyTaskFailureTest() throws Exception {
+        List<Exception> exceptions = new ArrayList<Exception>();
+        exceptions.add(new IllegalStateException("first"));
+        exceptions.add(new RuntimeException("second", new IllegalArgumentException("cause")));
+        NotifyTaskFailureFunction fn = (NotifyTaskFailureFunction) roundTrip(new NotifyTaskFailureFunction(JOB_ID,
+                TASK_ID, "nc1", exceptions));
+        Assert.assertEquals(TASK_ID, fn.getTaskId());
+        Assert.assertEquals(2, fn.getExceptions().size());
+        Assert.assertEquals("first", fn.getExceptions().get(0).getMessage());
+        Assert.assertEquals("cause", fn.getExceptions().get(1).getCause().getMessage());
+    }
+
+    @Test
+    public void nodeHeartbeatTest() throws Exception {
+        HeartbeatData hbData = new HeartbeatData();
+        hbData.heapUsedSize = 1;
+        hbData.netSignalingBytesWritten = 2;
+        hbData.datasetNetPayloadBytesRead = 3;
+        hbData.diskWrites = 4;
+        hbData.jobMemoryMaxSize = 9;
+        hbData.jobMemoryAvailableSize = 10;
+        hbData.gcCollectionCounts = new long[] { 5, 6 };
+        hbData.gcCollectionTimes = new long[] { 7, 8 };
+        NodeHeartbeatFunction fn = (NodeHeartbeatFunction) roundTrip(new NodeHeartbeatFunction("nc1", hbData));
+        HeartbeatData result = fn.getHeartbeatData();
+        Assert.assertEquals(1, result.heapUsedSize);
+        Assert.assertEquals(2, result.netSignalingBytesWritten);
+        Assert.assertEquals(3, result.datasetNetPayloadBytesRead);
+        Assert.assertEquals(4, result.diskWrites);
+        Assert.assertEquals(9, result.jobMemoryMaxSize);
+        Assert.assertEquals(10, result.jobMemoryAvailableSize);
+        Assert.assertTrue(Arrays.equals(new long[] { 7, 8 }, result.gcCollectionTimes));
+    }
+
+    @Test
+    public void reportProfileTest() throws Exception {
+        ReportProfileFunction fn = (ReportProfileFunction) roundTrip(createReportProfileFunction(2, 4));
+        Assert.assertEquals("nc1", fn.getNodeId());
+        Assert.assertEquals(2, fn.getProfiles().size());
+        JobletProfile jp = fn.getProfiles().get(1).getJobletProfiles().get("nc1");
+        Assert.assertEquals(4, jp.getTaskProfiles().size());
+    }
+
+    @Test
+    public void registerPartitionProviderTest() throws Exception {
+        PartitionId pid = new PartitionId(JOB_ID, new ConnectorDescriptorId(5), 1, 2);
+        PartitionDescriptor descriptor = new PartitionDescriptor(pid, "nc1", TASK_ID, true);
+        descriptor.setState(PartitionState.COMMITTED);
+        RegisterPartitionProviderFunction fn = (RegisterPartitionProviderFunction) roundTrip(new RegisterPartitionProviderFunction(
+                descriptor));
+        Assert.assertEquals(pid, fn.getPartitionDescriptor().getPartitionId());
+        Assert.assertEquals(TASK_ID, fn.getPartitionDescriptor().getProducingTaskAttemptId());
+        Assert.assertEquals(PartitionState.COMMITTED, fn.getPartitionDescriptor().getState());
+    }
+
+    @Test
+    public void registerPartitionRequestTest() throws Exception {
+        PartitionId pid = new PartitionId(JOB_ID, new ConnectorDescriptorId(5), 1, 2);
+        RegisterPartitionRequestFunction fn = (RegisterPartitionRequestFunction) roundTrip(new RegisterPartitionRequestFunction(
+                new PartitionRequest(pid, "nc1", TASK_ID, PartitionState.STARTED)));
+        Assert.assertEquals(pid, fn.getPartitionRequest().getPartitionId());
+        Assert.assertEquals(PartitionState.STARTED, fn.getPartitionRequest().getMinimumState());
+    }
+
+    @Test
+    public void registerResultPartitionLocationTest() throws Exception {
+        RegisterResultPartitionLocationFunction fn = (RegisterResultPartitionLocationFunction) roundTrip(new RegisterResultPartitionLocationFunction(
+                JOB_ID, new ResultSetId(9), true, false, 3, 4, ADDRESS));
+        Assert.assertEquals(new ResultSetId(9), fn.getResultSetId());
+        Assert.assertTrue(fn.getOrderedResult());
+        Assert.assertFalse(fn.getEmptyResult());
+        Assert.assertEquals(3, fn.getPartition());
+        Assert.assertEquals(4, fn.getNPartitions());
+        Assert.assertEquals(ADDRESS, fn.getNetworkAddress());
+    }
+
+    @Test
+    public void reportResultPartitionWriteCompletionTest() throws Exception {
+        ReportResultPartitionWriteCompletionFunction fn = (ReportResultPartitionWriteCompletionFunction) roundTrip(new ReportResultPartitionWriteCompletionFunction(
+                JOB_ID, new ResultSetId(9), 3));
+        Assert.assertEquals(JOB_ID, fn.getJobId());
+        Assert.assertEquals(new ResultSetId(9), fn.getResultSetId());
+        Assert.assertEquals(3, fn.getPartition());
+    }
+
+    @Test
+    public void reportResultPartitionFailureTest() throws Exception {
+        ReportResultPartitionFailureFunction fn = (ReportResultPartitionFailureFunction) roundTrip(new ReportResultPartitionFailureFunction(
+                JOB_ID, new ResultSetId(9), 3));
+        Assert.assertEquals(new ResultSetId(9), fn.getResultSetId());
+        Assert.assertEquals(3, fn.getPartition());
+    }
+
+    @Test
+    public void nodeRegistrationResultTest() throws Exception {
+        NodeParameters params = new NodeParameters();
+        params.setClusterControllerInfo(new ClusterControllerInfo("10.0.0.9", 1098, 16001));
+        params.setDistributedState("state");
+        params.setHeartbeatPeriod(10000);
+        params.setProfileDumpPeriod(500);
+        NodeRegistrationResult fn = (NodeRegistrationResult) roundTrip(new NodeRegistrationResult(params, null));
+        Assert.assertNull(fn.getException());
+        Assert.assertEquals(16001, fn.getNodeParameters().getClusterControllerInfo().getWebPort());
+        Assert.assertEquals("state", fn.getNodeParameters().getDistributedState());
+        Assert.assertEquals(500, fn.getNodeParameters().getProfileDumpPeriod());
+
+        fn = (NodeRegistrationResult) roundTrip(new NodeRegistrationResult(null, new Exception("duplicate node")));
+        Assert.assertNull(fn.getNodeParameters());
+        Assert.assertEquals("duplicate node", fn.getException().getMessage());
+    }
+
+    @Test
+    public void startTasksTest() throws Exception {
+        StartTasksFunction fn = (StartTasksFunction) roundTrip(createStartTasksFunction(3));
+        Assert.assertEquals(JOB_ID, fn.getJobId());
+        Assert.assertEquals(new DeploymentId("d1"), fn.getDeploymentId());
+        Assert.assertEquals(3, fn.getTaskDescriptors().size());
+        Assert.assertEquals(EnumSet.of(JobFlag.PROFILE_RUNTIME), fn.getFlags());
+        Assert.assertNull(fn.getPreparedJobId());
+        Assert.assertEquals(-1, fn.getTaskDescriptors().get(0).getLocalStage());
+        Assert.assertEquals(2, fn.getTaskDescriptors().get(2).getLocalStage());
+        Assert.assertTrue(fn.getConnectorPolicies().get(new ConnectorDescriptorId(0))
+                instanceof PipeliningConnectorPolicy);
+        Assert.assertEquals(8, ((SendSideSpillingPipeliningConnectorPolicy) fn.getConnectorPolicies().get(
+                new ConnectorDescriptorId(1))).getMemoryFrames());
+
+        fn = (StartTasksFunction) roundTrip(new StartTasksFunction(null, JOB_ID, new PreparedJobId(5), null,
+                new byte[] { 4, 2 }, fn.getTaskDescriptors(), fn.getConnectorPolicies(), fn.getFlags()));
+        Assert.assertEquals(new PreparedJobId(5), fn.getPreparedJobId());
+        Assert.assertNull(fn.getPlanBytes());
+        Assert.assertTrue(Arrays.equals(new byte[] { 4, 2 }, fn.getJobParameters()));
+    }
+
+    @Test
+    public void abortTasksTest() throws Exception {
+        List<TaskAttemptId> tasks = Arrays.asList(TASK_ID, createTaskAttemptId(3, 1, 8, 0));
+        AbortTasksFunction fn = (AbortTasksFunction) roundTrip(new AbortTasksFunction(JOB_ID, tasks));
+        Assert.assertEquals(tasks, fn.getTasks());
+    }
+
+    @Test
+    public void cleanupJobletTest() throws Exception {
+        CleanupJobletFunction fn = (CleanupJobletFunction) roundTrip(new CleanupJobletFunction(JOB_ID,
+                JobStatus.FAILURE));
+        Assert.assertEquals(JobStatus.FAILURE, fn.getStatus());
+    }
+
+    @Test
+    public void reportPartitionAvailabilityTest() throws Exception {
+        PartitionId pid = new PartitionId(JOB_ID, new ConnectorDescriptorId(5), 1, 2);
+        ReportPartitionAvailabilityFunction fn = (ReportPartitionAvailabilityFunction) roundTrip(new ReportPartitionAvailabilityFunction(
+                pid, ADDRESS));
+        Assert.assertEquals(pid, fn.getPartitionId());
+        Assert.assertEquals(ADDRESS, fn.getNetworkAddress());
+    }
+
+    @Test
+    public void sendApplicationMessageTest() throws Exception {
+        SendApplicationMessageFunction fn = (SendApplicationMessageFunction) roundTrip(new SendApplicationMessageFunction(
+                new byte[] { 1, 2, 3 }, new DeploymentId("d1"), "nc1"));
+        Assert.assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, fn.getMessage()));
+        Assert.assertEquals(new DeploymentId("d1"), fn.getDeploymentId());
+
+        fn = (SendApplicationMessageFunction) roundTrip(new SendApplicationMessageFunction(new byte[0], null, null));
+        Assert.assertEquals(0, fn.getMessage().length);
+        Assert.assertNull(fn.getDeploymentId());
+        Assert.assertNull(fn.getNodeId());
+    }
+
+    @Test
+    public void getNodeControllersInfoTest() throws Exception {
+        Assert.assertTrue(roundTrip(new GetNodeControllersInfoFunction()) instanceof GetNodeControllersInfoFunction);
+    }
+
+    @Test
+    public void getNodeControllersInfoResponseTest() throws Exception {
+        Map<String, NodeControllerInfo> ncInfos = new HashMap<String, NodeControllerInfo>();
+        ncInfos.put("nc1", new NodeControllerInfo("nc1", NodeStatus.ALIVE, ADDRESS, new NetworkAddress("10.0.0.1",
+                1100)));
+        ncInfos.put("nc2", new NodeControllerInfo("nc2", NodeStatus.DEAD, ADDRESS, null));
+        GetNodeControllersInfoResponseFunction fn = (GetNodeControllersInfoResponseFunction) roundTrip(new GetNodeControllersInfoResponseFunction(
+                ncInfos));
+        Map<String, NodeControllerInfo> result = fn.getNodeControllerInfos();
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(NodeStatus.DEAD, result.get("nc2").getStatus());
+        Assert.assertNull(result.get("nc2").getDatasetNetworkAddress());
+        Assert.assertEquals(1100, result.get("nc1").getDatasetNetworkAddress().getPort());
+    }
+
+    @Test
+    public void deployBinaryTest() throws Exception {
+        List<URL> urls = Arrays.asList(new URL("http://cc:16001/applications/app.jar"), new URL(
+                "file:/tmp/lib.jar"));
+        DeployBinaryFunction fn = (DeployBinaryFunction) roundTrip(new DeployBinaryFunction(new DeploymentId("d1"),
+                urls));
+        Assert.assertEquals(new DeploymentId("d1"), fn.getDeploymentId());
+        Assert.assertEquals(urls.toString(), fn.getBinaryURLs().toString());
+    }
+
+    @Test
+    public void notifyDeployBinaryTest() throws Exception {
+        NotifyDeployBinaryFunction fn = (NotifyDeployBinaryFunction) roundTrip(new NotifyDeployBinaryFunction(
+                new DeploymentId("d1"), "nc1", DeploymentStatus.FAIL));
+        Assert.assertEquals("nc1", fn.getNodeId());
+        Assert.assertEquals(DeploymentStatus.FAIL, fn.getDeploymentStatus());
+    }
+
+    @Test
+    public void unDeployBinaryTest() throws Exception {
+        UnDeployBinaryFunction fn = (UnDeployBinaryFunction) roundTrip(new UnDeployBinaryFunction(new DeploymentId(
+                "d1")));
+        Assert.assertEquals(new DeploymentId("d1"), fn.getDeploymentId());
+    }
+
+    @Test
+    public void destroyPreparedJobTest() throws Exception {
+        DestroyPreparedJobFunction fn = (DestroyPreparedJobFunction) roundTrip(new DestroyPreparedJobFunction(
+                new PreparedJobId(5)));
+        Assert.assertEquals(new PreparedJobId(5), fn.getPreparedJobId());
+    }
+
+    @Test
+    public void shutdownTest() throws Exception {
+        Assert.assertTrue(roundTrip(new ShutdownRequestFunction()) instanceof ShutdownRequestFunction);
+        ShutdownResponseFunction fn = (ShutdownResponseFunction) roundTrip(new ShutdownResponseFunction("nc1"));
+        Assert.assertEquals("nc1", fn.getNodeId());
+
+        // These share the function ids above and must not be decoded as the other class.
+        byte[] bytes = serde.serializeObject(new NotifyShutdownFunction("nc1"));
+        Assert.assertEquals(FunctionId.OTHER.ordinal(), bytes[0]);
+        Assert.assertTrue(deserialize(bytes) instanceof NotifyShutdownFunction);
+        bytes = serde.serializeObject(new RequestShutdownFunction());
+        Assert.assertTrue(deserialize(bytes) instanceof RequestShutdownFunction);
+    }
+
+    @Test
+    public void stateDumpTest() throws Exception {
+        StateDumpRequestFunction request = (StateDumpRequestFunction) roundTrip(new StateDumpRequestFunction("dump1"));
+        Assert.assertEquals("dump1", request.getStateDumpId());
+
+        char[] state = new char[100000];
+        Arrays.fill(state, '\u00e9');
+        StateDumpResponseFunction response = (StateDumpResponseFunction) roundTrip(new StateDumpResponseFunction(
+                "nc1", "dump1", new String(state)));
+        Assert.assertEquals("dump1", response.getStateDumpId());
+        Assert.assertEquals(new String(state), response.getState());
+    }
+
+    @Test
+    public void otherTest() throws Exception {
+        byte[] bytes = serde.serializeObject(Collections.singletonList("value"));
+        Assert.assertEquals(FunctionId.OTHER.ordinal(), bytes[0]);
+        Assert.assertEquals(Collections.singletonList("value"), deserialize(bytes));
+
+        bytes = serde.serializeException(new IllegalStateException("failed"));
+        Exception e = serde.deserializeException(ByteBuffer.wrap(bytes), bytes.length);
+        Assert.assertEquals("failed", e.getMessage());
+    }
+
+    @Test
+    public void versionMismatchTest() throws Exception {
+        byte[] bytes = serde.serializeObject(new UnregisterNodeFunction("nc1"));
+        bytes[1]++;
+        try {
+            deserialize(bytes);
+            Assert.fail("A message with another serialization version must be rejected");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("version"));
+        }
+    }
+
+    /**
+     * Compares the binary encoding with Java serialization for the two largest messages, start-tasks and profile
+     * reports. The timings are only logged, but the binary encoding must be the smaller one.
+     */
+    @Test
+    public void serializationBenchmark() throws Exception {
+        JavaSerializationBasedPayloadSerializerDeserializer javaSerde = new JavaSerializationBasedPayloadSerializerDeserializer();
+        Function[] functions = new Function[] { createStartTasksFunction(64), createReportProfileFunction(4, 32) };
+        int nIterations = 2000;
+        for (Function fn : functions) {
+            byte[] binary = serde.serializeObject(fn);
+            byte[] java = javaSerde.serializeObject(fn);
+            Assert.assertTrue(binary.length < java.length);
+            long binaryTime = 0;
+            long javaTime = 0;
+            // The first half warms up.
+            for (int i = 0; i < 2 * nIterations; ++i) {
+                long start = System.nanoTime();
+                binary = serde.serializeObject(fn);
+                deserialize(binary);
+                long mid = System.nanoTime();
+                java = javaSerde.serializeObject(fn);
+                javaSerde.deserializeObject(ByteBuffer.wrap(java), java.length);
+                long end = System.nanoTime();
+                if (i >= nIterations) {
+                    binaryTime += mid - start;
+                    javaTime += end - mid;
+                }
+            }
+            if (LOGGER.isLoggable(Level.INFO)) {
+                LOGGER.info(fn.getFunctionId() + ": binary " + binary.length + " bytes, "
+                        + (binaryTime / nIterations / 1000) + " us per round trip; java " + java.length + " bytes, "
+                        + (javaTime / nIterations / 1000) + " us per round trip");
+            }
+        }
+    }
+
+    private Object roundTrip(Function fn) throws Exception {
+        byte[] bytes = serde.serializeObject(fn);
+        Assert.assertEquals(fn.getFunctionId().ordinal(), bytes[0]);
+        Assert.assertEquals(CCNCFunctions.SERIALIZATION_VERSION, bytes[1]);
+        Object result = deserialize(bytes);
+        Assert.assertEquals(fn.getClass(), result.getClass());
+        // Encoding the result again must give the same bytes, so that no field is lost.
+        Assert.assertTrue(Arrays.equals(bytes, serde.serializeObject(result)));
+        return result;
+    }
+
+    private Object deserialize(byte[] bytes) throws Exception {
+        return serde.deserializeObject(ByteBuffer.wrap(bytes), bytes.length);
+    }
+
+    private static TaskAttemptId createTaskAttemptId(int odId, int aid, int partition, int attempt) {
+        return new TaskAttemptId(new TaskId(new ActivityId(new OperatorDescriptorId(odId), aid), partition), attempt);
+    }
+
+    private static TaskProfile createTaskProfile(TaskAttemptId taId) {
+        Map<PartitionId, PartitionProfile> partitionSendProfile = new HashMap<PartitionId, PartitionProfile>();
+        TaskProfile profile = new TaskProfile(taId, partitionSendProfile);
+        profile.getCounters().put("tuples", 17L);
+        profile.getCounters().put("frames", 3L);
+        return profile;
+    }
+
+    private static StartTasksFunction createStartTasksFunction(int nTasks) {
+        List<TaskAttemptDescriptor> tads = new ArrayList<TaskAttemptDescriptor>();
+        for (int i = 0; i < nTasks; ++i) {
+            TaskAttemptDescriptor tad = new TaskAttemptDescriptor(createTaskAttemptId(1, 0, i, 0), nTasks,
+                    new int[] { nTasks }, new int[] { nTasks });
+            NetworkAddress[][] locations = new NetworkAddress[1][nTasks];
+            for (int j = 0; j < nTasks; ++j) {
+                locations[0][j] = new NetworkAddress("10.0.0." + j, 1099);
+            }
+            tad.setInputPartitionLocations(locations);
+            if (i > 0) {
+                tad.setLocalStage(i);
+            }
+            tads.add(tad);
+        }
+        Map<ConnectorDescriptorId, IConnectorPolicy> policies = new HashMap<ConnectorDescriptorId, IConnectorPolicy>();
+        policies.put(new ConnectorDescriptorId(0), new PipeliningConnectorPolicy());
+        policies.put(new ConnectorDescriptorId(1), new SendSideSpillingPipeliningConnectorPolicy(8));
+        return new StartTasksFunction(new DeploymentId("d1"), JOB_ID, null, new byte[1024], null, tads, policies,
+                EnumSet.of(JobFlag.PROFILE_RUNTIME));
+    }
+
+    private static ReportProfileFunction createReportProfileFunction(int nJobs, int nTasks) {
+        List<JobProfile> profiles = new ArrayList<JobProfile>();
+        for (int i = 0; i < nJobs; ++i) {
+            JobProfile profile = new JobProfile(new JobId(i));
+            JobletProfile jp = new JobletProfile("nc1");
+            for (int j = 0; j < nTasks; ++j) {
+                TaskAttemptId taId = createTaskAttemptId(1, 0, j, 0);
+                jp.getTaskProfiles().put(taId, createTaskProfile(taId));
+            }
+            profile.getJobletProfiles().put("nc1", jp);
+            profiles.add(profile);
+        }
+        return new ReportProfileFunction("nc1", profiles);
+    }
+}
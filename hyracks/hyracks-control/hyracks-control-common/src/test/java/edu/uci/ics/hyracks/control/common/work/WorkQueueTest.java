@@ -0,0 +1,143 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.common.work;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.job.JobId;
+
+public class WorkQueueTest {
+    private static final int N_JOBS = 8;
+
+    private static final int N_EVENTS = 2000;
+
+    /**
+     * The events of each job run in order, global events never overlap job events, and all events run.
+     */
+    @Test
+    public void orderingTest() throws Exception {
+        WorkQueue queue = new WorkQueue(4);
+        queue.start();
+        final List<List<Integer>> jobEvents = new ArrayList<List<Integer>>();
+        for (int i = 0; i < N_JOBS; ++i) {
+            jobEvents.add(new ArrayList<Integer>());
+        }
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicBoolean overlap = new AtomicBoolean();
+        final AtomicInteger globalCount = new AtomicInteger();
+        for (int i = 0; i < N_EVENTS; ++i) {
+            final int event = i;
+            final int job = i % N_JOBS;
+            if (i % 100 == 99) {
+                queue.schedule(new AbstractWork() {
+                    @Override
+                    public void run() {
+                        if (running.get() != 0) {
+                            overlap.set(true);
+                        }
+                        globalCount.incrementAndGet();
+                    }
+                });
+                continue;
+            }
+            queue.schedule(new AbstractWork() {
+                @Override
+                public JobId getJobId() {
+                    return new JobId(job);
+                }
+
+                @Override
+                public void run() {
+                    running.incrementAndGet();
+                    jobEvents.get(job).add(event);
+                    running.decrementAndGet();
+                }
+            });
+        }
+        SynchronizableWork last = new SynchronizableWork() {
+            @Override
+            protected void doRun() throws Exception {
+            }
+        };
+        queue.scheduleAndSync(last);
+        Assert.assertFalse(overlap.get());
+        Assert.assertEquals(N_EVENTS / 100, globalCount.get());
+        int total = 0;
+        for (List<Integer> events : jobEvents) {
+            for (int i = 1; i < events.size(); ++i) {
+                Assert.assertTrue(events.get(i - 1) < events.get(i));
+            }
+            total += events.size();
+        }
+        Assert.assertEquals(N_EVENTS - N_EVENTS / 100, total);
+        Assert.assertEquals(N_EVENTS + 1, queue.getWaitLatency().getCount());
+        Assert.assertEquals(0, queue.getDepth());
+        queue.stop();
+    }
+
+    /**
+     * A slow job does not hold up the events of other jobs.
+     */
+    @Test
+    public void parallelJobsTest() throws Exception {
+        WorkQueue queue = new WorkQueue(2);
+        queue.start();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        queue.schedule(new AbstractWork() {
+            @Override
+            public JobId getJobId() {
+                return new JobId(0);
+            }
+
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        queue.schedule(new AbstractWork() {
+            @Override
+            public JobId getJobId() {
+                return new JobId(1);
+            }
+
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        // the depth drops only after the work of job 1 has returned
+        for (int i = 0; i < 1000 && queue.getDepth() > 1; ++i) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, queue.getDepth());
+        release.countDown();
+        queue.stop();
+        Assert.assertEquals(2, queue.getMaxDepth());
+    }
+}
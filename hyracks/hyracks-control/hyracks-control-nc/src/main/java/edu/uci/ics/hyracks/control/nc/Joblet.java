@@ -16,10 +16,14 @@ package edu.uci.ics.hyracks.control.nc;
 
 import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
@@ -46,6 +50,7 @@ import edu.uci.ics.hyracks.api.job.profiling.counters.ICounter;
 import edu.uci.ics.hyracks.api.job.profiling.counters.ICounterContext;
 import edu.uci.ics.hyracks.api.partitions.PartitionId;
 import edu.uci.ics.hyracks.api.resources.IDeallocatable;
+import edu.uci.ics.hyracks.api.resources.memory.IMemoryManager;
 import edu.uci.ics.hyracks.control.common.deployment.DeploymentUtils;
 import edu.uci.ics.hyracks.control.common.job.PartitionRequest;
 import edu.uci.ics.hyracks.control.common.job.PartitionState;
@@ -53,10 +58,12 @@ import edu.uci.ics.hyracks.control.common.job.profiling.counters.Counter;
 import edu.uci.ics.hyracks.control.common.job.profiling.om.JobletProfile;
 import edu.uci.ics.hyracks.control.common.job.profiling.om.PartitionProfile;
 import edu.uci.ics.hyracks.control.common.job.profiling.om.TaskProfile;
+import edu.uci.ics.hyracks.control.common.work.AbstractWork;
 import edu.uci.ics.hyracks.control.nc.io.IOManager;
 import edu.uci.ics.hyracks.control.nc.io.WorkspaceFileFactory;
 import edu.uci.ics.hyracks.control.nc.resources.DefaultDeallocatableRegistry;
 import edu.uci.ics.hyracks.control.nc.resources.memory.FrameManager;
+import edu.uci.ics.hyracks.control.nc.resources.memory.FramePool;
 
 public class Joblet implements IHyracksJobletContext, ICounterContext {
     private static final Logger LOGGER = Logger.getLogger(Joblet.class.getName());
@@ -87,30 +94,49 @@ public class Joblet implements IHyracksJobletContext, ICounterContext {
 
     private final Object globalJobData;
 
+    private final byte[] jobParameters;
+
     private final IJobletEventListener jobletEventListener;
 
+    private final FramePool framePool;
+
     private final FrameManager frameManager;
 
     private final AtomicLong memoryAllocation;
 
+    private final SortedMap<Integer, AbstractWork> localStages;
+
+    private final List<TaskProfile> localTaskProfiles;
+
+    private boolean localJob;
+
+    private boolean localJobFailed;
+
     private JobStatus cleanupStatus;
 
     private boolean cleanupPending;
 
     public Joblet(NodeControllerService nodeController, DeploymentId deploymentId, JobId jobId,
-            INCApplicationContext appCtx, ActivityClusterGraph acg) {
+            INCApplicationContext appCtx, ActivityClusterGraph acg, byte[] jobParameters) {
         this.nodeController = nodeController;
         this.appCtx = appCtx;
         this.deploymentId = deploymentId;
         this.jobId = jobId;
-        this.frameManager = new FrameManager(acg.getFrameSize());
+        FramePool ncFramePool = nodeController.getFramePool();
+        this.framePool = ncFramePool == null ? null : new FramePool(ncFramePool, appCtx.getMemoryManager(),
+                nodeController.getConfiguration().framePoolJobletMemory);
+        this.frameManager = new FrameManager(acg.getFrameSize(), framePool,
+                nodeController.getConfiguration().directFrames);
         memoryAllocation = new AtomicLong();
         this.acg = acg;
+        this.jobParameters = jobParameters;
         partitionRequestMap = new HashMap<PartitionId, IPartitionCollector>();
         env = new OperatorEnvironmentImpl(nodeController.getId());
         stateObjectMap = new HashMap<Object, IStateObject>();
         taskMap = new HashMap<TaskAttemptId, Task>();
         counterMap = new HashMap<String, Counter>();
+        localStages = new TreeMap<Integer, AbstractWork>();
+        localTaskProfiles = new ArrayList<TaskProfile>();
         deallocatableRegistry = new DefaultDeallocatableRegistry();
         fileFactory = new WorkspaceFileFactory(this, (IOManager) appCtx.getRootContext().getIOManager());
         cleanupPending = false;
@@ -147,7 +173,54 @@ public class Joblet implements IHyracksJobletContext, ICounterContext {
         taskMap.remove(task.getTaskAttemptId());
         if (cleanupPending && taskMap.isEmpty()) {
             performCleanup();
+        } else if (localJob && taskMap.isEmpty()) {
+            startNextLocalStage();
+        }
+    }
+
+    /**
+     * Holds the work that starts the tasks of a later stage of a local job until all the tasks of the earlier stages
+     * have completed.
+     */
+    public void addLocalStage(int stage, AbstractWork startWork) {
+        localJob = true;
+        localStages.put(stage, startWork);
+    }
+
+    /**
+     * Records the profile of a completed task of a local job, to be reported with the completion of the joblet.
+     */
+    public void addLocalTaskProfile(TaskProfile taskProfile) {
+        localJob = true;
+        localTaskProfiles.add(taskProfile);
+    }
+
+    /**
+     * Stops a local job from starting further stages after one of its tasks failed. The failure itself is reported
+     * to the cluster controller, which aborts the job.
+     */
+    public void failLocalJob() {
+        localJobFailed = true;
+        localStages.clear();
+    }
+
+    private void startNextLocalStage() {
+        if (localJobFailed) {
+            return;
+        }
+        if (!localStages.isEmpty()) {
+            // Runs on the work queue thread, so no cleanup can come in before the tasks of the stage are added.
+            localStages.remove(localStages.firstKey()).run();
+            return;
+        }
+        localJob = false;
+        try {
+            nodeController.getClusterController().notifyJobletComplete(jobId, nodeController.getId(),
+                    new ArrayList<TaskProfile>(localTaskProfiles));
+        } catch (Exception e) {
+            e.printStackTrace();
         }
+        localTaskProfiles.clear();
     }
 
     public Map<TaskAttemptId, Task> getTaskMap() {
@@ -185,6 +258,12 @@ public class Joblet implements IHyracksJobletContext, ICounterContext {
         for (Map.Entry<String, Counter> e : counterMap.entrySet()) {
             counters.put(e.getKey(), e.getValue().get());
         }
+        if (framePool != null) {
+            counters.put("frame-pool.hits", framePool.getHits());
+            counters.put("frame-pool.misses", framePool.getMisses());
+            counters.put("frame-pool.recycled", framePool.getRecycled());
+            counters.put("frame-pool.discarded", framePool.getDiscarded());
+        }
         for (Task task : taskMap.values()) {
             TaskProfile taskProfile = new TaskProfile(task.getTaskAttemptId(),
                     new Hashtable<PartitionId, PartitionProfile>(task.getPartitionSendProfile()));
@@ -209,6 +288,9 @@ public class Joblet implements IHyracksJobletContext, ICounterContext {
     }
 
     public void close() {
+        if (framePool != null) {
+            framePool.close();
+        }
         long stillAllocated = memoryAllocation.get();
         if (stillAllocated > 0) {
             LOGGER.warning("Freeing leaked " + stillAllocated + " bytes");
@@ -223,28 +305,69 @@ public class Joblet implements IHyracksJobletContext, ICounterContext {
     }
 
     ByteBuffer allocateFrame() throws HyracksDataException {
-        return frameManager.allocateFrame();
+        return allocateFrame(frameManager.getInitialFrameSize());
     }
 
     ByteBuffer allocateFrame(int bytes) throws HyracksDataException {
-        if (appCtx.getMemoryManager().allocate(bytes)) {
-            memoryAllocation.addAndGet(bytes);
-            return frameManager.allocateFrame(bytes);
-       }
-        throw new HyracksDataException("Unable to allocate frame: Not enough memory");
+        return allocateFrame(bytes, false);
+    }
+
+    ByteBuffer allocateOutputFrame(int bytes) throws HyracksDataException {
+        return allocateFrame(bytes, true);
     }
 
+    /**
+     * The memory limit is only enforced with a frame pool. Without one, few operators hand their frames back before
+     * the joblet is closed, so the frames are charged to the memory manager but never refused.
+     */
+    private ByteBuffer allocateFrame(int bytes, boolean output) throws HyracksDataException {
+        IMemoryManager memoryManager = appCtx.getMemoryManager();
+        if (framePool == null) {
+            memoryManager.charge(bytes);
+        } else if (!memoryManager.allocate(bytes)) {
+            throw new HyracksDataException("Unable to allocate frame: Not enough memory");
+        }
+        memoryAllocation.addAndGet(bytes);
+        try {
+            return output ? frameManager.allocateOutputFrame(bytes) : frameManager.allocateFrame(bytes);
+        } catch (HyracksDataException e) {
+            memoryAllocation.addAndGet(-bytes);
+            memoryManager.deallocate(bytes);
+            throw e;
+        }
+    }
+
+    /**
+     * Goes through {@link #allocateFrame(int)} and {@link #deallocateFrame(ByteBuffer)} rather than
+     * {@link FrameManager#reallocateFrame(ByteBuffer, int, boolean)}, so that the new frame is charged to the joblet
+     * and the old one is uncharged before the frame pool takes it. A direct frame is replaced by a direct one.
+     */
     ByteBuffer reallocateFrame(ByteBuffer usedBuffer, int newFrameSizeInBytes, boolean copyOldData)
             throws HyracksDataException {
-        return frameManager.reallocateFrame(usedBuffer, newFrameSizeInBytes, copyOldData);
+        boolean output = usedBuffer.isDirect();
+        if (!copyOldData) {
+            deallocateFrame(usedBuffer);
+            return allocateFrame(newFrameSizeInBytes, output);
+        }
+        ByteBuffer buffer = allocateFrame(newFrameSizeInBytes, output);
+        frameManager.copyFrame(usedBuffer, buffer);
+        deallocateFrame(usedBuffer);
+        return buffer;
     }
 
     void deallocateFrames(int bytes) {
-        memoryAllocation.addAndGet(bytes);
+        memoryAllocation.addAndGet(-bytes);
         appCtx.getMemoryManager().deallocate(bytes);
         frameManager.deallocateFrames(bytes);
     }
 
+    void deallocateFrame(ByteBuffer frame) {
+        int bytes = frame.capacity();
+        memoryAllocation.addAndGet(-bytes);
+        appCtx.getMemoryManager().deallocate(bytes);
+        frameManager.deallocateFrame(frame);
+    }
+
     public final int getFrameSize() {
         return frameManager.getInitialFrameSize();
     }
@@ -278,6 +401,11 @@ public class Joblet implements IHyracksJobletContext, ICounterContext {
         return globalJobData;
     }
 
+    @Override
+    public byte[] getJobParameters() {
+        return jobParameters;
+    }
+
     public IJobletEventListener getJobletEventListener() {
         return jobletEventListener;
     }
@@ -301,6 +429,7 @@ public class Joblet implements IHyracksJobletContext, ICounterContext {
     public void cleanup(JobStatus status) {
         cleanupStatus = status;
         cleanupPending = true;
+        localStages.clear();
         if (taskMap.isEmpty()) {
             performCleanup();
         }
@@ -46,9 +46,12 @@ import edu.uci.ics.hyracks.api.context.IHyracksRootContext;
 import edu.uci.ics.hyracks.api.dataset.IDatasetPartitionManager;
 import edu.uci.ics.hyracks.api.deployment.DeploymentId;
 import edu.uci.ics.hyracks.api.io.IODeviceHandle;
+import edu.uci.ics.hyracks.api.job.ActivityClusterGraph;
 import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.lifecycle.ILifeCycleComponentManager;
 import edu.uci.ics.hyracks.api.lifecycle.LifeCycleComponentManager;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
 import edu.uci.ics.hyracks.control.common.AbstractRemoteService;
 import edu.uci.ics.hyracks.control.common.base.IClusterController;
 import edu.uci.ics.hyracks.control.common.context.ServerContext;
@@ -71,6 +74,7 @@ import edu.uci.ics.hyracks.control.nc.io.profiling.IOCounterFactory;
 import edu.uci.ics.hyracks.control.nc.net.DatasetNetworkManager;
 import edu.uci.ics.hyracks.control.nc.net.NetworkManager;
 import edu.uci.ics.hyracks.control.nc.partitions.PartitionManager;
+import edu.uci.ics.hyracks.control.nc.resources.memory.FramePool;
 import edu.uci.ics.hyracks.control.nc.resources.memory.MemoryManager;
 import edu.uci.ics.hyracks.control.nc.runtime.RootHyracksContext;
 import edu.uci.ics.hyracks.control.nc.work.AbortTasksWork;
@@ -78,6 +82,7 @@ import edu.uci.ics.hyracks.control.nc.work.ApplicationMessageWork;
 import edu.uci.ics.hyracks.control.nc.work.BuildJobProfilesWork;
 import edu.uci.ics.hyracks.control.nc.work.CleanupJobletWork;
 import edu.uci.ics.hyracks.control.nc.work.DeployBinaryWork;
+import edu.uci.ics.hyracks.control.nc.work.DestroyPreparedJobWork;
 import edu.uci.ics.hyracks.control.nc.work.ReportPartitionAvailabilityWork;
 import edu.uci.ics.hyracks.control.nc.work.ShutdownWork;
 import edu.uci.ics.hyracks.control.nc.work.StartTasksWork;
@@ -94,6 +99,8 @@ public class NodeControllerService extends AbstractRemoteService {
 
     private static final double MEMORY_FUDGE_FACTOR = 0.8;
 
+    private static final String FRAME_POOL_MODE_POOLED = "pooled";
+
     private NCConfig ncConfig;
 
     private final String id;
@@ -122,6 +129,8 @@ public class NodeControllerService extends AbstractRemoteService {
 
     private final Map<JobId, Joblet> jobletMap;
 
+    private final Map<PreparedJobId, ActivityClusterGraph> preparedJobMap;
+
     private ExecutorService executor;
 
     private NodeParameters nodeParameters;
@@ -150,6 +159,10 @@ public class NodeControllerService extends AbstractRemoteService {
 
     private final MemoryManager memoryManager;
 
+    private final FramePool framePool;
+
+    private final BloomFilterMemoryBudget bloomFilterMemoryBudget;
+
     private boolean shuttedDown = false;
 
     private IIOCounter ioCounter;
@@ -161,7 +174,9 @@ public class NodeControllerService extends AbstractRemoteService {
         ipc = new IPCSystem(new InetSocketAddress(ncConfig.clusterNetIPAddress, ncConfig.clusterNetPort), ipci,
                 new CCNCFunctions.SerializerDeserializer());
 
-        this.ctx = new RootHyracksContext(this, new IOManager(getDevices(ncConfig.ioDevices)));
+        IOManager ioManager = new IOManager(getDevices(ncConfig.ioDevices));
+        ioManager.setRunFileCompressionEnabled(ncConfig.compressRunFiles);
+        this.ctx = new RootHyracksContext(this, ioManager);
         if (id == null) {
             throw new Exception("id not set");
         }
@@ -172,6 +187,7 @@ public class NodeControllerService extends AbstractRemoteService {
         lccm = new LifeCycleComponentManager();
         queue = new WorkQueue();
         jobletMap = new Hashtable<JobId, Joblet>();
+        preparedJobMap = new Hashtable<PreparedJobId, ActivityClusterGraph>();
         timer = new Timer(true);
         serverCtx = new ServerContext(ServerContext.ServerType.NODE_CONTROLLER, new File(new File(
                 NodeControllerService.class.getName()), id));
@@ -183,6 +199,9 @@ public class NodeControllerService extends AbstractRemoteService {
         registrationPending = true;
         getNodeControllerInfosAcceptor = new MutableObject<FutureValue<Map<String, NodeControllerInfo>>>();
         memoryManager = new MemoryManager((long) (memoryMXBean.getHeapMemoryUsage().getMax() * MEMORY_FUDGE_FACTOR));
+        framePool = FRAME_POOL_MODE_POOLED.equals(ncConfig.framePoolMode) ? new FramePool(memoryManager,
+                ncConfig.framePoolMemory) : null;
+        bloomFilterMemoryBudget = new BloomFilterMemoryBudget(ncConfig.bloomFilterMemory, memoryManager);
         ioCounter = new IOCounterFactory().getIOCounter();
     }
 
@@ -308,7 +327,7 @@ public class NodeControllerService extends AbstractRemoteService {
     }
 
     private void startApplication() throws Exception {
-        appCtx = new NCApplicationContext(serverCtx, ctx, id, memoryManager, lccm);
+        appCtx = new NCApplicationContext(serverCtx, ctx, id, memoryManager, bloomFilterMemoryBudget, lccm);
         String className = ncConfig.appNCMainClass;
         if (className != null) {
             Class<?> c = Class.forName(className);
@@ -350,6 +369,10 @@ public class NodeControllerService extends AbstractRemoteService {
         return jobletMap;
     }
 
+    public Map<PreparedJobId, ActivityClusterGraph> getPreparedJobMap() {
+        return preparedJobMap;
+    }
+
     public NetworkManager getNetworkManager() {
         return netManager;
     }
@@ -378,6 +401,13 @@ public class NodeControllerService extends AbstractRemoteService {
         return ncConfig;
     }
 
+    /**
+     * @return the node-wide frame pool, or null if frames are not pooled on this node controller
+     */
+    public FramePool getFramePool() {
+        return framePool;
+    }
+
     public WorkQueue getWorkQueue() {
         return queue;
     }
@@ -438,6 +468,9 @@ public class NodeControllerService extends AbstractRemoteService {
             hbData.diskReads = ioCounter.getReads();
             hbData.diskWrites = ioCounter.getWrites();
 
+            hbData.jobMemoryMaxSize = appCtx.getMemoryManager().getMaximumMemory();
+            hbData.jobMemoryAvailableSize = appCtx.getMemoryManager().getAvailableMemory();
+
             try {
                 cc.nodeHeartbeat(id, hbData);
             } catch (Exception e) {
@@ -484,8 +517,14 @@ public class NodeControllerService extends AbstractRemoteService {
                 case START_TASKS: {
                     CCNCFunctions.StartTasksFunction stf = (CCNCFunctions.StartTasksFunction) fn;
                     queue.schedule(new StartTasksWork(NodeControllerService.this, stf.getDeploymentId(),
-                            stf.getJobId(), stf.getPlanBytes(), stf.getTaskDescriptors(), stf.getConnectorPolicies(),
-                            stf.getFlags()));
+                            stf.getJobId(), stf.getPreparedJobId(), stf.getPlanBytes(), stf.getJobParameters(), stf
+                                    .getTaskDescriptors(), stf.getConnectorPolicies(), stf.getFlags()));
+                    return;
+                }
+
+                case DESTROY_PREPARED_JOB: {
+                    CCNCFunctions.DestroyPreparedJobFunction dpjf = (CCNCFunctions.DestroyPreparedJobFunction) fn;
+                    queue.schedule(new DestroyPreparedJobWork(NodeControllerService.this, dpjf.getPreparedJobId()));
                     return;
                 }
 
@@ -93,6 +93,8 @@ public class Task implements IHyracksTaskContext, ICounterContext, Runnable {
 
     private List<List<PartitionChannel>> inputChannelsFromConnectors;
 
+    private int localStage = -1;
+
     public Task(Joblet joblet, TaskAttemptId taskId, String displayName, Executor executor, NodeControllerService ncs,
             List<List<PartitionChannel>> inputChannelsFromConnectors) {
         this.joblet = joblet;
@@ -115,6 +117,17 @@ public class Task implements IHyracksTaskContext, ICounterContext, Runnable {
         this.operator = operator;
     }
 
+    public void setLocalStage(int localStage) {
+        this.localStage = localStage;
+    }
+
+    /**
+     * @return the stage of this task in a local job, or -1 if the completion of this task is reported on its own
+     */
+    public int getLocalStage() {
+        return localStage;
+    }
+
     @Override
     public ByteBuffer allocateFrame() throws HyracksDataException {
         return joblet.allocateFrame();
@@ -125,6 +138,11 @@ public class Task implements IHyracksTaskContext, ICounterContext, Runnable {
         return joblet.allocateFrame(bytes);
     }
 
+    @Override
+    public ByteBuffer allocateOutputFrame(int bytes) throws HyracksDataException {
+        return joblet.allocateOutputFrame(bytes);
+    }
+
     @Override
     public ByteBuffer reallocateFrame(ByteBuffer usedBuffer, int newSizeInBytes, boolean copyOldData)
             throws HyracksDataException {
@@ -136,6 +154,11 @@ public class Task implements IHyracksTaskContext, ICounterContext, Runnable {
         joblet.deallocateFrames(bytes);
     }
 
+    @Override
+    public void deallocateFrame(ByteBuffer frame) {
+        joblet.deallocateFrame(frame);
+    }
+
     @Override
     public int getInitialFrameSize() {
         return joblet.getFrameSize();
@@ -22,6 +22,7 @@ import edu.uci.ics.hyracks.api.application.INCApplicationContext;
 import edu.uci.ics.hyracks.api.application.IStateDumpHandler;
 import edu.uci.ics.hyracks.api.context.IHyracksRootContext;
 import edu.uci.ics.hyracks.api.lifecycle.ILifeCycleComponentManager;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
 import edu.uci.ics.hyracks.api.resources.memory.IMemoryManager;
 import edu.uci.ics.hyracks.control.common.application.ApplicationContext;
 import edu.uci.ics.hyracks.control.common.context.ServerContext;
@@ -32,16 +33,19 @@ public class NCApplicationContext extends ApplicationContext implements INCAppli
     private final String nodeId;
     private final IHyracksRootContext rootCtx;
     private final MemoryManager memoryManager;
+    private final BloomFilterMemoryBudget bloomFilterMemoryBudget;
     private Object appObject;
     private IStateDumpHandler sdh;
 
     public NCApplicationContext(ServerContext serverCtx, IHyracksRootContext rootCtx, String nodeId,
-            MemoryManager memoryManager, ILifeCycleComponentManager lifeCyclecomponentManager) throws IOException {
+            MemoryManager memoryManager, BloomFilterMemoryBudget bloomFilterMemoryBudget,
+            ILifeCycleComponentManager lifeCyclecomponentManager) throws IOException {
         super(serverCtx);
         this.lccm = lifeCyclecomponentManager;
         this.nodeId = nodeId;
         this.rootCtx = rootCtx;
         this.memoryManager = memoryManager;
+        this.bloomFilterMemoryBudget = bloomFilterMemoryBudget;
         sdh = new IStateDumpHandler() {
 
             @Override
@@ -93,4 +97,9 @@ public class NCApplicationContext extends ApplicationContext implements INCAppli
     public IMemoryManager getMemoryManager() {
         return memoryManager;
     }
+
+    @Override
+    public BloomFilterMemoryBudget getBloomFilterMemoryBudget() {
+        return bloomFilterMemoryBudget;
+    }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@ package edu.uci.ics.hyracks.control.nc.io;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -39,6 +40,8 @@ public class IOManager implements IIOManager {
 
     private int workAreaDeviceIndex;
 
+    private boolean runFileCompressionEnabled;
+
     public IOManager(List<IODeviceHandle> devices, Executor executor) throws HyracksException {
         this(devices);
         this.executor = executor;
@@ -63,6 +66,15 @@ public class IOManager implements IIOManager {
         this.executor = executor;
     }
 
+    public void setRunFileCompressionEnabled(boolean runFileCompressionEnabled) {
+        this.runFileCompressionEnabled = runFileCompressionEnabled;
+    }
+
+    @Override
+    public boolean isRunFileCompressionEnabled() {
+        return runFileCompressionEnabled;
+    }
+
     @Override
     public List<IODeviceHandle> getIODevices() {
         return ioDevices;
@@ -103,6 +115,36 @@ public class IOManager implements IIOManager {
         }
     }
 
+    @Override
+    public long syncWrite(IFileHandle fHandle, long offset, ByteBuffer[] dataArray) throws HyracksDataException {
+        FileChannel channel = ((FileHandle) fHandle).getFileChannel();
+        long remaining = 0;
+        for (ByteBuffer data : dataArray) {
+            remaining += data.remaining();
+        }
+        try {
+            long n = 0;
+            // FileChannel has no positional gathering write, so writers of the same file are serialized here.
+            synchronized (fHandle) {
+                channel.position(offset);
+                while (remaining > 0) {
+                    long len = channel.write(dataArray);
+                    if (len < 0) {
+                        throw new HyracksDataException("Error writing to file: "
+                                + ((FileHandle) fHandle).getFileReference().toString());
+                    }
+                    remaining -= len;
+                    n += len;
+                }
+            }
+            return n;
+        } catch (HyracksDataException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new HyracksDataException(e);
+        }
+    }
+
     /**
      * Please do check the return value of this read!
      *
@@ -15,19 +15,24 @@
 package edu.uci.ics.hyracks.control.nc.net;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import edu.uci.ics.hyracks.api.channels.IInputChannel;
 import edu.uci.ics.hyracks.api.comm.NetworkAddress;
 import edu.uci.ics.hyracks.api.dataflow.ConnectorDescriptorId;
 import edu.uci.ics.hyracks.api.exceptions.HyracksException;
 import edu.uci.ics.hyracks.api.job.JobId;
 import edu.uci.ics.hyracks.api.partitions.PartitionId;
 import edu.uci.ics.hyracks.comm.channels.IChannelConnectionFactory;
+import edu.uci.ics.hyracks.comm.channels.NetworkInputChannel;
 import edu.uci.ics.hyracks.comm.channels.NetworkOutputChannel;
+import edu.uci.ics.hyracks.control.nc.partitions.LocalInputChannel;
 import edu.uci.ics.hyracks.control.nc.partitions.PartitionManager;
 import edu.uci.ics.hyracks.net.buffers.ICloseableBufferAcceptor;
 import edu.uci.ics.hyracks.net.exceptions.NetException;
@@ -42,7 +47,7 @@ public class NetworkManager implements IChannelConnectionFactory {
 
     private static final int MAX_CONNECTION_ATTEMPTS = 5;
 
-    static final int INITIAL_MESSAGE_SIZE = 20;
+    static final int INITIAL_MESSAGE_SIZE = 24;
 
     private final PartitionManager partitionManager;
 
@@ -92,6 +97,22 @@ public class NetworkManager implements IChannelConnectionFactory {
         return publicNetworkAddress;
     }
 
+    /**
+     * Creates an input channel for a partition produced at the given address. A partition produced by this node
+     * controller is read through a {@link LocalInputChannel}, which bypasses the network stack.
+     * 
+     * @param compress
+     *            - whether to ask a remote sender to compress the frames
+     */
+    public IInputChannel createInputChannel(NetworkAddress networkAddress, PartitionId pid, int nBuffers,
+            boolean compress) throws UnknownHostException {
+        if (networkAddress.equals(publicNetworkAddress)) {
+            return new LocalInputChannel(partitionManager, pid, nBuffers);
+        }
+        return new NetworkInputChannel(this, new InetSocketAddress(InetAddress.getByAddress(networkAddress
+                .lookupIpAddress()), networkAddress.getPort()), pid, nBuffers, compress);
+    }
+
     public void stop() {
 
     }
@@ -121,10 +142,12 @@ public class NetworkManager implements IChannelConnectionFactory {
         @Override
         public void accept(ByteBuffer buffer) {
             PartitionId pid = readInitialMessage(buffer);
+            boolean compress = (buffer.getInt() & NetworkInputChannel.COMPRESS_FLAG) != 0;
             if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Received initial partition request: " + pid + " on channel: " + ccb);
+                LOGGER.fine("Received initial partition request: " + pid + " on channel: " + ccb
+                        + (compress ? " (compressed)" : ""));
             }
-            noc = new NetworkOutputChannel(ccb, nBuffers);
+            noc = new NetworkOutputChannel(ccb, nBuffers, compress);
             try {
                 partitionManager.registerPartitionRequest(pid, noc);
             } catch (HyracksException e) {
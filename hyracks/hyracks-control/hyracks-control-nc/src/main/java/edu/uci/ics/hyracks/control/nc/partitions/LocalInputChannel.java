@@ -0,0 +1,172 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.nc.partitions;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+
+import edu.uci.ics.hyracks.api.channels.IInputChannel;
+import edu.uci.ics.hyracks.api.channels.IInputChannelMonitor;
+import edu.uci.ics.hyracks.api.comm.IFrameWriter;
+import edu.uci.ics.hyracks.api.context.IHyracksCommonContext;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.exceptions.HyracksException;
+import edu.uci.ics.hyracks.api.partitions.PartitionId;
+
+/**
+ * An input channel for a partition that is produced on the same node controller. Instead of connecting to the
+ * local network manager, the channel registers its own writer with the {@link PartitionManager}, and the producer
+ * hands its frames to the consumer through a bounded pool of buffers of the initial frame size. Each frame is copied
+ * once into the buffers of the pool, since the producer may reuse its frame as soon as
+ * {@link IFrameWriter#nextFrame(ByteBuffer)} returns, but it is neither compressed nor sent through a socket. Like
+ * on the network, a frame larger than the initial frame size spans several buffers, which the reader puts together.
+ */
+public class LocalInputChannel implements IInputChannel {
+    private final PartitionManager partitionManager;
+
+    private final PartitionId partitionId;
+
+    private final int nBuffers;
+
+    private int frameSize;
+
+    private final Queue<ByteBuffer> fullQueue;
+
+    private final Deque<ByteBuffer> emptyStack;
+
+    private int allocateCounter;
+
+    private boolean closed;
+
+    private IInputChannelMonitor monitor;
+
+    private Object attachment;
+
+    public LocalInputChannel(PartitionManager partitionManager, PartitionId partitionId, int nBuffers) {
+        this.partitionManager = partitionManager;
+        this.partitionId = partitionId;
+        this.nBuffers = nBuffers;
+        fullQueue = new ArrayDeque<ByteBuffer>(nBuffers);
+        emptyStack = new ArrayDeque<ByteBuffer>(nBuffers);
+    }
+
+    @Override
+    public void registerMonitor(IInputChannelMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    @Override
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    @Override
+    public synchronized ByteBuffer getNextBuffer() {
+        return fullQueue.poll();
+    }
+
+    @Override
+    public synchronized void recycleBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        emptyStack.push(buffer);
+        notifyAll();
+    }
+
+    @Override
+    public void open(IHyracksCommonContext ctx) throws HyracksDataException {
+        try {
+            partitionManager.registerPartitionRequest(partitionId, createFrameWriter(ctx.getInitialFrameSize()));
+        } catch (HyracksException e) {
+            throw new HyracksDataException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws HyracksDataException {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * @return the writer through which the producer hands its frames to this channel
+     */
+    IFrameWriter createFrameWriter(int frameSize) {
+        this.frameSize = frameSize;
+        return new LocalFrameWriter();
+    }
+
+    private class LocalFrameWriter implements IFrameWriter {
+        @Override
+        public void open() throws HyracksDataException {
+        }
+
+        @Override
+        public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+            ByteBuffer src = buffer.duplicate();
+            int startPos = 0;
+            do {
+                ByteBuffer destBuffer;
+                synchronized (LocalInputChannel.this) {
+                    while (true) {
+                        if (closed) {
+                            throw new HyracksDataException("Channel for partition " + partitionId
+                                    + " has been closed");
+                        }
+                        destBuffer = emptyStack.poll();
+                        if (destBuffer == null && allocateCounter < nBuffers) {
+                            destBuffer = ByteBuffer.allocate(frameSize);
+                            allocateCounter++;
+                        }
+                        if (destBuffer != null) {
+                            break;
+                        }
+                        try {
+                            LocalInputChannel.this.wait();
+                        } catch (InterruptedException e) {
+                            throw new HyracksDataException(e);
+                        }
+                    }
+                }
+                src.limit(Math.min(startPos + frameSize, src.capacity()));
+                src.position(startPos);
+                startPos = src.limit();
+                destBuffer.clear();
+                destBuffer.put(src);
+                destBuffer.flip();
+                synchronized (LocalInputChannel.this) {
+                    fullQueue.add(destBuffer);
+                }
+                monitor.notifyDataAvailability(LocalInputChannel.this, 1);
+            } while (startPos < src.capacity());
+        }
+
+        @Override
+        public void fail() throws HyracksDataException {
+            monitor.notifyFailure(LocalInputChannel.this);
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+            monitor.notifyEndOfStream(LocalInputChannel.this);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import edu.uci.ics.hyracks.api.comm.IFrameWriter;
 import edu.uci.ics.hyracks.api.dataflow.TaskAttemptId;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.api.exceptions.HyracksException;
@@ -46,14 +47,24 @@ public class PartitionManager {
 
     private final IWorkspaceFileFactory fileFactory;
 
-    private final Map<PartitionId, NetworkOutputChannel> partitionRequests = new HashMap<PartitionId, NetworkOutputChannel>();
+    private final Map<PartitionId, IFrameWriter> partitionRequests = new HashMap<PartitionId, IFrameWriter>();
 
     public PartitionManager(NodeControllerService ncs) {
+        this(ncs, (IOManager) ncs.getRootContext().getIOManager());
+    }
+
+    /**
+     * @param ncs
+     *            - the node controller to report partition states to, which may be null if no state is ever reported
+     *            to the cluster controller
+     * @param ioManager
+     *            - the I/O manager that holds the files of materialized partitions
+     */
+    public PartitionManager(NodeControllerService ncs, IOManager ioManager) {
         this.ncs = ncs;
         this.availablePartitionMap = new HashMap<PartitionId, List<IPartition>>();
         this.deallocatableRegistry = new DefaultDeallocatableRegistry();
-        this.fileFactory = new WorkspaceFileFactory(deallocatableRegistry, (IOManager) ncs.getRootContext()
-                .getIOManager());
+        this.fileFactory = new WorkspaceFileFactory(deallocatableRegistry, ioManager);
     }
 
     public synchronized void registerPartition(PartitionId pid, TaskAttemptId taId, IPartition partition,
@@ -62,10 +73,9 @@ public class PartitionManager {
             /**
              * process pending requests
              */
-            NetworkOutputChannel writer = partitionRequests.remove(pid);
+            IFrameWriter writer = partitionRequests.remove(pid);
             if (writer != null) {
-                writer.setFrameSize(partition.getTaskContext().getInitialFrameSize());
-                partition.writeTo(writer);
+                serve(partition, writer);
                 if (!partition.isReusable()) {
                     return;
                 }
@@ -110,14 +120,20 @@ public class PartitionManager {
         }
     }
 
-    public synchronized void registerPartitionRequest(PartitionId partitionId, NetworkOutputChannel writer)
+    /**
+     * Registers a request for a partition, which is served as soon as the partition is available.
+     * 
+     * @param writer
+     *            - a {@link NetworkOutputChannel} for a remote consumer, or the writer of a {@link LocalInputChannel}
+     *            for a consumer on this node
+     */
+    public synchronized void registerPartitionRequest(PartitionId partitionId, IFrameWriter writer)
             throws HyracksException {
         try {
             List<IPartition> pList = availablePartitionMap.get(partitionId);
             if (pList != null && !pList.isEmpty()) {
                 IPartition partition = pList.get(0);
-                writer.setFrameSize(partition.getTaskContext().getInitialFrameSize());
-                partition.writeTo(writer);
+                serve(partition, writer);
                 if (!partition.isReusable()) {
                     availablePartitionMap.remove(partitionId);
                 }
@@ -130,6 +146,13 @@ public class PartitionManager {
         }
     }
 
+    private void serve(IPartition partition, IFrameWriter writer) {
+        if (writer instanceof NetworkOutputChannel) {
+            ((NetworkOutputChannel) writer).setFrameSize(partition.getTaskContext().getInitialFrameSize());
+        }
+        partition.writeTo(writer);
+    }
+
     public IWorkspaceFileFactory getFileFactory() {
         return fileFactory;
     }
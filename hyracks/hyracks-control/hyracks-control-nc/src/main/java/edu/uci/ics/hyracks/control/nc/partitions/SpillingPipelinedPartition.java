@@ -0,0 +1,314 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.nc.partitions;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.uci.ics.hyracks.api.comm.FrameHelper;
+import edu.uci.ics.hyracks.api.comm.IFrameWriter;
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.TaskAttemptId;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.api.io.IFileHandle;
+import edu.uci.ics.hyracks.api.io.IIOManager;
+import edu.uci.ics.hyracks.api.partitions.IPartition;
+import edu.uci.ics.hyracks.api.partitions.PartitionId;
+import edu.uci.ics.hyracks.control.common.job.PartitionState;
+import edu.uci.ics.hyracks.control.nc.io.IOManager;
+
+/**
+ * A pipelined partition that never blocks its producer. Frames are queued in memory, up to a budget of frames, and
+ * forwarded to the consumer as it asks for them. Once the budget is used up, further frames are appended to a run
+ * file, and they keep going there until the consumer has drained the file. Since a frame is only queued in memory
+ * while the file holds no unread frames, the frames in memory are always older than those in the file, and the
+ * consumer sees them in the order they were written. Nothing touches the disk as long as the consumer keeps up.
+ * The in-memory copies are allocated through the task context, so they count against the memory of the job.
+ */
+public class SpillingPipelinedPartition implements IFrameWriter, IPartition {
+    private static final Logger LOGGER = Logger.getLogger(SpillingPipelinedPartition.class.getName());
+
+    private final IHyracksTaskContext ctx;
+
+    private final Executor executor;
+
+    private final IOManager ioManager;
+
+    private final PartitionManager manager;
+
+    private final PartitionId pid;
+
+    private final TaskAttemptId taId;
+
+    private final int memoryFrames;
+
+    private final Deque<ByteBuffer> memoryQueue;
+
+    private final Deque<ByteBuffer> freeBuffers;
+
+    private FileReference fRef;
+
+    private IFileHandle writeHandle;
+
+    private long writeOffset;
+
+    private long readOffset;
+
+    private long spilledFrames;
+
+    private boolean eos;
+
+    private boolean failed;
+
+    private boolean abandoned;
+
+    public SpillingPipelinedPartition(IHyracksTaskContext ctx, PartitionManager manager, PartitionId pid,
+            TaskAttemptId taId, Executor executor, int memoryFrames) {
+        this.ctx = ctx;
+        this.executor = executor;
+        this.ioManager = (IOManager) ctx.getIOManager();
+        this.manager = manager;
+        this.pid = pid;
+        this.taId = taId;
+        this.memoryFrames = memoryFrames;
+        memoryQueue = new ArrayDeque<ByteBuffer>(memoryFrames);
+        freeBuffers = new ArrayDeque<ByteBuffer>(memoryFrames);
+    }
+
+    @Override
+    public IHyracksTaskContext getTaskContext() {
+        return ctx;
+    }
+
+    @Override
+    public boolean isReusable() {
+        return false;
+    }
+
+    @Override
+    public synchronized void deallocate() {
+        closeFiles();
+        releaseBuffers();
+        if (fRef != null) {
+            fRef.delete();
+        }
+    }
+
+    @Override
+    public void open() throws HyracksDataException {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("open(" + pid + " by " + taId);
+        }
+        synchronized (this) {
+            eos = false;
+            failed = false;
+        }
+        manager.registerPartition(pid, taId, this, PartitionState.STARTED, false);
+    }
+
+    @Override
+    public synchronized void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+        if (abandoned) {
+            throw new HyracksDataException("The consumer of partition " + pid + " has failed");
+        }
+        if (writeOffset == readOffset && memoryQueue.size() < memoryFrames) {
+            ByteBuffer copy = freeBuffers.poll();
+            if (copy == null) {
+                copy = ctx.allocateFrame(buffer.capacity());
+            } else if (copy.capacity() != buffer.capacity()) {
+                copy = ctx.reallocateFrame(copy, buffer.capacity(), false);
+            }
+            ByteBuffer src = buffer.duplicate();
+            src.clear();
+            copy.clear();
+            copy.put(src);
+            copy.flip();
+            memoryQueue.add(copy);
+        } else {
+            if (fRef == null) {
+                fRef = manager.getFileFactory().createUnmanagedWorkspaceFile(pid.toString().replace(":", "$"));
+                writeHandle = ioManager.open(fRef, IIOManager.FileReadWriteMode.READ_WRITE,
+                        IIOManager.FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
+            }
+            ByteBuffer src = buffer.duplicate();
+            src.clear();
+            writeOffset += ioManager.syncWrite(writeHandle, writeOffset, src);
+            ++spilledFrames;
+        }
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void fail() throws HyracksDataException {
+        failed = true;
+        notifyAll();
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("close(" + pid + " by " + taId + "), spilled frames: " + spilledFrames);
+        }
+        synchronized (this) {
+            eos = true;
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void writeTo(final IFrameWriter writer) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    drain(writer);
+                } catch (Exception e) {
+                    synchronized (SpillingPipelinedPartition.this) {
+                        abandoned = true;
+                    }
+                    throw new RuntimeException(e);
+                } finally {
+                    synchronized (SpillingPipelinedPartition.this) {
+                        closeFiles();
+                        releaseBuffers();
+                    }
+                }
+            }
+        });
+    }
+
+    private void drain(IFrameWriter writer) throws HyracksDataException {
+        IFileHandle readHandle = null;
+        VSizeFrame fileFrame = null;
+        writer.open();
+        try {
+            while (true) {
+                ByteBuffer frame = null;
+                long offset = -1;
+                boolean fail;
+                synchronized (this) {
+                    while (memoryQueue.isEmpty() && readOffset >= writeOffset && !eos && !failed) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            throw new HyracksDataException(e);
+                        }
+                    }
+                    fail = failed;
+                    if (!fail) {
+                        if (!memoryQueue.isEmpty()) {
+                            frame = memoryQueue.poll();
+                        } else if (readOffset < writeOffset) {
+                            offset = readOffset;
+                            if (readHandle == null) {
+                                readHandle = ioManager.open(fRef, IIOManager.FileReadWriteMode.READ_ONLY,
+                                        IIOManager.FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
+                            }
+                        } else {
+                            return;
+                        }
+                    }
+                }
+                if (fail) {
+                    writer.fail();
+                    return;
+                }
+                if (frame != null) {
+                    writer.nextFrame(frame);
+                    synchronized (this) {
+                        freeBuffers.push(frame);
+                    }
+                } else {
+                    if (fileFrame == null) {
+                        fileFrame = new VSizeFrame(ctx);
+                    }
+                    long readLen = readFrame(readHandle, offset, fileFrame);
+                    writer.nextFrame(fileFrame.getBuffer());
+                    synchronized (this) {
+                        readOffset += readLen;
+                        if (readOffset == writeOffset) {
+                            // The file is drained, so it can be overwritten from the start.
+                            readOffset = 0;
+                            writeOffset = 0;
+                        }
+                    }
+                }
+            }
+        } finally {
+            try {
+                writer.close();
+            } finally {
+                if (readHandle != null) {
+                    ioManager.close(readHandle);
+                }
+                if (fileFrame != null) {
+                    ctx.deallocateFrame(fileFrame.getBuffer());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the frame at the given offset of the spill file. The first block tells how many blocks the frame spans,
+     * and the frame is grown to that size before the rest of it is read.
+     *
+     * @return the number of bytes read
+     */
+    private long readFrame(IFileHandle readHandle, long offset, VSizeFrame frame) throws HyracksDataException {
+        frame.reset();
+        long readLen = ioManager.syncRead(readHandle, offset, frame.getBuffer());
+        if (readLen < frame.getMinSize()) {
+            throw new HyracksDataException("Premature end of file");
+        }
+        frame.ensureFrameSize(frame.getMinSize() * FrameHelper.deserializeNumOfMinFrame(frame.getBuffer()));
+        ByteBuffer buffer = frame.getBuffer();
+        if (buffer.hasRemaining()) {
+            long remaining = buffer.remaining();
+            if (ioManager.syncRead(readHandle, offset + readLen, buffer) < remaining) {
+                throw new HyracksDataException("Premature end of file");
+            }
+            readLen += remaining;
+        }
+        buffer.flip();
+        return readLen;
+    }
+
+    private void releaseBuffers() {
+        ByteBuffer buffer;
+        while ((buffer = freeBuffers.poll()) != null) {
+            ctx.deallocateFrame(buffer);
+        }
+        while ((buffer = memoryQueue.poll()) != null) {
+            ctx.deallocateFrame(buffer);
+        }
+    }
+
+    private void closeFiles() {
+        if (writeHandle != null) {
+            try {
+                ioManager.close(writeHandle);
+            } catch (HyracksDataException e) {
+                LOGGER.log(Level.WARNING, "Failed to close the spill file of " + pid, e);
+            }
+            writeHandle = null;
+        }
+    }
+}
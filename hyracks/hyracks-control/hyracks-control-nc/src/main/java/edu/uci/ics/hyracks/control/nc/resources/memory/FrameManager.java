@@ -26,8 +26,27 @@ public class FrameManager implements IHyracksFrameMgrContext {
 
     private final int minFrameSize;
 
+    private final FramePool framePool;
+
+    private final boolean direct;
+
     public FrameManager(int minFrameSize) {
+        this(minFrameSize, null, false);
+    }
+
+    /**
+     * @param minFrameSize
+     * @param framePool
+     *            the pool to recycle the deallocated frames, or null to leave them to the garbage collector
+     * @param direct
+     *            whether {@link #allocateOutputFrame(int)} hands out direct (off-heap) frames. Direct frames have no
+     *            backing array, so they can only be filled through the frame appenders and read through the frame
+     *            accessors, not through {@link ByteBuffer#array()}.
+     */
+    public FrameManager(int minFrameSize, FramePool framePool, boolean direct) {
         this.minFrameSize = minFrameSize;
+        this.framePool = framePool;
+        this.direct = direct;
     }
 
     @Override
@@ -42,14 +61,26 @@ public class FrameManager implements IHyracksFrameMgrContext {
 
     @Override
     public ByteBuffer allocateFrame(int bytes) throws HyracksDataException {
+        return allocateFrame(bytes, false);
+    }
+
+    @Override
+    public ByteBuffer allocateOutputFrame(int bytes) throws HyracksDataException {
+        return allocateFrame(bytes, direct);
+    }
+
+    private ByteBuffer allocateFrame(int bytes, boolean direct) throws HyracksDataException {
         if (bytes % minFrameSize != 0) {
             throw new HyracksDataException("The size should be an integral multiple of the default frame size");
         }
-        ByteBuffer buffer = ByteBuffer.allocate(bytes);
         if (bytes / minFrameSize > FrameConstants.MAX_NUM_MINFRAME) {
             throw new HyracksDataException(
                     "Unable to allocate frame larger than:" + FrameConstants.MAX_NUM_MINFRAME + " bytes");
         }
+        ByteBuffer buffer = framePool == null ? null : framePool.acquire(bytes, direct);
+        if (buffer == null) {
+            buffer = direct ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+        }
         FrameHelper.serializeFrameSize(buffer, (byte) (bytes / minFrameSize));
         return (ByteBuffer) buffer.clear();
     }
@@ -57,29 +88,51 @@ public class FrameManager implements IHyracksFrameMgrContext {
     @Override
     public ByteBuffer reallocateFrame(ByteBuffer tobeDeallocate, int newSizeInBytes, boolean copyOldData)
             throws HyracksDataException {
+        boolean direct = tobeDeallocate.isDirect();
         if (!copyOldData) {
-            deallocateFrames(tobeDeallocate.capacity());
-            return allocateFrame(newSizeInBytes);
+            deallocateFrame(tobeDeallocate);
+            return allocateFrame(newSizeInBytes, direct);
         } else {
-            ByteBuffer buffer = allocateFrame(newSizeInBytes);
-            int limit = Math.min(newSizeInBytes, tobeDeallocate.capacity());
-            int pos = Math.min(limit, tobeDeallocate.position());
-            tobeDeallocate.position(0);
-            tobeDeallocate.limit(limit);
-            buffer.put(tobeDeallocate);
-            buffer.position(pos);
-
-            if (newSizeInBytes / minFrameSize > FrameConstants.MAX_NUM_MINFRAME) {
-                throw new HyracksDataException("Unable to allocate frame of size bigger than MinFrameSize * "
-                        + FrameConstants.MAX_NUM_MINFRAME);
-            }
-            FrameHelper.serializeFrameSize(buffer, (byte) (newSizeInBytes / minFrameSize));
+            ByteBuffer buffer = allocateFrame(newSizeInBytes, direct);
+            copyFrame(tobeDeallocate, buffer);
+            deallocateFrame(tobeDeallocate);
             return buffer;
         }
     }
 
+    /**
+     * Copy the content of a frame into the larger or smaller frame that replaces it, keeping the position and the
+     * frame size of the new frame.
+     */
+    public void copyFrame(ByteBuffer from, ByteBuffer to) {
+        int newSizeInBytes = to.capacity();
+        int limit = Math.min(newSizeInBytes, from.capacity());
+        int pos = Math.min(limit, from.position());
+        from.position(0);
+        from.limit(limit);
+        to.clear();
+        to.put(from);
+        to.position(pos);
+        FrameHelper.serializeFrameSize(to, (byte) (newSizeInBytes / minFrameSize));
+    }
+
     @Override
     public void deallocateFrames(int bytes) {
         //TODO make a global memory manager to allocate and deallocate the frames.
     }
+
+    @Override
+    public void deallocateFrame(ByteBuffer frame) {
+        if (framePool != null) {
+            framePool.release(frame);
+        }
+    }
+
+    public FramePool getFramePool() {
+        return framePool;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package edu.uci.ics.hyracks.control.nc.resources.memory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.uci.ics.hyracks.api.resources.memory.IMemoryManager;
+
+/**
+ * A size-class pool of frames that were handed back through {@link FrameManager#deallocateFrame(ByteBuffer)}.
+ * Frames are kept in one queue per capacity, and direct frames apart from heap frames. Every byte retained by the pool is reserved from the
+ * {@link IMemoryManager}, and released again once the frame is handed out or discarded.
+ * A pool can be chained to a parent pool: misses are served from the parent and {@link #close()} returns all
+ * retained frames to it. The node controller owns the root pool, each joblet owns a child of it.
+ */
+public class FramePool {
+    private final FramePool parent;
+
+    private final IMemoryManager memoryManager;
+
+    private final long budget;
+
+    private final ConcurrentHashMap<Integer, Queue<ByteBuffer>> sizeClasses;
+
+    private final ConcurrentHashMap<Integer, Queue<ByteBuffer>> directSizeClasses;
+
+    private final AtomicLong retainedBytes;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    private final AtomicLong recycled;
+
+    private final AtomicLong discarded;
+
+    public FramePool(IMemoryManager memoryManager, long budget) {
+        this(null, memoryManager, budget);
+    }
+
+    public FramePool(FramePool parent, IMemoryManager memoryManager, long budget) {
+        this.parent = parent;
+        this.memoryManager = memoryManager;
+        this.budget = budget;
+        sizeClasses = new ConcurrentHashMap<Integer, Queue<ByteBuffer>>();
+        directSizeClasses = new ConcurrentHashMap<Integer, Queue<ByteBuffer>>();
+        retainedBytes = new AtomicLong();
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        recycled = new AtomicLong();
+        discarded = new AtomicLong();
+    }
+
+    /**
+     * Take a recycled heap frame of exactly the given capacity.
+     *
+     * @param bytes
+     *            the capacity of the requested frame
+     * @return a cleared frame, or null if neither this pool nor its parents hold one
+     */
+    public ByteBuffer acquire(int bytes) {
+        return acquire(bytes, false);
+    }
+
+    /**
+     * Take a recycled frame of exactly the given capacity.
+     *
+     * @param bytes
+     *            the capacity of the requested frame
+     * @param direct
+     *            whether the frame must be a direct frame or a heap frame
+     * @return a cleared frame, or null if neither this pool nor its parents hold one
+     */
+    public ByteBuffer acquire(int bytes, boolean direct) {
+        Queue<ByteBuffer> queue = (direct ? directSizeClasses : sizeClasses).get(bytes);
+        ByteBuffer buffer = queue == null ? null : queue.poll();
+        if (buffer != null) {
+            retainedBytes.addAndGet(-bytes);
+            memoryManager.deallocate(bytes);
+            hits.incrementAndGet();
+            return clear(buffer);
+        }
+        if (parent != null) {
+            buffer = parent.acquire(bytes, direct);
+            if (buffer != null) {
+                hits.incrementAndGet();
+                return buffer;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Hand a frame to the pool. The caller must not touch the frame afterwards.
+     *
+     * @param buffer
+     *            the frame to be recycled
+     * @return true if the frame was retained, false if it was left to the garbage collector
+     */
+    public boolean release(ByteBuffer buffer) {
+        int bytes = buffer.capacity();
+        if (retainedBytes.addAndGet(bytes) > budget || !memoryManager.allocate(bytes)) {
+            retainedBytes.addAndGet(-bytes);
+            if (parent != null && parent.release(buffer)) {
+                return true;
+            }
+            discarded.incrementAndGet();
+            return false;
+        }
+        ConcurrentHashMap<Integer, Queue<ByteBuffer>> classes = buffer.isDirect() ? directSizeClasses : sizeClasses;
+        Queue<ByteBuffer> queue = classes.get(bytes);
+        if (queue == null) {
+            queue = new ConcurrentLinkedQueue<ByteBuffer>();
+            Queue<ByteBuffer> existing = classes.putIfAbsent(bytes, queue);
+            if (existing != null) {
+                queue = existing;
+            }
+        }
+        queue.offer(buffer);
+        recycled.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Drop every retained frame, returning them to the parent pool if there is one.
+     */
+    public void close() {
+        close(sizeClasses);
+        close(directSizeClasses);
+    }
+
+    private void close(ConcurrentHashMap<Integer, Queue<ByteBuffer>> classes) {
+        for (Queue<ByteBuffer> queue : classes.values()) {
+            ByteBuffer buffer;
+            while ((buffer = queue.poll()) != null) {
+                retainedBytes.addAndGet(-buffer.capacity());
+                memoryManager.deallocate(buffer.capacity());
+                if (parent != null) {
+                    parent.release(buffer);
+                }
+            }
+        }
+    }
+
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRecycled() {
+        return recycled.get();
+    }
+
+    public long getDiscarded() {
+        return discarded.get();
+    }
+
+    private static ByteBuffer clear(ByteBuffer buffer) {
+        buffer.clear();
+        if (buffer.hasArray()) {
+            Arrays.fill(buffer.array(), buffer.arrayOffset(), buffer.arrayOffset() + buffer.capacity(), (byte) 0);
+        } else {
+            int capacity = buffer.capacity();
+            int i = 0;
+            for (; i + 8 <= capacity; i += 8) {
+                buffer.putLong(i, 0L);
+            }
+            for (; i < capacity; ++i) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        return buffer;
+    }
+}
@@ -26,12 +26,20 @@ public class MemoryManager implements IMemoryManager {
 
     @Override
     public boolean allocate(long memory) {
-        // commented as now the deallocation is not implemented yet.
-        //        if (this.memory.addAndGet(-memory) < 0) {
-        //            this.memory.addAndGet(memory);
-        //            return false;
-        //        }
-        return true;
+        while (true) {
+            long available = this.memory.get();
+            if (available < memory) {
+                return false;
+            }
+            if (this.memory.compareAndSet(available, available - memory)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void charge(long memory) {
+        this.memory.addAndGet(-memory);
     }
 
     @Override
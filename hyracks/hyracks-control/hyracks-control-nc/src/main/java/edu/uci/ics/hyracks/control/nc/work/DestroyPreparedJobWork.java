@@ -0,0 +1,43 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.nc.work;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
+import edu.uci.ics.hyracks.control.common.work.AbstractWork;
+import edu.uci.ics.hyracks.control.nc.NodeControllerService;
+
+public class DestroyPreparedJobWork extends AbstractWork {
+    private static final Logger LOGGER = Logger.getLogger(DestroyPreparedJobWork.class.getName());
+
+    private final NodeControllerService ncs;
+
+    private final PreparedJobId preparedJobId;
+
+    public DestroyPreparedJobWork(NodeControllerService ncs, PreparedJobId preparedJobId) {
+        this.ncs = ncs;
+        this.preparedJobId = preparedJobId;
+    }
+
+    @Override
+    public void run() {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Destroying prepared job: " + preparedJobId);
+        }
+        ncs.getPreparedJobMap().remove(preparedJobId);
+    }
+}
@@ -32,6 +32,12 @@ public class NotifyTaskCompleteWork extends AbstractWork {
     public void run() {
         TaskProfile taskProfile = new TaskProfile(task.getTaskAttemptId(), task.getPartitionSendProfile());
         task.dumpProfile(taskProfile);
+        if (task.getLocalStage() >= 0) {
+            // The completion of a local job is reported once all its stages have completed.
+            task.getJoblet().addLocalTaskProfile(taskProfile);
+            task.getJoblet().removeTask(task);
+            return;
+        }
         try {
             ncs.getClusterController().notifyTaskComplete(task.getJobletContext().getJobId(), task.getTaskAttemptId(),
                     ncs.getId(), taskProfile);
@@ -36,6 +36,9 @@ public class NotifyTaskFailureWork extends AbstractWork {
 
     @Override
     public void run() {
+        if (task.getLocalStage() >= 0) {
+            task.getJoblet().failLocalJob();
+        }
         try {
             JobId jobId = task.getJobletContext().getJobId();
             IDatasetPartitionManager dpm = ncs.getDatasetPartitionManager();
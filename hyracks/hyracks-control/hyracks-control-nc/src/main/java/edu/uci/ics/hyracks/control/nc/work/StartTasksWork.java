@@ -14,13 +14,12 @@
  */
 package edu.uci.ics.hyracks.control.nc.work;
 
-import java.net.InetAddress;
-import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,16 +38,18 @@ import edu.uci.ics.hyracks.api.dataflow.IOperatorNodePushable;
 import edu.uci.ics.hyracks.api.dataflow.TaskAttemptId;
 import edu.uci.ics.hyracks.api.dataflow.TaskId;
 import edu.uci.ics.hyracks.api.dataflow.connectors.IConnectorPolicy;
+import edu.uci.ics.hyracks.api.dataflow.connectors.SendSideSpillingPipeliningConnectorPolicy;
 import edu.uci.ics.hyracks.api.dataflow.value.IRecordDescriptorProvider;
 import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
 import edu.uci.ics.hyracks.api.deployment.DeploymentId;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.exceptions.HyracksException;
 import edu.uci.ics.hyracks.api.job.ActivityCluster;
 import edu.uci.ics.hyracks.api.job.ActivityClusterGraph;
 import edu.uci.ics.hyracks.api.job.JobFlag;
 import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.api.job.PreparedJobId;
 import edu.uci.ics.hyracks.api.partitions.PartitionId;
-import edu.uci.ics.hyracks.comm.channels.NetworkInputChannel;
 import edu.uci.ics.hyracks.control.common.deployment.DeploymentUtils;
 import edu.uci.ics.hyracks.control.common.job.TaskAttemptDescriptor;
 import edu.uci.ics.hyracks.control.common.work.AbstractWork;
@@ -60,6 +61,7 @@ import edu.uci.ics.hyracks.control.nc.partitions.MaterializedPartitionWriter;
 import edu.uci.ics.hyracks.control.nc.partitions.MaterializingPipelinedPartition;
 import edu.uci.ics.hyracks.control.nc.partitions.PipelinedPartition;
 import edu.uci.ics.hyracks.control.nc.partitions.ReceiveSideMaterializingCollector;
+import edu.uci.ics.hyracks.control.nc.partitions.SpillingPipelinedPartition;
 import edu.uci.ics.hyracks.control.nc.profiling.ProfilingPartitionWriterFactory;
 
 public class StartTasksWork extends AbstractWork {
@@ -71,21 +73,28 @@ public class StartTasksWork extends AbstractWork {
 
     private final JobId jobId;
 
+    private final PreparedJobId preparedJobId;
+
     private final byte[] acgBytes;
 
+    private final byte[] jobParameters;
+
     private final List<TaskAttemptDescriptor> taskDescriptors;
 
     private final Map<ConnectorDescriptorId, IConnectorPolicy> connectorPoliciesMap;
 
     private final EnumSet<JobFlag> flags;
 
-    public StartTasksWork(NodeControllerService ncs, DeploymentId deploymentId, JobId jobId, byte[] acgBytes,
+    public StartTasksWork(NodeControllerService ncs, DeploymentId deploymentId, JobId jobId,
+            PreparedJobId preparedJobId, byte[] acgBytes, byte[] jobParameters,
             List<TaskAttemptDescriptor> taskDescriptors,
             Map<ConnectorDescriptorId, IConnectorPolicy> connectorPoliciesMap, EnumSet<JobFlag> flags) {
         this.ncs = ncs;
         this.deploymentId = deploymentId;
         this.jobId = jobId;
+        this.preparedJobId = preparedJobId;
         this.acgBytes = acgBytes;
+        this.jobParameters = jobParameters;
         this.taskDescriptors = taskDescriptors;
         this.connectorPoliciesMap = connectorPoliciesMap;
         this.flags = flags;
@@ -114,7 +123,7 @@ public class StartTasksWork extends AbstractWork {
                 }
             };
 
-            for (TaskAttemptDescriptor td : taskDescriptors) {
+            for (TaskAttemptDescriptor td : holdLocalStages(joblet)) {
                 TaskAttemptId taId = td.getTaskAttemptId();
                 TaskId tid = taId.getTaskId();
                 ActivityId aid = tid.getActivityId();
@@ -127,6 +136,7 @@ public class StartTasksWork extends AbstractWork {
                 List<IConnectorDescriptor> inputs = ac.getActivityInputMap().get(aid);
                 Task task = new Task(joblet, taId, han.getClass().getName(), ncs.getExecutor(), ncs,
                         createInputChannels(td, inputs));
+                task.setLocalStage(td.getLocalStage());
                 IOperatorNodePushable operator = han.createPushRuntime(task, rdp, partition, td.getPartitionCount());
 
                 List<IPartitionCollector> collectors = new ArrayList<IPartitionCollector>();
@@ -174,17 +184,61 @@ public class StartTasksWork extends AbstractWork {
         }
     }
 
+    /**
+     * The tasks of a local job come in one message, tagged with their stage. Only the tasks of the first stage start
+     * right away, and the tasks of each later stage are held in the joblet until the earlier stages have completed.
+     * 
+     * @return the tasks to start now
+     */
+    private List<TaskAttemptDescriptor> holdLocalStages(Joblet joblet) {
+        int firstStage = Integer.MAX_VALUE;
+        for (TaskAttemptDescriptor td : taskDescriptors) {
+            firstStage = Math.min(firstStage, td.getLocalStage());
+        }
+        if (firstStage < 0) {
+            return taskDescriptors;
+        }
+        List<TaskAttemptDescriptor> startTasks = new ArrayList<TaskAttemptDescriptor>();
+        Map<Integer, List<TaskAttemptDescriptor>> stageMap = new TreeMap<Integer, List<TaskAttemptDescriptor>>();
+        for (TaskAttemptDescriptor td : taskDescriptors) {
+            if (td.getLocalStage() == firstStage) {
+                startTasks.add(td);
+                continue;
+            }
+            List<TaskAttemptDescriptor> stageTasks = stageMap.get(td.getLocalStage());
+            if (stageTasks == null) {
+                stageTasks = new ArrayList<TaskAttemptDescriptor>();
+                stageMap.put(td.getLocalStage(), stageTasks);
+            }
+            stageTasks.add(td);
+        }
+        for (Map.Entry<Integer, List<TaskAttemptDescriptor>> e : stageMap.entrySet()) {
+            joblet.addLocalStage(e.getKey(), new StartTasksWork(ncs, deploymentId, jobId, preparedJobId, null,
+                    jobParameters, e.getValue(), connectorPoliciesMap, flags));
+        }
+        return startTasks;
+    }
+
     private Joblet getOrCreateLocalJoblet(DeploymentId deploymentId, JobId jobId, INCApplicationContext appCtx,
             byte[] acgBytes) throws Exception {
         Map<JobId, Joblet> jobletMap = ncs.getJobletMap();
         Joblet ji = jobletMap.get(jobId);
         if (ji == null) {
-            if (acgBytes == null) {
+            ActivityClusterGraph acg;
+            if (acgBytes != null) {
+                acg = (ActivityClusterGraph) DeploymentUtils.deserialize(acgBytes, deploymentId, appCtx);
+                if (preparedJobId != null) {
+                    ncs.getPreparedJobMap().put(preparedJobId, acg);
+                }
+            } else if (preparedJobId != null) {
+                acg = ncs.getPreparedJobMap().get(preparedJobId);
+                if (acg == null) {
+                    throw new HyracksException("Prepared job " + preparedJobId + " is not cached on this node");
+                }
+            } else {
                 throw new NullPointerException("JobActivityGraph was null");
             }
-            ActivityClusterGraph acg = (ActivityClusterGraph) DeploymentUtils.deserialize(acgBytes, deploymentId,
-                    appCtx);
-            ji = new Joblet(ncs, deploymentId, jobId, appCtx, acg);
+            ji = new Joblet(ncs, deploymentId, jobId, appCtx, acg, jobParameters);
             jobletMap.put(jobId, ji);
         }
         return ji;
@@ -207,7 +261,16 @@ public class StartTasksWork extends AbstractWork {
             IConnectorPolicy cPolicy, final JobId jobId, final IConnectorDescriptor conn, final int senderIndex,
             final TaskAttemptId taId, EnumSet<JobFlag> flags) {
         IPartitionWriterFactory factory;
-        if (cPolicy.materializeOnSendSide()) {
+        if (cPolicy instanceof SendSideSpillingPipeliningConnectorPolicy) {
+            final int memoryFrames = ((SendSideSpillingPipeliningConnectorPolicy) cPolicy).getMemoryFrames();
+            factory = new IPartitionWriterFactory() {
+                @Override
+                public IFrameWriter createFrameWriter(int receiverIndex) throws HyracksDataException {
+                    return new SpillingPipelinedPartition(ctx, ncs.getPartitionManager(), new PartitionId(jobId,
+                            conn.getConnectorId(), senderIndex, receiverIndex), taId, ncs.getExecutor(), memoryFrames);
+                }
+            };
+        } else if (cPolicy.materializeOnSendSide()) {
             if (cPolicy.consumerWaitsForProducerToFinish()) {
                 factory = new IPartitionWriterFactory() {
                     @Override
@@ -262,9 +325,8 @@ public class StartTasksWork extends AbstractWork {
                         NetworkAddress networkAddress = inputAddresses[i][j];
                         PartitionId pid = new PartitionId(jobId, inputs.get(i).getConnectorId(), j, td
                                 .getTaskAttemptId().getTaskId().getPartition());
-                        PartitionChannel channel = new PartitionChannel(pid, new NetworkInputChannel(
-                                ncs.getNetworkManager(), new InetSocketAddress(InetAddress.getByAddress(networkAddress
-                                        .lookupIpAddress()), networkAddress.getPort()), pid, 5));
+                        PartitionChannel channel = new PartitionChannel(pid, ncs.getNetworkManager()
+                                .createInputChannel(networkAddress, pid, 5, inputs.get(i).isFrameCompressionEnabled()));
                         channels.add(channel);
                     }
                 }
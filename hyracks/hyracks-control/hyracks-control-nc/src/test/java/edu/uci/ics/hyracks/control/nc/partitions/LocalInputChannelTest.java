@@ -0,0 +1,102 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.nc.partitions;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Semaphore;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.channels.IInputChannel;
+import edu.uci.ics.hyracks.api.channels.IInputChannelMonitor;
+import edu.uci.ics.hyracks.api.comm.FrameHelper;
+import edu.uci.ics.hyracks.api.comm.IFrameWriter;
+
+public class LocalInputChannelTest {
+    private static final int FRAME_SIZE = 256;
+
+    @Test
+    public void largeFrameIsSplitIntoMinFrames() throws Exception {
+        // fewer buffers than blocks in the large frame, so the producer has to wait for the reader
+        final LocalInputChannel channel = new LocalInputChannel(null, null, 2);
+        final Semaphore available = new Semaphore(0);
+        channel.registerMonitor(new IInputChannelMonitor() {
+            @Override
+            public void notifyFailure(IInputChannel channel) {
+            }
+
+            @Override
+            public void notifyDataAvailability(IInputChannel channel, int nFrames) {
+                available.release(nFrames);
+            }
+
+            @Override
+            public void notifyEndOfStream(IInputChannel channel) {
+            }
+        });
+        final ByteBuffer[] frames = new ByteBuffer[] { createFrame(1), createFrame(5), createFrame(2) };
+        final IFrameWriter writer = channel.createFrameWriter(FRAME_SIZE);
+        final Exception[] failure = new Exception[1];
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    writer.open();
+                    for (ByteBuffer frame : frames) {
+                        writer.nextFrame(frame);
+                    }
+                    writer.close();
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            }
+        };
+        producer.start();
+
+        for (ByteBuffer expected : frames) {
+            available.acquire();
+            ByteBuffer block = channel.getNextBuffer();
+            int nBlocks = FrameHelper.deserializeNumOfMinFrame(block);
+            Assert.assertEquals(expected.capacity(), nBlocks * FRAME_SIZE);
+            ByteBuffer frame = ByteBuffer.allocate(nBlocks * FRAME_SIZE);
+            for (int i = 0; i < nBlocks; ++i) {
+                if (i > 0) {
+                    available.acquire();
+                    block = channel.getNextBuffer();
+                }
+                Assert.assertEquals(FRAME_SIZE, block.remaining());
+                frame.put(block);
+                channel.recycleBuffer(block);
+            }
+            expected.clear();
+            frame.clear();
+            Assert.assertEquals(expected, frame);
+        }
+        producer.join();
+        Assert.assertNull(failure[0]);
+        Assert.assertNull(channel.getNextBuffer());
+    }
+
+    private static ByteBuffer createFrame(int nBlocks) {
+        ByteBuffer frame = ByteBuffer.allocate(nBlocks * FRAME_SIZE);
+        for (int i = 0; i < frame.capacity(); ++i) {
+            frame.put(i, (byte) (i * 31 + nBlocks));
+        }
+        FrameHelper.serializeFrameSize(frame, (byte) nBlocks);
+        return frame;
+    }
+}
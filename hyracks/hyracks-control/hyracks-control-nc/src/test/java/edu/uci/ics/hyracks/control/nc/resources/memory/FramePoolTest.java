@@ -0,0 +1,138 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.control.nc.resources.memory;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class FramePoolTest {
+    private static final int FRAME_SIZE = 256;
+
+    @Test
+    public void releasedFrameIsReusedCleared() {
+        MemoryManager memoryManager = new MemoryManager(16 * FRAME_SIZE);
+        FramePool pool = new FramePool(memoryManager, 4 * FRAME_SIZE);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_SIZE);
+        frame.putInt(0, 42);
+        Assert.assertTrue(pool.release(frame));
+        Assert.assertEquals(FRAME_SIZE, pool.getRetainedBytes());
+
+        Assert.assertNull(pool.acquire(2 * FRAME_SIZE));
+        ByteBuffer reused = pool.acquire(FRAME_SIZE);
+        Assert.assertSame(frame, reused);
+        Assert.assertEquals(0, reused.getInt(0));
+        Assert.assertEquals(0, pool.getRetainedBytes());
+        Assert.assertNull(pool.acquire(FRAME_SIZE));
+
+        Assert.assertEquals(1, pool.getHits());
+        Assert.assertEquals(2, pool.getMisses());
+        Assert.assertEquals(1, pool.getRecycled());
+    }
+
+    @Test
+    public void retainedFramesAreChargedToTheMemoryManager() {
+        MemoryManager memoryManager = new MemoryManager(16 * FRAME_SIZE);
+        FramePool pool = new FramePool(memoryManager, 4 * FRAME_SIZE);
+        pool.release(ByteBuffer.allocate(FRAME_SIZE));
+        pool.release(ByteBuffer.allocate(2 * FRAME_SIZE));
+        Assert.assertEquals(13 * FRAME_SIZE, memoryManager.getAvailableMemory());
+
+        pool.acquire(2 * FRAME_SIZE);
+        Assert.assertEquals(15 * FRAME_SIZE, memoryManager.getAvailableMemory());
+
+        pool.close();
+        Assert.assertEquals(16 * FRAME_SIZE, memoryManager.getAvailableMemory());
+        Assert.assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void framesBeyondTheBudgetAreDiscarded() {
+        MemoryManager memoryManager = new MemoryManager(16 * FRAME_SIZE);
+        FramePool pool = new FramePool(memoryManager, 2 * FRAME_SIZE);
+        Assert.assertTrue(pool.release(ByteBuffer.allocate(FRAME_SIZE)));
+        Assert.assertTrue(pool.release(ByteBuffer.allocate(FRAME_SIZE)));
+        Assert.assertFalse(pool.release(ByteBuffer.allocate(FRAME_SIZE)));
+        Assert.assertEquals(1, pool.getDiscarded());
+        Assert.assertEquals(2 * FRAME_SIZE, pool.getRetainedBytes());
+        Assert.assertEquals(14 * FRAME_SIZE, memoryManager.getAvailableMemory());
+    }
+
+    @Test
+    public void framesAreDiscardedWhenTheMemoryManagerIsExhausted() {
+        MemoryManager memoryManager = new MemoryManager(2 * FRAME_SIZE);
+        FramePool pool = new FramePool(memoryManager, 16 * FRAME_SIZE);
+        Assert.assertTrue(memoryManager.allocate(FRAME_SIZE));
+        Assert.assertTrue(pool.release(ByteBuffer.allocate(FRAME_SIZE)));
+        Assert.assertFalse(pool.release(ByteBuffer.allocate(FRAME_SIZE)));
+        Assert.assertFalse(memoryManager.allocate(1));
+        Assert.assertEquals(0, memoryManager.getAvailableMemory());
+        Assert.assertEquals(FRAME_SIZE, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void chargedMemoryIsTrackedButNotLimited() {
+        MemoryManager memoryManager = new MemoryManager(2 * FRAME_SIZE);
+        FramePool pool = new FramePool(memoryManager, 16 * FRAME_SIZE);
+        memoryManager.charge(3 * FRAME_SIZE);
+        Assert.assertEquals(-FRAME_SIZE, memoryManager.getAvailableMemory());
+        Assert.assertFalse(memoryManager.allocate(1));
+        Assert.assertFalse(pool.release(ByteBuffer.allocate(FRAME_SIZE)));
+
+        memoryManager.deallocate(3 * FRAME_SIZE);
+        Assert.assertEquals(2 * FRAME_SIZE, memoryManager.getAvailableMemory());
+        Assert.assertTrue(pool.release(ByteBuffer.allocate(FRAME_SIZE)));
+    }
+
+    @Test
+    public void childPoolFallsBackToItsParent() {
+        MemoryManager memoryManager = new MemoryManager(16 * FRAME_SIZE);
+        FramePool parent = new FramePool(memoryManager, 4 * FRAME_SIZE);
+        FramePool child = new FramePool(parent, memoryManager, FRAME_SIZE);
+        ByteBuffer first = ByteBuffer.allocate(FRAME_SIZE);
+        ByteBuffer second = ByteBuffer.allocate(FRAME_SIZE);
+        Assert.assertTrue(child.release(first));
+        Assert.assertTrue(child.release(second));
+        Assert.assertEquals(FRAME_SIZE, child.getRetainedBytes());
+        Assert.assertEquals(FRAME_SIZE, parent.getRetainedBytes());
+
+        child.close();
+        Assert.assertEquals(0, child.getRetainedBytes());
+        Assert.assertEquals(2 * FRAME_SIZE, parent.getRetainedBytes());
+        Assert.assertEquals(14 * FRAME_SIZE, memoryManager.getAvailableMemory());
+        Assert.assertNotNull(child.acquire(FRAME_SIZE));
+        Assert.assertNotNull(child.acquire(FRAME_SIZE));
+        Assert.assertEquals(16 * FRAME_SIZE, memoryManager.getAvailableMemory());
+    }
+
+    @Test
+    public void reallocationRecyclesTheOldFrame() throws Exception {
+        MemoryManager memoryManager = new MemoryManager(16 * FRAME_SIZE);
+        FramePool pool = new FramePool(memoryManager, 4 * FRAME_SIZE);
+        FrameManager frameManager = new FrameManager(FRAME_SIZE, pool, false);
+        ByteBuffer frame = frameManager.allocateFrame(FRAME_SIZE);
+        frame.putInt(8, 7);
+        frame.position(12);
+        ByteBuffer larger = frameManager.reallocateFrame(frame, 2 * FRAME_SIZE, true);
+        Assert.assertEquals(2 * FRAME_SIZE, larger.capacity());
+        Assert.assertEquals(7, larger.getInt(8));
+        Assert.assertEquals(12, larger.position());
+        Assert.assertEquals(FRAME_SIZE, pool.getRetainedBytes());
+        Assert.assertSame(frame, frameManager.allocateFrame(FRAME_SIZE));
+        Assert.assertEquals(16 * FRAME_SIZE, memoryManager.getAvailableMemory());
+    }
+}
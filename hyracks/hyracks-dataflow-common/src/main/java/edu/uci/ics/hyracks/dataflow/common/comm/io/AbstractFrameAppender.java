@@ -27,7 +27,8 @@ import edu.uci.ics.hyracks.dataflow.common.util.IntSerDeUtils;
 
 public class AbstractFrameAppender implements IFrameAppender {
     protected IFrame frame;
-    protected byte[] array; // cached the getBuffer().array to speed up byte array access a little
+    protected byte[] array; // cached the getBuffer().array to speed up byte array access a little, null for a direct frame
+    private ByteBuffer directView; // a private cursor over a direct frame, used for bulk copies
 
     protected int tupleCount;
     protected int tupleDataEndOffset;
@@ -48,20 +49,62 @@ public class AbstractFrameAppender implements IFrameAppender {
     }
 
     private void reset(ByteBuffer buffer, boolean clear) {
-        array = buffer.array();
+        if (buffer.hasArray()) {
+            array = buffer.array();
+            directView = null;
+        } else {
+            array = null;
+            directView = buffer.duplicate();
+        }
         if (clear) {
-            IntSerDeUtils.putInt(array, FrameHelper.getTupleCountOffset(frame.getFrameSize()), 0);
+            putInt(FrameHelper.getTupleCountOffset(frame.getFrameSize()), 0);
             tupleCount = 0;
             tupleDataEndOffset = FrameConstants.TUPLE_START_OFFSET;
         } else {
-            tupleCount = IntSerDeUtils.getInt(array, FrameHelper.getTupleCountOffset(frame.getFrameSize()));
+            tupleCount = buffer.getInt(FrameHelper.getTupleCountOffset(frame.getFrameSize()));
             tupleDataEndOffset = tupleCount == 0 ?
                     FrameConstants.TUPLE_START_OFFSET :
-                    IntSerDeUtils.getInt(array, FrameHelper.getTupleCountOffset(frame.getFrameSize())
+                    buffer.getInt(FrameHelper.getTupleCountOffset(frame.getFrameSize())
                             - tupleCount * FrameConstants.SIZE_LEN);
         }
     }
 
+    protected void putInt(int offset, int value) {
+        if (array != null) {
+            IntSerDeUtils.putInt(array, offset, value);
+        } else {
+            directView.putInt(offset, value);
+        }
+    }
+
+    protected void putBytes(byte[] src, int srcOffset, int offset, int length) {
+        if (array != null) {
+            System.arraycopy(src, srcOffset, array, offset, length);
+        } else {
+            directView.clear();
+            directView.position(offset);
+            directView.put(src, srcOffset, length);
+        }
+    }
+
+    protected void copyBytes(ByteBuffer src, int srcOffset, int offset, int length) {
+        if (src.hasArray()) {
+            putBytes(src.array(), src.arrayOffset() + srcOffset, offset, length);
+        } else {
+            ByteBuffer srcView = src.duplicate();
+            srcView.clear();
+            srcView.position(srcOffset);
+            srcView.limit(srcOffset + length);
+            if (array != null) {
+                srcView.get(array, offset, length);
+            } else {
+                directView.clear();
+                directView.position(offset);
+                directView.put(srcView);
+            }
+        }
+    }
+
     @Override
     public int getTupleCount() {
         return tupleCount;
@@ -23,7 +23,6 @@ import edu.uci.ics.hyracks.api.comm.IFrameTupleAccessor;
 import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.dataflow.common.comm.util.ByteBufferInputStream;
-import edu.uci.ics.hyracks.dataflow.common.util.IntSerDeUtils;
 
 /**
  * FrameTupleCursor is used to navigate over tuples in a Frame. A frame is
@@ -34,12 +33,20 @@ import edu.uci.ics.hyracks.dataflow.common.util.IntSerDeUtils;
  * the offset of the (i + 1)^th tuple. Every tuple is organized as a sequence of
  * ints indicating the end of each field in the tuple relative to the end of the
  * field slots.
+ * Direct frames only go to sinks that never read them through an accessor, see
+ * {@link edu.uci.ics.hyracks.api.context.IHyracksFrameMgrContext#allocateOutputFrame(int)}. Should one reach an
+ * accessor anyway, {@link #getBuffer()} returns an on-heap copy of it, made at most once per
+ * {@link #reset(ByteBuffer)}, for the byte array based comparators, hash functions and serializers. Writes to that
+ * copy do not reach the frame.
  */
 public class FrameTupleAccessor implements IFrameTupleAccessor {
     private int tupleCountOffset;
     private final RecordDescriptor recordDescriptor;
     private ByteBuffer buffer;
     private int start;
+    private int length;
+    private ByteBuffer heapBuffer;
+    private boolean heapBufferValid;
 
     public FrameTupleAccessor(RecordDescriptor recordDescriptor) {
         this.recordDescriptor = recordDescriptor;
@@ -53,24 +60,41 @@ public class FrameTupleAccessor implements IFrameTupleAccessor {
     public void reset(ByteBuffer buffer, int start, int length) {
         this.buffer = buffer;
         this.start = start;
+        this.length = length;
+        this.heapBufferValid = buffer.hasArray();
         this.tupleCountOffset = start + FrameHelper.getTupleCountOffset(length);
     }
 
     @Override
     public ByteBuffer getBuffer() {
-        return buffer;
+        if (heapBufferValid) {
+            return buffer.hasArray() ? buffer : heapBuffer;
+        }
+        if (heapBuffer == null || heapBuffer.capacity() != buffer.capacity()) {
+            heapBuffer = ByteBuffer.allocate(buffer.capacity());
+        }
+        ByteBuffer src = buffer.duplicate();
+        src.limit(start + length);
+        src.position(start);
+        heapBuffer.clear();
+        heapBuffer.position(start);
+        heapBuffer.put(src);
+        heapBuffer.limit(buffer.limit());
+        heapBuffer.position(buffer.position());
+        heapBufferValid = true;
+        return heapBuffer;
     }
 
     @Override
     public int getTupleCount() {
-        return IntSerDeUtils.getInt(buffer.array(), tupleCountOffset);
+        return buffer.getInt(tupleCountOffset);
     }
 
     @Override
     public int getTupleStartOffset(int tupleIndex) {
         int offset = tupleIndex == 0 ?
                 FrameConstants.TUPLE_START_OFFSET :
-                IntSerDeUtils.getInt(buffer.array(), tupleCountOffset - 4 * tupleIndex);
+                buffer.getInt(tupleCountOffset - 4 * tupleIndex);
         return start + offset;
     }
 
@@ -81,21 +105,19 @@ public class FrameTupleAccessor implements IFrameTupleAccessor {
 
     @Override
     public int getTupleEndOffset(int tupleIndex) {
-        return start + IntSerDeUtils
-                .getInt(buffer.array(), tupleCountOffset - FrameConstants.SIZE_LEN * (tupleIndex + 1));
+        return start + buffer.getInt(tupleCountOffset - FrameConstants.SIZE_LEN * (tupleIndex + 1));
     }
 
     @Override
     public int getFieldStartOffset(int tupleIndex, int fIdx) {
         return fIdx == 0 ?
                 0 :
-                IntSerDeUtils
-                        .getInt(buffer.array(), getTupleStartOffset(tupleIndex) + (fIdx - 1) * FrameConstants.SIZE_LEN);
+                buffer.getInt(getTupleStartOffset(tupleIndex) + (fIdx - 1) * FrameConstants.SIZE_LEN);
     }
 
     @Override
     public int getFieldEndOffset(int tupleIndex, int fIdx) {
-        return IntSerDeUtils.getInt(buffer.array(), getTupleStartOffset(tupleIndex) + fIdx * FrameConstants.SIZE_LEN);
+        return buffer.getInt(getTupleStartOffset(tupleIndex) + fIdx * FrameConstants.SIZE_LEN);
     }
 
     @Override
@@ -25,7 +25,6 @@ import edu.uci.ics.hyracks.api.comm.IFrameTupleAccessor;
 import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.dataflow.common.comm.util.ByteBufferInputStream;
-import edu.uci.ics.hyracks.dataflow.common.util.IntSerDeUtils;
 
 public class FrameTupleAppenderAccessor extends FrameTupleAppender implements IFrameTupleAccessor {
     private int tupleCountOffset;
@@ -45,7 +44,7 @@ public class FrameTupleAppenderAccessor extends FrameTupleAppender implements IF
     public int getTupleStartOffset(int tupleIndex) {
         int offset = tupleIndex == 0 ?
                 FrameConstants.TUPLE_START_OFFSET :
-                IntSerDeUtils.getInt(getBuffer().array(), tupleCountOffset - 4 * tupleIndex);
+                getBuffer().getInt(tupleCountOffset - 4 * tupleIndex);
         return offset;
     }
 
@@ -56,18 +55,17 @@ public class FrameTupleAppenderAccessor extends FrameTupleAppender implements IF
 
     @Override
     public int getTupleEndOffset(int tupleIndex) {
-        return IntSerDeUtils.getInt(getBuffer().array(), tupleCountOffset - 4 * (tupleIndex + 1));
+        return getBuffer().getInt(tupleCountOffset - 4 * (tupleIndex + 1));
     }
 
     @Override
     public int getFieldStartOffset(int tupleIndex, int fIdx) {
-        return fIdx == 0 ? 0 : IntSerDeUtils.getInt(getBuffer().array(),
-                getTupleStartOffset(tupleIndex) + (fIdx - 1) * 4);
+        return fIdx == 0 ? 0 : getBuffer().getInt(getTupleStartOffset(tupleIndex) + (fIdx - 1) * 4);
     }
 
     @Override
     public int getFieldEndOffset(int tupleIndex, int fIdx) {
-        return IntSerDeUtils.getInt(getBuffer().array(), getTupleStartOffset(tupleIndex) + fIdx * 4);
+        return getBuffer().getInt(getTupleStartOffset(tupleIndex) + fIdx * 4);
     }
 
     @Override
@@ -55,4 +55,4 @@ public class FrameTuplePairComparator {
         }
         return 0;
     }
-}
\ No newline at end of file
+}
@@ -14,6 +14,7 @@
  */
 package edu.uci.ics.hyracks.dataflow.common.data.normalizers;
 
+import edu.uci.ics.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import edu.uci.ics.hyracks.data.std.primitive.LongPointable;
@@ -25,7 +26,7 @@ public class Integer64NormalizedKeyComputerFactory implements INormalizedKeyComp
 
     @Override
     public INormalizedKeyComputer createNormalizedKeyComputer() {
-        return new INormalizedKeyComputer() {
+        return new IMultiWordNormalizedKeyComputer() {
             private static final int POSTIVE_LONG_MASK = (3 << 30);
             private static final int NON_NEGATIVE_INT_MASK = (2 << 30);
             private static final int NEGATIVE_LONG_MASK = (0 << 30);
@@ -65,6 +66,23 @@ public class Integer64NormalizedKeyComputerFactory implements INormalizedKeyComp
                 return value ^ Integer.MIN_VALUE;
             }
 
+            @Override
+            public int getWordCount() {
+                return 2;
+            }
+
+            @Override
+            public void normalize(byte[] bytes, int start, int length, int[] words, int offset) {
+                long value = LongPointable.getLong(bytes, start);
+                words[offset] = getKey((int) (value >> 32));
+                words[offset + 1] = (int) value;
+            }
+
+            @Override
+            public boolean isDecisive() {
+                return true;
+            }
+
         };
     }
 }
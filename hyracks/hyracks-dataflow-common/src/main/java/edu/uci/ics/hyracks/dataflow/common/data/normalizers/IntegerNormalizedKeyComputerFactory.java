@@ -14,6 +14,7 @@
  */
 package edu.uci.ics.hyracks.dataflow.common.data.normalizers;
 
+import edu.uci.ics.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import edu.uci.ics.hyracks.data.std.primitive.IntegerPointable;
@@ -24,12 +25,27 @@ public class IntegerNormalizedKeyComputerFactory implements INormalizedKeyComput
 
     @Override
     public INormalizedKeyComputer createNormalizedKeyComputer() {
-        return new INormalizedKeyComputer() {
+        return new IMultiWordNormalizedKeyComputer() {
             @Override
             public int normalize(byte[] bytes, int start, int length) {
                 int value = IntegerPointable.getInteger(bytes, start);
                 return value ^Integer.MIN_VALUE;
             }
+
+            @Override
+            public int getWordCount() {
+                return 1;
+            }
+
+            @Override
+            public void normalize(byte[] bytes, int start, int length, int[] words, int offset) {
+                words[offset] = normalize(bytes, start, length);
+            }
+
+            @Override
+            public boolean isDecisive() {
+                return true;
+            }
         };
     }
 }
\ No newline at end of file
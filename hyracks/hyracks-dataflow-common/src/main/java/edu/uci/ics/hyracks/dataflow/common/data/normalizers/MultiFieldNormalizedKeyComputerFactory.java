@@ -0,0 +1,42 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.common.data.normalizers;
+
+import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputer;
+import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+
+/**
+ * Normalizes a key over several sort fields, one factory per field. Sorters that know about it concatenate the
+ * words of the fields, moving on to the next field only while the words of the previous fields are decisive.
+ * Everyone else gets the normalized key of the first field, just as with a single factory.
+ */
+public class MultiFieldNormalizedKeyComputerFactory implements INormalizedKeyComputerFactory {
+    private static final long serialVersionUID = 1L;
+
+    private final INormalizedKeyComputerFactory[] fieldFactories;
+
+    public MultiFieldNormalizedKeyComputerFactory(INormalizedKeyComputerFactory[] fieldFactories) {
+        this.fieldFactories = fieldFactories;
+    }
+
+    public INormalizedKeyComputerFactory[] getFieldFactories() {
+        return fieldFactories;
+    }
+
+    @Override
+    public INormalizedKeyComputer createNormalizedKeyComputer() {
+        return fieldFactories[0].createNormalizedKeyComputer();
+    }
+}
@@ -14,6 +14,7 @@
  */
 package edu.uci.ics.hyracks.dataflow.common.data.normalizers;
 
+import edu.uci.ics.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import edu.uci.ics.hyracks.data.std.primitive.UTF8StringPointable;
@@ -21,9 +22,23 @@ import edu.uci.ics.hyracks.data.std.primitive.UTF8StringPointable;
 public class UTF8StringNormalizedKeyComputerFactory implements INormalizedKeyComputerFactory {
     private static final long serialVersionUID = 1L;
 
+    private final int wordCount;
+
+    public UTF8StringNormalizedKeyComputerFactory() {
+        this(1);
+    }
+
+    /**
+     * @param wordCount
+     *            - the number of words of the key, each of which holds two characters of the string prefix
+     */
+    public UTF8StringNormalizedKeyComputerFactory(int wordCount) {
+        this.wordCount = wordCount;
+    }
+
     @Override
     public INormalizedKeyComputer createNormalizedKeyComputer() {
-        return new INormalizedKeyComputer() {
+        return new IMultiWordNormalizedKeyComputer() {
             @Override
             public int normalize(byte[] bytes, int start, int length) {
                 int len = UTF8StringPointable.getUTFLength(bytes, start);
@@ -38,6 +53,33 @@ public class UTF8StringNormalizedKeyComputerFactory implements INormalizedKeyCom
                 }
                 return nk;
             }
+
+            @Override
+            public int getWordCount() {
+                return wordCount;
+            }
+
+            @Override
+            public void normalize(byte[] bytes, int start, int length, int[] words, int offset) {
+                int end = start + 2 + UTF8StringPointable.getUTFLength(bytes, start);
+                int pos = start + 2;
+                for (int w = 0; w < wordCount; ++w) {
+                    int nk = 0;
+                    for (int i = 0; i < 2; ++i) {
+                        nk <<= 16;
+                        if (pos < end) {
+                            nk += ((int) UTF8StringPointable.charAt(bytes, pos)) & 0xffff;
+                            pos += UTF8StringPointable.charSize(bytes, pos);
+                        }
+                    }
+                    words[offset + w] = nk;
+                }
+            }
+
+            @Override
+            public boolean isDecisive() {
+                return false;
+            }
         };
     }
 }
\ No newline at end of file
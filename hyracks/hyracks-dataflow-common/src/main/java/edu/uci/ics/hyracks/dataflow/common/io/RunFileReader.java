@@ -14,32 +14,93 @@
  */
 package edu.uci.ics.hyracks.dataflow.common.io;
 
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
 import edu.uci.ics.hyracks.api.comm.FrameHelper;
 import edu.uci.ics.hyracks.api.comm.IFrame;
 import edu.uci.ics.hyracks.api.comm.IFrameReader;
+import edu.uci.ics.hyracks.api.context.IHyracksFrameMgrContext;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.api.io.FileReference;
 import edu.uci.ics.hyracks.api.io.IFileHandle;
+import edu.uci.ics.hyracks.api.io.IIOFuture;
 import edu.uci.ics.hyracks.api.io.IIOManager;
+import edu.uci.ics.hyracks.net.compression.BlockCompressor;
+import edu.uci.ics.hyracks.net.compression.LZCodec;
 
 public class RunFileReader implements IFrameReader {
+    private static final int READ_AHEAD_SIZE = 64 * 1024;
+
     private final FileReference file;
     private final IIOManager ioManager;
     private final long size;
+    private final boolean compressed;
+    private IHyracksFrameMgrContext prefetchCtx;
+    private boolean prefetch;
 
     private IFileHandle handle;
     private long readPtr;
 
+    // Compressed run files are read ahead, since their blocks do not line up with the frames.
+    private ByteBuffer input;
+    private long inputPtr;
+    private byte[] rawBytes;
+    private CRC32 checksum;
+
+    // The frame of a prefetching reader that is filled in the background while the caller works on the last frame.
+    private ByteBuffer ahead;
+    private IHyracksFrameMgrContext aheadCtx;
+    private long aheadPtr;
+    private IIOFuture pendingRead;
+
     public RunFileReader(FileReference file, IIOManager ioManager, long size) {
+        this(file, ioManager, size, false);
+    }
+
+    public RunFileReader(FileReference file, IIOManager ioManager, long size, boolean compressed) {
         this.file = file;
         this.ioManager = ioManager;
         this.size = size;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Makes the reader fetch the next frame of the file asynchronously while the caller works on the current one.
+     * The read-ahead frame has the initial frame size and is allocated from the given context at {@link #open()} and
+     * returned at {@link #close()}, so the caller must count one more frame per open reader against its budget. The
+     * IO manager must have an executor. Takes effect at the next {@link #open()}.
+     *
+     * @param ctx
+     *            - the context to allocate the read-ahead frame from, or null to read synchronously
+     */
+    public void setPrefetch(IHyracksFrameMgrContext ctx) {
+        this.prefetchCtx = ctx;
     }
 
     @Override
     public void open() throws HyracksDataException {
         handle = ioManager.open(file, IIOManager.FileReadWriteMode.READ_ONLY, null);
         readPtr = 0;
+        prefetch = prefetchCtx != null;
+        if (compressed) {
+            if (input == null) {
+                input = ByteBuffer.allocate(READ_AHEAD_SIZE);
+                rawBytes = new byte[0];
+                checksum = new CRC32();
+            }
+            input.clear().flip();
+            inputPtr = 0;
+        }
+        if (prefetch) {
+            if (ahead == null) {
+                aheadCtx = prefetchCtx;
+                ahead = aheadCtx.allocateFrame(aheadCtx.getInitialFrameSize());
+            }
+            ahead.clear().flip();
+            aheadPtr = 0;
+            startRead();
+        }
     }
 
     @Override
@@ -47,6 +108,14 @@ public class RunFileReader implements IFrameReader {
         if (readPtr >= size) {
             return false;
         }
+        if (compressed) {
+            nextCompressedFrame(frame);
+            return true;
+        }
+        if (prefetch) {
+            nextPrefetchedFrame(frame);
+            return true;
+        }
         frame.reset();
         int readLength = ioManager.syncRead(handle, readPtr, frame.getBuffer());
         if (readLength <= 0) {
@@ -70,9 +139,181 @@ public class RunFileReader implements IFrameReader {
         return true;
     }
 
+    private void nextCompressedFrame(IFrame frame) throws HyracksDataException {
+        fill(RunFileWriter.BLOCK_HEADER_SIZE);
+        int start = input.position();
+        int expectedChecksum = input.getInt(start);
+        int rawLength = input.getInt(start + 4);
+        int length = input.getInt(start + 8);
+        if (rawLength < 0 || length < BlockCompressor.STORED) {
+            throw new HyracksDataException("Malformed block header at offset " + readPtr + " of run file " + file);
+        }
+        int payloadLength = length == BlockCompressor.STORED ? rawLength : length;
+        int blockSize = RunFileWriter.BLOCK_HEADER_SIZE + payloadLength;
+        fill(blockSize);
+        start = input.position();
+        checksum.reset();
+        checksum.update(input.array(), start + 4, blockSize - 4);
+        if ((int) checksum.getValue() != expectedChecksum) {
+            throw new HyracksDataException("Checksum mismatch at offset " + readPtr + " of run file " + file);
+        }
+        int payloadStart = start + RunFileWriter.BLOCK_HEADER_SIZE;
+
+        frame.reset();
+        frame.ensureFrameSize(rawLength);
+        ByteBuffer buffer = frame.getBuffer();
+        if (length == BlockCompressor.STORED) {
+            buffer.put(input.array(), payloadStart, rawLength);
+        } else if (buffer.hasArray()) {
+            int off = buffer.arrayOffset() + buffer.position();
+            checkDecompressedLength(LZCodec.decompress(input.array(), payloadStart, payloadLength, buffer.array(),
+                    off, rawLength), rawLength);
+            buffer.position(buffer.position() + rawLength);
+        } else {
+            if (rawBytes.length < rawLength) {
+                rawBytes = new byte[rawLength];
+            }
+            checkDecompressedLength(
+                    LZCodec.decompress(input.array(), payloadStart, payloadLength, rawBytes, 0, rawLength), rawLength);
+            buffer.put(rawBytes, 0, rawLength);
+        }
+        if (buffer.hasRemaining()) {
+            FrameHelper.clearRemainingFrame(buffer, buffer.position());
+        }
+        buffer.flip();
+        input.position(start + blockSize);
+        readPtr += blockSize;
+    }
+
+    private void nextPrefetchedFrame(IFrame frame) throws HyracksDataException {
+        int minSize = frame.getMinSize();
+        frame.reset();
+        ByteBuffer buffer = frame.getBuffer();
+        buffer.limit((int) Math.min(minSize, size - readPtr));
+        takeAhead(buffer);
+        int frameSize = minSize * FrameHelper.deserializeNumOfMinFrame(buffer, 0);
+        if (frameSize <= 0) {
+            throw new HyracksDataException("Malformed frame header at offset " + readPtr + " of run file " + file);
+        }
+        int length = (int) Math.min(frameSize, size - readPtr);
+        frame.ensureFrameSize(frameSize);
+        buffer = frame.getBuffer();
+        buffer.limit(length);
+        takeAhead(buffer);
+        buffer.limit(buffer.capacity());
+        if (buffer.hasRemaining()) { // file is vanished.
+            FrameHelper.clearRemainingFrame(buffer, buffer.position());
+        }
+        buffer.flip();
+        readPtr += length;
+    }
+
+    private void checkDecompressedLength(int length, int rawLength) throws HyracksDataException {
+        if (length != rawLength) {
+            throw new HyracksDataException("Corrupt block at offset " + readPtr + " of run file " + file
+                    + ": expected " + rawLength + " bytes, got " + length);
+        }
+    }
+
+    /**
+     * Makes sure that the next length bytes of the file are in the read-ahead buffer.
+     */
+    private void fill(int length) throws HyracksDataException {
+        if (input.remaining() >= length) {
+            return;
+        }
+        if (input.capacity() < length) {
+            ByteBuffer newInput = ByteBuffer.allocate(Math.max(length, input.capacity() * 2));
+            newInput.put(input);
+            input = newInput;
+        } else {
+            input.compact();
+        }
+        input.limit((int) Math.min(input.capacity(), input.position() + size - inputPtr));
+        if (prefetch) {
+            takeAhead(input);
+        } else if (input.hasRemaining()) {
+            int readLength = ioManager.syncRead(handle, inputPtr, input);
+            if (readLength > 0) {
+                inputPtr += readLength;
+            }
+        }
+        input.flip();
+        if (input.remaining() < length) {
+            throw new HyracksDataException("Premature end of run file " + file);
+        }
+    }
+
+    /**
+     * Moves prefetched bytes into the free space of the given buffer, waiting for the pending read if the prefetched
+     * ones run out, and starts the read of the next block as soon as the read-ahead frame is empty.
+     *
+     * @throws HyracksDataException
+     *             if the file ends before the buffer is full
+     */
+    private void takeAhead(ByteBuffer dest) throws HyracksDataException {
+        while (dest.hasRemaining()) {
+            if (pendingRead == null && !ahead.hasRemaining()) {
+                startRead();
+            }
+            finishRead();
+            if (!ahead.hasRemaining()) {
+                throw new HyracksDataException("Premature end of run file " + file);
+            }
+            int length = Math.min(dest.remaining(), ahead.remaining());
+            ByteBuffer src = ahead.duplicate();
+            src.limit(src.position() + length);
+            dest.put(src);
+            ahead.position(ahead.position() + length);
+            inputPtr += length;
+        }
+        if (pendingRead == null && !ahead.hasRemaining()) {
+            startRead();
+        }
+    }
+
+    private void startRead() {
+        if (aheadPtr >= size) {
+            return;
+        }
+        ahead.clear();
+        ahead.limit((int) Math.min(ahead.capacity(), size - aheadPtr));
+        pendingRead = ioManager.asyncRead(handle, aheadPtr, ahead);
+    }
+
+    private void finishRead() throws HyracksDataException {
+        if (pendingRead == null) {
+            return;
+        }
+        int readLength;
+        try {
+            readLength = pendingRead.synchronize();
+        } catch (InterruptedException e) {
+            throw new HyracksDataException(e);
+        } finally {
+            pendingRead = null;
+        }
+        if (readLength > 0) {
+            aheadPtr += readLength;
+        }
+        ahead.flip();
+    }
+
     @Override
     public void close() throws HyracksDataException {
-        ioManager.close(handle);
+        try {
+            // neither the handle nor the read-ahead frame may be released under a read in progress
+            finishRead();
+        } finally {
+            try {
+                ioManager.close(handle);
+            } finally {
+                if (ahead != null) {
+                    aheadCtx.deallocateFrame(ahead);
+                    ahead = null;
+                }
+            }
+        }
     }
 
     public long getFileSize() {
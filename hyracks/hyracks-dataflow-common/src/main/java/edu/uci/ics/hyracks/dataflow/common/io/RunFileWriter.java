@@ -15,24 +15,48 @@
 package edu.uci.ics.hyracks.dataflow.common.io;
 
 import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
 
 import edu.uci.ics.hyracks.api.comm.IFrameWriter;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.api.io.FileReference;
 import edu.uci.ics.hyracks.api.io.IFileHandle;
 import edu.uci.ics.hyracks.api.io.IIOManager;
+import edu.uci.ics.hyracks.net.compression.BlockCompressor;
 
+/**
+ * Writes frames to a run file. By default the frames are written verbatim. A compressed run file instead holds one
+ * block per frame: the CRC32 of the rest of the block, followed by a {@link BlockCompressor} block of the frame, so
+ * that a {@link RunFileReader} detects a corrupted spill instead of handing garbage to the operator.
+ */
 public class RunFileWriter implements IFrameWriter {
+    /**
+     * The size of the header of a block of a compressed run file: the checksum, followed by the
+     * {@link BlockCompressor} header.
+     */
+    static final int BLOCK_HEADER_SIZE = 4 + BlockCompressor.HEADER_SIZE;
+
     private final FileReference file;
     private final IIOManager ioManager;
+    private final boolean compressed;
     private boolean failed;
 
     private IFileHandle handle;
     private long size;
+    private long rawSize;
+
+    private BlockCompressor compressor;
+    private ByteBuffer block;
+    private CRC32 checksum;
 
     public RunFileWriter(FileReference file, IIOManager ioManager) {
+        this(file, ioManager, ioManager.isRunFileCompressionEnabled());
+    }
+
+    public RunFileWriter(FileReference file, IIOManager ioManager, boolean compressed) {
         this.file = file;
         this.ioManager = ioManager;
+        this.compressed = compressed;
     }
 
     @Override
@@ -40,7 +64,13 @@ public class RunFileWriter implements IFrameWriter {
         handle = ioManager.open(file, IIOManager.FileReadWriteMode.READ_WRITE,
                 IIOManager.FileSyncMode.METADATA_ASYNC_DATA_ASYNC);
         size = 0;
+        rawSize = 0;
         failed = false;
+        if (compressed && compressor == null) {
+            compressor = new BlockCompressor();
+            block = ByteBuffer.allocate(0);
+            checksum = new CRC32();
+        }
     }
 
     @Override
@@ -51,7 +81,23 @@ public class RunFileWriter implements IFrameWriter {
 
     @Override
     public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
-        size += ioManager.syncWrite(handle, size, buffer);
+        rawSize += buffer.remaining();
+        if (!compressed) {
+            size += ioManager.syncWrite(handle, size, buffer);
+            return;
+        }
+        int maxBlockSize = 4 + BlockCompressor.getMaxBlockSize(buffer.remaining());
+        if (block.capacity() < maxBlockSize) {
+            block = ByteBuffer.allocate(maxBlockSize);
+        }
+        block.clear();
+        block.position(4);
+        compressor.compress(buffer, block);
+        checksum.reset();
+        checksum.update(block.array(), 4, block.position() - 4);
+        block.putInt(0, (int) checksum.getValue());
+        block.flip();
+        size += ioManager.syncWrite(handle, size, block);
     }
 
     @Override
@@ -69,10 +115,21 @@ public class RunFileWriter implements IFrameWriter {
         return size;
     }
 
+    /**
+     * @return the number of frame bytes written, which is the file size unless the run file is compressed
+     */
+    public long getRawSize() {
+        return rawSize;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
     public RunFileReader createReader() throws HyracksDataException {
         if (failed) {
             throw new HyracksDataException("createReader() called on a failed RunFileWriter");
         }
-        return new RunFileReader(file, ioManager, size);
+        return new RunFileReader(file, ioManager, size, compressed);
     }
 }
\ No newline at end of file
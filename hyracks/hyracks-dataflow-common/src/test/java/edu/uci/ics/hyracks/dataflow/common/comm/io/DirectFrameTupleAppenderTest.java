@@ -0,0 +1,161 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package edu.uci.ics.hyracks.dataflow.common.comm.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.comm.IFrame;
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.ITuplePartitionComputer;
+import edu.uci.ics.hyracks.api.dataflow.value.ISerializerDeserializer;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.control.nc.resources.memory.FrameManager;
+import edu.uci.ics.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import edu.uci.ics.hyracks.data.std.accessors.PointableBinaryHashFunctionFactory;
+import edu.uci.ics.hyracks.data.std.primitive.UTF8StringPointable;
+import edu.uci.ics.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import edu.uci.ics.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import edu.uci.ics.hyracks.dataflow.common.data.partition.FieldHashPartitionComputerFactory;
+
+public class DirectFrameTupleAppenderTest {
+
+    static final int TEST_FRAME_SIZE = 256;
+
+    static ISerializerDeserializer[] fields = new ISerializerDeserializer[] { IntegerSerializerDeserializer.INSTANCE,
+            UTF8StringSerializerDeserializer.INSTANCE };
+    static RecordDescriptor recordDescriptor = new RecordDescriptor(fields);
+
+    private int fillFrame(IFrame frame, int nTuples) throws HyracksDataException {
+        FrameTupleAppender appender = new FrameTupleAppender(frame, true);
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(recordDescriptor.getFieldCount());
+        int appended = 0;
+        for (int i = 0; i < nTuples; ++i) {
+            tb.reset();
+            tb.addField(IntegerSerializerDeserializer.INSTANCE, i);
+            tb.addField(UTF8StringSerializerDeserializer.INSTANCE, "key" + i);
+            if (!appender.append(tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize())) {
+                break;
+            }
+            appended++;
+        }
+        return appended;
+    }
+
+    @Test
+    public void testAppendAndAccessDirectFrame() throws HyracksDataException {
+        IFrame heapFrame = new VSizeFrame(new FrameManager(TEST_FRAME_SIZE));
+        IFrame directFrame = new VSizeFrame(new FrameManager(TEST_FRAME_SIZE, null, true), TEST_FRAME_SIZE, true);
+        assertTrue(heapFrame.getBuffer().hasArray());
+        assertFalse(directFrame.getBuffer().hasArray());
+
+        int nHeap = fillFrame(heapFrame, 100);
+        int nDirect = fillFrame(directFrame, 100);
+        assertEquals(nHeap, nDirect);
+
+        FrameTupleAccessor heapAccessor = new FrameTupleAccessor(recordDescriptor);
+        FrameTupleAccessor directAccessor = new FrameTupleAccessor(recordDescriptor);
+        heapAccessor.reset(heapFrame.getBuffer());
+        directAccessor.reset(directFrame.getBuffer());
+        assertEquals(heapAccessor.getTupleCount(), directAccessor.getTupleCount());
+        for (int i = 0; i < heapAccessor.getTupleCount(); ++i) {
+            assertEquals(heapAccessor.getTupleStartOffset(i), directAccessor.getTupleStartOffset(i));
+            assertEquals(heapAccessor.getTupleEndOffset(i), directAccessor.getTupleEndOffset(i));
+            for (int f = 0; f < recordDescriptor.getFieldCount(); ++f) {
+                assertEquals(heapAccessor.getFieldEndOffset(i, f), directAccessor.getFieldEndOffset(i, f));
+            }
+            for (int b = heapAccessor.getTupleStartOffset(i); b < heapAccessor.getTupleEndOffset(i); ++b) {
+                assertEquals(heapFrame.getBuffer().get(b), directFrame.getBuffer().get(b));
+            }
+        }
+    }
+
+    @Test
+    public void testOnlyOutputFramesAreDirect() throws HyracksDataException {
+        FrameManager manager = new FrameManager(TEST_FRAME_SIZE, null, true);
+        assertTrue(manager.allocateFrame(TEST_FRAME_SIZE).hasArray());
+        assertFalse(manager.allocateOutputFrame(TEST_FRAME_SIZE).hasArray());
+        assertTrue(new FrameManager(TEST_FRAME_SIZE).allocateOutputFrame(TEST_FRAME_SIZE).hasArray());
+        ByteBuffer resized = manager.reallocateFrame(manager.allocateFrame(TEST_FRAME_SIZE), TEST_FRAME_SIZE * 2, true);
+        assertTrue(resized.hasArray());
+    }
+
+    @Test
+    public void testPartitionDirectFrame() throws HyracksDataException {
+        IFrame heapFrame = new VSizeFrame(new FrameManager(TEST_FRAME_SIZE));
+        IFrame directFrame = new VSizeFrame(new FrameManager(TEST_FRAME_SIZE, null, true), TEST_FRAME_SIZE, true);
+        int n = fillFrame(heapFrame, 100);
+        assertEquals(n, fillFrame(directFrame, 100));
+
+        FrameTupleAccessor heapAccessor = new FrameTupleAccessor(recordDescriptor);
+        FrameTupleAccessor directAccessor = new FrameTupleAccessor(recordDescriptor);
+        heapAccessor.reset(heapFrame.getBuffer());
+        directAccessor.reset(directFrame.getBuffer());
+        assertTrue(directAccessor.getBuffer().hasArray());
+        ITuplePartitionComputer tpc = new FieldHashPartitionComputerFactory(new int[] { 1 },
+                new IBinaryHashFunctionFactory[] { PointableBinaryHashFunctionFactory.of(UTF8StringPointable.FACTORY) })
+                .createPartitioner();
+        for (int i = 0; i < n; ++i) {
+            assertEquals(tpc.partition(heapAccessor, i, 7), tpc.partition(directAccessor, i, 7));
+        }
+    }
+
+    @Test
+    public void testCopyBetweenHeapAndDirectFrames() throws HyracksDataException {
+        IFrame directFrame = new VSizeFrame(new FrameManager(TEST_FRAME_SIZE, null, true), TEST_FRAME_SIZE, true);
+        int n = fillFrame(directFrame, 100);
+
+        FrameTupleAccessor directAccessor = new FrameTupleAccessor(recordDescriptor);
+        directAccessor.reset(directFrame.getBuffer());
+        IFrame heapFrame = new VSizeFrame(new FrameManager(TEST_FRAME_SIZE));
+        FrameTupleAppender appender = new FrameTupleAppender(heapFrame, true);
+        for (int i = 0; i < n; ++i) {
+            assertTrue(appender.append(directAccessor, i));
+        }
+
+        FrameTupleAccessor heapAccessor = new FrameTupleAccessor(recordDescriptor);
+        heapAccessor.reset(heapFrame.getBuffer());
+        IBinaryComparator[] comparators = new IBinaryComparator[] { PointableBinaryComparatorFactory.of(
+                UTF8StringPointable.FACTORY).createBinaryComparator() };
+        FrameTuplePairComparator comparator = new FrameTuplePairComparator(new int[] { 1 }, new int[] { 1 },
+                comparators);
+        for (int i = 0; i < n; ++i) {
+            assertEquals(0, comparator.compare(heapAccessor, i, directAccessor, i));
+            if (i > 0) {
+                assertTrue(comparator.compare(heapAccessor, i, directAccessor, 0) != 0);
+            }
+        }
+    }
+
+    @Test
+    public void testReallocateDirectFrame() throws HyracksDataException {
+        ByteBuffer frame = ByteBuffer.allocateDirect(TEST_FRAME_SIZE);
+        frame.putInt(TEST_FRAME_SIZE - 4, 42);
+        FrameManager manager = new FrameManager(TEST_FRAME_SIZE, null, true);
+        ByteBuffer resized = manager.reallocateFrame(frame, TEST_FRAME_SIZE * 2, true);
+        assertFalse(resized.hasArray());
+        assertEquals(42, resized.getInt(TEST_FRAME_SIZE - 4));
+        assertEquals(2, resized.get(0));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.common.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.comm.FrameHelper;
+import edu.uci.ics.hyracks.api.comm.IFrame;
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.api.io.IODeviceHandle;
+import edu.uci.ics.hyracks.control.nc.io.IOManager;
+import edu.uci.ics.hyracks.control.nc.resources.memory.FrameManager;
+
+public class RunFileTest {
+    private static final int FRAME_SIZE = 32768;
+
+    private static final int NUM_FRAMES = 50;
+
+    private IOManager ioManager;
+
+    private FileReference file;
+
+    @Before
+    public void setUp() throws Exception {
+        List<IODeviceHandle> devices = new ArrayList<IODeviceHandle>();
+        devices.add(new IODeviceHandle(new File(System.getProperty("java.io.tmpdir")), "."));
+        ioManager = new IOManager(devices);
+        file = new FileReference(File.createTempFile("RunFileTest", ".run"));
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void uncompressedTest() throws Exception {
+        RunFileWriter writer = writeRun(false);
+        assertEquals(writer.getRawSize(), writer.getFileSize());
+        readRun(writer.createReader(), new VSizeFrame(new FrameManager(FRAME_SIZE)));
+    }
+
+    @Test
+    public void compressedTest() throws Exception {
+        RunFileWriter writer = writeRun(true);
+        // Half of the frames are random and the other half compress well.
+        assertTrue(writer.getFileSize() < writer.getRawSize() * 3 / 4);
+        readRun(writer.createReader(), new VSizeFrame(new FrameManager(FRAME_SIZE)));
+        readRun(writer.createReader(), new VSizeFrame(new FrameManager(FRAME_SIZE, null, true)));
+    }
+
+    @Test
+    public void prefetchTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ioManager.setExecutor(executor);
+        try {
+            for (boolean compressed : new boolean[] { false, true }) {
+                CountingFrameManager prefetchCtx = new CountingFrameManager();
+                RunFileReader reader = writeRun(compressed).createReader();
+                reader.setPrefetch(prefetchCtx);
+                readRun(reader, new VSizeFrame(new FrameManager(FRAME_SIZE)));
+                // a second pass over the same reader starts from the beginning again
+                readRun(reader, new VSizeFrame(new FrameManager(FRAME_SIZE)));
+                // the read-ahead frame is taken from the context and handed back at every close
+                assertEquals(2, prefetchCtx.allocated);
+                assertEquals(0, prefetchCtx.outstandingBytes);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void nodeSettingTest() throws Exception {
+        assertFalse(new RunFileWriter(file, ioManager).isCompressed());
+        ioManager.setRunFileCompressionEnabled(true);
+        assertTrue(new RunFileWriter(file, ioManager).isCompressed());
+        assertFalse(new RunFileWriter(file, ioManager, false).isCompressed());
+    }
+
+    @Test
+    public void corruptionTest() throws Exception {
+        RunFileWriter writer = writeRun(true);
+        RandomAccessFile raf = new RandomAccessFile(file.getFile(), "rw");
+        try {
+            long offset = writer.getFileSize() / 2;
+            raf.seek(offset);
+            int b = raf.read();
+            raf.seek(offset);
+            raf.write(b ^ 0x10);
+        } finally {
+            raf.close();
+        }
+        RunFileReader reader = writer.createReader();
+        IFrame frame = new VSizeFrame(new FrameManager(FRAME_SIZE));
+        reader.open();
+        try {
+            while (reader.nextFrame(frame)) {
+            }
+            fail("A corrupted run file was read without an error");
+        } catch (HyracksDataException e) {
+            // expected
+        } finally {
+            reader.close();
+        }
+    }
+
+    private RunFileWriter writeRun(boolean compressed) throws HyracksDataException {
+        RunFileWriter writer = new RunFileWriter(file, ioManager, compressed);
+        writer.open();
+        for (int i = 0; i < NUM_FRAMES; i++) {
+            writer.nextFrame(createFrame(i));
+        }
+        writer.close();
+        return writer;
+    }
+
+    private void readRun(RunFileReader reader, IFrame frame) throws HyracksDataException {
+        reader.open();
+        for (int i = 0; i < NUM_FRAMES; i++) {
+            assertTrue(reader.nextFrame(frame));
+            assertEquals(createFrame(i), frame.getBuffer());
+        }
+        assertFalse(reader.nextFrame(frame));
+        reader.close();
+    }
+
+    private static class CountingFrameManager extends FrameManager {
+        private int allocated;
+
+        private long outstandingBytes;
+
+        CountingFrameManager() {
+            super(FRAME_SIZE);
+        }
+
+        @Override
+        public ByteBuffer allocateFrame(int bytes) throws HyracksDataException {
+            allocated++;
+            outstandingBytes += bytes;
+            return super.allocateFrame(bytes);
+        }
+
+        @Override
+        public void deallocateFrame(ByteBuffer frame) {
+            outstandingBytes -= frame.capacity();
+            super.deallocateFrame(frame);
+        }
+    }
+
+    /**
+     * Every other frame is random, and every fifth frame spans several minimum frames.
+     */
+    private static ByteBuffer createFrame(int i) {
+        int numOfMinFrame = i % 5 == 0 ? 3 : 1;
+        ByteBuffer buffer = ByteBuffer.allocate(FRAME_SIZE * numOfMinFrame);
+        Random rnd = new Random(i);
+        while (buffer.remaining() > 0) {
+            buffer.putInt(i % 2 == 0 ? i + buffer.position() / 64 : rnd.nextInt());
+        }
+        FrameHelper.serializeFrameSize(buffer, (byte) numOfMinFrame);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -30,6 +30,8 @@ public abstract class AbstractConnectorDescriptor implements IConnectorDescripto
 
     protected String displayName;
 
+    protected boolean frameCompressionEnabled;
+
     public AbstractConnectorDescriptor(IConnectorDescriptorRegistry spec) {
         this.id = spec.createConnectorDescriptor(this);
         displayName = getClass().getName() + "[" + id + "]";
@@ -47,6 +49,16 @@ public abstract class AbstractConnectorDescriptor implements IConnectorDescripto
         this.displayName = displayName;
     }
 
+    @Override
+    public boolean isFrameCompressionEnabled() {
+        return frameCompressionEnabled;
+    }
+
+    @Override
+    public void setFrameCompressionEnabled(boolean frameCompressionEnabled) {
+        this.frameCompressionEnabled = frameCompressionEnabled;
+    }
+
     @Override
     public JSONObject toJSON() throws JSONException {
         JSONObject jconn = new JSONObject();
@@ -54,6 +66,7 @@ public abstract class AbstractConnectorDescriptor implements IConnectorDescripto
         jconn.put("id", String.valueOf(getConnectorId()));
         jconn.put("java-class", getClass().getName());
         jconn.put("display-name", displayName);
+        jconn.put("frame-compression", frameCompressionEnabled);
 
         return jconn;
     }
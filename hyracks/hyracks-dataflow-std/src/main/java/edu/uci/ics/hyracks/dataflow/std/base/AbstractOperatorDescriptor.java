@@ -75,6 +75,11 @@ public abstract class AbstractOperatorDescriptor implements IOperatorDescriptor
         this.displayName = displayName;
     }
 
+    @Override
+    public int getRequiredMemoryFrames() {
+        return 0;
+    }
+
     @Override
     public void contributeSchedulingConstraints(IConstraintAcceptor constraintAcceptor, ICCApplicationContext appCtx) {
         // do nothing
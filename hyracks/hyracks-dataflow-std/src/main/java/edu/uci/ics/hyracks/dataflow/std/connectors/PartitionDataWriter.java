@@ -88,8 +88,9 @@ public class PartitionDataWriter implements IFrameWriter {
     }
 
     private void allocateFrames() throws HyracksDataException {
+        // the partition writers copy the frames into channel buffers or write them to files, so they can be off-heap
         for (int i = 0; i < appenders.length; ++i) {
-            appenders[i].reset(new VSizeFrame(ctx), true);
+            appenders[i].reset(new VSizeFrame(ctx, ctx.getInitialFrameSize(), true), true);
         }
     }
 
@@ -156,6 +156,7 @@ class ExternalGroupMergeOperatorNodePushable extends AbstractUnaryOutputSourceOp
         FileReference newRun = null;
         IFrameWriter writer = this.writer;
         boolean finalPass = false;
+        boolean prefetch = false;
 
         while (inFrames.size() + 2 < framesLimit) {
             inFrames.add(new VSizeFrame(ctx));
@@ -165,6 +166,14 @@ class ExternalGroupMergeOperatorNodePushable extends AbstractUnaryOutputSourceOp
             finalPass = true;
             runFrameLimit = (framesLimit - 2) / runs.size();
             runNumber = runs.size();
+            if (runFrameLimit > 1) {
+                // give one frame of each run to its read-ahead and hand the frames no run uses back
+                prefetch = true;
+                runFrameLimit--;
+                while (inFrames.size() > runNumber * runFrameLimit) {
+                    ctx.deallocateFrame(inFrames.remove(inFrames.size() - 1).getBuffer());
+                }
+            }
         } else {
             runNumber = framesLimit - 2;
             newRun = ctx.getJobletContext().createManagedWorkspaceFile(
@@ -194,6 +203,7 @@ class ExternalGroupMergeOperatorNodePushable extends AbstractUnaryOutputSourceOp
                 tupleIndices[runIndex] = 0;
                 // Load the run file
                 runFileReaders[runIndex] = runs.get(runIndex);
+                runFileReaders[runIndex].setPrefetch(prefetch ? ctx : null);
                 runFileReaders[runIndex].open();
 
                 currentRunFrames[runIndex] = 0;
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.std.group.hybridhash;
+
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.IOperatorNodePushable;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFamily;
+import edu.uci.ics.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.job.IOperatorDescriptorRegistry;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractSingleActivityOperatorDescriptor;
+import edu.uci.ics.hyracks.dataflow.std.group.IAggregatorDescriptorFactory;
+
+/**
+ * A group-by that aggregates in hash partitions and never sorts. The partitions that fit into memory are aggregated
+ * there; only the ones chosen as victims when memory runs out spill partial results, which are then grouped again
+ * with the merge aggregator and a hash of the next level, until every partition fits. The hash function families
+ * are seeded with the level, so that no level partitions by the same hash as the connector in front of the operator.
+ * The output is not sorted.
+ */
+public class HybridHashGroupOperatorDescriptor extends AbstractSingleActivityOperatorDescriptor {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] keyFields;
+    private final int framesLimit;
+    private final int tableSize;
+    private final IBinaryComparatorFactory[] comparatorFactories;
+    private final IBinaryHashFunctionFamily[] hashFunctionFamilies;
+    private final IAggregatorDescriptorFactory aggregatorFactory;
+    private final IAggregatorDescriptorFactory mergerFactory;
+
+    /**
+     * @param keyFields
+     *            - the fields to group on, followed by the fields that are functionally dependent on them
+     * @param comparatorFactories
+     *            - the comparators of the leading key fields that the groups are told apart by
+     * @param hashFunctionFamilies
+     *            - the hash function families of the same fields
+     * @param aggregatorFactory
+     *            - aggregates the input into partial results
+     * @param mergerFactory
+     *            - aggregates partial results
+     */
+    public HybridHashGroupOperatorDescriptor(IOperatorDescriptorRegistry spec, int[] keyFields, int framesLimit,
+            int tableSize, IBinaryComparatorFactory[] comparatorFactories,
+            IBinaryHashFunctionFamily[] hashFunctionFamilies, IAggregatorDescriptorFactory aggregatorFactory,
+            IAggregatorDescriptorFactory mergerFactory, RecordDescriptor recordDescriptor) {
+        super(spec, 1, 1);
+        if (framesLimit <= 3) {
+            /**
+             * Minimum of 4 frames: 1 for input records, 1 for output, and 1 for the aggregation states of each of
+             * at least 2 partitions.
+             */
+            throw new IllegalStateException("frame limit should at least be 4, but it is " + framesLimit + "!");
+        }
+        this.keyFields = keyFields;
+        this.framesLimit = framesLimit;
+        this.tableSize = tableSize;
+        this.comparatorFactories = comparatorFactories;
+        this.hashFunctionFamilies = hashFunctionFamilies;
+        this.aggregatorFactory = aggregatorFactory;
+        this.mergerFactory = mergerFactory;
+        recordDescriptors[0] = recordDescriptor;
+    }
+
+    @Override
+    public int getRequiredMemoryFrames() {
+        return framesLimit;
+    }
+
+    @Override
+    public IOperatorNodePushable createPushRuntime(final IHyracksTaskContext ctx,
+            final IRecordDescriptorProvider recordDescProvider, int partition, int nPartitions)
+            throws HyracksDataException {
+        return new HybridHashGroupOperatorNodePushable(ctx, keyFields, framesLimit, tableSize, comparatorFactories,
+                hashFunctionFamilies, aggregatorFactory, mergerFactory, recordDescProvider.getInputRecordDescriptor(
+                        getActivityId(), 0), recordDescriptors[0]);
+    }
+}
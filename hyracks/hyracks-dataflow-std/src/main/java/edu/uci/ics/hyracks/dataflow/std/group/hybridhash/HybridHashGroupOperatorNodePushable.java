@@ -0,0 +1,181 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.std.group.hybridhash;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.uci.ics.hyracks.api.comm.IFrame;
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFamily;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import edu.uci.ics.hyracks.dataflow.common.data.partition.FieldHashPartitionComputerFamily;
+import edu.uci.ics.hyracks.dataflow.common.io.RunFileReader;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractUnaryInputUnaryOutputOperatorNodePushable;
+import edu.uci.ics.hyracks.dataflow.std.group.IAggregatorDescriptor;
+import edu.uci.ics.hyracks.dataflow.std.group.IAggregatorDescriptorFactory;
+
+class HybridHashGroupOperatorNodePushable extends AbstractUnaryInputUnaryOutputOperatorNodePushable {
+    private static final Logger LOGGER = Logger.getLogger(HybridHashGroupOperatorNodePushable.class.getName());
+
+    /**
+     * Every level splits a spilled partition again with a fresh hash, so only keys that collide on all of them get
+     * this deep.
+     */
+    private static final int MAX_LEVEL = 16;
+
+    private final IHyracksTaskContext ctx;
+    private final int[] keyFields;
+    private final int[] storedKeys;
+    private final int framesLimit;
+    private final int tableSize;
+    private final IBinaryComparator[] comparators;
+    private final FieldHashPartitionComputerFamily inputHashFamily;
+    private final FieldHashPartitionComputerFamily storedHashFamily;
+    private final IAggregatorDescriptorFactory aggregatorFactory;
+    private final IAggregatorDescriptorFactory mergerFactory;
+    private final RecordDescriptor inRecordDescriptor;
+    private final RecordDescriptor outRecordDescriptor;
+    private final FrameTupleAccessor accessor;
+
+    private HybridHashGroupTable table;
+
+    HybridHashGroupOperatorNodePushable(IHyracksTaskContext ctx, int[] keyFields, int framesLimit, int tableSize,
+            IBinaryComparatorFactory[] comparatorFactories, IBinaryHashFunctionFamily[] hashFunctionFamilies,
+            IAggregatorDescriptorFactory aggregatorFactory, IAggregatorDescriptorFactory mergerFactory,
+            RecordDescriptor inRecordDescriptor, RecordDescriptor outRecordDescriptor) {
+        this.ctx = ctx;
+        this.keyFields = keyFields;
+        this.framesLimit = framesLimit;
+        this.tableSize = tableSize;
+        this.comparators = new IBinaryComparator[comparatorFactories.length];
+        for (int i = 0; i < comparatorFactories.length; ++i) {
+            comparators[i] = comparatorFactories[i].createBinaryComparator();
+        }
+        this.storedKeys = new int[keyFields.length];
+        int[] hashFields = new int[hashFunctionFamilies.length];
+        int[] storedHashFields = new int[hashFunctionFamilies.length];
+        for (int i = 0; i < keyFields.length; ++i) {
+            storedKeys[i] = i;
+            if (i < hashFields.length) {
+                hashFields[i] = keyFields[i];
+                storedHashFields[i] = i;
+            }
+        }
+        this.inputHashFamily = new FieldHashPartitionComputerFamily(hashFields, hashFunctionFamilies);
+        this.storedHashFamily = new FieldHashPartitionComputerFamily(storedHashFields, hashFunctionFamilies);
+        this.aggregatorFactory = aggregatorFactory;
+        this.mergerFactory = mergerFactory;
+        this.inRecordDescriptor = inRecordDescriptor;
+        this.outRecordDescriptor = outRecordDescriptor;
+        this.accessor = new FrameTupleAccessor(inRecordDescriptor);
+    }
+
+    @Override
+    public void open() throws HyracksDataException {
+        writer.open();
+        IAggregatorDescriptor aggregator = aggregatorFactory.createAggregator(ctx, inRecordDescriptor,
+                outRecordDescriptor, keyFields, storedKeys, null);
+        table = new HybridHashGroupTable(ctx, keyFields, framesLimit, tableSize, comparators,
+                inputHashFamily.createPartitioner(1), aggregator, outRecordDescriptor);
+    }
+
+    @Override
+    public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+        accessor.reset(buffer);
+        int tupleCount = accessor.getTupleCount();
+        for (int i = 0; i < tupleCount; i++) {
+            table.insert(accessor, i);
+        }
+    }
+
+    @Override
+    public void fail() throws HyracksDataException {
+        writer.fail();
+    }
+
+    @Override
+    public void close() throws HyracksDataException {
+        try {
+            List<RunFileReader> runs = finish(table, 1);
+            table = null;
+            LinkedList<RunFileReader> pending = new LinkedList<RunFileReader>(runs);
+            LinkedList<Integer> levels = new LinkedList<Integer>();
+            for (int i = 0; i < runs.size(); ++i) {
+                levels.add(2);
+            }
+            FrameTupleAccessor storedAccessor = new FrameTupleAccessor(outRecordDescriptor);
+            IFrame frame = new VSizeFrame(ctx);
+            // the read-ahead of a spilled partition takes one frame from the table, as long as it keeps enough
+            boolean prefetch = framesLimit > 4;
+            int levelFramesLimit = prefetch ? framesLimit - 1 : framesLimit;
+            while (!pending.isEmpty()) {
+                RunFileReader run = pending.removeFirst();
+                int level = levels.removeFirst();
+                if (level > MAX_LEVEL) {
+                    throw new HyracksDataException("A spilled partition of the hybrid hash group-by still does not "
+                            + "fit into memory after " + MAX_LEVEL + " levels of partitioning.");
+                }
+                IAggregatorDescriptor merger = mergerFactory.createAggregator(ctx, outRecordDescriptor,
+                        outRecordDescriptor, storedKeys, storedKeys, null);
+                HybridHashGroupTable levelTable = new HybridHashGroupTable(ctx, storedKeys, levelFramesLimit, tableSize,
+                        comparators, storedHashFamily.createPartitioner(level), merger, outRecordDescriptor);
+                run.setPrefetch(prefetch ? ctx : null);
+                run.open();
+                try {
+                    while (run.nextFrame(frame)) {
+                        storedAccessor.reset(frame.getBuffer());
+                        int tupleCount = storedAccessor.getTupleCount();
+                        for (int i = 0; i < tupleCount; i++) {
+                            levelTable.insert(storedAccessor, i);
+                        }
+                    }
+                } finally {
+                    run.close();
+                }
+                List<RunFileReader> levelRuns = finish(levelTable, level);
+                pending.addAll(levelRuns);
+                for (int i = 0; i < levelRuns.size(); ++i) {
+                    levels.add(level + 1);
+                }
+            }
+        } catch (HyracksDataException e) {
+            writer.fail();
+            throw e;
+        } finally {
+            writer.close();
+        }
+    }
+
+    private List<RunFileReader> finish(HybridHashGroupTable levelTable, int level) throws HyracksDataException {
+        try {
+            List<RunFileReader> runs = levelTable.finish(writer);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("hybrid hash group-by level " + level + ": " + runs.size() + " spilled partitions");
+            }
+            return runs;
+        } finally {
+            levelTable.close();
+        }
+    }
+}
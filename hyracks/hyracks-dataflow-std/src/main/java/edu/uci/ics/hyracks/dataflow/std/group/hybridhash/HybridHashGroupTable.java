@@ -0,0 +1,298 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.std.group.hybridhash;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import edu.uci.ics.hyracks.api.comm.IFrame;
+import edu.uci.ics.hyracks.api.comm.IFrameWriter;
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
+import edu.uci.ics.hyracks.api.dataflow.value.ITuplePartitionComputer;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTuplePairComparator;
+import edu.uci.ics.hyracks.dataflow.common.io.RunFileReader;
+import edu.uci.ics.hyracks.dataflow.common.io.RunFileWriter;
+import edu.uci.ics.hyracks.dataflow.std.group.AggregateState;
+import edu.uci.ics.hyracks.dataflow.std.group.IAggregatorDescriptor;
+import edu.uci.ics.hyracks.dataflow.std.structures.ISerializableTable;
+import edu.uci.ics.hyracks.dataflow.std.structures.SerializableHashTable;
+import edu.uci.ics.hyracks.dataflow.std.structures.TuplePointer;
+
+/**
+ * One level of the hybrid hash group-by. The groups are split into partitions by a hash of their keys, and every
+ * partition has its own hash table and aggregate state frames. When the state frames run out, a victim partition
+ * writes its groups as partial results to its run file and gives its frames back. Partitions that have spilled once
+ * keep aggregating in memory, but they are the first victims from then on. At the end, the partitions that never
+ * spilled output their final results, and the run files of the others are left to be grouped again one level down.
+ */
+class HybridHashGroupTable {
+    private final IHyracksTaskContext ctx;
+    private final int[] keyFields;
+    private final int[] storedKeys;
+    private final ITuplePartitionComputer tpc;
+    private final IAggregatorDescriptor aggregator;
+    private final AggregateState aggregateState;
+    private final FrameTuplePairComparator ftpc;
+    private final int numPartitions;
+    private final int entriesPerPartition;
+    private final int frameBudget;
+
+    private final ISerializableTable[] tables;
+    private final List<List<IFrame>> partitionFrames;
+    private final FrameTupleAppender[] stateAppenders;
+    private final RunFileWriter[] runWriters;
+    private final LinkedList<IFrame> freeFrames = new LinkedList<IFrame>();
+    private int allocatedFrames;
+
+    private final FrameTupleAccessor stateAccessor;
+    private final TuplePointer storedTuplePointer = new TuplePointer();
+    private final ArrayTupleBuilder stateTupleBuilder;
+    private final ArrayTupleBuilder outputTupleBuilder;
+    private final FrameTupleAppender outputAppender = new FrameTupleAppender();
+    private final IFrame outputFrame;
+
+    /**
+     * @param keyFields
+     *            - the key fields of the input, of which the ones with a comparator are compared and hashed
+     * @param framesLimit
+     *            - the frames of the operator, two of which are kept for the input and the output
+     * @param tableSize
+     *            - the number of hash table entries, shared by all partitions
+     * @param tpc
+     *            - the hash of this level, which must be independent of the one the input was partitioned by
+     */
+    HybridHashGroupTable(IHyracksTaskContext ctx, int[] keyFields, int framesLimit, int tableSize,
+            IBinaryComparator[] comparators, ITuplePartitionComputer tpc, IAggregatorDescriptor aggregator,
+            RecordDescriptor outRecordDescriptor) throws HyracksDataException {
+        this.ctx = ctx;
+        this.keyFields = keyFields;
+        this.tpc = tpc;
+        this.aggregator = aggregator;
+        this.aggregateState = aggregator.createAggregateStates();
+        this.storedKeys = new int[keyFields.length];
+        for (int i = 0; i < keyFields.length; ++i) {
+            storedKeys[i] = i;
+        }
+        this.ftpc = new FrameTuplePairComparator(keyFields, storedKeys, comparators);
+        this.frameBudget = framesLimit - 2;
+        this.numPartitions = getNumberOfPartitions(frameBudget);
+        this.entriesPerPartition = Math.max(1, tableSize / numPartitions);
+
+        tables = new ISerializableTable[numPartitions];
+        partitionFrames = new ArrayList<List<IFrame>>(numPartitions);
+        stateAppenders = new FrameTupleAppender[numPartitions];
+        runWriters = new RunFileWriter[numPartitions];
+        for (int i = 0; i < numPartitions; ++i) {
+            tables[i] = new SerializableHashTable(entriesPerPartition, ctx);
+            partitionFrames.add(new ArrayList<IFrame>());
+            stateAppenders[i] = new FrameTupleAppender();
+        }
+
+        stateAccessor = new FrameTupleAccessor(outRecordDescriptor);
+        int outFieldCount = outRecordDescriptor.getFields().length;
+        stateTupleBuilder = new ArrayTupleBuilder(keyFields.length < outFieldCount ? outFieldCount
+                : outFieldCount + 1);
+        outputTupleBuilder = new ArrayTupleBuilder(outFieldCount);
+        outputFrame = new VSizeFrame(ctx);
+    }
+
+    /**
+     * About the square root of the frames, so that a partition holds about as many frames as there are partitions,
+     * and a spill costs a small part of the memory. There are at least two, or a spilled partition would never get
+     * smaller on the next level.
+     */
+    static int getNumberOfPartitions(int frameBudget) {
+        return Math.max(2, Math.min((int) Math.sqrt(frameBudget), frameBudget / 2));
+    }
+
+    void insert(FrameTupleAccessor accessor, int tIndex) throws HyracksDataException {
+        int h = tpc.partition(accessor, tIndex, numPartitions * entriesPerPartition);
+        int pid = h % numPartitions;
+        int entry = h / numPartitions;
+        ISerializableTable table = tables[pid];
+        List<IFrame> frames = partitionFrames.get(pid);
+
+        int offset = 0;
+        do {
+            table.getTuplePointer(entry, offset++, storedTuplePointer);
+            if (storedTuplePointer.frameIndex < 0) {
+                break;
+            }
+            stateAccessor.reset(frames.get(storedTuplePointer.frameIndex).getBuffer());
+            if (ftpc.compare(accessor, tIndex, stateAccessor, storedTuplePointer.tupleIndex) == 0) {
+                aggregator.aggregate(accessor, tIndex, stateAccessor, storedTuplePointer.tupleIndex, aggregateState);
+                return;
+            }
+        } while (true);
+
+        stateTupleBuilder.reset();
+        for (int k = 0; k < keyFields.length; k++) {
+            stateTupleBuilder.addField(accessor, tIndex, keyFields[k]);
+        }
+        aggregator.init(stateTupleBuilder, accessor, tIndex, aggregateState);
+        FrameTupleAppender stateAppender = stateAppenders[pid];
+        if (frames.isEmpty() || !appendState(stateAppender)) {
+            // the victim may be this very partition, whose table is then empty
+            addFrame(pid);
+            if (!appendState(stateAppender)) {
+                throw new HyracksDataException("Cannot init external aggregate state in a frame.");
+            }
+        }
+        storedTuplePointer.frameIndex = frames.size() - 1;
+        storedTuplePointer.tupleIndex = stateAppender.getTupleCount() - 1;
+        table.insert(entry, storedTuplePointer);
+    }
+
+    private boolean appendState(FrameTupleAppender stateAppender) throws HyracksDataException {
+        return stateAppender.appendSkipEmptyField(stateTupleBuilder.getFieldEndOffsets(),
+                stateTupleBuilder.getByteArray(), 0, stateTupleBuilder.getSize());
+    }
+
+    private void addFrame(int pid) throws HyracksDataException {
+        IFrame frame;
+        if (!freeFrames.isEmpty()) {
+            frame = freeFrames.removeFirst();
+        } else if (allocatedFrames < frameBudget) {
+            frame = new VSizeFrame(ctx);
+            ++allocatedFrames;
+        } else {
+            spill(selectVictim());
+            frame = freeFrames.removeFirst();
+        }
+        partitionFrames.get(pid).add(frame);
+        stateAppenders[pid].reset(frame, true);
+    }
+
+    /**
+     * @return the spilled partition with the most frames, or the resident one with the most frames if no spilled
+     *         partition holds any
+     */
+    private int selectVictim() {
+        int victim = -1;
+        for (int i = 0; i < numPartitions; ++i) {
+            int size = partitionFrames.get(i).size();
+            if (runWriters[i] != null && size > 0 && (victim < 0 || size > partitionFrames.get(victim).size())) {
+                victim = i;
+            }
+        }
+        if (victim >= 0) {
+            return victim;
+        }
+        for (int i = 0; i < numPartitions; ++i) {
+            if (victim < 0 || partitionFrames.get(i).size() > partitionFrames.get(victim).size()) {
+                victim = i;
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Writes the groups of the partition as partial results to its run file and frees its frames.
+     */
+    private void spill(int pid) throws HyracksDataException {
+        if (runWriters[pid] == null) {
+            runWriters[pid] = new RunFileWriter(ctx.createManagedWorkspaceFile(HybridHashGroupTable.class
+                    .getSimpleName()), ctx.getIOManager());
+            runWriters[pid].open();
+        }
+        flushPartition(pid, runWriters[pid], true);
+        freeFrames.addAll(partitionFrames.get(pid));
+        partitionFrames.get(pid).clear();
+        tables[pid].reset();
+    }
+
+    private void flushPartition(int pid, IFrameWriter writer, boolean isPartial) throws HyracksDataException {
+        outputAppender.reset(outputFrame, true);
+        for (IFrame frame : partitionFrames.get(pid)) {
+            stateAccessor.reset(frame.getBuffer());
+            int tupleCount = stateAccessor.getTupleCount();
+            for (int tIndex = 0; tIndex < tupleCount; ++tIndex) {
+                outputTupleBuilder.reset();
+                for (int k = 0; k < storedKeys.length; k++) {
+                    outputTupleBuilder.addField(stateAccessor, tIndex, storedKeys[k]);
+                }
+                if (isPartial) {
+                    aggregator.outputPartialResult(outputTupleBuilder, stateAccessor, tIndex, aggregateState);
+                } else {
+                    aggregator.outputFinalResult(outputTupleBuilder, stateAccessor, tIndex, aggregateState);
+                }
+                if (!outputAppender.appendSkipEmptyField(outputTupleBuilder.getFieldEndOffsets(),
+                        outputTupleBuilder.getByteArray(), 0, outputTupleBuilder.getSize())) {
+                    outputAppender.flush(writer, true);
+                    if (!outputAppender.appendSkipEmptyField(outputTupleBuilder.getFieldEndOffsets(),
+                            outputTupleBuilder.getByteArray(), 0, outputTupleBuilder.getSize())) {
+                        throw new HyracksDataException("The output item is too large to be fit into a frame.");
+                    }
+                }
+            }
+        }
+        outputAppender.flush(writer, true);
+    }
+
+    /**
+     * Outputs the final results of the partitions that never spilled, and closes the run files of the others, after
+     * writing their remaining groups to them.
+     *
+     * @return the run files of the spilled partitions, which hold partial results
+     */
+    List<RunFileReader> finish(IFrameWriter writer) throws HyracksDataException {
+        List<RunFileReader> runs = new ArrayList<RunFileReader>();
+        for (int i = 0; i < numPartitions; ++i) {
+            if (runWriters[i] == null) {
+                flushPartition(i, writer, false);
+            } else {
+                try {
+                    if (!partitionFrames.get(i).isEmpty()) {
+                        spill(i);
+                    }
+                } finally {
+                    runWriters[i].close();
+                }
+                runs.add(runWriters[i].createReader());
+            }
+        }
+        return runs;
+    }
+
+    int getNumberOfSpilledPartitions() {
+        int spilled = 0;
+        for (RunFileWriter runWriter : runWriters) {
+            if (runWriter != null) {
+                ++spilled;
+            }
+        }
+        return spilled;
+    }
+
+    void close() {
+        for (ISerializableTable table : tables) {
+            table.close();
+        }
+        for (List<IFrame> frames : partitionFrames) {
+            frames.clear();
+        }
+        freeFrames.clear();
+        aggregateState.close();
+        aggregator.close();
+    }
+}
@@ -86,6 +86,11 @@ public class GraceHashJoinOperatorDescriptor extends AbstractOperatorDescriptor
         recordDescriptors[0] = recordDescriptor;
     }
 
+    @Override
+    public int getRequiredMemoryFrames() {
+        return memsize;
+    }
+
     @Override
     public void contributeActivities(IActivityGraphBuilder builder) {
         ActivityId rpartAid = new ActivityId(odId, RPARTITION_ACTIVITY_ID);
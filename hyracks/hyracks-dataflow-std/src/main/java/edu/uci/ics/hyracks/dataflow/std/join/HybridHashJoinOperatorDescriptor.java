@@ -126,6 +126,11 @@ public class HybridHashJoinOperatorDescriptor extends AbstractOperatorDescriptor
         recordDescriptors[0] = recordDescriptor;
     }
 
+    @Override
+    public int getRequiredMemoryFrames() {
+        return memsize;
+    }
+
     @Override
     public void contributeActivities(IActivityGraphBuilder builder) {
         ActivityId p1Aid = new ActivityId(odId, BUILD_AND_PARTITION_ACTIVITY_ID);
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.std.join;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import edu.uci.ics.hyracks.api.comm.IFrameTupleAccessor;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunction;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFamily;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+
+/**
+ * A Bloom filter over the join keys of the build side, together with the minimum and the maximum of the first key
+ * field when a comparator for it is given. The bits are set by double hashing with two seeds of the hash function
+ * families, so the build and the probe side only have to agree on the families, not on the key positions. Filters
+ * of the same size are merged by or-ing their bits, which is how the filters of all build partitions become one.
+ */
+class JoinFilter {
+    private static final int ABSENT = -1;
+
+    private final int[] keyFields;
+    private final IBinaryHashFunction[] hashFunctions0;
+    private final IBinaryHashFunction[] hashFunctions1;
+    private final IBinaryComparator firstKeyComparator;
+
+    private long[] words;
+    private long numBits;
+    private int numHashes;
+    private byte[] min;
+    private byte[] max;
+
+    private int hash0;
+    private int hash1;
+
+    JoinFilter(int[] keyFields, IBinaryHashFunctionFamily[] hashFunctionFamilies, IBinaryComparator firstKeyComparator) {
+        this.keyFields = keyFields;
+        this.hashFunctions0 = new IBinaryHashFunction[hashFunctionFamilies.length];
+        this.hashFunctions1 = new IBinaryHashFunction[hashFunctionFamilies.length];
+        for (int i = 0; i < hashFunctionFamilies.length; ++i) {
+            hashFunctions0[i] = hashFunctionFamilies[i].createBinaryHashFunction(0);
+            hashFunctions1[i] = hashFunctionFamilies[i].createBinaryHashFunction(1);
+        }
+        this.firstKeyComparator = firstKeyComparator;
+    }
+
+    /**
+     * Starts an empty filter, which rejects every key until keys are added.
+     */
+    void reset(int numBits, int numHashes) {
+        words = new long[Math.max(1, (numBits + 63) >>> 6)];
+        this.numBits = words.length * 64L;
+        this.numHashes = Math.max(1, numHashes);
+        min = null;
+        max = null;
+    }
+
+    /**
+     * @return whether the filter has been started, either by {@link #reset(int, int)} or by a merged filter
+     */
+    boolean isInitialized() {
+        return words != null;
+    }
+
+    void add(IFrameTupleAccessor accessor, int tIndex) throws HyracksDataException {
+        hash(accessor, tIndex);
+        for (int i = 0; i < numHashes; ++i) {
+            long bit = getBit(i);
+            words[(int) (bit >>> 6)] |= 1L << (bit & 63);
+        }
+        if (firstKeyComparator != null) {
+            byte[] bytes = accessor.getBuffer().array();
+            int start = getFieldStart(accessor, tIndex, keyFields[0]);
+            int length = accessor.getFieldLength(tIndex, keyFields[0]);
+            if (min == null || firstKeyComparator.compare(bytes, start, length, min, 0, min.length) < 0) {
+                min = Arrays.copyOfRange(bytes, start, start + length);
+            }
+            if (max == null || firstKeyComparator.compare(bytes, start, length, max, 0, max.length) > 0) {
+                max = Arrays.copyOfRange(bytes, start, start + length);
+            }
+        }
+    }
+
+    /**
+     * @return false if no build tuple has the key of the given tuple, true if one may have it
+     */
+    boolean mightContain(IFrameTupleAccessor accessor, int tIndex) throws HyracksDataException {
+        if (firstKeyComparator != null && min != null) {
+            byte[] bytes = accessor.getBuffer().array();
+            int start = getFieldStart(accessor, tIndex, keyFields[0]);
+            int length = accessor.getFieldLength(tIndex, keyFields[0]);
+            if (firstKeyComparator.compare(bytes, start, length, min, 0, min.length) < 0
+                    || firstKeyComparator.compare(bytes, start, length, max, 0, max.length) > 0) {
+                return false;
+            }
+        }
+        hash(accessor, tIndex);
+        for (int i = 0; i < numHashes; ++i) {
+            long bit = getBit(i);
+            if ((words[(int) (bit >>> 6)] & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(numHashes);
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+        writeKey(out, min);
+        writeKey(out, max);
+    }
+
+    /**
+     * Merges a filter written by {@link #writeTo(DataOutput)} into this one, which takes on its size if it has not
+     * been started yet.
+     */
+    void union(DataInput in) throws IOException {
+        int otherHashes = in.readInt();
+        int otherLength = in.readInt();
+        if (words == null) {
+            words = new long[otherLength];
+            numBits = otherLength * 64L;
+            numHashes = otherHashes;
+        } else if (otherLength != words.length || otherHashes != numHashes) {
+            throw new HyracksDataException("Cannot merge a join filter of " + otherLength * 64L + " bits and "
+                    + otherHashes + " hashes into one of " + numBits + " bits and " + numHashes + " hashes.");
+        }
+        for (int i = 0; i < otherLength; ++i) {
+            words[i] |= in.readLong();
+        }
+        byte[] otherMin = readKey(in);
+        byte[] otherMax = readKey(in);
+        if (firstKeyComparator != null && otherMin != null) {
+            if (min == null || firstKeyComparator.compare(otherMin, 0, otherMin.length, min, 0, min.length) < 0) {
+                min = otherMin;
+            }
+            if (max == null || firstKeyComparator.compare(otherMax, 0, otherMax.length, max, 0, max.length) > 0) {
+                max = otherMax;
+            }
+        }
+    }
+
+    private void hash(IFrameTupleAccessor accessor, int tIndex) throws HyracksDataException {
+        byte[] bytes = accessor.getBuffer().array();
+        int h0 = 0;
+        int h1 = 0;
+        for (int j = 0; j < keyFields.length; ++j) {
+            int start = getFieldStart(accessor, tIndex, keyFields[j]);
+            int length = accessor.getFieldLength(tIndex, keyFields[j]);
+            h0 += hashFunctions0[j].hash(bytes, start, length);
+            h1 += hashFunctions1[j].hash(bytes, start, length);
+        }
+        hash0 = h0;
+        hash1 = h1;
+    }
+
+    private long getBit(int i) {
+        return ((hash0 & 0xffffffffL) + i * (hash1 & 0xffffffffL)) % numBits;
+    }
+
+    private static int getFieldStart(IFrameTupleAccessor accessor, int tIndex, int fIdx) {
+        return accessor.getTupleStartOffset(tIndex) + accessor.getFieldSlotsLength()
+                + accessor.getFieldStartOffset(tIndex, fIdx);
+    }
+
+    private static void writeKey(DataOutput out, byte[] key) throws IOException {
+        if (key == null) {
+            out.writeInt(ABSENT);
+        } else {
+            out.writeInt(key.length);
+            out.write(key);
+        }
+    }
+
+    private static byte[] readKey(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == ABSENT) {
+            return null;
+        }
+        byte[] key = new byte[length];
+        in.readFully(key);
+        return key;
+    }
+}
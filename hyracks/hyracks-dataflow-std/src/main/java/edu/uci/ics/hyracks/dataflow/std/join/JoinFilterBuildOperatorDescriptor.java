@@ -0,0 +1,136 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.std.join;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.IOperatorNodePushable;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFamily;
+import edu.uci.ics.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import edu.uci.ics.hyracks.api.dataflow.value.ISerializerDeserializer;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.job.IOperatorDescriptorRegistry;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractSingleActivityOperatorDescriptor;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractUnaryInputUnaryOutputOperatorNodePushable;
+
+/**
+ * Builds a runtime join filter over the keys of the build side of a join. It is fed a copy of the build input, e.g.
+ * through a {@link edu.uci.ics.hyracks.dataflow.std.misc.SplitOperatorDescriptor}, and outputs one tuple per
+ * partition that holds the filter of that partition in its only field. The filters are meant to be replicated to
+ * every partition of a {@link JoinFilterProbeOperatorDescriptor} on the probe side.
+ */
+public class JoinFilterBuildOperatorDescriptor extends AbstractSingleActivityOperatorDescriptor {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The filter tuples are only read by {@link JoinFilterProbeOperatorDescriptor}, so the field has no serde.
+     */
+    public static final RecordDescriptor FILTER_RECORD_DESCRIPTOR = new RecordDescriptor(
+            new ISerializerDeserializer[] { null });
+
+    private final int[] keyFields;
+    private final IBinaryHashFunctionFamily[] hashFunctionFamilies;
+    private final IBinaryComparatorFactory firstKeyComparatorFactory;
+    private final int numBits;
+    private final int numHashes;
+
+    /**
+     * @param keyFields
+     *            - the join keys of the build side
+     * @param hashFunctionFamilies
+     *            - the hash function families of the join keys, the same as on the probe side
+     * @param firstKeyComparatorFactory
+     *            - the comparator of the first join key, to keep its minimum and maximum, or null to keep only the
+     *            Bloom filter
+     * @param numBits
+     *            - the size of the Bloom filter of every partition; about 10 bits per distinct key of a partition
+     *            give 1% false positives
+     * @param numHashes
+     *            - the number of bits set per key; ln(2) times the bits per key is best
+     */
+    public JoinFilterBuildOperatorDescriptor(IOperatorDescriptorRegistry spec, int[] keyFields,
+            IBinaryHashFunctionFamily[] hashFunctionFamilies, IBinaryComparatorFactory firstKeyComparatorFactory,
+            int numBits, int numHashes) {
+        super(spec, 1, 1);
+        this.keyFields = keyFields;
+        this.hashFunctionFamilies = hashFunctionFamilies;
+        this.firstKeyComparatorFactory = firstKeyComparatorFactory;
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        recordDescriptors[0] = FILTER_RECORD_DESCRIPTOR;
+    }
+
+    @Override
+    public IOperatorNodePushable createPushRuntime(final IHyracksTaskContext ctx,
+            final IRecordDescriptorProvider recordDescProvider, int partition, int nPartitions)
+            throws HyracksDataException {
+        final FrameTupleAccessor accessor = new FrameTupleAccessor(recordDescProvider.getInputRecordDescriptor(
+                getActivityId(), 0));
+        final JoinFilter filter = new JoinFilter(keyFields, hashFunctionFamilies,
+                firstKeyComparatorFactory == null ? null : firstKeyComparatorFactory.createBinaryComparator());
+        return new AbstractUnaryInputUnaryOutputOperatorNodePushable() {
+            @Override
+            public void open() throws HyracksDataException {
+                filter.reset(numBits, numHashes);
+                writer.open();
+            }
+
+            @Override
+            public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+                accessor.reset(buffer);
+                int tupleCount = accessor.getTupleCount();
+                for (int i = 0; i < tupleCount; ++i) {
+                    filter.add(accessor, i);
+                }
+            }
+
+            @Override
+            public void fail() throws HyracksDataException {
+                writer.fail();
+            }
+
+            @Override
+            public void close() throws HyracksDataException {
+                try {
+                    ArrayTupleBuilder tb = new ArrayTupleBuilder(1);
+                    try {
+                        filter.writeTo(tb.getDataOutput());
+                    } catch (IOException e) {
+                        throw new HyracksDataException(e);
+                    }
+                    tb.addFieldEndOffset();
+                    FrameTupleAppender appender = new FrameTupleAppender(new VSizeFrame(ctx));
+                    if (!appender.append(tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize())) {
+                        throw new HyracksDataException("Cannot fit the join filter into a frame.");
+                    }
+                    appender.flush(writer, true);
+                } catch (HyracksDataException e) {
+                    writer.fail();
+                    throw e;
+                } finally {
+                    writer.close();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.std.join;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.ActivityId;
+import edu.uci.ics.hyracks.api.dataflow.IActivityGraphBuilder;
+import edu.uci.ics.hyracks.api.dataflow.IOperatorNodePushable;
+import edu.uci.ics.hyracks.api.dataflow.TaskId;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFamily;
+import edu.uci.ics.hyracks.api.dataflow.value.IRecordDescriptorProvider;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.job.IOperatorDescriptorRegistry;
+import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import edu.uci.ics.hyracks.dataflow.common.comm.util.FrameUtils;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractActivityNode;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractOperatorDescriptor;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractStateObject;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractUnaryInputSinkOperatorNodePushable;
+import edu.uci.ics.hyracks.dataflow.std.base.AbstractUnaryInputUnaryOutputOperatorNodePushable;
+
+/**
+ * Drops the probe tuples of an inner join that cannot find a match on the build side, before they are sent through
+ * the exchange in front of the join. Input 1 takes the filters of all build partitions, as output by a
+ * {@link JoinFilterBuildOperatorDescriptor} and replicated to every partition of this operator; they are merged into
+ * the task state before input 0, the probe side, is read. The output is the probe tuples that may have a match, so
+ * the operator must not be used on the outer side of an outer join.
+ */
+public class JoinFilterProbeOperatorDescriptor extends AbstractOperatorDescriptor {
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Logger.getLogger(JoinFilterProbeOperatorDescriptor.class.getName());
+
+    private static final int COLLECT_ACTIVITY_ID = 0;
+    private static final int FILTER_ACTIVITY_ID = 1;
+
+    private final int[] keyFields;
+    private final IBinaryHashFunctionFamily[] hashFunctionFamilies;
+    private final IBinaryComparatorFactory firstKeyComparatorFactory;
+
+    /**
+     * @param keyFields
+     *            - the join keys of the probe side
+     * @param hashFunctionFamilies
+     *            - the hash function families of the join keys, the same as on the build side
+     * @param firstKeyComparatorFactory
+     *            - the comparator of the first join key, to check it against the minimum and maximum of the build
+     *            side, or null to check only the Bloom filter
+     */
+    public JoinFilterProbeOperatorDescriptor(IOperatorDescriptorRegistry spec, int[] keyFields,
+            IBinaryHashFunctionFamily[] hashFunctionFamilies, IBinaryComparatorFactory firstKeyComparatorFactory,
+            RecordDescriptor recordDescriptor) {
+        super(spec, 2, 1);
+        this.keyFields = keyFields;
+        this.hashFunctionFamilies = hashFunctionFamilies;
+        this.firstKeyComparatorFactory = firstKeyComparatorFactory;
+        recordDescriptors[0] = recordDescriptor;
+    }
+
+    @Override
+    public void contributeActivities(IActivityGraphBuilder builder) {
+        CollectActivity ca = new CollectActivity(new ActivityId(odId, COLLECT_ACTIVITY_ID));
+        FilterActivity fa = new FilterActivity(new ActivityId(odId, FILTER_ACTIVITY_ID));
+
+        builder.addActivity(this, ca);
+        builder.addSourceEdge(1, ca, 0);
+
+        builder.addActivity(this, fa);
+        builder.addSourceEdge(0, fa, 0);
+        builder.addTargetEdge(0, fa, 0);
+
+        builder.addBlockingEdge(ca, fa);
+    }
+
+    public static class JoinFilterTaskState extends AbstractStateObject {
+        private JoinFilter filter;
+
+        public JoinFilterTaskState() {
+        }
+
+        private JoinFilterTaskState(JobId jobId, TaskId taskId) {
+            super(jobId, taskId);
+        }
+
+        @Override
+        public void toBytes(DataOutput out) throws IOException {
+
+        }
+
+        @Override
+        public void fromBytes(DataInput in) throws IOException {
+
+        }
+    }
+
+    private class CollectActivity extends AbstractActivityNode {
+        private static final long serialVersionUID = 1L;
+
+        public CollectActivity(ActivityId id) {
+            super(id);
+        }
+
+        @Override
+        public IOperatorNodePushable createPushRuntime(final IHyracksTaskContext ctx,
+                IRecordDescriptorProvider recordDescProvider, final int partition, int nPartitions) {
+            final FrameTupleAccessor accessor = new FrameTupleAccessor(
+                    JoinFilterBuildOperatorDescriptor.FILTER_RECORD_DESCRIPTOR);
+            return new AbstractUnaryInputSinkOperatorNodePushable() {
+                private JoinFilterTaskState state;
+
+                @Override
+                public void open() throws HyracksDataException {
+                    state = new JoinFilterTaskState(ctx.getJobletContext().getJobId(), new TaskId(getActivityId(),
+                            partition));
+                    state.filter = new JoinFilter(keyFields, hashFunctionFamilies,
+                            firstKeyComparatorFactory == null ? null : firstKeyComparatorFactory
+                                    .createBinaryComparator());
+                }
+
+                @Override
+                public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+                    accessor.reset(buffer);
+                    int tupleCount = accessor.getTupleCount();
+                    for (int i = 0; i < tupleCount; ++i) {
+                        int start = accessor.getTupleStartOffset(i) + accessor.getFieldSlotsLength()
+                                + accessor.getFieldStartOffset(i, 0);
+                        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array(), start,
+                                accessor.getFieldLength(i, 0)));
+                        try {
+                            state.filter.union(in);
+                        } catch (IOException e) {
+                            throw new HyracksDataException(e);
+                        }
+                    }
+                }
+
+                @Override
+                public void close() throws HyracksDataException {
+                    ctx.setStateObject(state);
+                }
+
+                @Override
+                public void fail() throws HyracksDataException {
+                }
+            };
+        }
+    }
+
+    private class FilterActivity extends AbstractActivityNode {
+        private static final long serialVersionUID = 1L;
+
+        public FilterActivity(ActivityId id) {
+            super(id);
+        }
+
+        @Override
+        public IOperatorNodePushable createPushRuntime(final IHyracksTaskContext ctx,
+                IRecordDescriptorProvider recordDescProvider, final int partition, int nPartitions) {
+            final FrameTupleAccessor accessor = new FrameTupleAccessor(recordDescProvider.getInputRecordDescriptor(
+                    getActivityId(), 0));
+            return new AbstractUnaryInputUnaryOutputOperatorNodePushable() {
+                private JoinFilter filter;
+                private FrameTupleAppender appender;
+                private long inputCount;
+                private long outputCount;
+
+                @Override
+                public void open() throws HyracksDataException {
+                    JoinFilterTaskState state = (JoinFilterTaskState) ctx.getStateObject(new TaskId(new ActivityId(
+                            getOperatorId(), COLLECT_ACTIVITY_ID), partition));
+                    filter = state.filter;
+                    appender = new FrameTupleAppender(new VSizeFrame(ctx));
+                    writer.open();
+                }
+
+                @Override
+                public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+                    accessor.reset(buffer);
+                    int tupleCount = accessor.getTupleCount();
+                    if (!filter.isInitialized()) {
+                        // no build partition has sent a filter, so nothing can be ruled out
+                        FrameUtils.flushFrame(buffer, writer);
+                        inputCount += tupleCount;
+                        outputCount += tupleCount;
+                        return;
+                    }
+                    for (int i = 0; i < tupleCount; ++i) {
+                        if (filter.mightContain(accessor, i)) {
+                            FrameUtils.appendToWriter(writer, appender, accessor, i);
+                            ++outputCount;
+                        }
+                    }
+                    inputCount += tupleCount;
+                }
+
+                @Override
+                public void fail() throws HyracksDataException {
+                    writer.fail();
+                }
+
+                @Override
+                public void close() throws HyracksDataException {
+                    try {
+                        appender.flush(writer, true);
+                    } finally {
+                        writer.close();
+                    }
+                    if (LOGGER.isLoggable(Level.FINE)) {
+                        LOGGER.fine("join filter passed " + outputCount + " of " + inputCount + " probe tuples");
+                    }
+                }
+            };
+        }
+    }
+}
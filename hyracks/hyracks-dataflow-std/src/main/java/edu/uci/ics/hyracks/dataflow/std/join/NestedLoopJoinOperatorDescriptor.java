@@ -74,6 +74,11 @@ public class NestedLoopJoinOperatorDescriptor extends AbstractOperatorDescriptor
         this.nullWriterFactories1 = nullWriterFactories1;
     }
 
+    @Override
+    public int getRequiredMemoryFrames() {
+        return memSize;
+    }
+
     @Override
     public void contributeActivities(IActivityGraphBuilder builder) {
         ActivityId jcaId = new ActivityId(getOperatorId(), JOIN_CACHE_ACTIVITY_ID);
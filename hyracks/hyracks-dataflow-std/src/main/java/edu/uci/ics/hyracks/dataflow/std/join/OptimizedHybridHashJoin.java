@@ -593,7 +593,7 @@ public class OptimizedHybridHashJoin {
     }
 
     public long getBuildPartitionSize(int pid) {
-        return ((buildRFWriters[pid] == null) ? 0 : buildRFWriters[pid].getFileSize());
+        return ((buildRFWriters[pid] == null) ? 0 : buildRFWriters[pid].getRawSize());
     }
 
     public int getBuildPartitionSizeInTup(int pid) {
@@ -605,7 +605,7 @@ public class OptimizedHybridHashJoin {
     }
 
     public long getProbePartitionSize(int pid) {
-        return ((probeRFWriters[pid] == null) ? 0 : probeRFWriters[pid].getFileSize());
+        return ((probeRFWriters[pid] == null) ? 0 : probeRFWriters[pid].getRawSize());
     }
 
     public int getProbePartitionSizeInTup(int pid) {
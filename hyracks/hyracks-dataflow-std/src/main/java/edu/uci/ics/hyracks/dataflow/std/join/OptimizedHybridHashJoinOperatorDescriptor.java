@@ -174,6 +174,11 @@ public class OptimizedHybridHashJoinOperatorDescriptor extends AbstractOperatorD
         this.nullWriterFactories1 = null;
     }
 
+    @Override
+    public int getRequiredMemoryFrames() {
+        return memsize;
+    }
+
     @Override
     public void contributeActivities(IActivityGraphBuilder builder) {
         ActivityId buildAid = new ActivityId(odId, BUILD_AND_PARTITION_ACTIVITY_ID);
@@ -610,8 +615,8 @@ public class OptimizedHybridHashJoinOperatorDescriptor extends AbstractOperatorD
                                         continue;
                                     }
 
-                                    long buildSideSize = rbrfw.getFileSize();
-                                    long probeSideSize = rprfw.getFileSize();
+                                    long buildSideSize = rHHj.getBuildPartitionSize(rPid);
+                                    long probeSideSize = rHHj.getProbePartitionSize(rPid);
                                     if (buildSideSize > probeSideSize) {
                                         applyNestedLoopJoin(buildRd, probeRd, memsize, rbrfw, rprfw, nljComparator0,
                                                 true); //checked-modified
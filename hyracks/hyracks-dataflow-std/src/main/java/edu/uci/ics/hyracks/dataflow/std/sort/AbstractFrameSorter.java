@@ -16,6 +16,8 @@
 package edu.uci.ics.hyracks.dataflow.std.sort;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,6 +28,7 @@ import edu.uci.ics.hyracks.api.comm.VSizeFrame;
 import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
 import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
 import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
@@ -33,12 +36,13 @@ import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
 import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAppender;
 import edu.uci.ics.hyracks.dataflow.common.comm.util.FrameUtils;
+import edu.uci.ics.hyracks.dataflow.common.data.normalizers.MultiFieldNormalizedKeyComputerFactory;
+import edu.uci.ics.hyracks.dataflow.common.util.IntSerDeUtils;
 import edu.uci.ics.hyracks.dataflow.std.sort.buffermanager.IFrameBufferManager;
 
 public abstract class AbstractFrameSorter implements IFrameSorter {
 
     protected Logger LOGGER = Logger.getLogger(AbstractFrameSorter.class.getName());
-    static final int PTR_SIZE = 4;
     static final int ID_FRAMEID = 0;
     static final int ID_TUPLE_START = 1;
     static final int ID_TUPLE_END = 2;
@@ -46,7 +50,19 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
 
     protected final int[] sortFields;
     protected final IBinaryComparator[] comparators;
-    protected final INormalizedKeyComputer nkc;
+    /**
+     * The normalized key computers of the leading sort fields. Only the last of them may be not decisive.
+     */
+    protected final INormalizedKeyComputer[] nkcs;
+    /**
+     * The number of normalized key words of a tuple, which follow its frame id, start and end in {@link #tPointers}.
+     */
+    protected final int keyWords;
+    /**
+     * The number of leading sort fields whose order is decided by the normalized key words alone.
+     */
+    protected final int decidedFields;
+    protected final int ptrSize;
     protected final IFrameBufferManager bufferManager;
     protected final FrameTupleAccessor inputTupleAccessor;
     protected final IFrameTupleAppender outputAppender;
@@ -69,7 +85,33 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
             throws HyracksDataException {
         this.bufferManager = bufferManager;
         this.sortFields = sortFields;
-        this.nkc = firstKeyNormalizerFactory == null ? null : firstKeyNormalizerFactory.createNormalizedKeyComputer();
+        INormalizedKeyComputerFactory[] nkcFactories;
+        if (firstKeyNormalizerFactory instanceof MultiFieldNormalizedKeyComputerFactory) {
+            nkcFactories = ((MultiFieldNormalizedKeyComputerFactory) firstKeyNormalizerFactory).getFieldFactories();
+        } else {
+            nkcFactories = new INormalizedKeyComputerFactory[] { firstKeyNormalizerFactory };
+        }
+        List<INormalizedKeyComputer> computers = new ArrayList<INormalizedKeyComputer>();
+        int words = 0;
+        int decided = 0;
+        for (int f = 0; f < nkcFactories.length && f < sortFields.length && nkcFactories[f] != null; ++f) {
+            INormalizedKeyComputer computer = nkcFactories[f].createNormalizedKeyComputer();
+            computers.add(computer);
+            if (!(computer instanceof IMultiWordNormalizedKeyComputer)) {
+                words += 1;
+                break;
+            }
+            IMultiWordNormalizedKeyComputer mwComputer = (IMultiWordNormalizedKeyComputer) computer;
+            words += mwComputer.getWordCount();
+            if (!mwComputer.isDecisive()) {
+                break;
+            }
+            ++decided;
+        }
+        this.nkcs = computers.toArray(new INormalizedKeyComputer[computers.size()]);
+        this.keyWords = words;
+        this.decidedFields = decided;
+        this.ptrSize = ID_NORMAL_KEY + keyWords;
         this.comparators = new IBinaryComparator[comparatorFactories.length];
         for (int i = 0; i < comparatorFactories.length; ++i) {
             comparators[i] = comparatorFactories[i].createBinaryComparator();
@@ -107,11 +149,10 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
                             bufferManager.getFrameSize(i));
             tupleCount += inputTupleAccessor.getTupleCount();
         }
-        if (tPointers == null || tPointers.length < tupleCount * PTR_SIZE) {
-            tPointers = new int[tupleCount * PTR_SIZE];
+        if (tPointers == null || tPointers.length < tupleCount * ptrSize) {
+            tPointers = new int[tupleCount * ptrSize];
         }
         int ptr = 0;
-        int sfIdx = sortFields[0];
         for (int i = 0; i < bufferManager.getNumFrames(); ++i) {
             inputTupleAccessor
                     .reset(bufferManager.getFrame(i), bufferManager.getFrameStartOffset(i),
@@ -121,14 +162,23 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
             for (int j = 0; j < tCount; ++j) {
                 int tStart = inputTupleAccessor.getTupleStartOffset(j);
                 int tEnd = inputTupleAccessor.getTupleEndOffset(j);
-                tPointers[ptr * PTR_SIZE + ID_FRAMEID] = i;
-                tPointers[ptr * PTR_SIZE + ID_TUPLE_START] = tStart;
-                tPointers[ptr * PTR_SIZE + ID_TUPLE_END] = tEnd;
-                int f0StartRel = inputTupleAccessor.getFieldStartOffset(j, sfIdx);
-                int f0EndRel = inputTupleAccessor.getFieldEndOffset(j, sfIdx);
-                int f0Start = f0StartRel + tStart + inputTupleAccessor.getFieldSlotsLength();
-                tPointers[ptr * PTR_SIZE + ID_NORMAL_KEY] =
-                        nkc == null ? 0 : nkc.normalize(array, f0Start, f0EndRel - f0StartRel);
+                tPointers[ptr * ptrSize + ID_FRAMEID] = i;
+                tPointers[ptr * ptrSize + ID_TUPLE_START] = tStart;
+                tPointers[ptr * ptrSize + ID_TUPLE_END] = tEnd;
+                int word = ptr * ptrSize + ID_NORMAL_KEY;
+                for (int f = 0; f < nkcs.length; ++f) {
+                    int sfIdx = sortFields[f];
+                    int fStartRel = inputTupleAccessor.getFieldStartOffset(j, sfIdx);
+                    int fEndRel = inputTupleAccessor.getFieldEndOffset(j, sfIdx);
+                    int fStart = fStartRel + tStart + inputTupleAccessor.getFieldSlotsLength();
+                    if (nkcs[f] instanceof IMultiWordNormalizedKeyComputer) {
+                        IMultiWordNormalizedKeyComputer mwComputer = (IMultiWordNormalizedKeyComputer) nkcs[f];
+                        mwComputer.normalize(array, fStart, fEndRel - fStartRel, tPointers, word);
+                        word += mwComputer.getWordCount();
+                    } else {
+                        tPointers[word++] = nkcs[f].normalize(array, fStart, fEndRel - fStartRel);
+                    }
+                }
                 ++ptr;
             }
         }
@@ -139,6 +189,63 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
 
     abstract void sortTupleReferences() throws HyracksDataException;
 
+    /**
+     * Compares two tuple references, which may live in different arrays, first by their normalized key words and then,
+     * if the words are not decisive, by the remaining sort fields.
+     *
+     * @param ptrs1
+     *            - the array of the first reference
+     * @param ptr1
+     *            - the index of the first reference in its array
+     */
+    int compare(int[] ptrs1, int ptr1, int[] ptrs2, int ptr2) throws HyracksDataException {
+        return compare(ptrs1, ptr1, ptrs2, ptr2, comparators);
+    }
+
+    /**
+     * Same as {@link #compare(int[], int, int[], int)}, with the given comparators, for sorters that compare on
+     * several threads.
+     */
+    int compare(int[] ptrs1, int ptr1, int[] ptrs2, int ptr2, IBinaryComparator[] comps) throws HyracksDataException {
+        int base1 = ptr1 * ptrSize;
+        int base2 = ptr2 * ptrSize;
+        for (int w = ID_NORMAL_KEY; w < ptrSize; ++w) {
+            int v1 = ptrs1[base1 + w];
+            int v2 = ptrs2[base2 + w];
+            if (v1 != v2) {
+                return ((((long) v1) & 0xffffffffL) < (((long) v2) & 0xffffffffL)) ? -1 : 1;
+            }
+        }
+        return compareFields(ptrs1[base1 + ID_FRAMEID], ptrs1[base1 + ID_TUPLE_START], ptrs2[base2 + ID_FRAMEID],
+                ptrs2[base2 + ID_TUPLE_START], decidedFields, comps);
+    }
+
+    /**
+     * Compares two tuples field by field, starting at the given sort field.
+     */
+    int compareFields(int i1, int j1, int i2, int j2, int firstField, IBinaryComparator[] comps)
+            throws HyracksDataException {
+        byte[] b1 = bufferManager.getFrame(i1).array();
+        byte[] b2 = bufferManager.getFrame(i2).array();
+        int slotsLength = inputTupleAccessor.getFieldSlotsLength();
+        for (int f = firstField; f < comps.length; ++f) {
+            int fIdx = sortFields[f];
+            int f1Start = fIdx == 0 ? 0 : IntSerDeUtils.getInt(b1, j1 + (fIdx - 1) * 4);
+            int f1End = IntSerDeUtils.getInt(b1, j1 + fIdx * 4);
+            int s1 = j1 + slotsLength + f1Start;
+            int l1 = f1End - f1Start;
+            int f2Start = fIdx == 0 ? 0 : IntSerDeUtils.getInt(b2, j2 + (fIdx - 1) * 4);
+            int f2End = IntSerDeUtils.getInt(b2, j2 + fIdx * 4);
+            int s2 = j2 + slotsLength + f2Start;
+            int l2 = f2End - f2Start;
+            int c = comps[f].compare(b1, s1, l1, b2, s2, l2);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
     @Override
     public int getFrameCount() {
         return bufferManager.getNumFrames();
@@ -156,9 +263,9 @@ public abstract class AbstractFrameSorter implements IFrameSorter {
         int limit = Math.min(tupleCount, outputLimit);
         int io = 0;
         for (int ptr = 0; ptr < limit; ++ptr) {
-            int i = tPointers[ptr * PTR_SIZE + ID_FRAMEID];
-            int tStart = tPointers[ptr * PTR_SIZE + ID_TUPLE_START];
-            int tEnd = tPointers[ptr * PTR_SIZE + ID_TUPLE_END];
+            int i = tPointers[ptr * ptrSize + ID_FRAMEID];
+            int tStart = tPointers[ptr * ptrSize + ID_TUPLE_START];
+            int tEnd = tPointers[ptr * ptrSize + ID_TUPLE_END];
             ByteBuffer buffer = bufferManager.getFrame(i);
             inputTupleAccessor.reset(buffer, bufferManager.getFrameStartOffset(i), bufferManager.getFrameSize(i));
 
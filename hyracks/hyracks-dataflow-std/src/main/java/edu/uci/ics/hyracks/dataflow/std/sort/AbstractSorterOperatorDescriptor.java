@@ -73,6 +73,11 @@ public abstract class AbstractSorterOperatorDescriptor extends AbstractOperatorD
 
     public abstract MergeActivity getMergeActivity(ActivityId id);
 
+    @Override
+    public int getRequiredMemoryFrames() {
+        return framesLimit;
+    }
+
     @Override
     public void contributeActivities(IActivityGraphBuilder builder) {
         SortActivity sa = getSortActivity(new ActivityId(odId, SORT_ACTIVITY_ID));
@@ -17,5 +17,9 @@ package edu.uci.ics.hyracks.dataflow.std.sort;
 
 public enum Algorithm {
     QUICK_SORT,
-    MERGE_SORT
+    MERGE_SORT,
+    /**
+     * MSD radix sort on the normalized key words, see {@link FrameSorterRadixSort}
+     */
+    RADIX_SORT
 }
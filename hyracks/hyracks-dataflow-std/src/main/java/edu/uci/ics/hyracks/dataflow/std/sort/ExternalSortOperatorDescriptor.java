@@ -31,6 +31,7 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
     private Algorithm alg = Algorithm.MERGE_SORT;
     private EnumFreeSlotPolicy policy = EnumFreeSlotPolicy.LAST_FIT;
     private final int outputLimit;
+    private final int parallelism;
 
     public ExternalSortOperatorDescriptor(IOperatorDescriptorRegistry spec, int framesLimit, int[] sortFields,
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
@@ -58,7 +59,7 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
             protected AbstractSortRunGenerator getRunGenerator(IHyracksTaskContext ctx,
                     IRecordDescriptorProvider recordDescProvider) throws HyracksDataException {
                 return new ExternalSortRunGenerator(ctx, sortFields, firstKeyNormalizerFactory,
-                        comparatorFactories, recordDescriptors[0], alg, policy, framesLimit, outputLimit);
+                        comparatorFactories, recordDescriptors[0], alg, policy, framesLimit, outputLimit, parallelism);
             }
         };
     }
@@ -71,7 +72,8 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
                     IRecordDescriptorProvider recordDescProvider, IFrameWriter writer, ISorter sorter, List<RunAndMaxFrameSizePair> runs, IBinaryComparator[] comparators,
                     INormalizedKeyComputer nmkComputer, int necessaryFrames) {
                 return new ExternalSortRunMerger(ctx, sorter, runs, sortFields, comparators,
-                        nmkComputer, recordDescriptors[0], necessaryFrames, outputLimit, writer);
+                        nmkComputer, recordDescriptors[0], necessaryFrames, outputLimit, writer, parallelism,
+                        comparatorFactories, firstKeyNormalizerFactory);
             }
         };
     }
@@ -86,6 +88,19 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
     public ExternalSortOperatorDescriptor(IOperatorDescriptorRegistry spec, int framesLimit, int[] sortFields,
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
             RecordDescriptor recordDescriptor, Algorithm alg, EnumFreeSlotPolicy policy, int outputLimit) {
+        this(spec, framesLimit, sortFields, firstKeyNormalizerFactory, comparatorFactories, recordDescriptor, alg,
+                policy, outputLimit, 1);
+    }
+
+    /**
+     * @param parallelism
+     *            - the number of threads of a partition that sort its in-memory runs, with the merge sort, and run its
+     *            intermediate merge passes. The operator keeps to framesLimit regardless.
+     */
+    public ExternalSortOperatorDescriptor(IOperatorDescriptorRegistry spec, int framesLimit, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor, Algorithm alg, EnumFreeSlotPolicy policy, int outputLimit,
+            int parallelism) {
         super(spec, framesLimit, sortFields, firstKeyNormalizerFactory, comparatorFactories, recordDescriptor);
         if (framesLimit <= 1) {
             throw new IllegalStateException();// minimum of 2 fames (1 in,1 out)
@@ -93,6 +108,7 @@ public class ExternalSortOperatorDescriptor extends AbstractSorterOperatorDescri
         this.alg = alg;
         this.policy = policy;
         this.outputLimit = outputLimit;
+        this.parallelism = parallelism;
     }
 
 }
\ No newline at end of file
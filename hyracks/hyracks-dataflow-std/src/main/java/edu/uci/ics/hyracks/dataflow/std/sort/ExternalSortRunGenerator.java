@@ -58,6 +58,18 @@ public class ExternalSortRunGenerator extends AbstractSortRunGenerator {
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
             RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int framesLimit, int outputLimit)
             throws HyracksDataException {
+        this(ctx, sortFields, firstKeyNormalizerFactory, comparatorFactories, recordDesc, alg, policy, framesLimit,
+                outputLimit, 1);
+    }
+
+    /**
+     * @param parallelism
+     *            - the number of threads that sort each in-memory run, which only the merge sort makes use of
+     */
+    public ExternalSortRunGenerator(IHyracksTaskContext ctx, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDesc, Algorithm alg, EnumFreeSlotPolicy policy, int framesLimit, int outputLimit,
+            int parallelism) throws HyracksDataException {
         this.ctx = ctx;
         maxSortFrames = framesLimit - 1;
 
@@ -77,6 +89,9 @@ public class ExternalSortRunGenerator extends AbstractSortRunGenerator {
                 new VariableFramePool(ctx, maxSortFrames * ctx.getInitialFrameSize()), freeSlotPolicy);
         if (alg == Algorithm.MERGE_SORT) {
             frameSorter = new FrameSorterMergeSort(ctx, bufferManager, sortFields, firstKeyNormalizerFactory,
+                    comparatorFactories, recordDesc, outputLimit, parallelism);
+        } else if (alg == Algorithm.RADIX_SORT) {
+            frameSorter = new FrameSorterRadixSort(ctx, bufferManager, sortFields, firstKeyNormalizerFactory,
                     comparatorFactories, recordDesc, outputLimit);
         } else {
             frameSorter = new FrameSorterQuickSort(ctx, bufferManager, sortFields, firstKeyNormalizerFactory,
@@ -18,6 +18,10 @@ import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,11 +31,14 @@ import edu.uci.ics.hyracks.api.comm.IFrameWriter;
 import edu.uci.ics.hyracks.api.comm.VSizeFrame;
 import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
 import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputer;
+import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.api.io.FileReference;
 import edu.uci.ics.hyracks.dataflow.common.comm.util.FrameUtils;
+import edu.uci.ics.hyracks.dataflow.common.io.RunFileReader;
 import edu.uci.ics.hyracks.dataflow.common.io.RunFileWriter;
 import edu.uci.ics.hyracks.dataflow.std.sort.util.GroupVSizeFrame;
 
@@ -48,11 +55,15 @@ public class ExternalSortRunMerger {
     private final RecordDescriptor recordDesc;
     private final int framesLimit;
     private final int MAX_FRAME_SIZE;
-    private final ArrayList<IFrameReader> tempRuns;
     private final int topK;
+    private final int parallelism;
+    private final IBinaryComparatorFactory[] comparatorFactories;
+    private final INormalizedKeyComputerFactory nmkFactory;
     private List<GroupVSizeFrame> inFrames;
     private VSizeFrame outputFrame;
     private ISorter sorter;
+    private int parallelMergePasses;
+    private int parallelMergeDegree;
 
     private static final Logger LOGGER = Logger.getLogger(ExternalSortRunMerger.class.getName());
 
@@ -66,6 +77,23 @@ public class ExternalSortRunMerger {
     public ExternalSortRunMerger(IHyracksTaskContext ctx, ISorter sorter, List<RunAndMaxFrameSizePair> runs,
             int[] sortFields, IBinaryComparator[] comparators, INormalizedKeyComputer nmkComputer,
             RecordDescriptor recordDesc, int framesLimit, int topK, IFrameWriter writer) {
+        this(ctx, sorter, runs, sortFields, comparators, nmkComputer, recordDesc, framesLimit, topK, writer, 1, null,
+                null);
+    }
+
+    /**
+     * @param parallelism
+     *            - the number of intermediate merges that may run at the same time. They share the frame budget, so
+     *            each of them merges fewer runs.
+     * @param comparatorFactories
+     *            - the factories of the comparators of the concurrent merges, required if parallelism is above 1
+     * @param nmkFactory
+     *            - the factory of the normalized key computers of the concurrent merges, if any
+     */
+    public ExternalSortRunMerger(IHyracksTaskContext ctx, ISorter sorter, List<RunAndMaxFrameSizePair> runs,
+            int[] sortFields, IBinaryComparator[] comparators, INormalizedKeyComputer nmkComputer,
+            RecordDescriptor recordDesc, int framesLimit, int topK, IFrameWriter writer, int parallelism,
+            IBinaryComparatorFactory[] comparatorFactories, INormalizedKeyComputerFactory nmkFactory) {
         this.ctx = ctx;
         this.sorter = sorter;
         this.runs = new LinkedList<>(runs);
@@ -78,7 +106,9 @@ public class ExternalSortRunMerger {
         this.writer = writer;
         this.MAX_FRAME_SIZE = FrameConstants.MAX_NUM_MINFRAME * ctx.getInitialFrameSize();
         this.topK = topK;
-        this.tempRuns = new ArrayList<>(runs.size());
+        this.parallelism = comparatorFactories == null ? 1 : Math.max(1, parallelism);
+        this.comparatorFactories = comparatorFactories;
+        this.nmkFactory = nmkFactory;
     }
 
     public void process() throws HyracksDataException {
@@ -103,6 +133,9 @@ public class ExternalSortRunMerger {
                 finalWriter.open();
 
                 int maxMergeWidth = framesLimit - 1;
+                if (parallelism > 1) {
+                    mergeInParallel(maxMergeWidth * ctx.getInitialFrameSize());
+                }
 
                 inFrames = new ArrayList<>(maxMergeWidth);
                 outputFrame = new VSizeFrame(ctx);
@@ -116,6 +149,12 @@ public class ExternalSortRunMerger {
                     int unUsed = selectPartialRuns(maxMergeWidth * ctx.getInitialFrameSize(), runs, partialRuns,
                             currentGenerationRunAvailable,
                             stop);
+                    // the read-ahead frames of the runs only come out of what is left over
+                    int prefetchBudget = partialRuns.size() * ctx.getInitialFrameSize();
+                    boolean prefetch = unUsed >= prefetchBudget;
+                    if (prefetch) {
+                        unUsed -= prefetchBudget;
+                    }
                     prepareFrames(unUsed, inFrames, partialRuns);
 
                     if (!currentGenerationRunAvailable.isEmpty() || stop < runs.size()) {
@@ -136,7 +175,8 @@ public class ExternalSortRunMerger {
                             IFrameWriter mergeResultWriter = prepareIntermediateMergeResultWriter(mergeFileWriter);
 
                             mergeResultWriter.open();
-                            mergedMaxFrameSize = merge(mergeResultWriter, partialRuns);
+                            mergedMaxFrameSize = merge(mergeResultWriter, partialRuns, inFrames, outputFrame,
+                                    comparators, nmkComputer, prefetch);
                             mergeResultWriter.close();
 
                             reader = mergeFileWriter.createReader();
@@ -157,7 +197,7 @@ public class ExternalSortRunMerger {
                         if (LOGGER.isLoggable(Level.FINE)) {
                             LOGGER.fine("final runs:" + stop);
                         }
-                        merge(finalWriter, partialRuns);
+                        merge(finalWriter, partialRuns, inFrames, outputFrame, comparators, nmkComputer, prefetch);
                         break;
                     }
                 }
@@ -170,6 +210,171 @@ public class ExternalSortRunMerger {
         }
     }
 
+    /**
+     * Runs the intermediate merge passes with up to {@link #parallelism} merges at a time, until the remaining runs
+     * fit into one final merge. The frame budget is split evenly among the concurrent merges. Their frames and run
+     * files are set up on the calling thread, a wave of at most that many merges at a time, and only the merging
+     * itself happens in the pool.
+     */
+    private void mergeInParallel(int finalMergeBudget) throws HyracksDataException {
+        int frameSize = ctx.getInitialFrameSize();
+        int degree = Math.min(parallelism, framesLimit / 3);
+        if (degree <= 1) {
+            return;
+        }
+        int groupBudget = (framesLimit / degree - 1) * frameSize;
+        List<MergeSlot> slots = new ArrayList<>(degree);
+        ForkJoinPool pool = new ForkJoinPool(degree);
+        try {
+            while (getTotalFrameSize(runs) > finalMergeBudget) {
+                List<List<RunAndMaxFrameSizePair>> groups = new ArrayList<>();
+                List<RunAndMaxFrameSizePair> nextRuns = new ArrayList<>();
+                groupRuns(groupBudget, groups, nextRuns);
+                if (groups.isEmpty()) {
+                    // leave the runs to the sequential passes
+                    break;
+                }
+                for (int first = 0; first < groups.size(); first += degree) {
+                    int waveSize = Math.min(degree, groups.size() - first);
+                    for (int i = slots.size(); i < waveSize; i++) {
+                        slots.add(new MergeSlot());
+                    }
+                    List<MergeSlot> wave = slots.subList(0, waveSize);
+                    for (int i = 0; i < waveSize; i++) {
+                        wave.get(i).prepare(groups.get(first + i), groupBudget);
+                    }
+                    List<Future<Void>> futures = pool.invokeAll(wave);
+                    for (Future<Void> future : futures) {
+                        try {
+                            future.get();
+                        } catch (ExecutionException e) {
+                            throw new HyracksDataException(e.getCause());
+                        }
+                    }
+                    for (MergeSlot slot : wave) {
+                        nextRuns.add(new RunAndMaxFrameSizePair(slot.mergeFileWriter.createReader(),
+                                slot.mergedMaxFrameSize));
+                    }
+                }
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.fine("merged " + runs.size() + " runs into " + nextRuns.size() + " with " + degree
+                            + " threads");
+                }
+                runs.clear();
+                runs.addAll(nextRuns);
+                parallelMergePasses++;
+                parallelMergeDegree = degree;
+            }
+        } catch (InterruptedException e) {
+            throw new HyracksDataException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits the runs into groups that fit into the given budget. Runs that end up alone are moved to the next
+     * generation as they are.
+     */
+    private void groupRuns(int budget, List<List<RunAndMaxFrameSizePair>> groups,
+            List<RunAndMaxFrameSizePair> nextRuns) {
+        List<RunAndMaxFrameSizePair> group = new ArrayList<>();
+        int left = budget;
+        for (RunAndMaxFrameSizePair run : runs) {
+            if (run.maxFrameSize > left) {
+                closeGroup(group, groups, nextRuns);
+                group = new ArrayList<>();
+                left = budget;
+            }
+            if (run.maxFrameSize > left) {
+                nextRuns.add(run);
+            } else {
+                group.add(run);
+                left -= run.maxFrameSize;
+            }
+        }
+        closeGroup(group, groups, nextRuns);
+    }
+
+    private static void closeGroup(List<RunAndMaxFrameSizePair> group, List<List<RunAndMaxFrameSizePair>> groups,
+            List<RunAndMaxFrameSizePair> nextRuns) {
+        if (group.size() > 1) {
+            groups.add(group);
+        } else {
+            nextRuns.addAll(group);
+        }
+    }
+
+    private static int getTotalFrameSize(List<RunAndMaxFrameSizePair> runs) {
+        int total = 0;
+        for (RunAndMaxFrameSizePair run : runs) {
+            total += run.maxFrameSize;
+        }
+        return total;
+    }
+
+    /**
+     * The frames, comparators and output run of one of the concurrent merges, which are reused from wave to wave.
+     */
+    private class MergeSlot implements Callable<Void> {
+        private final List<GroupVSizeFrame> slotInFrames = new ArrayList<>();
+        private final VSizeFrame slotOutputFrame;
+        private final IBinaryComparator[] slotComparators;
+        private final INormalizedKeyComputer slotNmkComputer;
+        private List<RunAndMaxFrameSizePair> group;
+        private RunFileWriter mergeFileWriter;
+        private IFrameWriter mergeResultWriter;
+        private int mergedMaxFrameSize;
+        private boolean prefetch;
+
+        MergeSlot() throws HyracksDataException {
+            // only ever written to an intermediate run file, so it can be off-heap
+            slotOutputFrame = new VSizeFrame(ctx, ctx.getInitialFrameSize(), true);
+            slotComparators = new IBinaryComparator[comparatorFactories.length];
+            for (int i = 0; i < comparatorFactories.length; ++i) {
+                slotComparators[i] = comparatorFactories[i].createBinaryComparator();
+            }
+            slotNmkComputer = nmkFactory == null ? null : nmkFactory.createNormalizedKeyComputer();
+        }
+
+        void prepare(List<RunAndMaxFrameSizePair> group, int budget) throws HyracksDataException {
+            this.group = group;
+            prefetch = budget - getTotalFrameSize(group) >= group.size() * ctx.getInitialFrameSize();
+            prepareFrames(0, slotInFrames, group);
+            mergeFileWriter = prepareIntermediateMergeRunFile();
+            mergeResultWriter = prepareIntermediateMergeResultWriter(mergeFileWriter);
+        }
+
+        @Override
+        public Void call() throws HyracksDataException {
+            mergeResultWriter.open();
+            try {
+                mergedMaxFrameSize = merge(mergeResultWriter, group, slotInFrames, slotOutputFrame, slotComparators,
+                        slotNmkComputer, prefetch);
+            } catch (HyracksDataException e) {
+                mergeResultWriter.fail();
+                throw e;
+            } finally {
+                mergeResultWriter.close();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of intermediate passes that ran their merges concurrently, to be checked by tests
+     */
+    public int getParallelMergePasses() {
+        return parallelMergePasses;
+    }
+
+    /**
+     * @return the number of merges that ran at the same time in those passes, or 0 if there were none
+     */
+    public int getParallelMergeDegree() {
+        return parallelMergeDegree;
+    }
+
     private void appendNewRuns(IFrameReader reader, int mergedPartialMaxSize) {
         runs.add(new RunAndMaxFrameSizePair(reader, mergedPartialMaxSize));
     }
@@ -242,11 +447,16 @@ public class ExternalSortRunMerger {
         return sortFields;
     }
 
-    private int merge(IFrameWriter writer, List<RunAndMaxFrameSizePair> partialRuns)
-            throws HyracksDataException {
-        tempRuns.clear();
+    private int merge(IFrameWriter writer, List<RunAndMaxFrameSizePair> partialRuns, List<GroupVSizeFrame> inFrames,
+            VSizeFrame outputFrame, IBinaryComparator[] comparators, INormalizedKeyComputer nmkComputer,
+            boolean prefetch) throws HyracksDataException {
+        List<IFrameReader> tempRuns = new ArrayList<>(partialRuns.size());
         for (int i = 0; i < partialRuns.size(); i++) {
-            tempRuns.add(partialRuns.get(i).run);
+            IFrameReader run = partialRuns.get(i).run;
+            if (run instanceof RunFileReader) {
+                ((RunFileReader) run).setPrefetch(prefetch ? ctx : null);
+            }
+            tempRuns.add(run);
         }
         RunMergingFrameReader merger = new RunMergingFrameReader(ctx, tempRuns, inFrames, getSortFields(),
                 comparators, nmkComputer, recordDesc, topK);
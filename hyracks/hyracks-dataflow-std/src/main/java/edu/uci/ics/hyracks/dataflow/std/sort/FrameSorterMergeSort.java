@@ -14,21 +14,34 @@
  */
 package edu.uci.ics.hyracks.dataflow.std.sort;
 
-import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
 import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
 import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
-import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
-import edu.uci.ics.hyracks.dataflow.common.util.IntSerDeUtils;
 import edu.uci.ics.hyracks.dataflow.std.sort.buffermanager.IFrameBufferManager;
 
 public class FrameSorterMergeSort extends AbstractFrameSorter {
 
+    /**
+     * Below this many tuples per thread, the references are sorted on the calling thread.
+     */
+    static final int MIN_PARALLEL_SORT_TUPLES = 4096;
+
+    private final int parallelism;
+
+    /**
+     * One set of comparators per thread, since comparators may keep state.
+     */
+    private final IBinaryComparator[][] workerComparators;
+
+    private ForkJoinPool pool;
+
     private int[] tPointersTemp;
-    private FrameTupleAccessor fta2;
 
     public FrameSorterMergeSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
@@ -40,9 +53,29 @@ public class FrameSorterMergeSort extends AbstractFrameSorter {
     public FrameSorterMergeSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
             INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
             RecordDescriptor recordDescriptor, int outputLimit) throws HyracksDataException {
+        this(ctx, bufferManager, sortFields, firstKeyNormalizerFactory, comparatorFactories, recordDescriptor,
+                outputLimit, 1);
+    }
+
+    /**
+     * @param parallelism
+     *            - the number of threads that sort the tuple references of a run. The sort works on references only,
+     *            so more threads need no more frames.
+     */
+    public FrameSorterMergeSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor, int outputLimit, int parallelism) throws HyracksDataException {
         super(ctx, bufferManager, sortFields, firstKeyNormalizerFactory, comparatorFactories, recordDescriptor,
                 outputLimit);
-        fta2 = new FrameTupleAccessor(recordDescriptor);
+        this.parallelism = Math.max(1, parallelism);
+        workerComparators = new IBinaryComparator[this.parallelism][];
+        workerComparators[0] = comparators;
+        for (int w = 1; w < this.parallelism; ++w) {
+            workerComparators[w] = new IBinaryComparator[comparatorFactories.length];
+            for (int i = 0; i < comparatorFactories.length; ++i) {
+                workerComparators[w][i] = comparatorFactories[i].createBinaryComparator();
+            }
+        }
     }
 
     @Override
@@ -50,16 +83,42 @@ public class FrameSorterMergeSort extends AbstractFrameSorter {
         if (tPointersTemp == null || tPointersTemp.length < tPointers.length) {
             tPointersTemp = new int[tPointers.length];
         }
-        sort(0, tupleCount);
+        int workers = Math.min(parallelism, tupleCount / MIN_PARALLEL_SORT_TUPLES);
+        if (workers <= 1) {
+            int[] sorted = sort(tPointers, tPointersTemp, 0, tupleCount, comparators);
+            if (sorted != tPointers) {
+                tPointersTemp = tPointers;
+                tPointers = sorted;
+            }
+            return;
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        ParallelSortTask task = new ParallelSortTask(0, tupleCount, 0, workers);
+        pool.invoke(task);
+        if (task.exception != null) {
+            throw task.exception;
+        }
     }
 
     @Override
     public void close() {
         super.close();
         tPointersTemp = null;
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
-    void sort(int offset, int length) throws HyracksDataException {
+    /**
+     * Bottom-up merge sort of a range, which switches between the two arrays at every pass.
+     *
+     * @return the array that holds the sorted range
+     */
+    private int[] sort(int[] src, int[] dest, int offset, int length, IBinaryComparator[] comps)
+            throws HyracksDataException {
         int step = 1;
         int end = offset + length;
         /** bottom-up merge */
@@ -68,92 +127,101 @@ public class FrameSorterMergeSort extends AbstractFrameSorter {
             for (int i = offset; i < end; i += 2 * step) {
                 int next = i + step;
                 if (next < end) {
-                    merge(i, next, step, Math.min(step, end - next));
+                    merge(src, dest, i, next, step, Math.min(step, end - next), comps);
                 } else {
-                    System.arraycopy(tPointers, i * 4, tPointersTemp, i * 4, (end - i) * 4);
+                    System.arraycopy(src, i * ptrSize, dest, i * ptrSize, (end - i) * ptrSize);
                 }
             }
             /** prepare next phase merge */
             step *= 2;
-            int[] tmp = tPointersTemp;
-            tPointersTemp = tPointers;
-            tPointers = tmp;
+            int[] tmp = dest;
+            dest = src;
+            src = tmp;
         }
+        return src;
     }
 
     /**
      * Merge two subarrays into one
      */
-    private void merge(int start1, int start2, int len1, int len2) throws HyracksDataException {
+    private void merge(int[] src, int[] dest, int start1, int start2, int len1, int len2, IBinaryComparator[] comps)
+            throws HyracksDataException {
         int targetPos = start1;
         int pos1 = start1;
         int pos2 = start2;
         int end1 = start1 + len1 - 1;
         int end2 = start2 + len2 - 1;
         while (pos1 <= end1 && pos2 <= end2) {
-            int cmp = compare(pos1, pos2);
+            int cmp = compare(src, pos1, src, pos2, comps);
             if (cmp <= 0) {
-                copy(pos1, targetPos);
+                System.arraycopy(src, pos1 * ptrSize, dest, targetPos * ptrSize, ptrSize);
                 pos1++;
             } else {
-                copy(pos2, targetPos);
+                System.arraycopy(src, pos2 * ptrSize, dest, targetPos * ptrSize, ptrSize);
                 pos2++;
             }
             targetPos++;
         }
         if (pos1 <= end1) {
             int rest = end1 - pos1 + 1;
-            System.arraycopy(tPointers, pos1 * 4, tPointersTemp, targetPos * 4, rest * 4);
+            System.arraycopy(src, pos1 * ptrSize, dest, targetPos * ptrSize, rest * ptrSize);
         }
         if (pos2 <= end2) {
             int rest = end2 - pos2 + 1;
-            System.arraycopy(tPointers, pos2 * 4, tPointersTemp, targetPos * 4, rest * 4);
+            System.arraycopy(src, pos2 * ptrSize, dest, targetPos * ptrSize, rest * ptrSize);
         }
     }
 
-    private void copy(int src, int dest) {
-        tPointersTemp[dest * 4] = tPointers[src * 4];
-        tPointersTemp[dest * 4 + 1] = tPointers[src * 4 + 1];
-        tPointersTemp[dest * 4 + 2] = tPointers[src * 4 + 2];
-        tPointersTemp[dest * 4 + 3] = tPointers[src * 4 + 3];
-    }
+    /**
+     * Sorts a range of {@link #tPointers} with a range of workers: the halves are sorted in parallel and then merged
+     * by the first worker. Tasks that run at the same time never share a worker, and hence their comparators.
+     */
+    private class ParallelSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+
+        private final int to;
+
+        private final int firstWorker;
 
-    private int compare(int tp1, int tp2) throws HyracksDataException {
-        int i1 = tPointers[tp1 * 4];
-        int j1 = tPointers[tp1 * 4 + 1];
-        int v1 = tPointers[tp1 * 4 + 3];
+        private final int workers;
 
-        int tp2i = tPointers[tp2 * 4];
-        int tp2j = tPointers[tp2 * 4 + 1];
-        int tp2v = tPointers[tp2 * 4 + 3];
+        private HyracksDataException exception;
 
-        if (v1 != tp2v) {
-            return ((((long) v1) & 0xffffffffL) < (((long) tp2v) & 0xffffffffL)) ? -1 : 1;
+        ParallelSortTask(int from, int to, int firstWorker, int workers) {
+            this.from = from;
+            this.to = to;
+            this.firstWorker = firstWorker;
+            this.workers = workers;
         }
-        int i2 = tp2i;
-        int j2 = tp2j;
-        ByteBuffer buf1 = super.bufferManager.getFrame(i1);
-        ByteBuffer buf2 = super.bufferManager.getFrame(i2);
-        byte[] b1 = buf1.array();
-        byte[] b2 = buf2.array();
-        inputTupleAccessor.reset(buf1);
-        fta2.reset(buf2);
-        for (int f = 0; f < comparators.length; ++f) {
-            int fIdx = sortFields[f];
-            int f1Start = fIdx == 0 ? 0 : IntSerDeUtils.getInt(b1, j1 + (fIdx - 1) * 4);
-            int f1End = IntSerDeUtils.getInt(b1, j1 + fIdx * 4);
-            int s1 = j1 + inputTupleAccessor.getFieldSlotsLength() + f1Start;
-            int l1 = f1End - f1Start;
-            int f2Start = fIdx == 0 ? 0 : IntSerDeUtils.getInt(b2, j2 + (fIdx - 1) * 4);
-            int f2End = IntSerDeUtils.getInt(b2, j2 + fIdx * 4);
-            int s2 = j2 + fta2.getFieldSlotsLength() + f2Start;
-            int l2 = f2End - f2Start;
-            int c = comparators[f].compare(b1, s1, l1, b2, s2, l2);
-            if (c != 0) {
-                return c;
+
+        @Override
+        protected void compute() {
+            try {
+                IBinaryComparator[] comps = workerComparators[firstWorker];
+                if (workers == 1) {
+                    int[] sorted = sort(tPointers, tPointersTemp, from, to - from, comps);
+                    if (sorted != tPointers) {
+                        System.arraycopy(sorted, from * ptrSize, tPointers, from * ptrSize, (to - from) * ptrSize);
+                    }
+                    return;
+                }
+                int leftWorkers = workers / 2;
+                int mid = from + (int) ((long) (to - from) * leftWorkers / workers);
+                ParallelSortTask left = new ParallelSortTask(from, mid, firstWorker, leftWorkers);
+                ParallelSortTask right = new ParallelSortTask(mid, to, firstWorker + leftWorkers, workers
+                        - leftWorkers);
+                invokeAll(left, right);
+                if (left.exception != null || right.exception != null) {
+                    exception = left.exception != null ? left.exception : right.exception;
+                    return;
+                }
+                merge(tPointers, tPointersTemp, from, mid, mid - from, to - mid, comps);
+                System.arraycopy(tPointersTemp, from * ptrSize, tPointers, from * ptrSize, (to - from) * ptrSize);
+            } catch (HyracksDataException e) {
+                exception = e;
             }
         }
-        return 0;
     }
-
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.std.sort;
+
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputerFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.dataflow.std.sort.buffermanager.IFrameBufferManager;
+
+/**
+ * Sorts the tuple references by an MSD radix sort over the bytes of their normalized key words. Groups whose words
+ * are all equal are only compared field by field if the words are not decisive for all sort fields, and small groups
+ * are finished by insertion sort. Without a normalized key, this degrades to a merge sort.
+ */
+public class FrameSorterRadixSort extends AbstractFrameSorter {
+
+    private static final int RADIX = 256;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int keyBytes;
+
+    private final int[][] counts;
+
+    private final int[] swapBuffer;
+
+    private int[] tPointersTemp;
+
+    public FrameSorterRadixSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor) throws HyracksDataException {
+        this(ctx, bufferManager, sortFields, firstKeyNormalizerFactory, comparatorFactories, recordDescriptor,
+                Integer.MAX_VALUE);
+    }
+
+    public FrameSorterRadixSort(IHyracksTaskContext ctx, IFrameBufferManager bufferManager, int[] sortFields,
+            INormalizedKeyComputerFactory firstKeyNormalizerFactory, IBinaryComparatorFactory[] comparatorFactories,
+            RecordDescriptor recordDescriptor, int outputLimit) throws HyracksDataException {
+        super(ctx, bufferManager, sortFields, firstKeyNormalizerFactory, comparatorFactories, recordDescriptor,
+                outputLimit);
+        keyBytes = keyWords * 4;
+        counts = new int[keyBytes][RADIX + 1];
+        swapBuffer = new int[ptrSize];
+    }
+
+    @Override
+    void sortTupleReferences() throws HyracksDataException {
+        if (tPointersTemp == null || tPointersTemp.length < tPointers.length) {
+            tPointersTemp = new int[tPointers.length];
+        }
+        radixSort(0, tupleCount, 0);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        tPointersTemp = null;
+    }
+
+    private void radixSort(int from, int to, int digit) throws HyracksDataException {
+        while (true) {
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                insertionSort(from, to);
+                return;
+            }
+            if (digit == keyBytes) {
+                if (decidedFields < comparators.length) {
+                    mergeSort(from, to);
+                }
+                return;
+            }
+            int[] count = counts[digit];
+            for (int b = 0; b <= RADIX; ++b) {
+                count[b] = 0;
+            }
+            for (int p = from; p < to; ++p) {
+                ++count[digit(p, digit) + 1];
+            }
+            if (count[digit(from, digit) + 1] == to - from) {
+                // all references share this byte
+                ++digit;
+                continue;
+            }
+            for (int b = 0; b < RADIX; ++b) {
+                count[b + 1] += count[b];
+            }
+            for (int p = from; p < to; ++p) {
+                int target = from + count[digit(p, digit)]++;
+                System.arraycopy(tPointers, p * ptrSize, tPointersTemp, target * ptrSize, ptrSize);
+            }
+            System.arraycopy(tPointersTemp, from * ptrSize, tPointers, from * ptrSize, (to - from) * ptrSize);
+            // count[b] is now the end of bucket b
+            int start = from;
+            for (int b = 0; b < RADIX; ++b) {
+                int end = from + count[b];
+                if (end - start > 1) {
+                    radixSort(start, end, digit + 1);
+                }
+                start = end;
+            }
+            return;
+        }
+    }
+
+    private int digit(int ptr, int digit) {
+        int word = tPointers[ptr * ptrSize + ID_NORMAL_KEY + (digit >> 2)];
+        return (word >>> (24 - ((digit & 3) << 3))) & 0xff;
+    }
+
+    private void insertionSort(int from, int to) throws HyracksDataException {
+        for (int i = from + 1; i < to; ++i) {
+            if (compare(tPointers, i - 1, tPointers, i) <= 0) {
+                continue;
+            }
+            System.arraycopy(tPointers, i * ptrSize, swapBuffer, 0, ptrSize);
+            int j = i;
+            do {
+                System.arraycopy(tPointers, (j - 1) * ptrSize, tPointers, j * ptrSize, ptrSize);
+                --j;
+            } while (j > from && compare(tPointers, j - 1, swapBuffer, 0) > 0);
+            System.arraycopy(swapBuffer, 0, tPointers, j * ptrSize, ptrSize);
+        }
+    }
+
+    /**
+     * Sorts a range by comparisons, for groups whose normalized keys do not decide their order.
+     */
+    private void mergeSort(int from, int to) throws HyracksDataException {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(from, mid);
+        mergeSort(mid, to);
+        if (compare(tPointers, mid - 1, tPointers, mid) <= 0) {
+            return;
+        }
+        int pos1 = from;
+        int pos2 = mid;
+        int target = from;
+        while (pos1 < mid && pos2 < to) {
+            int src = compare(tPointers, pos1, tPointers, pos2) <= 0 ? pos1++ : pos2++;
+            System.arraycopy(tPointers, src * ptrSize, tPointersTemp, target++ * ptrSize, ptrSize);
+        }
+        System.arraycopy(tPointers, pos1 * ptrSize, tPointersTemp, target * ptrSize, (mid - pos1) * ptrSize);
+        target += mid - pos1;
+        System.arraycopy(tPointers, pos2 * ptrSize, tPointersTemp, target * ptrSize, (to - pos2) * ptrSize);
+        System.arraycopy(tPointersTemp, from * ptrSize, tPointers, from * ptrSize, (to - from) * ptrSize);
+    }
+}
@@ -14,7 +14,6 @@
  */
 package edu.uci.ics.hyracks.dataflow.std.sort;
 
-import java.util.Comparator;
 import java.util.List;
 
 import edu.uci.ics.hyracks.api.comm.IFrame;
@@ -22,14 +21,19 @@ import edu.uci.ics.hyracks.api.comm.IFrameReader;
 import edu.uci.ics.hyracks.api.comm.IFrameTupleAccessor;
 import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
 import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
+import edu.uci.ics.hyracks.api.dataflow.value.IMultiWordNormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.INormalizedKeyComputer;
 import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAppender;
 import edu.uci.ics.hyracks.dataflow.std.sort.util.GroupFrameAccessor;
-import edu.uci.ics.hyracks.dataflow.std.util.ReferenceEntry;
-import edu.uci.ics.hyracks.dataflow.std.util.ReferencedPriorityQueue;
 
+/**
+ * Merges sorted runs through a tree of losers: every internal node keeps the run that lost the match played there,
+ * and the overall winner is kept in slot 0. Replacing the winner with the next tuple of its run replays the matches
+ * on the path from its leaf to the root, which is one comparison per level. The normalized key of the current tuple
+ * of every run is cached, so most comparisons do not touch the tuples.
+ */
 public class RunMergingFrameReader implements IFrameReader {
     private final IHyracksTaskContext ctx;
     private final List<? extends IFrameReader> runCursors;
@@ -39,11 +43,14 @@ public class RunMergingFrameReader implements IFrameReader {
     private final INormalizedKeyComputer nmkComputer;
     private final RecordDescriptor recordDesc;
     private final int topK;
+    private final int keyWords;
+    private final int decidedFields;
     private int tupleCount;
     private FrameTupleAppender outFrameAppender;
-    private ReferencedPriorityQueue topTuples;
     private int[] tupleIndexes;
     private IFrameTupleAccessor[] tupleAccessors;
+    private int[] normalizedKeys;
+    private int[] losers;
 
     public RunMergingFrameReader(IHyracksTaskContext ctx, List<? extends IFrameReader> runs,
             List<? extends IFrame> inFrames, int[] sortFields, IBinaryComparator[] comparators,
@@ -62,47 +69,55 @@ public class RunMergingFrameReader implements IFrameReader {
         this.nmkComputer = nmkComputer;
         this.recordDesc = recordDesc;
         this.topK = topK;
+        if (nmkComputer instanceof IMultiWordNormalizedKeyComputer) {
+            IMultiWordNormalizedKeyComputer mwComputer = (IMultiWordNormalizedKeyComputer) nmkComputer;
+            this.keyWords = mwComputer.getWordCount();
+            this.decidedFields = mwComputer.isDecisive() ? 1 : 0;
+        } else {
+            this.keyWords = nmkComputer == null ? 0 : 1;
+            this.decidedFields = 0;
+        }
     }
 
     @Override
     public void open() throws HyracksDataException {
+        int runCount = runCursors.size();
         tupleCount = 0;
-        tupleAccessors = new IFrameTupleAccessor[runCursors.size()];
+        tupleAccessors = new IFrameTupleAccessor[runCount];
+        tupleIndexes = new int[runCount];
+        normalizedKeys = new int[runCount * keyWords];
         outFrameAppender = new FrameTupleAppender();
-        Comparator<ReferenceEntry> comparator = createEntryComparator(comparators);
-        topTuples = new ReferencedPriorityQueue(runCursors.size(), comparator, sortFields, nmkComputer);
-        tupleIndexes = new int[runCursors.size()];
-        for (int i = 0; i < runCursors.size(); i++) {
-            tupleIndexes[i] = 0;
-            int runIndex = topTuples.peek().getRunid();
+        for (int runIndex = 0; runIndex < runCount; runIndex++) {
             runCursors.get(runIndex).open();
             if (runCursors.get(runIndex).nextFrame(inFrames.get(runIndex))) {
                 tupleAccessors[runIndex] = new GroupFrameAccessor(ctx.getInitialFrameSize(), recordDesc);
                 tupleAccessors[runIndex].reset(inFrames.get(runIndex).getBuffer());
-                setNextTopTuple(runIndex, tupleIndexes, runCursors, inFrames, tupleAccessors, topTuples);
+                setNextTuple(runIndex);
             } else {
-                closeRun(runIndex, runCursors, tupleAccessors);
-                topTuples.pop();
+                closeRun(runIndex);
             }
         }
+        buildTree();
     }
 
     @Override
     public boolean nextFrame(IFrame outFrame) throws HyracksDataException {
         outFrameAppender.reset(outFrame, true);
-        while (!topTuples.areRunsExhausted() && tupleCount < topK) {
-            ReferenceEntry top = topTuples.peek();
-            int runIndex = top.getRunid();
-            IFrameTupleAccessor fta = top.getAccessor();
-            int tupleIndex = top.getTupleIndex();
-
-            if (!outFrameAppender.append(fta, tupleIndex)) {
+        while (losers.length > 0 && tupleCount < topK) {
+            int runIndex = losers[0];
+            IFrameTupleAccessor fta = tupleAccessors[runIndex];
+            if (fta == null) {
+                // exhausted runs lose every match, so all of them are
+                break;
+            }
+            if (!outFrameAppender.append(fta, tupleIndexes[runIndex])) {
                 return true;
             } else {
                 tupleCount++;
             }
             ++tupleIndexes[runIndex];
-            setNextTopTuple(runIndex, tupleIndexes, runCursors, inFrames, tupleAccessors, topTuples);
+            setNextTuple(runIndex);
+            replay(runIndex);
         }
 
         if (outFrameAppender.getTupleCount() > 0) {
@@ -114,82 +129,133 @@ public class RunMergingFrameReader implements IFrameReader {
     @Override
     public void close() throws HyracksDataException {
         for (int i = 0; i < runCursors.size(); ++i) {
-            closeRun(i, runCursors, tupleAccessors);
+            closeRun(i);
         }
     }
 
-    private static void setNextTopTuple(int runIndex, int[] tupleIndexes, List<? extends IFrameReader> runCursors,
-            List<? extends IFrame> inFrames, IFrameTupleAccessor[] tupleAccessors, ReferencedPriorityQueue topTuples)
-            throws HyracksDataException {
-        boolean exists = hasNextTuple(runIndex, tupleIndexes, runCursors, inFrames, tupleAccessors);
-        if (exists) {
-            topTuples.popAndReplace(tupleAccessors[runIndex], tupleIndexes[runIndex]);
-        } else {
-            topTuples.pop();
-            closeRun(runIndex, runCursors, tupleAccessors);
+    /**
+     * Plays all matches bottom-up. The leaves of the runs are the nodes runCount to 2 * runCount - 1 of an implicit
+     * binary tree, so the internal nodes are 1 to runCount - 1 and the parent of node n is n / 2.
+     */
+    private void buildTree() throws HyracksDataException {
+        int runCount = runCursors.size();
+        losers = new int[runCount];
+        if (runCount == 0) {
+            return;
+        }
+        int[] winners = new int[2 * runCount];
+        for (int i = 0; i < runCount; i++) {
+            winners[runCount + i] = i;
+        }
+        for (int node = runCount - 1; node > 0; node--) {
+            int left = winners[2 * node];
+            int right = winners[2 * node + 1];
+            if (isBefore(right, left)) {
+                winners[node] = right;
+                losers[node] = left;
+            } else {
+                winners[node] = left;
+                losers[node] = right;
+            }
+        }
+        losers[0] = runCount == 1 ? 0 : winners[1];
+    }
+
+    /**
+     * Replays the matches on the path of the given run, whose tuple has just changed, up to the root.
+     */
+    private void replay(int runIndex) throws HyracksDataException {
+        int winner = runIndex;
+        for (int node = (runIndex + losers.length) >> 1; node > 0; node >>= 1) {
+            if (isBefore(losers[node], winner)) {
+                int loser = winner;
+                winner = losers[node];
+                losers[node] = loser;
+            }
+        }
+        losers[0] = winner;
+    }
+
+    /**
+     * @return whether the current tuple of the first run goes before the one of the second. Exhausted runs go last,
+     *         and ties go to the run with the lower index, which keeps the merge stable.
+     */
+    private boolean isBefore(int run1, int run2) throws HyracksDataException {
+        IFrameTupleAccessor fta1 = tupleAccessors[run1];
+        IFrameTupleAccessor fta2 = tupleAccessors[run2];
+        if (fta1 == null || fta2 == null) {
+            return fta2 == null && (fta1 != null || run1 < run2);
+        }
+        int base1 = run1 * keyWords;
+        int base2 = run2 * keyWords;
+        for (int w = 0; w < keyWords; w++) {
+            int v1 = normalizedKeys[base1 + w];
+            int v2 = normalizedKeys[base2 + w];
+            if (v1 != v2) {
+                return (((long) v1) & 0xffffffffL) < (((long) v2) & 0xffffffffL);
+            }
+        }
+        int tIndex1 = tupleIndexes[run1];
+        int tIndex2 = tupleIndexes[run2];
+        byte[] b1 = fta1.getBuffer().array();
+        byte[] b2 = fta2.getBuffer().array();
+        for (int f = decidedFields; f < sortFields.length; ++f) {
+            int fIdx = sortFields[f];
+            int c = comparators[f].compare(b1, fta1.getAbsoluteFieldStartOffset(tIndex1, fIdx),
+                    fta1.getFieldLength(tIndex1, fIdx), b2, fta2.getAbsoluteFieldStartOffset(tIndex2, fIdx),
+                    fta2.getFieldLength(tIndex2, fIdx));
+            if (c != 0) {
+                return c < 0;
+            }
+        }
+        return run1 < run2;
+    }
+
+    /**
+     * Moves the run to its next tuple, reading its next frame if needed, and caches the normalized key of the tuple.
+     * Closes the run if it has no more tuples.
+     */
+    private void setNextTuple(int runIndex) throws HyracksDataException {
+        if (!hasNextTuple(runIndex)) {
+            closeRun(runIndex);
+            return;
+        }
+        if (keyWords > 0) {
+            IFrameTupleAccessor fta = tupleAccessors[runIndex];
+            int tIndex = tupleIndexes[runIndex];
+            int fIdx = sortFields[0];
+            byte[] bytes = fta.getBuffer().array();
+            int start = fta.getAbsoluteFieldStartOffset(tIndex, fIdx);
+            int length = fta.getFieldLength(tIndex, fIdx);
+            if (nmkComputer instanceof IMultiWordNormalizedKeyComputer) {
+                ((IMultiWordNormalizedKeyComputer) nmkComputer).normalize(bytes, start, length, normalizedKeys,
+                        runIndex * keyWords);
+            } else {
+                normalizedKeys[runIndex] = nmkComputer.normalize(bytes, start, length);
+            }
         }
     }
 
-    private static boolean hasNextTuple(int runIndex, int[] tupleIndexes, List<? extends IFrameReader> runCursors,
-            List<? extends IFrame> inFrames, IFrameTupleAccessor[] tupleAccessors) throws HyracksDataException {
+    private boolean hasNextTuple(int runIndex) throws HyracksDataException {
         if (tupleAccessors[runIndex] == null || runCursors.get(runIndex) == null) {
             return false;
-        } else if (tupleIndexes[runIndex] >= tupleAccessors[runIndex].getTupleCount()) {
+        }
+        while (tupleIndexes[runIndex] >= tupleAccessors[runIndex].getTupleCount()) {
             IFrame frame = inFrames.get(runIndex);
-            if (runCursors.get(runIndex).nextFrame(frame)) {
-                tupleIndexes[runIndex] = 0;
-                tupleAccessors[runIndex].reset(frame.getBuffer());
-                return hasNextTuple(runIndex, tupleIndexes, runCursors, inFrames, tupleAccessors);
-            } else {
+            if (!runCursors.get(runIndex).nextFrame(frame)) {
                 return false;
             }
-        } else {
-            return true;
+            tupleIndexes[runIndex] = 0;
+            tupleAccessors[runIndex].reset(frame.getBuffer());
         }
+        return true;
     }
 
-    private static void closeRun(int index, List<? extends IFrameReader> runCursors,
-            IFrameTupleAccessor[] tupleAccessors)
-            throws HyracksDataException {
+    private void closeRun(int index) throws HyracksDataException {
         if (runCursors.get(index) != null) {
             runCursors.get(index).close();
             runCursors.set(index, null);
             tupleAccessors[index] = null;
         }
     }
-
-    private Comparator<ReferenceEntry> createEntryComparator(final IBinaryComparator[] comparators) {
-        return new Comparator<ReferenceEntry>() {
-            public int compare(ReferenceEntry tp1, ReferenceEntry tp2) {
-                int nmk1 = tp1.getNormalizedKey();
-                int nmk2 = tp2.getNormalizedKey();
-                if (nmk1 != nmk2) {
-                    return ((((long) nmk1) & 0xffffffffL) < (((long) nmk2) & 0xffffffffL)) ? -1 : 1;
-                }
-                IFrameTupleAccessor fta1 = tp1.getAccessor();
-                IFrameTupleAccessor fta2 = tp2.getAccessor();
-                byte[] b1 = fta1.getBuffer().array();
-                byte[] b2 = fta2.getBuffer().array();
-                int[] tPointers1 = tp1.getTPointers();
-                int[] tPointers2 = tp2.getTPointers();
-
-                for (int f = 0; f < sortFields.length; ++f) {
-                    int c;
-                    try {
-                        c = comparators[f].compare(b1, tPointers1[2 * f + 1], tPointers1[2 * f + 2], b2,
-                                tPointers2[2 * f + 1], tPointers2[2 * f + 2]);
-                        if (c != 0) {
-                            return c;
-                        }
-                    } catch (HyracksDataException e) {
-                        throw new IllegalArgumentException(e);
-                    }
-
-                }
-                int runid1 = tp1.getRunid();
-                int runid2 = tp2.getRunid();
-                return runid1 < runid2 ? -1 : (runid1 == runid2 ? 0 : 1);
-            }
-        };
-    }
-}
\ No newline at end of file
+}
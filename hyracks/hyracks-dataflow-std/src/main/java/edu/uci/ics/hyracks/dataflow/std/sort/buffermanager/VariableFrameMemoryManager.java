@@ -23,7 +23,6 @@ import edu.uci.ics.hyracks.api.comm.FixedSizeFrame;
 import edu.uci.ics.hyracks.api.comm.FrameHelper;
 import edu.uci.ics.hyracks.api.comm.IFrame;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
-import edu.uci.ics.hyracks.dataflow.common.util.IntSerDeUtils;
 
 public class VariableFrameMemoryManager implements IFrameBufferManager {
 
@@ -69,7 +68,7 @@ public class VariableFrameMemoryManager implements IFrameBufferManager {
         }
         ByteBuffer buffer = framePool.allocateFrame(frameSize);
         if (buffer != null) {
-            IntSerDeUtils.putInt(buffer.array(), FrameHelper.getTupleCountOffset(buffer.capacity()), 0);
+            buffer.putInt(FrameHelper.getTupleCountOffset(buffer.capacity()), 0);
             physicalFrameOffsets.add(new PhysicalFrameOffset(new FixedSizeFrame(buffer), 0));
             return physicalFrameOffsets.size() - 1;
         }
@@ -113,7 +112,12 @@ public class VariableFrameMemoryManager implements IFrameBufferManager {
         }
         ByteBuffer buffer = physicalFrameOffsets.get(physicalFrameId).physicalFrame.getBuffer();
         int offset = physicalFrameOffsets.get(physicalFrameId).physicalOffset;
-        System.arraycopy(frame.array(), 0, buffer.array(), offset, frameSize);
+        ByteBuffer src = frame.duplicate();
+        src.clear();
+        ByteBuffer dest = buffer.duplicate();
+        dest.clear();
+        dest.position(offset);
+        dest.put(src);
         if (offset + frameSize < buffer.capacity()) {
             freeSlotPolicy.pushNewFrame(physicalFrameId, buffer.capacity() - offset - frameSize);
         }
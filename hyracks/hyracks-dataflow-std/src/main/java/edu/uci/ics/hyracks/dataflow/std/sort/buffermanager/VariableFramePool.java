@@ -157,7 +157,7 @@ public class VariableFramePool implements IFramePool {
 
     private int deAllocateFrame(int id) {
         ByteBuffer frame = buffers.get(id);
-        ctx.deallocateFrames(frame.capacity());
+        ctx.deallocateFrame(frame);
         buffers.set(id, null);
         used.set(id);
         allocateMem -= frame.capacity();
@@ -183,6 +183,11 @@ public class VariableFramePool implements IFramePool {
 
     @Override
     public void close() {
+        for (ByteBuffer frame : buffers) {
+            if (frame != null) {
+                ctx.deallocateFrame(frame);
+            }
+        }
         buffers.clear();
         used.clear();
         allocateMem = 0;
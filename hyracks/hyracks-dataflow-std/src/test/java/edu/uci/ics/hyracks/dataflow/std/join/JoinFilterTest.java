@@ -0,0 +1,186 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.uci.ics.hyracks.dataflow.std.join;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFamily;
+import edu.uci.ics.hyracks.api.dataflow.value.ISerializerDeserializer;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.control.nc.resources.memory.FrameManager;
+import edu.uci.ics.hyracks.data.std.accessors.MurmurHash3BinaryHashFunctionFamily;
+import edu.uci.ics.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import edu.uci.ics.hyracks.data.std.primitive.IntegerPointable;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import edu.uci.ics.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+
+public class JoinFilterTest {
+    private static final int FRAME_SIZE = 32768;
+
+    private static final int[] KEY_FIELDS = new int[] { 0 };
+
+    private static final IBinaryHashFunctionFamily[] HASH_FUNCTION_FAMILIES = new IBinaryHashFunctionFamily[] {
+            MurmurHash3BinaryHashFunctionFamily.INSTANCE };
+
+    private static final RecordDescriptor RECORD_DESCRIPTOR = new RecordDescriptor(
+            new ISerializerDeserializer[] { IntegerSerializerDeserializer.INSTANCE });
+
+    private final FrameManager frameManager = new FrameManager(FRAME_SIZE);
+
+    @Test
+    public void testAddedKeysAreNeverRejected() throws HyracksDataException {
+        JoinFilter filter = createFilter();
+        filter.reset(1024, 5);
+        FrameTupleAccessor keys = createKeys(0, 3000, 3);
+        for (int i = 0; i < keys.getTupleCount(); ++i) {
+            filter.add(keys, i);
+        }
+        for (int i = 0; i < keys.getTupleCount(); ++i) {
+            assertTrue(filter.mightContain(keys, i));
+        }
+        assertRejected(filter, -1, 3001);
+    }
+
+    @Test
+    public void testAddedKeysAreNeverRejectedWithoutRange() throws HyracksDataException {
+        JoinFilter filter = new JoinFilter(KEY_FIELDS, HASH_FUNCTION_FAMILIES, null);
+        filter.reset(1024, 5);
+        FrameTupleAccessor keys = createKeys(0, 100, 1);
+        for (int i = 0; i < keys.getTupleCount(); ++i) {
+            filter.add(keys, i);
+        }
+        for (int i = 0; i < keys.getTupleCount(); ++i) {
+            assertTrue(filter.mightContain(keys, i));
+        }
+    }
+
+    @Test
+    public void testUnionMergesBitsAndRange() throws IOException {
+        JoinFilter low = createFilter(10, 20, 1024, 5);
+        JoinFilter high = createFilter(30, 40, 1024, 5);
+
+        JoinFilter merged = createFilter();
+        assertFalse(merged.isInitialized());
+        merged.union(serialize(low));
+        assertTrue(merged.isInitialized());
+        merged.union(serialize(high));
+
+        assertContained(merged, 10, 20);
+        assertContained(merged, 30, 40);
+        assertRejected(merged, 9, 40);
+
+        // the range of a filter is widened by a filter with a smaller minimum, too
+        JoinFilter reversed = createFilter();
+        reversed.union(serialize(high));
+        reversed.union(serialize(low));
+        assertContained(reversed, 10, 20);
+        assertContained(reversed, 30, 40);
+        assertRejected(reversed, 9, 40);
+    }
+
+    @Test
+    public void testUnionWithEmptyFilterKeepsRange() throws IOException {
+        JoinFilter empty = createFilter();
+        empty.reset(1024, 5);
+
+        JoinFilter merged = createFilter(10, 20, 1024, 5);
+        merged.union(serialize(empty));
+        assertContained(merged, 10, 20);
+        assertRejected(merged, 9, 20);
+    }
+
+    @Test
+    public void testUnionTakesOnTheSizeOfTheFirstFilter() throws IOException {
+        JoinFilter merged = createFilter();
+        merged.union(serialize(createFilter(0, 10, 4096, 3)));
+        // a filter of the same size merges, one of another size or another number of hashes does not
+        merged.union(serialize(createFilter(10, 20, 4096, 3)));
+        assertUnionFails(merged, createFilter(0, 10, 2048, 3));
+        assertUnionFails(merged, createFilter(0, 10, 4096, 4));
+        assertContained(merged, 0, 20);
+    }
+
+    private void assertUnionFails(JoinFilter merged, JoinFilter other) throws IOException {
+        try {
+            merged.union(serialize(other));
+        } catch (HyracksDataException e) {
+            return;
+        }
+        throw new AssertionError("a join filter of another size was merged");
+    }
+
+    private void assertContained(JoinFilter filter, int from, int to) throws HyracksDataException {
+        FrameTupleAccessor keys = createKeys(from, to, 1);
+        for (int i = 0; i < keys.getTupleCount(); ++i) {
+            assertTrue("key " + (from + i), filter.mightContain(keys, i));
+        }
+    }
+
+    private void assertRejected(JoinFilter filter, int belowMin, int aboveMax) throws HyracksDataException {
+        FrameTupleAccessor keys = createKeys(belowMin, belowMin + 1, 1);
+        assertFalse(filter.mightContain(keys, 0));
+        keys = createKeys(aboveMax, aboveMax + 1, 1);
+        assertFalse(filter.mightContain(keys, 0));
+    }
+
+    private JoinFilter createFilter() {
+        return new JoinFilter(KEY_FIELDS, HASH_FUNCTION_FAMILIES,
+                PointableBinaryComparatorFactory.of(IntegerPointable.FACTORY).createBinaryComparator());
+    }
+
+    private JoinFilter createFilter(int from, int to, int numBits, int numHashes) throws HyracksDataException {
+        JoinFilter filter = createFilter();
+        filter.reset(numBits, numHashes);
+        FrameTupleAccessor keys = createKeys(from, to, 1);
+        for (int i = 0; i < keys.getTupleCount(); ++i) {
+            filter.add(keys, i);
+        }
+        return filter;
+    }
+
+    private static DataInputStream serialize(JoinFilter filter) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        filter.writeTo(new DataOutputStream(bytes));
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private FrameTupleAccessor createKeys(int from, int to, int step) throws HyracksDataException {
+        FrameTupleAppender appender = new FrameTupleAppender(new VSizeFrame(frameManager));
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(1);
+        for (int key = from; key < to; key += step) {
+            tb.reset();
+            tb.addField(IntegerSerializerDeserializer.INSTANCE, key);
+            assertTrue(appender.append(tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize()));
+        }
+        FrameTupleAccessor accessor = new FrameTupleAccessor(RECORD_DESCRIPTOR);
+        accessor.reset(appender.getBuffer());
+        assertEquals((to - from + step - 1) / step, accessor.getTupleCount());
+        return accessor;
+    }
+}
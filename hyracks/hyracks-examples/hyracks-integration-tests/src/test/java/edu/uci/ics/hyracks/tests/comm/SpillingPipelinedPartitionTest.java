@@ -0,0 +1,183 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.tests.comm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.comm.FrameHelper;
+import edu.uci.ics.hyracks.api.comm.IFrameWriter;
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.ActivityId;
+import edu.uci.ics.hyracks.api.dataflow.ConnectorDescriptorId;
+import edu.uci.ics.hyracks.api.dataflow.OperatorDescriptorId;
+import edu.uci.ics.hyracks.api.dataflow.TaskAttemptId;
+import edu.uci.ics.hyracks.api.dataflow.TaskId;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.api.partitions.PartitionId;
+import edu.uci.ics.hyracks.control.nc.io.IOManager;
+import edu.uci.ics.hyracks.control.nc.partitions.PartitionManager;
+import edu.uci.ics.hyracks.control.nc.partitions.SpillingPipelinedPartition;
+import edu.uci.ics.hyracks.test.support.TestUtils;
+
+public class SpillingPipelinedPartitionTest {
+    private static final int FRAME_SIZE = 256;
+
+    private final PartitionId pid = new PartitionId(new JobId(0), new ConnectorDescriptorId(0), 0, 0);
+
+    private final TaskAttemptId taId = new TaskAttemptId(new TaskId(new ActivityId(new OperatorDescriptorId(0), 0),
+            0), 0);
+
+    private IHyracksTaskContext ctx;
+
+    private PartitionManager manager;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        ctx = TestUtils.create(FRAME_SIZE);
+        manager = new PartitionManager(null, (IOManager) ctx.getIOManager());
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        manager.close();
+    }
+
+    @Test
+    public void framesSpilledWhileConsumerIsBlockedArriveInOrder() throws Exception {
+        SpillingPipelinedPartition partition = new SpillingPipelinedPartition(ctx, manager, pid, taId, executor, 2);
+        CollectingWriter consumer = new CollectingWriter();
+        partition.open();
+        manager.registerPartitionRequest(pid, consumer);
+
+        // the consumer holds on to the first frame, so at most two more fit in memory and the rest are spilled
+        List<ByteBuffer> expected = new ArrayList<ByteBuffer>();
+        for (int i = 0; i < 10; ++i) {
+            ByteBuffer frame = createFrame(1 + i % 3, i);
+            expected.add(frame);
+            partition.nextFrame(frame);
+        }
+        consumer.release.countDown();
+        // once the consumer catches up, frames go to memory again, unless the spill file still holds some
+        for (int i = 10; i < 20; ++i) {
+            ByteBuffer frame = createFrame(1 + i % 2, i);
+            expected.add(frame);
+            partition.nextFrame(frame);
+        }
+        partition.close();
+
+        assertTrue(consumer.closed.await(30, TimeUnit.SECONDS));
+        assertFrames(expected, consumer);
+        partition.deallocate();
+    }
+
+    @Test
+    public void framesAreReadBackFromTheSpillFile() throws Exception {
+        SpillingPipelinedPartition partition = new SpillingPipelinedPartition(ctx, manager, pid, taId, executor, 1);
+        partition.open();
+
+        // nobody consumes the partition yet, so every frame but the first is spilled, large frames included
+        List<ByteBuffer> expected = new ArrayList<ByteBuffer>();
+        int[] nBlocks = new int[] { 1, 4, 1, 2, 5, 1 };
+        for (int i = 0; i < nBlocks.length; ++i) {
+            ByteBuffer frame = createFrame(nBlocks[i], i);
+            expected.add(frame);
+            partition.nextFrame(frame);
+        }
+        partition.close();
+
+        CollectingWriter consumer = new CollectingWriter();
+        consumer.release.countDown();
+        manager.registerPartitionRequest(pid, consumer);
+
+        assertTrue(consumer.closed.await(30, TimeUnit.SECONDS));
+        assertFrames(expected, consumer);
+        partition.deallocate();
+    }
+
+    private static void assertFrames(List<ByteBuffer> expected, CollectingWriter consumer) {
+        assertFalse(consumer.failed);
+        assertEquals(expected.size(), consumer.frames.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            ByteBuffer frame = expected.get(i);
+            frame.clear();
+            assertEquals("frame " + i, frame, consumer.frames.get(i));
+        }
+    }
+
+    private static ByteBuffer createFrame(int nBlocks, int seed) {
+        ByteBuffer frame = ByteBuffer.allocate(nBlocks * FRAME_SIZE);
+        for (int i = 0; i < frame.capacity(); ++i) {
+            frame.put(i, (byte) (i * 31 + seed));
+        }
+        FrameHelper.serializeFrameSize(frame, (byte) nBlocks);
+        return frame;
+    }
+
+    private static class CollectingWriter implements IFrameWriter {
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private final List<ByteBuffer> frames = new ArrayList<ByteBuffer>();
+
+        private volatile boolean failed;
+
+        @Override
+        public void open() throws HyracksDataException {
+        }
+
+        @Override
+        public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new HyracksDataException(e);
+            }
+            ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+            copy.put(buffer.duplicate());
+            copy.clear();
+            frames.add(copy);
+        }
+
+        @Override
+        public void fail() throws HyracksDataException {
+            failed = true;
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+            closed.countDown();
+        }
+    }
+}
@@ -136,6 +136,10 @@ public abstract class AbstractIntegrationTest {
         return jobId;
     }
 
+    protected IHyracksClientConnection getHyracksClientConnection() {
+        return hcc;
+    }
+
     protected void runTest(JobSpecification spec) throws Exception {
         JobId jobId = executeTest(spec);
         hcc.waitForCompletion(jobId);
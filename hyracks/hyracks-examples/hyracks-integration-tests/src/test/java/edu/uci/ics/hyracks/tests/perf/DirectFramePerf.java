@@ -0,0 +1,244 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.uci.ics.hyracks.tests.perf;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import edu.uci.ics.hyracks.api.comm.IFrameWriter;
+import edu.uci.ics.hyracks.api.comm.IPartitionWriterFactory;
+import edu.uci.ics.hyracks.api.comm.VSizeFrame;
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunction;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.ISerializerDeserializer;
+import edu.uci.ics.hyracks.api.dataflow.value.RecordDescriptor;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import edu.uci.ics.hyracks.data.std.accessors.PointableBinaryHashFunctionFactory;
+import edu.uci.ics.hyracks.data.std.primitive.IntegerPointable;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAppender;
+import edu.uci.ics.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
+import edu.uci.ics.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import edu.uci.ics.hyracks.dataflow.common.data.partition.FieldHashPartitionComputerFactory;
+import edu.uci.ics.hyracks.dataflow.common.io.RunFileWriter;
+import edu.uci.ics.hyracks.dataflow.std.connectors.PartitionDataWriter;
+import edu.uci.ics.hyracks.dataflow.std.sort.Algorithm;
+import edu.uci.ics.hyracks.dataflow.std.sort.ExternalSortRunGenerator;
+import edu.uci.ics.hyracks.dataflow.std.sort.ExternalSortRunMerger;
+import edu.uci.ics.hyracks.test.support.TestUtils;
+
+/**
+ * Compares heap and direct output frames for the send side of an MToNPartitioningConnectorDescriptor (the
+ * {@link PartitionDataWriter}), in two setups:
+ * <ul>
+ * <li>partitioning into run files, where a heap frame is copied by the JDK into a temporary direct buffer on every
+ * file write and a direct frame is not, and</li>
+ * <li>a whole pipeline from producer to consumer: an external sort ({@link ExternalSortRunGenerator} and
+ * {@link ExternalSortRunMerger}) feeds the partitioner, whose frames are copied into on-heap channel buffers like a
+ * LocalInputChannel does, and a consumer reads every tuple of them through a {@link FrameTupleAccessor}.</li>
+ * </ul>
+ * Arguments: [frame size] [input size in MB] [repeats].
+ */
+public class DirectFramePerf {
+    private static final Logger LOGGER = Logger.getLogger(DirectFramePerf.class.getName());
+
+    private static final RecordDescriptor RECORD_DESC = new RecordDescriptor(new ISerializerDeserializer[] {
+            IntegerSerializerDeserializer.INSTANCE, UTF8StringSerializerDeserializer.INSTANCE });
+
+    private static final int[] SORT_FIELDS = new int[] { 0 };
+
+    private static final IBinaryComparatorFactory[] COMPARATOR_FACTORIES = new IBinaryComparatorFactory[] {
+            PointableBinaryComparatorFactory.of(IntegerPointable.FACTORY) };
+
+    private static final int PARTITIONS = 16;
+
+    private static final int SORT_FRAMES_LIMIT = 64;
+
+    private static final int MERGE_FRAMES_LIMIT = 8;
+
+    public static void main(String[] args) throws Exception {
+        int frameSize = args.length > 0 ? Integer.parseInt(args[0]) : 32768;
+        long inputSize = (args.length > 1 ? Long.parseLong(args[1]) : 256) * 1024 * 1024;
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        List<ByteBuffer> input = generateInput(TestUtils.create(frameSize), inputSize);
+        for (boolean direct : new boolean[] { false, true }) {
+            IHyracksTaskContext ctx = TestUtils.create(frameSize, direct);
+            // the first round warms up the JIT and is not counted
+            long partitionTime = 0;
+            long pipelineTime = 0;
+            for (int i = 0; i <= repeats; i++) {
+                long p = runPartitioning(ctx, input);
+                long s = runPipeline(ctx, input);
+                if (i > 0) {
+                    partitionTime += p;
+                    pipelineTime += s;
+                }
+            }
+            LOGGER.info((direct ? "direct" : "heap") + " frames of " + frameSize + " bytes, " + input.size()
+                    + " input frames: partitioning " + (partitionTime / repeats) + " ms, sort to consumers "
+                    + (pipelineTime / repeats) + " ms");
+        }
+    }
+
+    private static List<ByteBuffer> generateInput(IHyracksTaskContext ctx, long inputSize)
+            throws HyracksDataException {
+        Random random = new Random(0);
+        List<ByteBuffer> input = new ArrayList<ByteBuffer>();
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(RECORD_DESC.getFieldCount());
+        FrameTupleAppender appender = new FrameTupleAppender(new VSizeFrame(ctx), true);
+        StringBuilder value = new StringBuilder();
+        while ((long) input.size() * ctx.getInitialFrameSize() < inputSize) {
+            tb.reset();
+            tb.addField(IntegerSerializerDeserializer.INSTANCE, random.nextInt());
+            value.setLength(0);
+            for (int i = random.nextInt(32) + 8; i > 0; i--) {
+                value.append((char) ('a' + random.nextInt(26)));
+            }
+            tb.addField(UTF8StringSerializerDeserializer.INSTANCE, value.toString());
+            if (!appender.append(tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize())) {
+                input.add(appender.getBuffer());
+                appender.reset(new VSizeFrame(ctx), true);
+                appender.append(tb.getFieldEndOffsets(), tb.getByteArray(), 0, tb.getSize());
+            }
+        }
+        return input;
+    }
+
+    private static long runPartitioning(final IHyracksTaskContext ctx, List<ByteBuffer> input)
+            throws HyracksDataException {
+        final List<RunFileWriter> outputs = new ArrayList<RunFileWriter>();
+        PartitionDataWriter writer = new PartitionDataWriter(ctx, PARTITIONS, new IPartitionWriterFactory() {
+            @Override
+            public IFrameWriter createFrameWriter(int receiverIndex) throws HyracksDataException {
+                RunFileWriter output = createOutput(ctx);
+                outputs.add(output);
+                return output;
+            }
+        }, RECORD_DESC, new FieldHashPartitionComputerFactory(SORT_FIELDS,
+                new IBinaryHashFunctionFactory[] { PointableBinaryHashFunctionFactory.of(IntegerPointable.FACTORY) })
+                .createPartitioner());
+        long start = System.nanoTime();
+        writer.open();
+        for (ByteBuffer frame : input) {
+            writer.nextFrame(frame);
+        }
+        writer.close();
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        for (RunFileWriter output : outputs) {
+            output.getFileReference().delete();
+        }
+        return elapsed;
+    }
+
+    private static long runPipeline(final IHyracksTaskContext ctx, List<ByteBuffer> input)
+            throws HyracksDataException {
+        final List<ConsumerWriter> consumers = new ArrayList<ConsumerWriter>();
+        PartitionDataWriter output = new PartitionDataWriter(ctx, PARTITIONS, new IPartitionWriterFactory() {
+            @Override
+            public IFrameWriter createFrameWriter(int receiverIndex) throws HyracksDataException {
+                ConsumerWriter consumer = new ConsumerWriter(ctx.getInitialFrameSize());
+                consumers.add(consumer);
+                return consumer;
+            }
+        }, RECORD_DESC, new FieldHashPartitionComputerFactory(SORT_FIELDS,
+                new IBinaryHashFunctionFactory[] { PointableBinaryHashFunctionFactory.of(IntegerPointable.FACTORY) })
+                .createPartitioner());
+        long start = System.nanoTime();
+        ExternalSortRunGenerator runGenerator = new ExternalSortRunGenerator(ctx, SORT_FIELDS, null,
+                COMPARATOR_FACTORIES, RECORD_DESC, Algorithm.MERGE_SORT, SORT_FRAMES_LIMIT);
+        runGenerator.open();
+        for (ByteBuffer frame : input) {
+            runGenerator.nextFrame(frame);
+        }
+        runGenerator.close();
+        IBinaryComparator[] comparators = new IBinaryComparator[COMPARATOR_FACTORIES.length];
+        for (int i = 0; i < comparators.length; i++) {
+            comparators[i] = COMPARATOR_FACTORIES[i].createBinaryComparator();
+        }
+        new ExternalSortRunMerger(ctx, runGenerator.getSorter(), runGenerator.getRuns(), SORT_FIELDS, comparators,
+                null, RECORD_DESC, MERGE_FRAMES_LIMIT, output).process();
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        long checksum = 0;
+        for (ConsumerWriter consumer : consumers) {
+            checksum += consumer.checksum;
+        }
+        LOGGER.fine("checksum " + checksum);
+        return elapsed;
+    }
+
+    /**
+     * The receiving end of a partition: copies each frame into an on-heap channel buffer and hashes the key of every
+     * tuple through the byte array of the buffer, as a consuming operator would.
+     */
+    private static class ConsumerWriter implements IFrameWriter {
+        private final FrameTupleAccessor accessor = new FrameTupleAccessor(RECORD_DESC);
+
+        private final IBinaryHashFunction hashFunction = PointableBinaryHashFunctionFactory.of(
+                IntegerPointable.FACTORY).createBinaryHashFunction();
+
+        private ByteBuffer channelBuffer;
+
+        private long checksum;
+
+        ConsumerWriter(int frameSize) {
+            channelBuffer = ByteBuffer.allocate(frameSize);
+        }
+
+        @Override
+        public void open() throws HyracksDataException {
+        }
+
+        @Override
+        public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+            if (channelBuffer.capacity() < buffer.capacity()) {
+                channelBuffer = ByteBuffer.allocate(buffer.capacity());
+            }
+            ByteBuffer src = buffer.duplicate();
+            src.clear();
+            channelBuffer.clear();
+            channelBuffer.put(src);
+            channelBuffer.flip();
+            accessor.reset(channelBuffer);
+            byte[] bytes = accessor.getBuffer().array();
+            int tupleCount = accessor.getTupleCount();
+            for (int i = 0; i < tupleCount; i++) {
+                int start = accessor.getAbsoluteFieldStartOffset(i, 0);
+                checksum += hashFunction.hash(bytes, start, accessor.getFieldLength(i, 0));
+            }
+        }
+
+        @Override
+        public void fail() throws HyracksDataException {
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+        }
+    }
+
+    private static RunFileWriter createOutput(IHyracksTaskContext ctx) throws HyracksDataException {
+        return new RunFileWriter(ctx.createManagedWorkspaceFile(DirectFramePerf.class.getSimpleName()),
+                ctx.getIOManager(), false);
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.uci.ics.hyracks.tests.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.comm.IFrame;
+import edu.uci.ics.hyracks.api.comm.IFrameWriter;
+import edu.uci.ics.hyracks.api.comm.IPartitionWriterFactory;
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparator;
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryHashFunctionFactory;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.data.std.accessors.PointableBinaryHashFunctionFactory;
+import edu.uci.ics.hyracks.data.std.primitive.UTF8StringPointable;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAccessor;
+import edu.uci.ics.hyracks.dataflow.common.data.partition.FieldHashPartitionComputerFactory;
+import edu.uci.ics.hyracks.dataflow.std.connectors.PartitionDataWriter;
+import edu.uci.ics.hyracks.dataflow.std.sort.AbstractSortRunGenerator;
+import edu.uci.ics.hyracks.dataflow.std.sort.Algorithm;
+import edu.uci.ics.hyracks.dataflow.std.sort.ExternalSortRunGenerator;
+import edu.uci.ics.hyracks.dataflow.std.sort.ExternalSortRunMerger;
+import edu.uci.ics.hyracks.dataflow.std.sort.RunAndMaxFrameSizePair;
+import edu.uci.ics.hyracks.dataflow.std.sort.buffermanager.EnumFreeSlotPolicy;
+
+public class ExternalSortRunGeneratorParallelTest extends AbstractRunGeneratorTest {
+    private static final Logger LOGGER = Logger.getLogger(ExternalSortRunGeneratorParallelTest.class.getName());
+
+    static final int Parallelism = 4;
+
+    @Override
+    AbstractSortRunGenerator getSortRunGenerator(IHyracksTaskContext ctx, int frameLimit, int numOfInputRecord)
+            throws HyracksDataException {
+        return createRunGenerator(ctx, frameLimit, Parallelism);
+    }
+
+    static ExternalSortRunGenerator createRunGenerator(IHyracksTaskContext ctx, int frameLimit, int parallelism)
+            throws HyracksDataException {
+        return new ExternalSortRunGenerator(ctx, SortFields, null, ComparatorFactories, RecordDesc,
+                Algorithm.MERGE_SORT, EnumFreeSlotPolicy.LAST_FIT, frameLimit, Integer.MAX_VALUE, parallelism);
+    }
+
+    @Test
+    public void testRunsLargeEnoughToSortInParallel() throws HyracksDataException {
+        int pageSize = 4096;
+        int frameLimit = 128;
+        int numRuns = 3;
+        int minRecordSize = 16;
+        int maxRecordSize = 64;
+        List<RunAndMaxFrameSizePair> size = testSortRecords(pageSize, frameLimit, numRuns, minRecordSize,
+                maxRecordSize, null);
+        assertMaxFrameSizesAreAllEqualsTo(size, pageSize);
+    }
+
+    @Test
+    public void testParallelMergeOfManyRuns() throws HyracksDataException {
+        testParallelMerge(7, 2);
+    }
+
+    @Test
+    public void testParallelMergeWithFullParallelism() throws HyracksDataException {
+        // enough frames for each of the concurrent merges to get three
+        testParallelMerge(Parallelism * 3 + 1, Parallelism);
+    }
+
+    /**
+     * Merges more runs than fit into a single merge with {@link #Parallelism} threads, and checks that the
+     * intermediate passes ran concurrently with the given number of threads and that the output is sorted.
+     */
+    private void testParallelMerge(int mergeFrameLimit, int expectedDegree) throws HyracksDataException {
+        int pageSize = 512;
+        int frameLimit = 4;
+        int numRuns = 40;
+        IHyracksTaskContext ctx = testUtils.create(pageSize);
+
+        HashMap<Integer, String> keyValuePair = new HashMap<>();
+        List<IFrame> frameList = new ArrayList<>();
+        prepareData(ctx, frameList, pageSize * frameLimit * numRuns, pageSize / 8, pageSize / 4, null,
+                keyValuePair);
+        ExternalSortRunGenerator runGenerator = createRunGenerator(ctx, frameLimit, 1);
+        runGenerator.open();
+        for (IFrame frame : frameList) {
+            runGenerator.nextFrame(frame.getBuffer());
+        }
+        runGenerator.close();
+        assertTrue(runGenerator.getRuns().size() > mergeFrameLimit);
+
+        IBinaryComparator[] comparators = new IBinaryComparator[ComparatorFactories.length];
+        for (int i = 0; i < comparators.length; i++) {
+            comparators[i] = ComparatorFactories[i].createBinaryComparator();
+        }
+        SortedOutputChecker checker = new SortedOutputChecker(keyValuePair);
+        ExternalSortRunMerger merger = new ExternalSortRunMerger(ctx, runGenerator.getSorter(),
+                runGenerator.getRuns(), SortFields, comparators, null, RecordDesc, mergeFrameLimit,
+                Integer.MAX_VALUE, checker, Parallelism, ComparatorFactories, null);
+        merger.process();
+        assertTrue(merger.getParallelMergePasses() > 0);
+        assertEquals(expectedDegree, merger.getParallelMergeDegree());
+        assertTrue(checker.closed);
+        assertTrue(keyValuePair.isEmpty());
+    }
+
+    @Test
+    public void testMergeAndPartitionDirectFrames() throws HyracksDataException {
+        int pageSize = 512;
+        int frameLimit = 4;
+        int numRuns = 12;
+        int mergeFrameLimit = 5;
+        int nPartitions = 3;
+        IHyracksTaskContext ctx = testUtils.create(pageSize, true);
+
+        HashMap<Integer, String> keyValuePair = new HashMap<>();
+        List<IFrame> frameList = new ArrayList<>();
+        prepareData(ctx, frameList, pageSize * frameLimit * numRuns, pageSize / 8, pageSize / 4, null,
+                keyValuePair);
+        ExternalSortRunGenerator runGenerator = createRunGenerator(ctx, frameLimit, 1);
+        runGenerator.open();
+        for (IFrame frame : frameList) {
+            runGenerator.nextFrame(frame.getBuffer());
+        }
+        runGenerator.close();
+
+        final SortedOutputChecker[] checkers = new SortedOutputChecker[nPartitions];
+        for (int i = 0; i < nPartitions; i++) {
+            checkers[i] = new SortedOutputChecker(keyValuePair);
+        }
+        PartitionDataWriter partitioner = new PartitionDataWriter(ctx, nPartitions, new IPartitionWriterFactory() {
+            @Override
+            public IFrameWriter createFrameWriter(int receiverIndex) throws HyracksDataException {
+                return checkers[receiverIndex];
+            }
+        }, RecordDesc, new FieldHashPartitionComputerFactory(new int[] { 1 },
+                new IBinaryHashFunctionFactory[] { PointableBinaryHashFunctionFactory.of(UTF8StringPointable.FACTORY) })
+                .createPartitioner());
+        IBinaryComparator[] comparators = new IBinaryComparator[ComparatorFactories.length];
+        for (int i = 0; i < comparators.length; i++) {
+            comparators[i] = ComparatorFactories[i].createBinaryComparator();
+        }
+        ExternalSortRunMerger merger = new ExternalSortRunMerger(ctx, runGenerator.getSorter(),
+                runGenerator.getRuns(), SortFields, comparators, null, RecordDesc, mergeFrameLimit,
+                Integer.MAX_VALUE, partitioner, Parallelism, ComparatorFactories, null);
+        merger.process();
+        for (SortedOutputChecker checker : checkers) {
+            assertTrue(checker.closed);
+            assertFalse(checker.directFrames == 0);
+        }
+        assertTrue(keyValuePair.isEmpty());
+    }
+
+    @Test
+    public void testMergeWithDirectFramesOutputsHeapFrames() throws HyracksDataException {
+        int pageSize = 512;
+        int frameLimit = 4;
+        int numRuns = 12;
+        int mergeFrameLimit = 5;
+        IHyracksTaskContext ctx = testUtils.create(pageSize, true);
+
+        HashMap<Integer, String> keyValuePair = new HashMap<>();
+        List<IFrame> frameList = new ArrayList<>();
+        prepareData(ctx, frameList, pageSize * frameLimit * numRuns, pageSize / 8, pageSize / 4, null,
+                keyValuePair);
+        ExternalSortRunGenerator runGenerator = createRunGenerator(ctx, frameLimit, 1);
+        runGenerator.open();
+        for (IFrame frame : frameList) {
+            runGenerator.nextFrame(frame.getBuffer());
+        }
+        runGenerator.close();
+
+        IBinaryComparator[] comparators = new IBinaryComparator[ComparatorFactories.length];
+        for (int i = 0; i < comparators.length; i++) {
+            comparators[i] = ComparatorFactories[i].createBinaryComparator();
+        }
+        // the sorted output goes to another operator, which reads it through array()
+        SortedOutputChecker checker = new SortedOutputChecker(keyValuePair);
+        ExternalSortRunMerger merger = new ExternalSortRunMerger(ctx, runGenerator.getSorter(),
+                runGenerator.getRuns(), SortFields, comparators, null, RecordDesc, mergeFrameLimit,
+                Integer.MAX_VALUE, checker, Parallelism, ComparatorFactories, null);
+        merger.process();
+        assertTrue(checker.closed);
+        assertEquals(0, checker.directFrames);
+        assertTrue(keyValuePair.isEmpty());
+    }
+
+    /**
+     * Not an assertion of speed-up, which depends on the machine, but a record of how the in-memory sort scales
+     * from one thread to the number of available processors.
+     */
+    @Test
+    public void testSortScaling() throws HyracksDataException {
+        int pageSize = 32768;
+        int frameLimit = 256;
+        IHyracksTaskContext ctx = testUtils.create(pageSize);
+
+        HashMap<Integer, String> keyValuePair = new HashMap<>();
+        List<IFrame> frameList = new ArrayList<>();
+        prepareData(ctx, frameList, pageSize * (frameLimit - 2), 8, 32, null, keyValuePair);
+
+        int maxParallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int parallelism = 1; parallelism <= maxParallelism; parallelism <<= 1) {
+            ExternalSortRunGenerator runGenerator = createRunGenerator(ctx, frameLimit, parallelism);
+            runGenerator.open();
+            for (IFrame frame : frameList) {
+                runGenerator.nextFrame(frame.getBuffer());
+            }
+            long start = System.nanoTime();
+            runGenerator.getSorter().sort();
+            long elapsed = System.nanoTime() - start;
+            assertTrue(runGenerator.getRuns().isEmpty());
+            assertTrue(runGenerator.getSorter().hasRemaining());
+
+            SortedOutputChecker checker = new SortedOutputChecker(new HashMap<>(keyValuePair));
+            runGenerator.getSorter().flush(checker);
+            runGenerator.getSorter().close();
+            assertTrue(checker.keyValuePair.isEmpty());
+            if (LOGGER.isLoggable(Level.INFO)) {
+                LOGGER.info("sort of " + keyValuePair.size() + " tuples with " + parallelism + " thread(s): "
+                        + (elapsed / 1000000) + " ms");
+            }
+        }
+    }
+
+    static class SortedOutputChecker implements IFrameWriter {
+        final FrameTupleAccessor fta = new FrameTupleAccessor(RecordDesc);
+        final HashMap<Integer, String> keyValuePair;
+        int preKey = Integer.MIN_VALUE;
+        int directFrames = 0;
+        boolean closed = false;
+
+        SortedOutputChecker(HashMap<Integer, String> keyValuePair) {
+            this.keyValuePair = keyValuePair;
+        }
+
+        @Override
+        public void open() throws HyracksDataException {
+        }
+
+        @Override
+        public void nextFrame(ByteBuffer buffer) throws HyracksDataException {
+            if (buffer.isDirect()) {
+                directFrames++;
+            }
+            fta.reset(buffer);
+            preKey = assertFTADataIsSorted(fta, keyValuePair, preKey);
+        }
+
+        @Override
+        public void fail() throws HyracksDataException {
+        }
+
+        @Override
+        public void close() throws HyracksDataException {
+            closed = true;
+        }
+    }
+}
@@ -51,6 +51,7 @@ import edu.uci.ics.hyracks.dataflow.common.comm.io.FrameTupleAppender;
 import edu.uci.ics.hyracks.dataflow.common.comm.util.ByteBufferInputStream;
 import edu.uci.ics.hyracks.dataflow.common.data.marshalling.IntegerSerializerDeserializer;
 import edu.uci.ics.hyracks.dataflow.common.data.marshalling.UTF8StringSerializerDeserializer;
+import edu.uci.ics.hyracks.dataflow.common.data.normalizers.IntegerNormalizedKeyComputerFactory;
 import edu.uci.ics.hyracks.dataflow.std.sort.Algorithm;
 import edu.uci.ics.hyracks.dataflow.std.sort.ExternalSortRunGenerator;
 import edu.uci.ics.hyracks.dataflow.std.sort.RunAndMaxFrameSizePair;
@@ -216,6 +217,28 @@ public class RunMergingFrameReaderTest {
         testMergeSucceed(ctx, reader, keyValueMapList);
     }
 
+    @Test
+    public void testManyRunMergeWithNormalizedKey() throws HyracksDataException {
+        int pageSize = 128;
+        int numFramesPerRun = 3;
+        int minRecordSize = pageSize / 10;
+        int maxRecordSize = pageSize / 8;
+
+        for (int numRuns = 1; numRuns <= 9; numRuns++) {
+            IHyracksTaskContext ctx = testUtils.create(pageSize);
+            List<Map<Integer, String>> keyValueMapList = new ArrayList<>(numRuns);
+            List<TestFrameReader> readerList = new ArrayList<>(numRuns);
+            List<IFrame> frameList = new ArrayList<>(numRuns);
+            prepareRandomInputRunList(ctx, pageSize, numRuns, numFramesPerRun,
+                    minRecordSize, maxRecordSize, readerList, frameList, keyValueMapList);
+
+            RunMergingFrameReader reader = new RunMergingFrameReader(ctx, readerList, frameList, SortFields,
+                    Comparators, new IntegerNormalizedKeyComputerFactory().createNormalizedKeyComputer(),
+                    RecordDesc);
+            testMergeSucceed(ctx, reader, keyValueMapList);
+        }
+    }
+
     @Test
     public void testNormalRunMergeWithTopK() throws HyracksDataException {
 
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.net.compression;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes buffers as blocks of a compressed channel. A block is a header with the raw length and the payload length of
+ * the block, followed by the payload, which is either {@link LZCodec} compressed or, if the payload length is
+ * {@link #STORED}, the raw bytes.
+ * Compression turns itself off for a while when it keeps saving less than 1/8 of the bytes, so that incompressible
+ * data costs little more than a copy.
+ */
+public class BlockCompressor {
+    public static final int HEADER_SIZE = 8;
+
+    public static final int STORED = -1;
+
+    private static final int MIN_SAVINGS_SHIFT = 3;
+
+    private static final int MAX_POOR_BLOCKS = 8;
+
+    private static final int SUSPENDED_BLOCKS = 256;
+
+    private final int[] hashTable;
+
+    private byte[] inBytes;
+
+    private byte[] outBytes;
+
+    private int poorBlocks;
+
+    private int suspendedBlocks;
+
+    private long compressedBlockCount;
+
+    private long storedBlockCount;
+
+    public BlockCompressor() {
+        hashTable = LZCodec.createHashTable();
+        inBytes = new byte[0];
+        outBytes = new byte[0];
+    }
+
+    /**
+     * @return the largest block that can be written for rawLength bytes
+     */
+    public static int getMaxBlockSize(int rawLength) {
+        return HEADER_SIZE + rawLength;
+    }
+
+    /**
+     * @return the raw length of the block that starts at the position of the buffer
+     */
+    public static int getRawLength(ByteBuffer block) {
+        return block.getInt(block.position());
+    }
+
+    /**
+     * Writes the remaining bytes of src as one block into dst, which must have room for
+     * {@link #getMaxBlockSize(int)} bytes.
+     */
+    public void compress(ByteBuffer src, ByteBuffer dst) {
+        int rawLength = src.remaining();
+        if (suspendedBlocks > 0) {
+            suspendedBlocks--;
+            store(src, dst);
+            return;
+        }
+        byte[] in;
+        int inOff;
+        if (src.hasArray()) {
+            in = src.array();
+            inOff = src.arrayOffset() + src.position();
+        } else {
+            if (inBytes.length < rawLength) {
+                inBytes = new byte[rawLength];
+            }
+            src.duplicate().get(inBytes, 0, rawLength);
+            in = inBytes;
+            inOff = 0;
+        }
+        int maxLength = LZCodec.getMaxCompressedLength(rawLength);
+        if (outBytes.length < maxLength) {
+            outBytes = new byte[maxLength];
+        }
+        int length = LZCodec.compress(in, inOff, rawLength, outBytes, 0, hashTable);
+        if (length > rawLength - (rawLength >> MIN_SAVINGS_SHIFT)) {
+            if (++poorBlocks >= MAX_POOR_BLOCKS) {
+                poorBlocks = 0;
+                suspendedBlocks = SUSPENDED_BLOCKS;
+            }
+            store(src, dst);
+            return;
+        }
+        poorBlocks = 0;
+        dst.putInt(rawLength);
+        dst.putInt(length);
+        dst.put(outBytes, 0, length);
+        src.position(src.limit());
+        compressedBlockCount++;
+    }
+
+    private void store(ByteBuffer src, ByteBuffer dst) {
+        dst.putInt(src.remaining());
+        dst.putInt(STORED);
+        dst.put(src);
+        storedBlockCount++;
+    }
+
+    public long getCompressedBlockCount() {
+        return compressedBlockCount;
+    }
+
+    public long getStoredBlockCount() {
+        return storedBlockCount;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.net.compression;
+
+import java.nio.ByteBuffer;
+
+import edu.uci.ics.hyracks.net.exceptions.NetException;
+
+/**
+ * Reassembles the blocks written by a {@link BlockCompressor} from a byte stream and decompresses them.
+ * The bytes of the stream are read into {@link #getInputBuffer()}, which never asks for more than the rest of the
+ * current block, and {@link #inputRead()} is called after each read.
+ */
+public class BlockDecompressor {
+    private ByteBuffer block;
+
+    private byte[] rawBytes;
+
+    private boolean headerRead;
+
+    private int rawLength;
+
+    private int payloadLength;
+
+    private int lastBlockSize;
+
+    public BlockDecompressor() {
+        block = ByteBuffer.allocate(BlockCompressor.HEADER_SIZE);
+        rawBytes = new byte[0];
+        reset();
+    }
+
+    public ByteBuffer getInputBuffer() {
+        return block;
+    }
+
+    /**
+     * @return the raw bytes of the current block if the block is complete, or null otherwise. The returned buffer is
+     *         only valid until the next call.
+     * @throws NetException
+     *             if the block is malformed
+     */
+    public ByteBuffer inputRead() throws NetException {
+        if (block.remaining() > 0) {
+            return null;
+        }
+        if (!headerRead) {
+            rawLength = block.getInt(0);
+            int length = block.getInt(4);
+            if (rawLength < 0 || length < BlockCompressor.STORED) {
+                throw new NetException("Malformed compressed block header: " + rawLength + ", " + length);
+            }
+            payloadLength = length == BlockCompressor.STORED ? rawLength : length;
+            int blockSize = BlockCompressor.HEADER_SIZE + payloadLength;
+            if (block.capacity() < blockSize) {
+                ByteBuffer newBlock = ByteBuffer.allocate(blockSize);
+                block.flip();
+                newBlock.put(block);
+                block = newBlock;
+            }
+            block.limit(blockSize);
+            headerRead = true;
+            if (block.remaining() > 0) {
+                return null;
+            }
+        }
+        lastBlockSize = block.limit();
+        ByteBuffer raw;
+        if (block.getInt(4) == BlockCompressor.STORED) {
+            raw = ByteBuffer.wrap(block.array(), BlockCompressor.HEADER_SIZE, rawLength);
+        } else {
+            if (rawBytes.length < rawLength) {
+                rawBytes = new byte[rawLength];
+            }
+            int length = LZCodec.decompress(block.array(), BlockCompressor.HEADER_SIZE, payloadLength, rawBytes, 0,
+                    rawLength);
+            if (length != rawLength) {
+                throw new NetException("Corrupt compressed block: expected " + rawLength + " bytes, got " + length);
+            }
+            raw = ByteBuffer.wrap(rawBytes, 0, rawLength);
+        }
+        reset();
+        return raw;
+    }
+
+    /**
+     * @return the size of the last complete block, including its header
+     */
+    public int getLastBlockSize() {
+        return lastBlockSize;
+    }
+
+    private void reset() {
+        block.clear();
+        block.limit(BlockCompressor.HEADER_SIZE);
+        headerRead = false;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.net.compression;
+
+import java.util.Arrays;
+
+/**
+ * A fast LZ77 codec in the style of LZ4, trading compression ratio for speed.
+ * The compressed data is a sequence of (literals, match) pairs:
+ * <ul>
+ * <li>a token byte holding the number of literals in its high nibble and the match length minus 4 in its low nibble,
+ * where 15 means that the length continues in the following bytes (each 255 adds up, the first smaller byte ends it),</li>
+ * <li>the literals,</li>
+ * <li>the offset of the match, as 2 little-endian bytes, followed by the rest of the match length, if any.</li>
+ * </ul>
+ * The last pair has no match.
+ */
+public class LZCodec {
+    private static final int MIN_MATCH = 4;
+
+    private static final int MAX_OFFSET = 65535;
+
+    // The last bytes are always literals, so that matches are found without reading past the end of the input.
+    private static final int LAST_LITERALS = 5;
+
+    private static final int HASH_LOG = 12;
+
+    // After this many misses in a row, the search skips ahead faster, which keeps incompressible data cheap.
+    private static final int SKIP_TRIGGER = 6;
+
+    private LZCodec() {
+    }
+
+    public static int[] createHashTable() {
+        return new int[1 << HASH_LOG];
+    }
+
+    public static int getMaxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses src[srcOff, srcOff + srcLen) into dst starting at dstOff, which must have room for
+     * {@link #getMaxCompressedLength(int)} bytes.
+     *
+     * @param hashTable
+     *            - scratch space from {@link #createHashTable()}
+     * @return the compressed length
+     */
+    public static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int[] hashTable) {
+        int end = srcOff + srcLen;
+        int matchLimit = end - LAST_LITERALS;
+        int sp = srcOff;
+        int anchor = srcOff;
+        int dp = dstOff;
+        Arrays.fill(hashTable, -1);
+        int misses = 0;
+        while (sp + MIN_MATCH <= matchLimit) {
+            int sequence = readInt(src, sp);
+            int h = hash(sequence);
+            int ref = hashTable[h];
+            hashTable[h] = sp;
+            if (ref < 0 || sp - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                sp += (misses++ >>> SKIP_TRIGGER) + 1;
+                continue;
+            }
+            misses = 0;
+            int matchLength = MIN_MATCH;
+            while (sp + matchLength < matchLimit && src[ref + matchLength] == src[sp + matchLength]) {
+                matchLength++;
+            }
+            dp = writeSequence(src, anchor, sp - anchor, sp - ref, matchLength, dst, dp);
+            sp += matchLength;
+            anchor = sp;
+        }
+        int literalLength = end - anchor;
+        dst[dp++] = (byte) (Math.min(literalLength, 15) << 4);
+        if (literalLength >= 15) {
+            dp = writeLength(literalLength - 15, dst, dp);
+        }
+        System.arraycopy(src, anchor, dst, dp, literalLength);
+        dp += literalLength;
+        return dp - dstOff;
+    }
+
+    /**
+     * Decompresses src[srcOff, srcOff + srcLen) into dst starting at dstOff.
+     *
+     * @return the decompressed length, or -1 if the input is malformed or does not fit into dstLen bytes
+     */
+    public static int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+        int sp = srcOff;
+        int srcEnd = srcOff + srcLen;
+        int dp = dstOff;
+        int dstEnd = dstOff + dstLen;
+        while (sp < srcEnd) {
+            int token = src[sp++] & 0xff;
+            int literalLength = token >>> 4;
+            if (literalLength == 15) {
+                int b;
+                do {
+                    if (sp >= srcEnd) {
+                        return -1;
+                    }
+                    b = src[sp++] & 0xff;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            if (literalLength > srcEnd - sp || literalLength > dstEnd - dp) {
+                return -1;
+            }
+            System.arraycopy(src, sp, dst, dp, literalLength);
+            sp += literalLength;
+            dp += literalLength;
+            if (sp == srcEnd) {
+                break;
+            }
+            if (srcEnd - sp < 2) {
+                return -1;
+            }
+            int offset = (src[sp++] & 0xff) | ((src[sp++] & 0xff) << 8);
+            int matchLength = token & 0xf;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    if (sp >= srcEnd) {
+                        return -1;
+                    }
+                    b = src[sp++] & 0xff;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+            int ref = dp - offset;
+            if (offset == 0 || ref < dstOff || matchLength > dstEnd - dp) {
+                return -1;
+            }
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, dp, matchLength);
+            } else {
+                // Overlapping match, which repeats the last offset bytes.
+                for (int i = 0; i < matchLength; i++) {
+                    dst[dp + i] = dst[ref + i];
+                }
+            }
+            dp += matchLength;
+        }
+        return dp - dstOff;
+    }
+
+    private static int writeSequence(byte[] src, int literalOff, int literalLength, int offset, int matchLength,
+            byte[] dst, int dp) {
+        int matchCode = matchLength - MIN_MATCH;
+        dst[dp++] = (byte) ((Math.min(literalLength, 15) << 4) | Math.min(matchCode, 15));
+        if (literalLength >= 15) {
+            dp = writeLength(literalLength - 15, dst, dp);
+        }
+        System.arraycopy(src, literalOff, dst, dp, literalLength);
+        dp += literalLength;
+        dst[dp++] = (byte) offset;
+        dst[dp++] = (byte) (offset >>> 8);
+        if (matchCode >= 15) {
+            dp = writeLength(matchCode - 15, dst, dp);
+        }
+        return dp;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dp) {
+        while (length >= 255) {
+            dst[dp++] = (byte) 255;
+            length -= 255;
+        }
+        dst[dp++] = (byte) length;
+        return dp;
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return ((b[i] & 0xff) << 24) | ((b[i + 1] & 0xff) << 16) | ((b[i + 2] & 0xff) << 8) | (b[i + 3] & 0xff);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -26,6 +26,8 @@ import java.util.logging.Logger;
 
 import edu.uci.ics.hyracks.net.buffers.IBufferAcceptor;
 import edu.uci.ics.hyracks.net.buffers.ICloseableBufferAcceptor;
+import edu.uci.ics.hyracks.net.compression.BlockCompressor;
+import edu.uci.ics.hyracks.net.compression.BlockDecompressor;
 import edu.uci.ics.hyracks.net.exceptions.NetException;
 
 /**
@@ -36,6 +38,10 @@ import edu.uci.ics.hyracks.net.exceptions.NetException;
 public class ChannelControlBlock {
     private static final Logger LOGGER = Logger.getLogger(ChannelControlBlock.class.getName());
 
+    private static final int INITIAL_READ_WINDOW = 2;
+
+    private static final int MIN_READ_WINDOW = 1;
+
     private final ChannelSet cSet;
 
     private final int channelId;
@@ -85,6 +91,15 @@ public class ChannelControlBlock {
         return wi;
     }
 
+    /**
+     * The read interface hands out credits for a window of buffers. When the buffers come from a buffer factory, the
+     * window adapts to the rate at which the consumer drains the channel: it starts small, grows by one buffer for
+     * each buffer returned when the consumer has caught up, and shrinks by one buffer for each buffer returned while
+     * the consumer still holds more than half of the window. Fast consumers thus get enough credits to keep the
+     * sender busy, while slow ones do not have data piling up for them. The window also grows whenever the consumer
+     * holds all of its buffers, so a consumer may always hold up to the buffer limit, and it never shrinks to what the
+     * consumer holds.
+     */
     private final class ReadInterface implements IChannelReadInterface {
         private final Deque<ByteBuffer> riEmptyStack;
 
@@ -97,6 +112,9 @@ public class ChannelControlBlock {
                         return;
                     }
                     riEmptyStack.push(buffer);
+                    if (bufferLimit > 0) {
+                        delta = adjustWindow(delta);
+                    }
                 }
                 cSet.addPendingCredits(channelId, delta);
             }
@@ -110,6 +128,18 @@ public class ChannelControlBlock {
 
         private IBufferFactory bufferFactory;
 
+        private BlockDecompressor decompressor;
+
+        private int bufferLimit;
+
+        private int bufferSize;
+
+        // The credit window, in buffers.
+        private int window;
+
+        // The buffers handed to the full buffer acceptor that were not returned yet.
+        private int heldBuffers;
+
         ReadInterface() {
             riEmptyStack = new ArrayDeque<ByteBuffer>();
             credits = 0;
@@ -117,8 +147,29 @@ public class ChannelControlBlock {
 
         @Override
         public void setBufferFactory(IBufferFactory bufferFactory, int limit, int frameSize) {
-            this.bufferFactory = bufferFactory;
-            cSet.addPendingCredits(channelId, limit * frameSize);
+            int delta;
+            synchronized (ChannelControlBlock.this) {
+                this.bufferFactory = bufferFactory;
+                bufferLimit = limit;
+                bufferSize = frameSize;
+                window = Math.min(limit, INITIAL_READ_WINDOW);
+                delta = window * frameSize;
+            }
+            cSet.addPendingCredits(channelId, delta);
+        }
+
+        private int adjustWindow(int delta) {
+            --heldBuffers;
+            if (heldBuffers == 0 && window < bufferLimit) {
+                ++window;
+                return delta + bufferSize;
+            }
+            // The window always stays larger than what the consumer holds, so that the sender can go on.
+            if (heldBuffers > window / 2 && window - 1 > heldBuffers && window > MIN_READ_WINDOW) {
+                --window;
+                return delta - bufferSize;
+            }
+            return delta;
         }
 
         @Override
@@ -126,25 +177,27 @@ public class ChannelControlBlock {
             fba = fullBufferAcceptor;
         }
 
+        @Override
+        public void setCompressed(boolean compressed) {
+            synchronized (ChannelControlBlock.this) {
+                decompressor = compressed ? new BlockDecompressor() : null;
+            }
+        }
+
         @Override
         public IBufferAcceptor getEmptyBufferAcceptor() {
             return eba;
         }
 
         int read(SocketChannel sc, int size) throws IOException, NetException {
+            if (decompressor != null) {
+                return readCompressed(sc, size);
+            }
             while (true) {
                 if (size <= 0) {
                     return size;
                 }
-                if (currentReadBuffer == null) {
-                    currentReadBuffer = riEmptyStack.poll();
-                    //if current buffer == null and limit not reached
-                    // factory.createBuffer factory
-                    if (currentReadBuffer == null) {
-                        currentReadBuffer = bufferFactory.createBuffer();
-                    }
-                    assert currentReadBuffer != null;
-                }
+                ensureCurrentReadBuffer();
                 int rSize = Math.min(size, currentReadBuffer.remaining());
                 if (rSize > 0) {
                     currentReadBuffer.limit(currentReadBuffer.position() + rSize);
@@ -170,11 +223,72 @@ public class ChannelControlBlock {
             }
         }
 
+        private int readCompressed(SocketChannel sc, int size) throws IOException, NetException {
+            while (size > 0) {
+                ByteBuffer blockBuffer = decompressor.getInputBuffer();
+                int rSize = Math.min(size, blockBuffer.remaining());
+                int oldLimit = blockBuffer.limit();
+                int len;
+                try {
+                    blockBuffer.limit(blockBuffer.position() + rSize);
+                    len = sc.read(blockBuffer);
+                    if (len < 0) {
+                        throw new NetException("Socket Closed");
+                    }
+                } finally {
+                    blockBuffer.limit(oldLimit);
+                }
+                size -= len;
+                ByteBuffer raw = decompressor.inputRead();
+                if (raw != null) {
+                    cSet.getPerformanceCounters().addDecompressorBytes(decompressor.getLastBlockSize(),
+                            raw.remaining());
+                    // The sender was granted credits for the raw bytes, so there is room for them.
+                    while (raw.remaining() > 0) {
+                        ensureCurrentReadBuffer();
+                        int n = Math.min(raw.remaining(), currentReadBuffer.remaining());
+                        int rawLimit = raw.limit();
+                        raw.limit(raw.position() + n);
+                        currentReadBuffer.put(raw);
+                        raw.limit(rawLimit);
+                        if (currentReadBuffer.remaining() <= 0) {
+                            flush();
+                        }
+                    }
+                }
+                if (len < rSize) {
+                    return size;
+                }
+            }
+            return size;
+        }
+
+        private void ensureCurrentReadBuffer() {
+            if (currentReadBuffer == null) {
+                currentReadBuffer = riEmptyStack.poll();
+                //if current buffer == null and limit not reached
+                // factory.createBuffer factory
+                if (currentReadBuffer == null) {
+                    currentReadBuffer = bufferFactory.createBuffer();
+                }
+                assert currentReadBuffer != null;
+            }
+        }
+
         void flush() {
             if (currentReadBuffer != null) {
-                currentReadBuffer.flip();
-                fba.accept(currentReadBuffer);
+                ByteBuffer buffer = currentReadBuffer;
                 currentReadBuffer = null;
+                buffer.flip();
+                if (bufferLimit > 0) {
+                    ++heldBuffers;
+                }
+                fba.accept(buffer);
+                if (bufferLimit > 0 && heldBuffers >= window && window < bufferLimit) {
+                    // The consumer holds the whole window and may not return a buffer before it gets another one.
+                    ++window;
+                    cSet.addPendingCredits(channelId, bufferSize);
+                }
             }
         }
     }
@@ -232,6 +346,16 @@ public class ChannelControlBlock {
 
         private ByteBuffer currentWriteBuffer;
 
+        private boolean compressed;
+
+        // Whether the credits for the raw length of the current block were taken.
+        private boolean blockCharged;
+
+        // When the channel last ran out of credits with data to write, or 0 if it did not.
+        private long stallStart;
+
+        private long stallTime;
+
         WriteInterface() {
             wiFullQueue = new ArrayDeque<ByteBuffer>();
             credits = 0;
@@ -267,42 +391,64 @@ public class ChannelControlBlock {
             return fba;
         }
 
+        @Override
+        public void setCompressed(boolean compressed) {
+            synchronized (ChannelControlBlock.this) {
+                this.compressed = compressed;
+            }
+        }
+
         void write(MultiplexedConnection.WriterState writerState) throws NetException {
             if (currentWriteBuffer == null) {
                 currentWriteBuffer = wiFullQueue.poll();
             }
             if (currentWriteBuffer != null) {
-                int size = Math.min(currentWriteBuffer.remaining(), credits);
-                if (size > 0) {
+                int size;
+                if (compressed) {
+                    size = chargeBlock() ? currentWriteBuffer.remaining() : 0;
+                } else {
+                    size = Math.min(currentWriteBuffer.remaining(), credits);
                     credits -= size;
-                    writerState.command.setChannelId(channelId);
-                    writerState.command.setCommandType(MuxDemuxCommand.CommandType.DATA);
-                    writerState.command.setData(size);
-                    writerState.reset(currentWriteBuffer, size, ChannelControlBlock.this);
+                }
+                if (size > 0) {
+                    writerState.addData(channelId, currentWriteBuffer, size, ChannelControlBlock.this);
                 } else {
                     adjustChannelWritability();
                 }
             } else if (ecode >= 0 && !ecodeSent) {
-                writerState.command.setChannelId(channelId);
-                writerState.command.setCommandType(MuxDemuxCommand.CommandType.ERROR);
-                writerState.command.setData(ecode);
-                writerState.reset(null, 0, null);
+                writerState.addCommand(channelId, MuxDemuxCommand.CommandType.ERROR, ecode);
                 ecodeSent = true;
                 localClose.set(true);
                 adjustChannelWritability();
             } else if (eos && !eosSent) {
-                writerState.command.setChannelId(channelId);
-                writerState.command.setCommandType(MuxDemuxCommand.CommandType.CLOSE_CHANNEL);
-                writerState.command.setData(0);
-                writerState.reset(null, 0, null);
+                writerState.addCommand(channelId, MuxDemuxCommand.CommandType.CLOSE_CHANNEL, 0);
                 eosSent = true;
                 localClose.set(true);
                 adjustChannelWritability();
             }
         }
 
+        /**
+         * A compressed block cannot be split by credits since the remote end only knows its raw length once the whole
+         * block arrived, so the credits for all of its raw bytes are taken before it is sent.
+         */
+        private boolean chargeBlock() {
+            if (blockCharged) {
+                return true;
+            }
+            int rawLength = BlockCompressor.getRawLength(currentWriteBuffer);
+            if (credits < rawLength) {
+                return false;
+            }
+            credits -= rawLength;
+            blockCharged = true;
+            cSet.getPerformanceCounters().addCompressorBytes(rawLength, currentWriteBuffer.remaining());
+            return true;
+        }
+
         void writeComplete() {
             if (currentWriteBuffer.remaining() <= 0) {
+                blockCharged = false;
                 currentWriteBuffer.clear();
                 eba.accept(currentWriteBuffer);
                 currentWriteBuffer = null;
@@ -313,8 +459,17 @@ public class ChannelControlBlock {
         private boolean computeWritability() {
             boolean writableDataPresent = currentWriteBuffer != null || !wiFullQueue.isEmpty();
             if (writableDataPresent) {
-                return credits > 0;
+                boolean writable;
+                if (compressed) {
+                    ByteBuffer block = currentWriteBuffer != null ? currentWriteBuffer : wiFullQueue.peek();
+                    writable = blockCharged || credits >= BlockCompressor.getRawLength(block);
+                } else {
+                    writable = credits > 0;
+                }
+                trackStall(!writable);
+                return writable;
             }
+            trackStall(false);
             if (eos && !eosSent) {
                 return true;
             }
@@ -324,6 +479,19 @@ public class ChannelControlBlock {
             return false;
         }
 
+        private void trackStall(boolean stalled) {
+            if (stalled) {
+                if (stallStart == 0) {
+                    stallStart = System.nanoTime();
+                }
+            } else if (stallStart != 0) {
+                long stall = System.nanoTime() - stallStart;
+                stallTime += stall;
+                stallStart = 0;
+                cSet.getPerformanceCounters().addCreditStall(stall);
+            }
+        }
+
         void adjustChannelWritability() {
             boolean writable = computeWritability();
             if (writable) {
@@ -351,6 +519,20 @@ public class ChannelControlBlock {
         return ri.read(sc, size);
     }
 
+    /**
+     * @return the time in nanoseconds that this channel had data to write but no credits to write it
+     */
+    public synchronized long getWriteStallTime() {
+        return wi.stallTime + (wi.stallStart == 0 ? 0 : System.nanoTime() - wi.stallStart);
+    }
+
+    /**
+     * @return the number of buffers that the read interface currently lets the remote end fill
+     */
+    public synchronized int getReadWindow() {
+        return ri.window;
+    }
+
     int getReadCredits() {
         return ri.credits;
     }
@@ -56,6 +56,10 @@ public class ChannelSet {
         openChannelCount = 0;
     }
 
+    MuxDemuxPerformanceCounters getPerformanceCounters() {
+        return mConn.getMuxDemux().getPerformanceCounters();
+    }
+
     ChannelControlBlock allocateChannel() throws NetException {
         synchronized (mConn) {
        	    cleanupClosedChannels();
@@ -52,4 +52,15 @@ public interface IChannelReadInterface {
      *            - the size of each buffer
      */
     public void setBufferFactory(IBufferFactory bufferFactory, int limit, int frameSize);
+
+    /**
+     * Declare that the data received are blocks written by a
+     * {@link edu.uci.ics.hyracks.net.compression.BlockCompressor}. The blocks are decompressed into the buffers
+     * handed to the full buffer acceptor, which see the same bytes as on an uncompressed channel. Must be called
+     * before the first data is received.
+     * 
+     * @param compressed
+     *            - whether the data received are compressed blocks
+     */
+    public void setCompressed(boolean compressed);
 }
\ No newline at end of file
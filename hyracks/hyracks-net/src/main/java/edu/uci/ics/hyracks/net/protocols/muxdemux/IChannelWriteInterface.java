@@ -52,4 +52,15 @@ public interface IChannelWriteInterface {
      *            - the size of each buffer
      */
     public void setBufferFactory(IBufferFactory bufferFactory, int limit, int frameSize);
+
+    /**
+     * Declare that every full buffer is one block written by a
+     * {@link edu.uci.ics.hyracks.net.compression.BlockCompressor}. A block is sent as a whole once the
+     * remote end has credits for its raw length. Must be called before the first buffer is written, and the remote
+     * read interface must be compressed as well.
+     * 
+     * @param compressed
+     *            - whether the full buffers are compressed blocks
+     */
+    public void setCompressed(boolean compressed);
 }
\ No newline at end of file
@@ -37,6 +37,8 @@ public class MultiplexedConnection implements ITCPConnectionEventListener {
 
     private static final int MAX_CHUNKS_READ_PER_CYCLE = 4;
 
+    private static final int MAX_COMMANDS_PER_WRITE = 16;
+
     private final MuxDemux muxDemux;
 
     private final IEventCounter pendingWriteEventsCounter;
@@ -47,6 +49,8 @@ public class MultiplexedConnection implements ITCPConnectionEventListener {
 
     private final WriterState writerState;
 
+    private final ChannelControlBlock[] writeCCBs;
+
     private TCPConnection tcpConnection;
 
     private int lastChannelWritten;
@@ -84,10 +88,15 @@ public class MultiplexedConnection implements ITCPConnectionEventListener {
         cSet = new ChannelSet(this, pendingWriteEventsCounter);
         readerState = new ReaderState();
         writerState = new WriterState();
+        writeCCBs = new ChannelControlBlock[MAX_COMMANDS_PER_WRITE];
         lastChannelWritten = -1;
         connectionFailure = false;
     }
 
+    MuxDemux getMuxDemux() {
+        return muxDemux;
+    }
+
     int getConnectionAttempts() {
         return nConnectionAttempts;
     }
@@ -153,71 +162,151 @@ public class MultiplexedConnection implements ITCPConnectionEventListener {
         return channel;
     }
 
+    /**
+     * Gathers the commands and the data of several channels, and writes them to the socket with one gathering write.
+     */
     class WriterState {
-        private final ByteBuffer cmdWriteBuffer;
+        private final ByteBuffer[] cmdWriteBuffers;
 
-        final MuxDemuxCommand command;
+        private final MuxDemuxCommand command;
 
-        private ByteBuffer pendingBuffer;
+        private final ByteBuffer[] writeBuffers;
 
-        private int pendingWriteSize;
+        private final int[] remaining;
 
-        private ChannelControlBlock ccb;
+        private final boolean[] payload;
+
+        private final int[] payloadLimits;
+
+        private final ChannelControlBlock[] ccbs;
+
+        private int nCommands;
+
+        private int nBuffers;
+
+        private int nCCBs;
+
+        private int writeIndex;
+
+        private int heldEvents;
 
         public WriterState() {
-            cmdWriteBuffer = ByteBuffer.allocateDirect(MuxDemuxCommand.COMMAND_SIZE);
-            cmdWriteBuffer.flip();
+            cmdWriteBuffers = new ByteBuffer[MAX_COMMANDS_PER_WRITE];
+            for (int i = 0; i < MAX_COMMANDS_PER_WRITE; ++i) {
+                cmdWriteBuffers[i] = ByteBuffer.allocateDirect(MuxDemuxCommand.COMMAND_SIZE);
+            }
             command = new MuxDemuxCommand();
-            ccb = null;
+            writeBuffers = new ByteBuffer[MAX_COMMANDS_PER_WRITE * 2];
+            remaining = new int[MAX_COMMANDS_PER_WRITE * 2];
+            payload = new boolean[MAX_COMMANDS_PER_WRITE * 2];
+            payloadLimits = new int[MAX_COMMANDS_PER_WRITE * 2];
+            ccbs = new ChannelControlBlock[MAX_COMMANDS_PER_WRITE];
         }
 
         boolean writePending() {
-            return cmdWriteBuffer.remaining() > 0 || (pendingBuffer != null && pendingWriteSize > 0);
+            return writeIndex < nBuffers;
+        }
+
+        boolean isEmpty() {
+            return nCommands == 0;
+        }
+
+        int getFreeCommandCount() {
+            return MAX_COMMANDS_PER_WRITE - nCommands;
         }
 
-        void reset(ByteBuffer pendingBuffer, int pendingWriteSize, ChannelControlBlock ccb) {
+        void addCommand(int channelId, MuxDemuxCommand.CommandType type, int data) throws NetException {
+            assert nCommands < MAX_COMMANDS_PER_WRITE;
+            command.setChannelId(channelId);
+            command.setCommandType(type);
+            command.setData(data);
+            ByteBuffer cmdWriteBuffer = cmdWriteBuffers[nCommands++];
             cmdWriteBuffer.clear();
             command.write(cmdWriteBuffer);
             cmdWriteBuffer.flip();
-            this.pendingBuffer = pendingBuffer;
-            this.pendingWriteSize = pendingWriteSize;
-            this.ccb = ccb;
+            addBuffer(cmdWriteBuffer, false);
+        }
+
+        /**
+         * Adds a data command for the next size bytes of the buffer. The channel is told by
+         * {@link ChannelControlBlock#writeComplete()} once they are written.
+         */
+        void addData(int channelId, ByteBuffer buffer, int size, ChannelControlBlock ccb) throws NetException {
+            assert size <= buffer.remaining();
+            addCommand(channelId, MuxDemuxCommand.CommandType.DATA, size);
+            payloadLimits[nBuffers] = buffer.limit();
+            buffer.limit(buffer.position() + size);
+            addBuffer(buffer, true);
+            ccbs[nCCBs++] = ccb;
+        }
+
+        private void addBuffer(ByteBuffer buffer, boolean isPayload) {
+            writeBuffers[nBuffers] = buffer;
+            remaining[nBuffers] = buffer.remaining();
+            payload[nBuffers] = isPayload;
+            ++nBuffers;
+        }
+
+        /**
+         * Takes over one pending write event, which is released once everything gathered is written.
+         */
+        void holdWriteEvent() {
+            ++heldEvents;
         }
 
         boolean performPendingWrite(SocketChannel sc) throws IOException {
-            int len = cmdWriteBuffer.remaining();
-            if (len > 0) {
-                int written = sc.write(cmdWriteBuffer);
-                muxDemux.getPerformanceCounters().addSignalingBytesWritten(written);
-                if (written < len) {
-                    return false;
-                }
-            }
-            if (pendingBuffer != null) {
-                if (pendingWriteSize > 0) {
-                    assert pendingWriteSize <= pendingBuffer.remaining();
-                    int oldLimit = pendingBuffer.limit();
-                    try {
-                        pendingBuffer.limit(pendingWriteSize + pendingBuffer.position());
-                        int written = sc.write(pendingBuffer);
-                        muxDemux.getPerformanceCounters().addPayloadBytesWritten(written);
-                        pendingWriteSize -= written;
-                    } finally {
-                        pendingBuffer.limit(oldLimit);
+            while (writeIndex < nBuffers) {
+                sc.write(writeBuffers, writeIndex, nBuffers - writeIndex);
+                long signalingBytes = 0;
+                long payloadBytes = 0;
+                int commands = 0;
+                for (int i = writeIndex; i < nBuffers; ++i) {
+                    int r = writeBuffers[i].remaining();
+                    int written = remaining[i] - r;
+                    remaining[i] = r;
+                    if (payload[i]) {
+                        payloadBytes += written;
+                    } else {
+                        signalingBytes += written;
+                        if (r == 0 && written > 0) {
+                            ++commands;
+                        }
                     }
+                    if (r > 0) {
+                        break;
+                    }
+                    ++writeIndex;
                 }
-                if (pendingWriteSize > 0) {
+                MuxDemuxPerformanceCounters counters = muxDemux.getPerformanceCounters();
+                counters.addSocketWrite(commands);
+                counters.addSignalingBytesWritten(signalingBytes);
+                counters.addPayloadBytesWritten(payloadBytes);
+                if (writeIndex < nBuffers) {
                     return false;
                 }
-                pendingBuffer = null;
-                pendingWriteSize = 0;
             }
-            if (ccb != null) {
-                ccb.writeComplete();
-                ccb = null;
+            for (int i = 0; i < nBuffers; ++i) {
+                if (payload[i]) {
+                    writeBuffers[i].limit(payloadLimits[i]);
+                }
+                writeBuffers[i] = null;
+            }
+            for (int i = 0; i < nCCBs; ++i) {
+                ccbs[i].writeComplete();
+                ccbs[i] = null;
             }
+            nCommands = 0;
+            nBuffers = 0;
+            nCCBs = 0;
+            writeIndex = 0;
             return true;
         }
+
+        void releaseWriteEvents() {
+            for (; heldEvents > 0; --heldEvents) {
+                pendingWriteEventsCounter.decrement();
+            }
+        }
     }
 
     void driveWriterStateMachine() throws IOException, NetException {
@@ -226,7 +315,7 @@ public class MultiplexedConnection implements ITCPConnectionEventListener {
             if (!writerState.performPendingWrite(sc)) {
                 return;
             }
-            pendingWriteEventsCounter.decrement();
+            writerState.releaseWriteEvents();
         }
         int numCycles;
 
@@ -235,25 +324,18 @@ public class MultiplexedConnection implements ITCPConnectionEventListener {
         }
 
         for (int i = 0; i < numCycles; ++i) {
-            ChannelControlBlock writeCCB = null;
+            int nWriteCCBs = 0;
             synchronized (MultiplexedConnection.this) {
                 BitSet pendingChannelSynBitmap = cSet.getPendingChannelSynBitmap();
-                for (int j = pendingChannelSynBitmap.nextSetBit(0); j >= 0; j = pendingChannelSynBitmap.nextSetBit(j)) {
+                for (int j = pendingChannelSynBitmap.nextSetBit(0); j >= 0 && writerState.getFreeCommandCount() > 0; j = pendingChannelSynBitmap
+                        .nextSetBit(j)) {
                     pendingChannelSynBitmap.clear(j);
-                    writerState.command.setChannelId(j);
-                    writerState.command.setCommandType(MuxDemuxCommand.CommandType.OPEN_CHANNEL);
-                    writerState.command.setData(0);
-                    writerState.reset(null, 0, null);
-                    if (!writerState.performPendingWrite(sc)) {
-                        return;
-                    }
-                    pendingWriteEventsCounter.decrement();
+                    writerState.addCommand(j, MuxDemuxCommand.CommandType.OPEN_CHANNEL, 0);
+                    writerState.holdWriteEvent();
                 }
                 BitSet pendingChannelCreditsBitmap = cSet.getPendingChannelCreditsBitmap();
-                for (int j = pendingChannelCreditsBitmap.nextSetBit(0); j >= 0; j = pendingChannelCreditsBitmap
-                        .nextSetBit(j)) {
-                    writerState.command.setChannelId(j);
-                    writerState.command.setCommandType(MuxDemuxCommand.CommandType.ADD_CREDITS);
+                for (int j = pendingChannelCreditsBitmap.nextSetBit(0); j >= 0
+                        && writerState.getFreeCommandCount() > 0; j = pendingChannelCreditsBitmap.nextSetBit(j)) {
                     ChannelControlBlock ccb = cSet.getCCB(j);
                     int credits = ccb.getReadCredits();
                     int effectiveCredits;
@@ -265,47 +347,52 @@ public class MultiplexedConnection implements ITCPConnectionEventListener {
                         effectiveCredits = MuxDemuxCommand.MAX_DATA_VALUE;
                         ccb.setReadCredits(credits - effectiveCredits);
                     }
-                    writerState.command.setData(effectiveCredits);
-                    writerState.reset(null, 0, null);
-                    if (!writerState.performPendingWrite(sc)) {
-                        return;
-                    }
+                    writerState.addCommand(j, MuxDemuxCommand.CommandType.ADD_CREDITS, effectiveCredits);
                     if (credits == effectiveCredits) {
-                        pendingWriteEventsCounter.decrement();
+                        writerState.holdWriteEvent();
                     }
                 }
                 BitSet pendingEOSAckBitmap = cSet.getPendingEOSAckBitmap();
-                for (int j = pendingEOSAckBitmap.nextSetBit(0); j >= 0; j = pendingEOSAckBitmap.nextSetBit(j)) {
+                for (int j = pendingEOSAckBitmap.nextSetBit(0); j >= 0 && writerState.getFreeCommandCount() > 0; j = pendingEOSAckBitmap
+                        .nextSetBit(j)) {
                     pendingEOSAckBitmap.clear(j);
                     ChannelControlBlock ccb = cSet.getCCB(j);
                     ccb.reportRemoteEOSAck();
-                    writerState.command.setChannelId(j);
-                    writerState.command.setCommandType(MuxDemuxCommand.CommandType.CLOSE_CHANNEL_ACK);
-                    writerState.command.setData(0);
-                    writerState.reset(null, 0, null);
-                    if (!writerState.performPendingWrite(sc)) {
-                        return;
-                    }
-                    pendingWriteEventsCounter.decrement();
+                    writerState.addCommand(j, MuxDemuxCommand.CommandType.CLOSE_CHANNEL_ACK, 0);
+                    writerState.holdWriteEvent();
                 }
+                // Each writable channel contributes at most one buffer to a write, in round-robin order.
                 BitSet pendingChannelWriteBitmap = cSet.getPendingChannelWriteBitmap();
-                lastChannelWritten = pendingChannelWriteBitmap.nextSetBit(lastChannelWritten + 1);
-                if (lastChannelWritten == -1) {
-                    lastChannelWritten = pendingChannelWriteBitmap.nextSetBit(0);
-                    if (lastChannelWritten == -1) {
-                        return;
+                int j = pendingChannelWriteBitmap.nextSetBit(lastChannelWritten + 1);
+                if (j < 0) {
+                    j = pendingChannelWriteBitmap.nextSetBit(0);
+                }
+                int firstChannel = j;
+                while (j >= 0 && nWriteCCBs < writerState.getFreeCommandCount()) {
+                    writeCCBs[nWriteCCBs++] = cSet.getCCB(j);
+                    lastChannelWritten = j;
+                    j = pendingChannelWriteBitmap.nextSetBit(j + 1);
+                    if (j < 0) {
+                        j = pendingChannelWriteBitmap.nextSetBit(0);
+                    }
+                    if (j == firstChannel) {
+                        break;
                     }
                 }
-                writeCCB = cSet.getCCB(lastChannelWritten);
             }
-            writeCCB.write(writerState);
-            if (writerState.writePending()) {
-                pendingWriteEventsCounter.increment();
-                if (!writerState.performPendingWrite(sc)) {
-                    return;
-                }
-                pendingWriteEventsCounter.decrement();
+            for (int j = 0; j < nWriteCCBs; ++j) {
+                writeCCBs[j].write(writerState);
+                writeCCBs[j] = null;
+            }
+            if (writerState.isEmpty()) {
+                return;
+            }
+            pendingWriteEventsCounter.increment();
+            writerState.holdWriteEvent();
+            if (!writerState.performPendingWrite(sc)) {
+                return;
             }
+            writerState.releaseWriteEvents();
         }
     }
 
@@ -25,11 +25,38 @@ public class MuxDemuxPerformanceCounters {
 
     private final AtomicLong signalingBytesWritten;
 
+    private final AtomicLong compressorBytesIn;
+
+    private final AtomicLong compressorBytesOut;
+
+    private final AtomicLong decompressorBytesIn;
+
+    private final AtomicLong decompressorBytesOut;
+
+    private final AtomicLong socketWrites;
+
+    private final AtomicLong commandsWritten;
+
+    private final AtomicLong creditStallCount;
+
+    private final AtomicLong creditStallTime;
+
+    private final AtomicLong maxCreditStallTime;
+
     public MuxDemuxPerformanceCounters() {
         payloadBytesRead = new AtomicLong();
         payloadBytesWritten = new AtomicLong();
         signalingBytesRead = new AtomicLong();
         signalingBytesWritten = new AtomicLong();
+        compressorBytesIn = new AtomicLong();
+        compressorBytesOut = new AtomicLong();
+        decompressorBytesIn = new AtomicLong();
+        decompressorBytesOut = new AtomicLong();
+        socketWrites = new AtomicLong();
+        commandsWritten = new AtomicLong();
+        creditStallCount = new AtomicLong();
+        creditStallTime = new AtomicLong();
+        maxCreditStallTime = new AtomicLong();
     }
 
     public void addPayloadBytesRead(long delta) {
@@ -63,4 +90,91 @@ public class MuxDemuxPerformanceCounters {
     public long getSignalingBytesWritten() {
         return signalingBytesWritten.get();
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the raw bytes sent on compressed channels
+     */
+    public long getCompressorBytesIn() {
+        return compressorBytesIn.get();
+    }
+
+    /**
+     * @return the bytes that the raw bytes sent on compressed channels were compressed to
+     */
+    public long getCompressorBytesOut() {
+        return compressorBytesOut.get();
+    }
+
+    public void addCompressorBytes(long in, long out) {
+        compressorBytesIn.addAndGet(in);
+        compressorBytesOut.addAndGet(out);
+    }
+
+    /**
+     * @return the compressed bytes received on compressed channels
+     */
+    public long getDecompressorBytesIn() {
+        return decompressorBytesIn.get();
+    }
+
+    /**
+     * @return the raw bytes that the compressed bytes received were decompressed to
+     */
+    public long getDecompressorBytesOut() {
+        return decompressorBytesOut.get();
+    }
+
+    public void addDecompressorBytes(long in, long out) {
+        decompressorBytesIn.addAndGet(in);
+        decompressorBytesOut.addAndGet(out);
+    }
+
+    /**
+     * Records one gathering write to the socket.
+     *
+     * @param commands
+     *            - the number of commands written, counting data commands together with their payload
+     */
+    public void addSocketWrite(int commands) {
+        socketWrites.incrementAndGet();
+        commandsWritten.addAndGet(commands);
+    }
+
+    public long getSocketWrites() {
+        return socketWrites.get();
+    }
+
+    public long getCommandsWritten() {
+        return commandsWritten.get();
+    }
+
+    /**
+     * Records that a channel had data to write but waited the given time in nanoseconds for credits.
+     */
+    public void addCreditStall(long nanos) {
+        creditStallCount.incrementAndGet();
+        creditStallTime.addAndGet(nanos);
+        long max = maxCreditStallTime.get();
+        while (nanos > max && !maxCreditStallTime.compareAndSet(max, nanos)) {
+            max = maxCreditStallTime.get();
+        }
+    }
+
+    public long getCreditStallCount() {
+        return creditStallCount.get();
+    }
+
+    /**
+     * @return the total time in nanoseconds that channels waited for credits
+     */
+    public long getCreditStallTime() {
+        return creditStallTime.get();
+    }
+
+    /**
+     * @return the longest time in nanoseconds that a channel waited for credits at once
+     */
+    public long getMaxCreditStallTime() {
+        return maxCreditStallTime.get();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.net.tests;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.net.buffers.IBufferAcceptor;
+import edu.uci.ics.hyracks.net.buffers.ICloseableBufferAcceptor;
+import edu.uci.ics.hyracks.net.compression.BlockCompressor;
+import edu.uci.ics.hyracks.net.compression.LZCodec;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.ChannelControlBlock;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.IChannelOpenListener;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.MultiplexedConnection;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.MuxDemux;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.MuxDemuxPerformanceCounters;
+
+public class CompressedChannelTest {
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final int NUM_BUFFERS = 2000;
+
+    @Test
+    public void codecTest() {
+        Random rnd = new Random(17);
+        int[] hashTable = LZCodec.createHashTable();
+        for (int length : new int[] { 0, 1, 5, 12, 100, 4096, 70000 }) {
+            for (int pattern = 0; pattern < 3; pattern++) {
+                byte[] raw = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    raw[i] = pattern == 0 ? 0 : (byte) (pattern == 1 ? 'a' + (i * 7 + i / 13) % 5 : rnd.nextInt());
+                }
+                byte[] compressed = new byte[LZCodec.getMaxCompressedLength(length) + 3];
+                int compressedLength = LZCodec.compress(raw, 0, length, compressed, 3, hashTable);
+                Assert.assertTrue(compressedLength <= LZCodec.getMaxCompressedLength(length));
+                if (pattern < 2 && length >= 100) {
+                    Assert.assertTrue(compressedLength < length / 2);
+                }
+                byte[] decompressed = new byte[length];
+                Assert.assertEquals(length,
+                        LZCodec.decompress(compressed, 3, compressedLength, decompressed, 0, length));
+                Assert.assertTrue(Arrays.equals(raw, decompressed));
+                if (length > 0) {
+                    // Too small an output is detected.
+                    Assert.assertEquals(-1,
+                            LZCodec.decompress(compressed, 3, compressedLength, decompressed, 0, length - 1));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void channelTest() throws Exception {
+        final AtomicBoolean failFlag = new AtomicBoolean();
+        final Semaphore done = new Semaphore(0);
+        IChannelOpenListener openListener = new IChannelOpenListener() {
+            @Override
+            public void channelOpened(final ChannelControlBlock channel) {
+                channel.getReadInterface().setCompressed(true);
+                final IBufferAcceptor rieba = channel.getReadInterface().getEmptyBufferAcceptor();
+                channel.getReadInterface().setFullBufferAcceptor(new ICloseableBufferAcceptor() {
+                    private int received;
+
+                    @Override
+                    public void accept(ByteBuffer buffer) {
+                        // Compressed blocks come out as the buffers they were made of.
+                        if (buffer.remaining() != BUFFER_SIZE || !buffer.equals(createBuffer(received++))) {
+                            failFlag.set(true);
+                        }
+                        buffer.clear();
+                        rieba.accept(buffer);
+                    }
+
+                    @Override
+                    public void error(int ecode) {
+                        failFlag.set(true);
+                        done.release();
+                    }
+
+                    @Override
+                    public void close() {
+                        if (received != NUM_BUFFERS) {
+                            failFlag.set(true);
+                        }
+                        done.release();
+                    }
+                });
+                for (int i = 0; i < 4; ++i) {
+                    rieba.accept(ByteBuffer.allocate(BUFFER_SIZE));
+                }
+            }
+        };
+        MuxDemux md1 = new MuxDemux(new InetSocketAddress("127.0.0.1", 0), openListener, 1, 5);
+        md1.start();
+        MuxDemux md2 = new MuxDemux(new InetSocketAddress("127.0.0.1", 0), openListener, 1, 5);
+        md2.start();
+        MultiplexedConnection md1md2 = md1.connect(md2.getLocalAddress());
+
+        ChannelControlBlock ccb = md1md2.openChannel();
+        final Semaphore emptyBuffers = new Semaphore(0);
+        ccb.getWriteInterface().setCompressed(true);
+        ccb.getWriteInterface().setEmptyBufferAcceptor(new IBufferAcceptor() {
+            @Override
+            public void accept(ByteBuffer buffer) {
+                emptyBuffers.release();
+            }
+        });
+        ICloseableBufferAcceptor fba = ccb.getWriteInterface().getFullBufferAcceptor();
+        BlockCompressor compressor = new BlockCompressor();
+        for (int i = 0; i < NUM_BUFFERS; ++i) {
+            ByteBuffer block = ByteBuffer.allocate(BlockCompressor.getMaxBlockSize(BUFFER_SIZE));
+            compressor.compress(createBuffer(i), block);
+            block.flip();
+            fba.accept(block);
+        }
+        fba.close();
+        done.acquire();
+        emptyBuffers.acquire(NUM_BUFFERS);
+        Assert.assertFalse("Failure flag was set to true", failFlag.get());
+
+        // Every other buffer is random, which does not compress.
+        Assert.assertEquals(NUM_BUFFERS / 2, compressor.getCompressedBlockCount());
+        Assert.assertEquals(NUM_BUFFERS / 2, compressor.getStoredBlockCount());
+        MuxDemuxPerformanceCounters sent = md1.getPerformanceCounters();
+        MuxDemuxPerformanceCounters received = md2.getPerformanceCounters();
+        Assert.assertEquals((long) NUM_BUFFERS * BUFFER_SIZE, sent.getCompressorBytesIn());
+        Assert.assertTrue(sent.getCompressorBytesOut() < sent.getCompressorBytesIn() * 3 / 4);
+        Assert.assertEquals(sent.getCompressorBytesOut(), received.getDecompressorBytesIn());
+        Assert.assertEquals(sent.getCompressorBytesIn(), received.getDecompressorBytesOut());
+        Assert.assertEquals(sent.getCompressorBytesOut(), received.getPayloadBytesRead());
+    }
+
+    private static ByteBuffer createBuffer(int i) {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        Random rnd = new Random(i);
+        while (buffer.remaining() > 0) {
+            buffer.putInt(i % 2 == 0 ? i + buffer.position() / 64 : rnd.nextInt());
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.net.tests;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.net.buffers.IBufferAcceptor;
+import edu.uci.ics.hyracks.net.buffers.ICloseableBufferAcceptor;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.ChannelControlBlock;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.IBufferFactory;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.IChannelOpenListener;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.MultiplexedConnection;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.MuxDemux;
+import edu.uci.ics.hyracks.net.protocols.muxdemux.MuxDemuxPerformanceCounters;
+
+public class FlowControlTest {
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final int BUFFER_LIMIT = 8;
+
+    /**
+     * Many channels share one connection, and their consumers return each buffer at once. All data must arrive in
+     * order, the writes must be gathered across channels, and the read windows must grow beyond their initial size.
+     */
+    @Test
+    public void manyChannelsTest() throws Exception {
+        final int nChannels = 64;
+        final int nBuffers = 500;
+        final AtomicBoolean failFlag = new AtomicBoolean();
+        final Semaphore done = new Semaphore(0);
+        final List<ChannelControlBlock> readChannels = new ArrayList<ChannelControlBlock>();
+        IChannelOpenListener openListener = new IChannelOpenListener() {
+            @Override
+            public void channelOpened(final ChannelControlBlock channel) {
+                synchronized (readChannels) {
+                    readChannels.add(channel);
+                }
+                final IBufferAcceptor rieba = channel.getReadInterface().getEmptyBufferAcceptor();
+                channel.getReadInterface().setFullBufferAcceptor(new ICloseableBufferAcceptor() {
+                    private int received;
+
+                    @Override
+                    public void accept(ByteBuffer buffer) {
+                        if (!buffer.equals(createBuffer(received++))) {
+                            failFlag.set(true);
+                        }
+                        buffer.clear();
+                        rieba.accept(buffer);
+                    }
+
+                    @Override
+                    public void error(int ecode) {
+                        failFlag.set(true);
+                        done.release();
+                    }
+
+                    @Override
+                    public void close() {
+                        if (received != nBuffers) {
+                            failFlag.set(true);
+                        }
+                        done.release();
+                    }
+                });
+                channel.getReadInterface().setBufferFactory(new BufferFactory(), BUFFER_LIMIT, BUFFER_SIZE);
+            }
+        };
+        MuxDemux md1 = new MuxDemux(new InetSocketAddress("127.0.0.1", 0), openListener, 1, 5);
+        md1.start();
+        MuxDemux md2 = new MuxDemux(new InetSocketAddress("127.0.0.1", 0), openListener, 1, 5);
+        md2.start();
+        MultiplexedConnection md1md2 = md1.connect(md2.getLocalAddress());
+
+        List<Thread> writers = new ArrayList<Thread>();
+        for (int c = 0; c < nChannels; ++c) {
+            final ChannelControlBlock ccb = md1md2.openChannel();
+            Thread writer = new Thread() {
+                @Override
+                public void run() {
+                    ccb.getWriteInterface().setEmptyBufferAcceptor(new IBufferAcceptor() {
+                        @Override
+                        public void accept(ByteBuffer buffer) {
+                        }
+                    });
+                    ICloseableBufferAcceptor fba = ccb.getWriteInterface().getFullBufferAcceptor();
+                    for (int i = 0; i < nBuffers; ++i) {
+                        fba.accept(createBuffer(i));
+                    }
+                    fba.close();
+                }
+            };
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.acquire(nChannels);
+        Assert.assertFalse("Failure flag was set to true", failFlag.get());
+
+        MuxDemuxPerformanceCounters sent = md1.getPerformanceCounters();
+        Assert.assertEquals((long) nChannels * nBuffers * BUFFER_SIZE, sent.getPayloadBytesWritten());
+        Assert.assertTrue(sent.getCommandsWritten() > sent.getSocketWrites());
+        int maxWindow = 0;
+        synchronized (readChannels) {
+            for (ChannelControlBlock channel : readChannels) {
+                Assert.assertTrue(channel.getReadWindow() <= BUFFER_LIMIT);
+                maxWindow = Math.max(maxWindow, channel.getReadWindow());
+            }
+        }
+        Assert.assertTrue(maxWindow > 2);
+    }
+
+    /**
+     * The consumer only returns buffers once it holds the buffer limit, and then slowly. The channel must not
+     * deadlock on its small initial window, and the sender must see the time it waited for credits.
+     */
+    @Test
+    public void hoardingConsumerTest() throws Exception {
+        final int nBuffers = 40;
+        final AtomicBoolean failFlag = new AtomicBoolean();
+        final AtomicInteger maxWindow = new AtomicInteger();
+        final Semaphore done = new Semaphore(0);
+        IChannelOpenListener openListener = new IChannelOpenListener() {
+            @Override
+            public void channelOpened(final ChannelControlBlock channel) {
+                final IBufferAcceptor rieba = channel.getReadInterface().getEmptyBufferAcceptor();
+                channel.getReadInterface().setFullBufferAcceptor(new ICloseableBufferAcceptor() {
+                    private final List<ByteBuffer> held = new ArrayList<ByteBuffer>();
+
+                    private int received;
+
+                    @Override
+                    public void accept(ByteBuffer buffer) {
+                        if (!buffer.equals(createBuffer(received++))) {
+                            failFlag.set(true);
+                        }
+                        held.add(buffer);
+                        maxWindow.set(Math.max(maxWindow.get(), channel.getReadWindow()));
+                        if (held.size() == BUFFER_LIMIT) {
+                            final List<ByteBuffer> returned = new ArrayList<ByteBuffer>(held);
+                            held.clear();
+                            new Thread() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        Thread.sleep(20);
+                                    } catch (InterruptedException e) {
+                                        failFlag.set(true);
+                                    }
+                                    for (ByteBuffer b : returned) {
+                                        b.clear();
+                                        rieba.accept(b);
+                                    }
+                                }
+                            }.start();
+                        }
+                    }
+
+                    @Override
+                    public void error(int ecode) {
+                        failFlag.set(true);
+                        done.release();
+                    }
+
+                    @Override
+                    public void close() {
+                        if (received != nBuffers) {
+                            failFlag.set(true);
+                        }
+                        done.release();
+                    }
+                });
+                channel.getReadInterface().setBufferFactory(new BufferFactory(), BUFFER_LIMIT, BUFFER_SIZE);
+            }
+        };
+        MuxDemux md1 = new MuxDemux(new InetSocketAddress("127.0.0.1", 0), openListener, 1, 5);
+        md1.start();
+        MuxDemux md2 = new MuxDemux(new InetSocketAddress("127.0.0.1", 0), openListener, 1, 5);
+        md2.start();
+        MultiplexedConnection md1md2 = md1.connect(md2.getLocalAddress());
+
+        ChannelControlBlock ccb = md1md2.openChannel();
+        ccb.getWriteInterface().setEmptyBufferAcceptor(new IBufferAcceptor() {
+            @Override
+            public void accept(ByteBuffer buffer) {
+            }
+        });
+        ICloseableBufferAcceptor fba = ccb.getWriteInterface().getFullBufferAcceptor();
+        for (int i = 0; i < nBuffers; ++i) {
+            fba.accept(createBuffer(i));
+        }
+        fba.close();
+        done.acquire();
+        Assert.assertFalse("Failure flag was set to true", failFlag.get());
+        Assert.assertEquals(BUFFER_LIMIT, maxWindow.get());
+
+        MuxDemuxPerformanceCounters sent = md1.getPerformanceCounters();
+        Assert.assertTrue(sent.getCreditStallCount() > 0);
+        Assert.assertTrue(sent.getMaxCreditStallTime() > 0);
+        Assert.assertTrue(sent.getCreditStallTime() >= sent.getMaxCreditStallTime());
+        Assert.assertTrue(ccb.getWriteStallTime() > 0);
+    }
+
+    private static ByteBuffer createBuffer(int i) {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (buffer.remaining() > 0) {
+            buffer.putInt(i + buffer.position());
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static class BufferFactory implements IBufferFactory {
+        private int counter;
+
+        @Override
+        public ByteBuffer createBuffer() {
+            if (counter >= BUFFER_LIMIT) {
+                return null;
+            }
+            ++counter;
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    }
+}
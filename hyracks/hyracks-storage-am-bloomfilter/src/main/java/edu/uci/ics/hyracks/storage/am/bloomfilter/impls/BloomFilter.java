@@ -19,6 +19,7 @@ import java.nio.ByteBuffer;
 
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
 import edu.uci.ics.hyracks.dataflow.common.data.accessors.ITupleReference;
 import edu.uci.ics.hyracks.storage.am.common.api.IIndexBulkLoader;
 import edu.uci.ics.hyracks.storage.am.common.api.IndexException;
@@ -27,6 +28,16 @@ import edu.uci.ics.hyracks.storage.common.buffercache.ICachedPage;
 import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
 import edu.uci.ics.hyracks.storage.common.file.IFileMapProvider;
 
+/**
+ * A Bloom filter stored in the pages of a file that is accessed through the buffer cache. Page 0 holds the metadata.
+ * In the standard layout the bits of a key are spread over the whole filter, so a probe may pin up to numHashes
+ * pages. In the blocked layout the first hash selects a block of one cache line and all bits of the key are set
+ * within that block, so a probe pins a single page and touches a single cache line, at the price of a slightly
+ * higher false positive rate for the same number of bits. The layout is chosen when the filter is built and is
+ * recorded in the metadata page.
+ * If a {@link BloomFilterMemoryBudget} is given, an active filter keeps a copy of its bits in an off-heap buffer for
+ * as long as the budget allows, and is then probed without touching the buffer cache.
+ */
 public class BloomFilter {
 
     private final static int METADATA_PAGE_ID = 0;
@@ -34,11 +45,18 @@ public class BloomFilter {
     private final static int NUM_HASHES_USED_OFFSET = NUM_PAGES_OFFSET + 4; // 4
     private final static int NUM_ELEMENTS_OFFSET = NUM_HASHES_USED_OFFSET + 4; // 8
     private final static int NUM_BITS_OFFSET = NUM_ELEMENTS_OFFSET + 8; // 12
+    private final static int LAYOUT_OFFSET = NUM_BITS_OFFSET + 8; // 20
+
+    // Marks the blocked layout in the metadata page. Any other value means the standard layout.
+    private final static int BLOCKED_LAYOUT = 0x424c4b44;
+    private final static int BLOCK_SIZE = 64; // one cache line
 
     private final IBufferCache bufferCache;
     private final IFileMapProvider fileMapProvider;
     private final FileReference file;
     private final int[] keyFields;
+    private final boolean buildBlocked;
+    private final BloomFilterMemoryBudget memoryBudget;
     private int fileId = -1;
     private boolean isActivated = false;
 
@@ -46,17 +64,50 @@ public class BloomFilter {
     private int numHashes;
     private long numElements;
     private long numBits;
+    private boolean blocked;
     private final int numBitsPerPage;
+    private final int blockSize;
+    private final int numBitsPerBlock;
+    private final int numBlocksPerPage;
+    private final int pageSize;
+    // The bits of an active filter that holds a reservation of memoryBudget, page 1 first.
+    private volatile ByteBuffer residentBits;
     private final static byte[] ZERO_BUFFER = new byte[131072]; // 128kb
     private final static long SEED = 0L;
 
     public BloomFilter(IBufferCache bufferCache, IFileMapProvider fileMapProvider, FileReference file, int[] keyFields)
             throws HyracksDataException {
+        this(bufferCache, fileMapProvider, file, keyFields, false);
+    }
+
+    /**
+     * @param buildBlocked
+     *            whether {@link #createBuilder(long, int, int)} builds the blocked layout. Probes always use the layout
+     *            that the filter was built with.
+     */
+    public BloomFilter(IBufferCache bufferCache, IFileMapProvider fileMapProvider, FileReference file,
+            int[] keyFields, boolean buildBlocked) throws HyracksDataException {
+        this(bufferCache, fileMapProvider, file, keyFields, buildBlocked, null);
+    }
+
+    /**
+     * @param memoryBudget
+     *            the budget for keeping the filter in memory while it is active, or null to always probe through the
+     *            buffer cache
+     */
+    public BloomFilter(IBufferCache bufferCache, IFileMapProvider fileMapProvider, FileReference file,
+            int[] keyFields, boolean buildBlocked, BloomFilterMemoryBudget memoryBudget) throws HyracksDataException {
+        this.memoryBudget = memoryBudget;
         this.bufferCache = bufferCache;
         this.fileMapProvider = fileMapProvider;
         this.file = file;
         this.keyFields = keyFields;
-        this.numBitsPerPage = bufferCache.getPageSize() * Byte.SIZE;
+        this.buildBlocked = buildBlocked;
+        this.pageSize = bufferCache.getPageSize();
+        this.numBitsPerPage = pageSize * Byte.SIZE;
+        this.blockSize = Math.min(BLOCK_SIZE, bufferCache.getPageSize());
+        this.numBitsPerBlock = blockSize * Byte.SIZE;
+        this.numBlocksPerPage = bufferCache.getPageSize() / blockSize;
     }
 
     public int getFileId() {
@@ -81,11 +132,32 @@ public class BloomFilter {
         return numElements;
     }
 
+    public boolean isBlocked() throws HyracksDataException {
+        if (!isActivated) {
+            throw new HyracksDataException("The bloom filter is not activated.");
+        }
+        return blocked;
+    }
+
+    /**
+     * @return whether the filter is currently probed from memory instead of the buffer cache
+     */
+    public boolean isResident() {
+        return residentBits != null;
+    }
+
     public boolean contains(ITupleReference tuple, long[] hashes) throws HyracksDataException {
         if (numPages == 0) {
             return false;
         }
         MurmurHash128Bit.hash3_x64_128(tuple, keyFields, SEED, hashes);
+        ByteBuffer bits = residentBits;
+        if (bits != null) {
+            return residentContains(bits, hashes);
+        }
+        if (blocked) {
+            return blockContains(hashes);
+        }
         for (int i = 0; i < numHashes; ++i) {
             long hash = Math.abs((hashes[0] + (long) i * hashes[1]) % numBits);
 
@@ -111,6 +183,108 @@ public class BloomFilter {
         return true;
     }
 
+    private boolean blockContains(long[] hashes) throws HyracksDataException {
+        long block = getBlock(hashes, numBits);
+        ICachedPage page = bufferCache.pin(
+                BufferedFileHandle.getDiskPageId(fileId, (int) (block / numBlocksPerPage) + 1), false);
+        page.acquireReadLatch();
+        try {
+            ByteBuffer buffer = page.getBuffer();
+            int blockOffset = (int) (block % numBlocksPerPage) * blockSize;
+            int h1 = (int) hashes[1];
+            int h2 = (int) (hashes[1] >>> 32) | 1;
+            for (int i = 0; i < numHashes; ++i) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBitsPerBlock;
+                if ((buffer.get(blockOffset + (bit >> 3)) & (1 << (bit & 0x07))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            page.releaseReadLatch();
+            bufferCache.unpin(page);
+        }
+    }
+
+    /*
+     * Probes the resident copy. Page p of the file is at offset (p - 1) * pageSize.
+     */
+    private boolean residentContains(ByteBuffer bits, long[] hashes) {
+        if (blocked) {
+            long block = getBlock(hashes, numBits);
+            int blockOffset = (int) (block / numBlocksPerPage) * pageSize;
+            blockOffset += (int) (block % numBlocksPerPage) * blockSize;
+            int h1 = (int) hashes[1];
+            int h2 = (int) (hashes[1] >>> 32) | 1;
+            for (int i = 0; i < numHashes; ++i) {
+                int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBitsPerBlock;
+                if ((bits.get(blockOffset + (bit >> 3)) & (1 << (bit & 0x07))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = 0; i < numHashes; ++i) {
+            long hash = Math.abs((hashes[0] + (long) i * hashes[1]) % numBits);
+            int byteIndex = (int) (hash / numBitsPerPage) * pageSize + ((int) (hash % numBitsPerPage) >> 3);
+            if ((bits.get(byteIndex) & (1 << ((int) (hash % numBitsPerPage) & 0x07))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Copies the bits into an off-heap buffer if the memory budget has room for them.
+     */
+    private void loadResidentBits() throws HyracksDataException {
+        if (memoryBudget == null || numPages == 0 || residentBits != null) {
+            return;
+        }
+        long bytes = (long) numPages * pageSize;
+        if (bytes > Integer.MAX_VALUE || !memoryBudget.reserve(bytes)) {
+            return;
+        }
+        ByteBuffer bits;
+        try {
+            bits = ByteBuffer.allocateDirect((int) bytes);
+            for (int pageId = 1; pageId <= numPages; ++pageId) {
+                ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+                page.acquireReadLatch();
+                try {
+                    ByteBuffer buffer = page.getBuffer().duplicate();
+                    buffer.clear();
+                    bits.put(buffer);
+                } finally {
+                    page.releaseReadLatch();
+                    bufferCache.unpinUseOnce(page);
+                }
+            }
+        } catch (HyracksDataException e) {
+            memoryBudget.release(bytes);
+            throw e;
+        } catch (OutOfMemoryError e) {
+            memoryBudget.release(bytes);
+            return;
+        }
+        residentBits = bits;
+    }
+
+    private void releaseResidentBits() {
+        if (residentBits == null) {
+            return;
+        }
+        memoryBudget.release(residentBits.capacity());
+        residentBits = null;
+    }
+
+    /*
+     * The first hash selects the block, the second one the bits within the block.
+     */
+    private long getBlock(long[] hashes, long numBits) {
+        return (hashes[0] & Long.MAX_VALUE) % (numBits / numBitsPerBlock);
+    }
+
     private void prepareFile() throws HyracksDataException {
         boolean fileIsMapped = false;
         synchronized (fileMapProvider) {
@@ -144,6 +318,7 @@ public class BloomFilter {
             metaPage.getBuffer().putInt(NUM_HASHES_USED_OFFSET, 0);
             metaPage.getBuffer().putLong(NUM_ELEMENTS_OFFSET, 0L);
             metaPage.getBuffer().putLong(NUM_BITS_OFFSET, 0L);
+            metaPage.getBuffer().putInt(LAYOUT_OFFSET, 0);
         } finally {
             metaPage.releaseWriteLatch(true);
             bufferCache.unpin(metaPage);
@@ -158,6 +333,7 @@ public class BloomFilter {
 
         prepareFile();
         readBloomFilterMetaData();
+        loadResidentBits();
         isActivated = true;
     }
 
@@ -169,6 +345,7 @@ public class BloomFilter {
             numHashes = metaPage.getBuffer().getInt(NUM_HASHES_USED_OFFSET);
             numElements = metaPage.getBuffer().getLong(NUM_ELEMENTS_OFFSET);
             numBits = metaPage.getBuffer().getLong(NUM_BITS_OFFSET);
+            blocked = metaPage.getBuffer().getInt(LAYOUT_OFFSET) == BLOCKED_LAYOUT;
         } finally {
             metaPage.releaseReadLatch();
             bufferCache.unpin(metaPage);
@@ -179,6 +356,7 @@ public class BloomFilter {
         if (!isActivated) {
             return;
         }
+        releaseResidentBits();
         bufferCache.closeFile(fileId);
         isActivated = false;
     }
@@ -215,7 +393,14 @@ public class BloomFilter {
 
             this.numElements = numElements;
             this.numHashes = numHashes;
-            numBits = this.numElements * numBitsPerElement;
+            releaseResidentBits();
+            if (buildBlocked) {
+                // Round up to whole blocks, so that no block straddles two pages.
+                long numBlocks = (numElements * numBitsPerElement + numBitsPerBlock - 1) / numBitsPerBlock;
+                numBits = numBlocks * numBitsPerBlock;
+            } else {
+                numBits = this.numElements * numBitsPerElement;
+            }
             long tmp = (long) Math.ceil(numBits / (double) numBitsPerPage);
             if (tmp > Integer.MAX_VALUE) {
                 throw new HyracksDataException("Cannot create a bloom filter with his huge number of pages.");
@@ -258,6 +443,7 @@ public class BloomFilter {
                 metaPage.getBuffer().putInt(NUM_HASHES_USED_OFFSET, numHashes);
                 metaPage.getBuffer().putLong(NUM_ELEMENTS_OFFSET, numElements);
                 metaPage.getBuffer().putLong(NUM_BITS_OFFSET, numBits);
+                metaPage.getBuffer().putInt(LAYOUT_OFFSET, buildBlocked ? BLOCKED_LAYOUT : 0);
             } finally {
                 metaPage.releaseWriteLatch(true);
                 bufferCache.unpin(metaPage);
@@ -271,6 +457,10 @@ public class BloomFilter {
                         "Cannot add elements to this filter since it is supposed to be empty (number of elements hint passed to the filter during construction was 0).");
             }
             MurmurHash128Bit.hash3_x64_128(tuple, keyFields, SEED, hashes);
+            if (buildBlocked) {
+                addToBlock();
+                return;
+            }
             for (int i = 0; i < numHashes; ++i) {
                 long hash = Math.abs((hashes[0] + (long) i * hashes[1]) % numBits);
 
@@ -294,8 +484,30 @@ public class BloomFilter {
             }
         }
 
+        private void addToBlock() throws HyracksDataException {
+            long block = getBlock(hashes, numBits);
+            ICachedPage page = bufferCache.pin(
+                    BufferedFileHandle.getDiskPageId(fileId, (int) (block / numBlocksPerPage) + 1), false);
+            page.acquireWriteLatch();
+            try {
+                ByteBuffer buffer = page.getBuffer();
+                int blockOffset = (int) (block % numBlocksPerPage) * blockSize;
+                int h1 = (int) hashes[1];
+                int h2 = (int) (hashes[1] >>> 32) | 1;
+                for (int i = 0; i < numHashes; ++i) {
+                    int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBitsPerBlock;
+                    int byteIndex = blockOffset + (bit >> 3);
+                    buffer.put(byteIndex, (byte) (buffer.get(byteIndex) | (1 << (bit & 0x07))));
+                }
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+
         @Override
         public void end() throws HyracksDataException, IndexException {
+            loadResidentBits();
         }
 
     }
@@ -17,6 +17,7 @@ package edu.uci.ics.hyracks.storage.am.bloomfilter.impls;
 
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
 import edu.uci.ics.hyracks.storage.common.buffercache.IBufferCache;
 import edu.uci.ics.hyracks.storage.common.file.IFileMapProvider;
 
@@ -24,18 +25,44 @@ public class BloomFilterFactory {
     private final IBufferCache bufferCache;
     private final IFileMapProvider fileMapProvider;
     private final int[] bloomFilterKeyFields;
+    private final boolean blocked;
+    private final BloomFilterMemoryBudget memoryBudget;
 
     public BloomFilterFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider, int[] bloomFilterKeyFields) {
+        this(bufferCache, fileMapProvider, bloomFilterKeyFields, false);
+    }
+
+    /**
+     * @param blocked
+     *            whether the created filters build the blocked layout, see {@link BloomFilter}
+     */
+    public BloomFilterFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider, int[] bloomFilterKeyFields,
+            boolean blocked) {
+        this(bufferCache, fileMapProvider, bloomFilterKeyFields, blocked, null);
+    }
+
+    /**
+     * @param memoryBudget
+     *            the budget that the created filters keep their bits in while they are active, or null
+     */
+    public BloomFilterFactory(IBufferCache bufferCache, IFileMapProvider fileMapProvider, int[] bloomFilterKeyFields,
+            boolean blocked, BloomFilterMemoryBudget memoryBudget) {
         this.bufferCache = bufferCache;
         this.fileMapProvider = fileMapProvider;
         this.bloomFilterKeyFields = bloomFilterKeyFields;
+        this.blocked = blocked;
+        this.memoryBudget = memoryBudget;
     }
 
     public BloomFilter createBloomFiltertInstance(FileReference file) throws HyracksDataException {
-        return new BloomFilter(bufferCache, fileMapProvider, file, bloomFilterKeyFields);
+        return new BloomFilter(bufferCache, fileMapProvider, file, bloomFilterKeyFields, blocked, memoryBudget);
     }
 
     public int[] getBloomFilterKeyFields() {
         return bloomFilterKeyFields;
     }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
 }
@@ -191,6 +191,12 @@ public class BTree extends AbstractTreeIndex {
         if (ctx.pred.getHighKeyComparator() == null) {
             ctx.pred.setHighKeyComparator(ctx.cmp);
         }
+        // the cursor is opened during the descent, so it needs the file before performOp()
+        cursor.setBufferCache(bufferCache);
+        cursor.setFileId(fileId);
+        if (cursor instanceof BTreeRangeSearchCursor) {
+            ((BTreeRangeSearchCursor) cursor).setMaxPageId(getMaxPageId(ctx.metaFrame));
+        }
         // we use this loop to deal with possibly multiple operation restarts
         // due to ongoing structure modifications during the descent
         boolean repeatOp = true;
@@ -204,8 +210,6 @@ public class BTree extends AbstractTreeIndex {
             }
             repeatOp = false;
         }
-        cursor.setBufferCache(bufferCache);
-        cursor.setFileId(fileId);
     }
 
     private void unsetSmPages(BTreeOpContext ctx) throws HyracksDataException {
@@ -240,7 +244,7 @@ public class BTree extends AbstractTreeIndex {
                 false);
         leftNode.acquireWriteLatch();
         try {
-            int newLeftId = freePageManager.getFreePage(ctx.metaFrame);
+            int newLeftId = getFreePage(ctx.metaFrame);
             ICachedPage newLeftNode = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, newLeftId), true);
             newLeftNode.acquireWriteLatch();
             try {
@@ -413,7 +417,7 @@ public class BTree extends AbstractTreeIndex {
                 return true;
             }
         }
-        int rightPageId = freePageManager.getFreePage(ctx.metaFrame);
+        int rightPageId = getFreePage(ctx.metaFrame);
         ICachedPage rightNode = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, rightPageId), true);
         rightNode.acquireWriteLatch();
         try {
@@ -514,7 +518,7 @@ public class BTree extends AbstractTreeIndex {
         FrameOpSpaceStatus spaceStatus = ctx.interiorFrame.hasSpaceInsert(tuple);
         switch (spaceStatus) {
             case INSUFFICIENT_SPACE: {
-                int rightPageId = freePageManager.getFreePage(ctx.metaFrame);
+                int rightPageId = getFreePage(ctx.metaFrame);
                 ICachedPage rightNode = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, rightPageId), true);
                 rightNode.acquireWriteLatch();
                 try {
@@ -988,7 +992,7 @@ public class BTree extends AbstractTreeIndex {
                             .getBuffer().array(), 0);
                     splitKey.getTuple().resetByTupleOffset(splitKey.getBuffer(), 0);
                     splitKey.setLeftPage(leafFrontier.pageId);
-                    leafFrontier.pageId = freePageManager.getFreePage(metaFrame);
+                    leafFrontier.pageId = getFreePage(metaFrame);
 
                     ((IBTreeLeafFrame) leafFrame).setNextLeaf(leafFrontier.pageId);
                     leafFrontier.page.releaseWriteLatch(true);
@@ -1065,7 +1069,7 @@ public class BTree extends AbstractTreeIndex {
 
                 frontier.page.releaseWriteLatch(true);
                 bufferCache.unpin(frontier.page);
-                frontier.pageId = freePageManager.getFreePage(metaFrame);
+                frontier.pageId = getFreePage(metaFrame);
 
                 splitKey.setRightPage(frontier.pageId);
                 propagateBulk(level + 1);
@@ -33,6 +33,7 @@ import edu.uci.ics.hyracks.storage.am.common.ophelpers.FindTupleNoExactMatchPoli
 import edu.uci.ics.hyracks.storage.am.common.ophelpers.MultiComparator;
 import edu.uci.ics.hyracks.storage.common.buffercache.IBufferCache;
 import edu.uci.ics.hyracks.storage.common.buffercache.ICachedPage;
+import edu.uci.ics.hyracks.storage.common.buffercache.SequentialPrefetcher;
 import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
 
 public class BTreeRangeSearchCursor implements ITreeIndexCursor {
@@ -41,9 +42,12 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
     private final ITreeIndexTupleReference frameTuple;
     private final boolean exclusiveLatchNodes;
     private boolean isPageDirty;
+    private boolean useOnce;
+    private final SequentialPrefetcher prefetcher;
 
     private IBufferCache bufferCache = null;
     private int fileId = -1;
+    private int maxPageId = -1;
 
     private ICachedPage page = null;
     private int pageId = -1; // This is used by the LSMRTree flush operation
@@ -75,6 +79,7 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
         this.exclusiveLatchNodes = exclusiveLatchNodes;
         this.reusablePredicate = new RangePredicate();
         this.reconciliationTuple = new ArrayTupleReference();
+        this.prefetcher = new SequentialPrefetcher();
     }
 
     @Override
@@ -85,7 +90,7 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
             } else {
                 page.releaseReadLatch();
             }
-            bufferCache.unpin(page);
+            unpinLeaf(page);
         }
 
         tupleIndex = 0;
@@ -98,6 +103,22 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
         return frameTuple;
     }
 
+    /**
+     * Marks the leaves visited by this cursor as use-once pages in the buffer cache, e.g. for merges that read
+     * each leaf exactly once.
+     */
+    public void setUseOnce(boolean useOnce) {
+        this.useOnce = useOnce;
+    }
+
+    private void unpinLeaf(ICachedPage leaf) throws HyracksDataException {
+        if (useOnce) {
+            bufferCache.unpinUseOnce(leaf);
+        } else {
+            bufferCache.unpin(leaf);
+        }
+    }
+
     @Override
     public ICachedPage getPage() {
         return page;
@@ -113,6 +134,7 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
 
     private void fetchNextLeafPage(int nextLeafPage) throws HyracksDataException {
         do {
+            prefetcher.notifyPageVisit(nextLeafPage);
             ICachedPage nextLeaf = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, nextLeafPage), false);
             if (exclusiveLatchNodes) {
                 nextLeaf.acquireWriteLatch();
@@ -121,7 +143,7 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
                 nextLeaf.acquireReadLatch();
                 page.releaseReadLatch();
             }
-            bufferCache.unpin(page);
+            unpinLeaf(page);
 
             page = nextLeaf;
             isPageDirty = false;
@@ -170,7 +192,7 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
                 } else {
                     page.releaseReadLatch();
                 }
-                bufferCache.unpin(page);
+                unpinLeaf(page);
                 page = null;
                 isPageDirty = false;
 
@@ -248,7 +270,7 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
             } else {
                 page.releaseReadLatch();
             }
-            bufferCache.unpin(page);
+            unpinLeaf(page);
         }
         accessor = ((BTreeCursorInitialState) initialState).getAccessor();
         searchCb = initialState.getSearchOperationCallback();
@@ -257,6 +279,11 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
         page = initialState.getPage();
         isPageDirty = false;
         frame.setPage(page);
+        if (!exclusiveLatchNodes) {
+            // Read ahead along the leaf chain once the scan turns out to be sequential.
+            prefetcher.reset(bufferCache, fileId, maxPageId);
+            prefetcher.notifyPageVisit(pageId);
+        }
 
         pred = (RangePredicate) searchPred;
         lowKeyCmp = pred.getLowKeyComparator();
@@ -301,6 +328,13 @@ public class BTreeRangeSearchCursor implements ITreeIndexCursor {
         this.fileId = fileId;
     }
 
+    /**
+     * Sets the highest page id of the file, which bounds the read-ahead along the leaf chain.
+     */
+    public void setMaxPageId(int maxPageId) {
+        this.maxPageId = maxPageId;
+    }
+
     @Override
     public boolean exclusiveLatchNodes() {
         return exclusiveLatchNodes;
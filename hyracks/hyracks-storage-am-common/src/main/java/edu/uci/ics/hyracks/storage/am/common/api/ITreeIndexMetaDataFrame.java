@@ -54,6 +54,12 @@ public interface ITreeIndexMetaDataFrame {
     // Set the lsm component filter page id.
     public void setLSMComponentFilterPageId(int filterPage);
 
+    // Return the lsm component key range page id, or -1 if the component has none.
+    public int getLSMComponentKeyRangePageId();
+
+    // Set the lsm component key range page id.
+    public void setLSMComponentKeyRangePageId(int keyRangePage);
+
     // Special placeholder for LSN information. Used for transactional LSM indexes.
     public long getLSN();
 
@@ -43,6 +43,12 @@ public class LIFOMetaDataFrame implements ITreeIndexMetaDataFrame {
     private static final int additionalFilteringPageOff = validOff + 4; // 29
     protected static final int lsnOff = additionalFilteringPageOff + 4; // 33
 
+    // The key range page of an LSM disk component holds the smallest and largest key of the component.
+    // Older files keep free page ids at this offset, so the page id is only trusted if the magic is set.
+    private static final int keyRangeMagicOff = lsnOff + 8; // 41
+    private static final int keyRangePageOff = keyRangeMagicOff + 4; // 45
+    private static final int freePagesOff = keyRangePageOff + 4; // 49
+
     protected ICachedPage page = null;
     protected ByteBuffer buf = null;
 
@@ -107,11 +113,13 @@ public class LIFOMetaDataFrame implements ITreeIndexMetaDataFrame {
     @Override
     public void initBuffer(byte level) {
         buf.putInt(tupleCountOff, 0);
-        buf.putInt(freeSpaceOff, lsnOff + 8);
+        buf.putInt(freeSpaceOff, freePagesOff);
         //buf.putInt(maxPageOff, -1);
         buf.put(levelOff, level);
         buf.putInt(nextPageOff, -1);
         buf.putInt(additionalFilteringPageOff, -1);
+        buf.putInt(keyRangeMagicOff, MAGIC_VALID_INT);
+        buf.putInt(keyRangePageOff, -1);
         setValid(false);
     }
 
@@ -158,4 +166,18 @@ public class LIFOMetaDataFrame implements ITreeIndexMetaDataFrame {
     public void setLSMComponentFilterPageId(int filterPage) {
         buf.putInt(additionalFilteringPageOff, filterPage);
     }
+
+    @Override
+    public int getLSMComponentKeyRangePageId() {
+        if (buf.getInt(keyRangeMagicOff) != MAGIC_VALID_INT) {
+            return -1;
+        }
+        return buf.getInt(keyRangePageOff);
+    }
+
+    @Override
+    public void setLSMComponentKeyRangePageId(int keyRangePage) {
+        buf.putInt(keyRangeMagicOff, MAGIC_VALID_INT);
+        buf.putInt(keyRangePageOff, keyRangePage);
+    }
 }
@@ -16,6 +16,7 @@
 package edu.uci.ics.hyracks.storage.am.common.impls;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
@@ -56,6 +57,9 @@ public abstract class AbstractTreeIndex implements ITreeIndex {
 
     private boolean isActivated = false;
 
+    // Highest page id allocated in the file, or -1 until it has been read from the metadata page.
+    private final AtomicInteger maxPageId = new AtomicInteger(-1);
+
     public AbstractTreeIndex(IBufferCache bufferCache, IFileMapProvider fileMapProvider,
             IFreePageManager freePageManager, ITreeIndexFrameFactory interiorFrameFactory,
             ITreeIndexFrameFactory leafFrameFactory, IBinaryComparatorFactory[] cmpFactories, int fieldCount,
@@ -104,6 +108,7 @@ public abstract class AbstractTreeIndex implements ITreeIndex {
         ITreeIndexFrame frame = leafFrameFactory.createFrame();
         ITreeIndexMetaDataFrame metaFrame = freePageManager.getMetaDataFrameFactory().createFrame();
         freePageManager.init(metaFrame, rootPage);
+        maxPageId.set(-1);
 
         ICachedPage rootNode = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, rootPage), true);
         rootNode.acquireWriteLatch();
@@ -154,6 +159,7 @@ public abstract class AbstractTreeIndex implements ITreeIndex {
 
         bufferCache.closeFile(fileId);
         freePageManager.close();
+        maxPageId.set(-1);
 
         isActivated = false;
     }
@@ -238,6 +244,35 @@ public abstract class AbstractTreeIndex implements ITreeIndex {
         return rootPage;
     }
 
+    /**
+     * Allocates a page through the free page manager and keeps track of the highest allocated page id.
+     */
+    protected int getFreePage(ITreeIndexMetaDataFrame metaFrame) throws HyracksDataException {
+        int pageId = freePageManager.getFreePage(metaFrame);
+        raiseMaxPageId(pageId);
+        return pageId;
+    }
+
+    /**
+     * Returns the highest page id allocated in the file. It is read from the metadata page on the first call after
+     * the tree is activated or cleared, and then maintained by {@link #getFreePage(ITreeIndexMetaDataFrame)}.
+     */
+    protected int getMaxPageId(ITreeIndexMetaDataFrame metaFrame) throws HyracksDataException {
+        int max = maxPageId.get();
+        if (max < 0) {
+            max = freePageManager.getMaxPage(metaFrame);
+            raiseMaxPageId(max);
+        }
+        return max;
+    }
+
+    private void raiseMaxPageId(int pageId) {
+        int max = maxPageId.get();
+        while (pageId > max && !maxPageId.compareAndSet(max, pageId)) {
+            max = maxPageId.get();
+        }
+    }
+
     public int getFieldCount() {
         return fieldCount;
     }
@@ -271,7 +306,7 @@ public abstract class AbstractTreeIndex implements ITreeIndex {
             tupleWriter = leafFrame.getTupleWriter();
 
             NodeFrontier leafFrontier = new NodeFrontier(leafFrame.createTupleReference());
-            leafFrontier.pageId = freePageManager.getFreePage(metaFrame);
+            leafFrontier.pageId = getFreePage(metaFrame);
             leafFrontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, leafFrontier.pageId), true);
             leafFrontier.page.acquireWriteLatch();
 
@@ -329,7 +364,7 @@ public abstract class AbstractTreeIndex implements ITreeIndex {
 
         protected void addLevel() throws HyracksDataException {
             NodeFrontier frontier = new NodeFrontier(tupleWriter.createTupleReference());
-            frontier.pageId = freePageManager.getFreePage(metaFrame);
+            frontier.pageId = getFreePage(metaFrame);
             frontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, frontier.pageId), true);
             frontier.page.acquireWriteLatch();
             frontier.lastTuple.setFieldCount(cmp.getKeyFieldCount());
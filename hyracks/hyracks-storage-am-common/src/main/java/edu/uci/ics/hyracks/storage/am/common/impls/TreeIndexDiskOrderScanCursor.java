@@ -23,6 +23,7 @@ import edu.uci.ics.hyracks.storage.am.common.api.ITreeIndexFrame;
 import edu.uci.ics.hyracks.storage.am.common.api.ITreeIndexTupleReference;
 import edu.uci.ics.hyracks.storage.common.buffercache.IBufferCache;
 import edu.uci.ics.hyracks.storage.common.buffercache.ICachedPage;
+import edu.uci.ics.hyracks.storage.common.buffercache.SequentialPrefetcher;
 import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
 
 public class TreeIndexDiskOrderScanCursor implements ITreeIndexCursor {
@@ -33,6 +34,7 @@ public class TreeIndexDiskOrderScanCursor implements ITreeIndexCursor {
     private int maxPageId = -1;
     private ICachedPage page = null;
     private IBufferCache bufferCache = null;
+    private final SequentialPrefetcher prefetcher = new SequentialPrefetcher();
 
     private final ITreeIndexFrame frame;
     private final ITreeIndexTupleReference frameTuple;
@@ -44,8 +46,7 @@ public class TreeIndexDiskOrderScanCursor implements ITreeIndexCursor {
 
     @Override
     public void close() throws HyracksDataException {
-        page.releaseReadLatch();
-        bufferCache.unpin(page);
+        releasePage();
         page = null;
     }
 
@@ -59,13 +60,27 @@ public class TreeIndexDiskOrderScanCursor implements ITreeIndexCursor {
         return page;
     }
 
+    /**
+     * Leaves are only visited once by the scan, so they are handed back as use-once pages. Interior pages are
+     * shared with point lookups and are released normally.
+     */
+    private void releasePage() throws HyracksDataException {
+        boolean leaf = frame.getLevel() == 0;
+        page.releaseReadLatch();
+        if (leaf) {
+            bufferCache.unpinUseOnce(page);
+        } else {
+            bufferCache.unpin(page);
+        }
+    }
+
     private boolean positionToNextLeaf(boolean skipCurrent) throws HyracksDataException {
         while ((frame.getLevel() != 0 || skipCurrent || frame.getTupleCount() == 0) && (currentPageId <= maxPageId)) {
             currentPageId++;
 
-            page.releaseReadLatch();
-            bufferCache.unpin(page);
+            releasePage();
 
+            prefetcher.notifyPageVisit(currentPageId);
             ICachedPage nextPage = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, currentPageId), false);
             nextPage.acquireReadLatch();
 
@@ -108,12 +123,13 @@ public class TreeIndexDiskOrderScanCursor implements ITreeIndexCursor {
     public void open(ICursorInitialState initialState, ISearchPredicate searchPred) throws HyracksDataException {
         // in case open is called multiple times without closing
         if (page != null) {
-            page.releaseReadLatch();
-            bufferCache.unpin(page);
+            releasePage();
         }
         page = initialState.getPage();
         tupleIndex = 0;
         frame.setPage(page);
+        prefetcher.reset(bufferCache, fileId, maxPageId);
+        prefetcher.notifyPageVisit(currentPageId);
         positionToNextLeaf(false);
     }
 
@@ -54,6 +54,7 @@ import edu.uci.ics.hyracks.storage.am.common.ophelpers.MultiComparator;
 import edu.uci.ics.hyracks.storage.am.common.tuples.PermutingTupleReference;
 import edu.uci.ics.hyracks.storage.am.lsm.btree.tuples.LSMBTreeTupleReference;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponentFilter;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponentFilterFactory;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponentFilterFrameFactory;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMHarness;
@@ -72,6 +73,7 @@ import edu.uci.ics.hyracks.storage.am.lsm.common.impls.AbstractLSMIndex;
 import edu.uci.ics.hyracks.storage.am.lsm.common.impls.BlockingIOOperationCallbackWrapper;
 import edu.uci.ics.hyracks.storage.am.lsm.common.impls.LSMComponentFileReferences;
 import edu.uci.ics.hyracks.storage.am.lsm.common.impls.LSMComponentFilterManager;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.LSMComponentKeyRangeManager;
 import edu.uci.ics.hyracks.storage.am.lsm.common.impls.LSMIndexSearchCursor;
 import edu.uci.ics.hyracks.storage.am.lsm.common.impls.LSMTreeIndexAccessor;
 import edu.uci.ics.hyracks.storage.am.lsm.common.impls.TreeIndexFactory;
@@ -94,12 +96,17 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
     private final boolean needKeyDupCheck;
     private final int[] btreeFields;
 
+    // The smallest and largest key of each disk component, used to skip components that cannot match a search.
+    // Null if the index does not keep key ranges.
+    private final LSMComponentKeyRangeManager keyRangeManager;
+
     public LSMBTree(List<IVirtualBufferCache> virtualBufferCaches, ITreeIndexFrameFactory interiorFrameFactory,
             ITreeIndexFrameFactory insertLeafFrameFactory, ITreeIndexFrameFactory deleteLeafFrameFactory,
             ILSMIndexFileManager fileManager, TreeIndexFactory<BTree> diskBTreeFactory,
             TreeIndexFactory<BTree> bulkLoadBTreeFactory, BloomFilterFactory bloomFilterFactory,
             ILSMComponentFilterFactory filterFactory, ILSMComponentFilterFrameFactory filterFrameFactory,
-            LSMComponentFilterManager filterManager, double bloomFilterFalsePositiveRate,
+            LSMComponentFilterManager filterManager, ILSMComponentFilterFactory keyRangeFactory,
+            LSMComponentKeyRangeManager keyRangeManager, double bloomFilterFalsePositiveRate,
             IFileMapProvider diskFileMapProvider, int fieldCount, IBinaryComparatorFactory[] cmpFactories,
             ILSMMergePolicy mergePolicy, ILSMOperationTracker opTracker, ILSMIOOperationScheduler ioScheduler,
             ILSMIOOperationCallback ioOpCallback, boolean needKeyDupCheck, int[] btreeFields, int[] filterFields,
@@ -122,9 +129,11 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         this.insertLeafFrameFactory = insertLeafFrameFactory;
         this.deleteLeafFrameFactory = deleteLeafFrameFactory;
         this.cmpFactories = cmpFactories;
-        componentFactory = new LSMBTreeDiskComponentFactory(diskBTreeFactory, bloomFilterFactory, filterFactory);
+        this.keyRangeManager = keyRangeManager;
+        componentFactory = new LSMBTreeDiskComponentFactory(diskBTreeFactory, bloomFilterFactory, filterFactory,
+                keyRangeFactory);
         bulkLoadComponentFactory = new LSMBTreeDiskComponentFactory(bulkLoadBTreeFactory, bloomFilterFactory,
-                filterFactory);
+                filterFactory, keyRangeFactory);
         this.needKeyDupCheck = needKeyDupCheck;
         this.btreeFields = btreeFields;
     }
@@ -146,6 +155,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         bulkLoadComponentFactory = new LSMBTreeDiskComponentFactory(bulkLoadBTreeFactory, bloomFilterFactory, null);
         this.needKeyDupCheck = needKeyDupCheck;
         this.btreeFields = null;
+        this.keyRangeManager = null;
     }
 
     @Override
@@ -312,17 +322,18 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                 }
                 // The current mutable component is always added
                 operationalComponents.add(0, memoryComponents.get(cmc));
-                if (filterManager != null) {
-                    for (ILSMComponent c : immutableComponents) {
-                        if (c.getLSMComponentFilter().satisfy(
-                                ((AbstractSearchPredicate) ctx.getSearchPredicate()).getMinFilterTuple(),
-                                ((AbstractSearchPredicate) ctx.getSearchPredicate()).getMaxFilterTuple(),
-                                ((LSMBTreeOpContext) ctx).filterCmp)) {
-                            operationalComponents.add(c);
-                        }
+                for (ILSMComponent c : immutableComponents) {
+                    if (filterManager != null
+                            && !c.getLSMComponentFilter().satisfy(
+                                    ((AbstractSearchPredicate) ctx.getSearchPredicate()).getMinFilterTuple(),
+                                    ((AbstractSearchPredicate) ctx.getSearchPredicate()).getMaxFilterTuple(),
+                                    ((LSMBTreeOpContext) ctx).filterCmp)) {
+                        continue;
                     }
-                } else {
-                    operationalComponents.addAll(immutableComponents);
+                    if (!isInKeyRange((LSMBTreeDiskComponent) c, ctx.getSearchPredicate(), (LSMBTreeOpContext) ctx)) {
+                        continue;
+                    }
+                    operationalComponents.add(c);
                 }
 
                 break;
@@ -477,6 +488,10 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         IIndexBulkLoader builder = component.getBloomFilter().createBuilder(numElements,
                 bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
 
+        ILSMComponentFilter keyRange = component.getKeyRange();
+        PermutingTupleReference keyTuple = keyRange != null ? createKeyTuple() : null;
+        MultiComparator keyCmp = keyRange != null ? MultiComparator.create(cmpFactories) : null;
+
         IIndexCursor scanCursor = accessor.createSearchCursor(false);
         accessor.search(scanCursor, nullPred);
         try {
@@ -484,12 +499,17 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                 scanCursor.next();
                 builder.add(scanCursor.getTuple());
                 bulkLoader.add(scanCursor.getTuple());
+                if (keyRange != null) {
+                    keyTuple.reset(scanCursor.getTuple());
+                    keyRange.update(keyTuple, keyCmp);
+                }
             }
         } finally {
             scanCursor.close();
             builder.end();
         }
         bulkLoader.end();
+        writeKeyRange(component);
 
         if (component.getLSMComponentFilter() != null) {
             List<ITupleReference> filterTuples = new ArrayList<ITupleReference>();
@@ -546,6 +566,24 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         LSMBTreeDiskComponent mergedComponent = createDiskComponent(componentFactory, mergeOp.getBTreeMergeTarget(),
                 mergeOp.getBloomFilterMergeTarget(), true);
 
+        // The merged key range is the union of the merged ones. It is only computed from the tuples if one of the
+        // merged components was written without a key range.
+        ILSMComponentFilter keyRange = mergedComponent.getKeyRange();
+        PermutingTupleReference keyTuple = null;
+        MultiComparator keyCmp = keyRange != null ? MultiComparator.create(cmpFactories) : null;
+        if (keyRange != null) {
+            for (int i = 0; i < mergedComponents.size(); ++i) {
+                ILSMComponentFilter mergedKeyRange = ((LSMBTreeDiskComponent) mergedComponents.get(i)).getKeyRange();
+                if (mergedKeyRange == null || mergedKeyRange.getMinTuple() == null) {
+                    keyRange.reset();
+                    keyTuple = createKeyTuple();
+                    break;
+                }
+                keyRange.update(mergedKeyRange.getMinTuple(), keyCmp);
+                keyRange.update(mergedKeyRange.getMaxTuple(), keyCmp);
+            }
+        }
+
         IIndexBulkLoader bulkLoader = mergedComponent.getBTree().createBulkLoader(1.0f, false, numElements, false);
         IIndexBulkLoader builder = mergedComponent.getBloomFilter().createBuilder(numElements,
                 bloomFilterSpec.getNumHashes(), bloomFilterSpec.getNumBucketsPerElements());
@@ -555,12 +593,17 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                 ITupleReference frameTuple = cursor.getTuple();
                 builder.add(frameTuple);
                 bulkLoader.add(frameTuple);
+                if (keyTuple != null) {
+                    keyTuple.reset(frameTuple);
+                    keyRange.update(keyTuple, keyCmp);
+                }
             }
         } finally {
             cursor.close();
             builder.end();
         }
         bulkLoader.end();
+        writeKeyRange(mergedComponent);
 
         if (mergedComponent.getLSMComponentFilter() != null) {
             List<ITupleReference> filterTuples = new ArrayList<ITupleReference>();
@@ -591,9 +634,54 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         if (component.getLSMComponentFilter() != null) {
             filterManager.readFilterInfo(component.getLSMComponentFilter(), component.getBTree());
         }
+        if (component.getKeyRange() != null) {
+            keyRangeManager.readFilterInfo(component.getKeyRange(), component.getBTree());
+        }
         return component;
     }
 
+    private PermutingTupleReference createKeyTuple() {
+        int[] keyFields = new int[cmpFactories.length];
+        for (int i = 0; i < keyFields.length; i++) {
+            keyFields[i] = i;
+        }
+        return new PermutingTupleReference(keyFields);
+    }
+
+    private void writeKeyRange(LSMBTreeDiskComponent component) throws HyracksDataException {
+        if (component.getKeyRange() != null) {
+            keyRangeManager.writeFilterInfo(component.getKeyRange(), component.getBTree());
+        }
+    }
+
+    /**
+     * @return false if the search cannot find any key of the given disk component, judging from the smallest and
+     *         largest key of the component. Prefix keys are compared with the comparator of the predicate.
+     */
+    private boolean isInKeyRange(LSMBTreeDiskComponent component, ISearchPredicate pred, LSMBTreeOpContext ctx)
+            throws HyracksDataException {
+        ILSMComponentFilter keyRange = component.getKeyRange();
+        if (keyRange == null || keyRange.getMinTuple() == null || !(pred instanceof RangePredicate)) {
+            return true;
+        }
+        RangePredicate rangePred = (RangePredicate) pred;
+        if (rangePred.getLowKey() != null) {
+            MultiComparator lowKeyCmp = rangePred.getLowKeyComparator() != null ? rangePred.getLowKeyComparator()
+                    : ctx.cmp;
+            if (lowKeyCmp.compare(rangePred.getLowKey(), keyRange.getMaxTuple()) > 0) {
+                return false;
+            }
+        }
+        if (rangePred.getHighKey() != null) {
+            MultiComparator highKeyCmp = rangePred.getHighKeyComparator() != null ? rangePred.getHighKeyComparator()
+                    : ctx.cmp;
+            if (highKeyCmp.compare(rangePred.getHighKey(), keyRange.getMinTuple()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public IIndexBulkLoader createBulkLoader(float fillLevel, boolean verifyInput, long numElementsHint,
             boolean checkIfEmptyIndex) throws TreeIndexException {
@@ -635,6 +723,9 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
         public final PermutingTupleReference indexTuple;
         public final PermutingTupleReference filterTuple;
         public final MultiComparator filterCmp;
+        private final ILSMComponentFilter keyRange;
+        private final PermutingTupleReference keyTuple;
+        private final MultiComparator keyCmp;
 
         public LSMBTreeBulkLoader(float fillFactor, boolean verifyInput, long numElementsHint, boolean checkIfEmptyIndex)
                 throws TreeIndexException, HyracksDataException {
@@ -664,6 +755,9 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                 filterCmp = null;
                 filterTuple = null;
             }
+            keyRange = ((LSMBTreeDiskComponent) component).getKeyRange();
+            keyTuple = keyRange != null ? createKeyTuple() : null;
+            keyCmp = keyRange != null ? MultiComparator.create(cmpFactories) : null;
         }
 
         @Override
@@ -684,6 +778,10 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                     filterTuple.reset(tuple);
                     component.getLSMComponentFilter().update(filterTuple, filterCmp);
                 }
+                if (keyRange != null) {
+                    keyTuple.reset(t);
+                    keyRange.update(keyTuple, keyCmp);
+                }
             } catch (IndexException | HyracksDataException | RuntimeException e) {
                 cleanupArtifacts();
                 throw e;
@@ -721,6 +819,7 @@ public class LSMBTree extends AbstractLSMIndex implements ITreeIndex {
                     filterManager.writeFilterInfo(component.getLSMComponentFilter(),
                             ((LSMBTreeDiskComponent) component).getBTree());
                 }
+                writeKeyRange((LSMBTreeDiskComponent) component);
 
                 if (isEmptyComponent) {
                     cleanupArtifacts();
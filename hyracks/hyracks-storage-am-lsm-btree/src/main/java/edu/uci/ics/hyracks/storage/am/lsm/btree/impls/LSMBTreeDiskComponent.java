@@ -18,16 +18,24 @@ import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.storage.am.bloomfilter.impls.BloomFilter;
 import edu.uci.ics.hyracks.storage.am.btree.impls.BTree;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponentFilter;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMKeyRangeComponent;
 import edu.uci.ics.hyracks.storage.am.lsm.common.impls.AbstractDiskLSMComponent;
 
-public class LSMBTreeDiskComponent extends AbstractDiskLSMComponent {
+public class LSMBTreeDiskComponent extends AbstractDiskLSMComponent implements ILSMKeyRangeComponent {
     private final BTree btree;
     private final BloomFilter bloomFilter;
+    private final ILSMComponentFilter keyRange;
 
     public LSMBTreeDiskComponent(BTree btree, BloomFilter bloomFilter, ILSMComponentFilter filter) {
+        this(btree, bloomFilter, filter, null);
+    }
+
+    public LSMBTreeDiskComponent(BTree btree, BloomFilter bloomFilter, ILSMComponentFilter filter,
+            ILSMComponentFilter keyRange) {
         super(filter);
         this.btree = btree;
         this.bloomFilter = bloomFilter;
+        this.keyRange = keyRange;
     }
 
     @Override
@@ -46,6 +54,11 @@ public class LSMBTreeDiskComponent extends AbstractDiskLSMComponent {
         return bloomFilter;
     }
 
+    @Override
+    public ILSMComponentFilter getKeyRange() {
+        return keyRange;
+    }
+
     @Override
     public long getComponentSize() {
         return btree.getFileReference().getFile().length() + bloomFilter.getFileReference().getFile().length();
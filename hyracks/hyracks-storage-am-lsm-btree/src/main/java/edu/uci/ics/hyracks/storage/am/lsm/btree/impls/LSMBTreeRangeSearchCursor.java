@@ -33,6 +33,7 @@ import edu.uci.ics.hyracks.storage.am.common.api.ISearchPredicate;
 import edu.uci.ics.hyracks.storage.am.common.api.ITreeIndexAccessor;
 import edu.uci.ics.hyracks.storage.am.common.api.IndexException;
 import edu.uci.ics.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import edu.uci.ics.hyracks.storage.am.common.ophelpers.IndexOperation;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent.LSMComponentType;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndexOperationContext;
@@ -186,6 +187,7 @@ public class LSMBTreeRangeSearchCursor extends LSMIndexSearchCursor {
         reusablePred.setHighKey(predicate.getHighKey(), predicate.isHighKeyInclusive());
         reusablePred.setHighKeyComparator(predicate.getHighKeyComparator());
         includeMutableComponent = false;
+        boolean merging = opCtx.getOperation() == IndexOperation.MERGE;
 
         int numBTrees = operationalComponents.size();
         rangeCursors = new IIndexCursor[numBTrees];
@@ -195,12 +197,15 @@ public class LSMBTreeRangeSearchCursor extends LSMIndexSearchCursor {
             ILSMComponent component = operationalComponents.get(i);
             BTree btree;
             IBTreeLeafFrame leafFrame = (IBTreeLeafFrame) lsmInitialState.getLeafFrameFactory().createFrame();
-            rangeCursors[i] = new BTreeRangeSearchCursor(leafFrame, false);
+            BTreeRangeSearchCursor rangeCursor = new BTreeRangeSearchCursor(leafFrame, false);
+            rangeCursors[i] = rangeCursor;
             if (component.getType() == LSMComponentType.MEMORY) {
                 includeMutableComponent = true;
                 btree = (BTree) ((LSMBTreeMemoryComponent) component).getBTree();
             } else {
                 btree = (BTree) ((LSMBTreeDiskComponent) component).getBTree();
+                // A merge reads each leaf of its inputs once; keep those leaves from displacing hot pages.
+                rangeCursor.setUseOnce(merging);
             }
             btreeAccessors[i] = btree.createAccessor(NoOpOperationCallback.INSTANCE, NoOpOperationCallback.INSTANCE);
             btreeAccessors[i].search(rangeCursors[i], searchPred);
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.common.api;
+
+/**
+ * A disk component that records the smallest and largest key it holds.
+ */
+public interface ILSMKeyRangeComponent extends ILSMComponent {
+
+    // Return the key range of the component, or null if the index does not keep key ranges.
+    // The range has no min and max tuple if it was not recorded when the component was written.
+    public ILSMComponentFilter getKeyRange();
+}
@@ -19,10 +19,18 @@ import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.storage.am.bloomfilter.impls.BloomFilter;
 import edu.uci.ics.hyracks.storage.am.btree.api.IBTreeLeafFrame;
 import edu.uci.ics.hyracks.storage.am.btree.impls.BTreeRangeSearchCursor;
+import edu.uci.ics.hyracks.storage.am.common.api.ICursorInitialState;
+import edu.uci.ics.hyracks.storage.am.common.api.ISearchPredicate;
 
+/**
+ * Probes the bloom filter of the component once per search, no matter how often {@link #hasNext()} is called. With
+ * the blocked filter layout a negative probe costs a single page pin.
+ */
 public class BloomFilterAwareBTreePointSearchCursor extends BTreeRangeSearchCursor {
     private final BloomFilter bloomFilter;
     private long[] hashes = new long[2];
+    private boolean probed;
+    private boolean mayContain;
 
     public BloomFilterAwareBTreePointSearchCursor(IBTreeLeafFrame frame, boolean exclusiveLatchNodes,
             BloomFilter bloomFilter) {
@@ -30,11 +38,21 @@ public class BloomFilterAwareBTreePointSearchCursor extends BTreeRangeSearchCurs
         this.bloomFilter = bloomFilter;
     }
 
+    @Override
+    public void open(ICursorInitialState initialState, ISearchPredicate searchPred) throws HyracksDataException {
+        probed = false;
+        super.open(initialState, searchPred);
+    }
+
     @Override
     public boolean hasNext() throws HyracksDataException {
-        if (bloomFilter.contains(lowKey, hashes)) {
+        if (!probed) {
+            mayContain = bloomFilter.contains(lowKey, hashes);
+            probed = true;
+        }
+        if (mayContain) {
             return super.hasNext();
         }
         return false;
     }
-}
\ No newline at end of file
+}
@@ -214,7 +214,7 @@ public class ExternalIndexHarness extends LSMHarness {
             operation.getCallback().afterFinalize(LSMOperationType.MERGE, newComponent);
         }
         if (LOGGER.isLoggable(Level.INFO)) {
-            LOGGER.info("Finished the merge operation for index: " + lsmIndex);
+            LOGGER.info("Finished the merge operation for index: " + lsmIndex + getAmplificationStatistics());
         }
     }
 
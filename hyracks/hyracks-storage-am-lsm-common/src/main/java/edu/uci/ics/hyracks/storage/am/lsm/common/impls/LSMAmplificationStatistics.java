@@ -0,0 +1,231 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.common.impls;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.storage.am.common.ophelpers.MultiComparator;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponentFilter;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndex;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMKeyRangeComponent;
+
+/**
+ * Write and read amplification of the indexes that a merge policy manages, measured from the disk components the
+ * policy is told about.
+ * <ul>
+ * <li>The write amplification is the number of bytes written by flushes, bulk loads and merges per byte written by
+ * flushes and bulk loads.</li>
+ * <li>The read amplification is the number of sorted runs that a point search may have to visit. A sorted run is a
+ * sequence of adjacent disk components whose key ranges do not overlap. Components without a key range are runs of
+ * their own.</li>
+ * </ul>
+ */
+public class LSMAmplificationStatistics {
+    // The disk components of each index as of the last call to componentsChanged(), newest first.
+    private final Map<ILSMIndex, List<ILSMComponent>> knownComponents = new WeakHashMap<ILSMIndex, List<ILSMComponent>>();
+    // The components that were added by a flush or a bulk load, as opposed to a merge.
+    private final Map<ILSMComponent, Boolean> flushedComponents = new WeakHashMap<ILSMComponent, Boolean>();
+
+    private long flushedBytes;
+    private long mergedBytes;
+    private long flushCount;
+    private long mergeCount;
+    private int readAmplification;
+    private int maxReadAmplification;
+
+    /**
+     * Accounts for the disk components that were added to or removed from the index since the last call. Must be
+     * called from {@link edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMMergePolicy#diskComponentAdded} before
+     * any merge is scheduled.
+     * Each new component is classified on its own: a merged component takes the place of the components it replaces,
+     * while flushed and bulk-loaded components are added in front of all others.
+     */
+    public synchronized void componentsChanged(ILSMIndex index) throws HyracksDataException {
+        List<ILSMComponent> components = new ArrayList<ILSMComponent>(index.getImmutableComponents());
+        List<ILSMComponent> known = knownComponents.get(index);
+        if (known == null) {
+            // The older components of an index that was just activated were not written under our watch.
+            known = components.isEmpty() ? components : components.subList(1, components.size());
+        }
+        Map<ILSMComponent, Integer> knownPositions = new IdentityHashMap<ILSMComponent, Integer>();
+        for (int i = 0; i < known.size(); i++) {
+            knownPositions.put(known.get(i), i);
+        }
+        // Walk the gaps between the known components that are still there. A gap from which known components have
+        // disappeared holds the result of a merge; at the front, it may also hold newer flushed components.
+        List<ILSMComponent> added = new ArrayList<ILSMComponent>();
+        int previous = -1;
+        for (int i = 0; i <= components.size(); i++) {
+            int position = known.size();
+            if (i < components.size()) {
+                Integer knownPosition = knownPositions.get(components.get(i));
+                if (knownPosition == null) {
+                    added.add(components.get(i));
+                    continue;
+                }
+                position = knownPosition;
+            }
+            boolean replaced = position - previous > 1;
+            for (int j = 0; j < added.size(); j++) {
+                boolean merged = replaced && (previous >= 0 || j == added.size() - 1);
+                componentAdded(added.get(j), merged);
+            }
+            added.clear();
+            previous = position;
+        }
+        knownComponents.put(index, components);
+
+        readAmplification = groupSortedRuns(components).size();
+        maxReadAmplification = Math.max(maxReadAmplification, readAmplification);
+    }
+
+    private void componentAdded(ILSMComponent c, boolean merged) {
+        long size = getComponentSize(c);
+        if (merged) {
+            mergedBytes += size;
+            mergeCount++;
+        } else {
+            flushedBytes += size;
+            flushCount++;
+            flushedComponents.put(c, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @return whether the component was added by a flush or a bulk load
+     */
+    public synchronized boolean isFlushed(ILSMComponent c) {
+        return flushedComponents.containsKey(c);
+    }
+
+    public synchronized long getFlushedBytes() {
+        return flushedBytes;
+    }
+
+    public synchronized long getMergedBytes() {
+        return mergedBytes;
+    }
+
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    public synchronized long getMergeCount() {
+        return mergeCount;
+    }
+
+    /**
+     * @return the average size of a flushed component, or 0 if nothing was flushed yet
+     */
+    public synchronized long getAverageFlushedComponentSize() {
+        return flushCount == 0 ? 0 : flushedBytes / flushCount;
+    }
+
+    /**
+     * @return the bytes written per byte flushed, or 0 if nothing was flushed yet
+     */
+    public synchronized double getWriteAmplification() {
+        return flushedBytes == 0 ? 0 : (double) (flushedBytes + mergedBytes) / flushedBytes;
+    }
+
+    /**
+     * @return the number of sorted runs of the index after the last component was added
+     */
+    public synchronized int getReadAmplification() {
+        return readAmplification;
+    }
+
+    public synchronized int getMaxReadAmplification() {
+        return maxReadAmplification;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "write amplification " + getWriteAmplification() + " (" + flushCount + " flushes, " + mergeCount
+                + " merges), read amplification " + readAmplification + " (max " + maxReadAmplification + ")";
+    }
+
+    public static long getComponentSize(ILSMComponent c) {
+        return ((AbstractDiskLSMComponent) c).getComponentSize();
+    }
+
+    public static long getComponentSize(List<ILSMComponent> components) {
+        long size = 0;
+        for (ILSMComponent c : components) {
+            size += getComponentSize(c);
+        }
+        return size;
+    }
+
+    /**
+     * Splits the components, in the order of the index, into sorted runs of adjacent components whose key ranges are
+     * pairwise disjoint.
+     */
+    public static List<List<ILSMComponent>> groupSortedRuns(List<ILSMComponent> components)
+            throws HyracksDataException {
+        List<List<ILSMComponent>> runs = new ArrayList<List<ILSMComponent>>();
+        List<ILSMComponent> run = null;
+        for (ILSMComponent c : components) {
+            if (run != null && !overlaps(c, run)) {
+                run.add(c);
+                continue;
+            }
+            run = new ArrayList<ILSMComponent>();
+            run.add(c);
+            runs.add(run);
+        }
+        return runs;
+    }
+
+    /**
+     * @return whether the key range of the component overlaps the key range of any of the others
+     */
+    public static boolean overlaps(ILSMComponent c, List<ILSMComponent> others) throws HyracksDataException {
+        for (ILSMComponent other : others) {
+            if (overlaps(c, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean overlaps(ILSMComponent c1, ILSMComponent c2) throws HyracksDataException {
+        ILSMComponentFilter range1 = getKeyRange(c1);
+        ILSMComponentFilter range2 = getKeyRange(c2);
+        if (range1 == null || range2 == null) {
+            return true;
+        }
+        MultiComparator cmp = MultiComparator.create(range1.getFilterCmpFactories());
+        return cmp.compare(range1.getMaxTuple(), range2.getMinTuple()) >= 0
+                && cmp.compare(range2.getMaxTuple(), range1.getMinTuple()) >= 0;
+    }
+
+    private static ILSMComponentFilter getKeyRange(ILSMComponent c) {
+        if (!(c instanceof ILSMKeyRangeComponent)) {
+            return null;
+        }
+        ILSMComponentFilter keyRange = ((ILSMKeyRangeComponent) c).getKeyRange();
+        if (keyRange == null || keyRange.getMinTuple() == null) {
+            return null;
+        }
+        return keyRange;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.common.impls;
+
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.storage.am.common.api.ITreeIndex;
+import edu.uci.ics.hyracks.storage.am.common.api.ITreeIndexMetaDataFrame;
+import edu.uci.ics.hyracks.storage.am.common.api.ITreeIndexTupleWriter;
+import edu.uci.ics.hyracks.storage.am.common.api.ITreeIndexTupleWriterFactory;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponentFilter;
+import edu.uci.ics.hyracks.storage.am.lsm.common.frames.LSMComponentFilterFrameFactory;
+import edu.uci.ics.hyracks.storage.common.buffercache.IBufferCache;
+
+/**
+ * Persists the key range of a disk component, i.e. its smallest and largest key, in a page of the component's tree.
+ * The key range is kept like an {@link LSMComponentFilter} over the key fields, but in its own page so that it can
+ * coexist with a filter on non-key fields. Keys too large for the page are not written, and the component is then
+ * searched regardless of its keys.
+ */
+public class LSMComponentKeyRangeManager extends LSMComponentFilterManager {
+
+    private final ITreeIndexTupleWriter tupleWriter;
+    // Each key gets half of the page, after the two indicator bytes.
+    private final int maxTupleSize;
+
+    public LSMComponentKeyRangeManager(IBufferCache bufferCache, ITreeIndexTupleWriterFactory tupleWriterFactory) {
+        super(bufferCache, new LSMComponentFilterFrameFactory(tupleWriterFactory, bufferCache.getPageSize()));
+        this.tupleWriter = tupleWriterFactory.createTupleWriter();
+        this.maxTupleSize = bufferCache.getPageSize() / 2 - 2;
+    }
+
+    @Override
+    public void writeFilterInfo(ILSMComponentFilter keyRange, ITreeIndex treeIndex) throws HyracksDataException {
+        if (keyRange.getMinTuple() == null) {
+            return;
+        }
+        if (tupleWriter.bytesRequired(keyRange.getMinTuple()) > maxTupleSize
+                || tupleWriter.bytesRequired(keyRange.getMaxTuple()) > maxTupleSize) {
+            keyRange.reset();
+            return;
+        }
+        super.writeFilterInfo(keyRange, treeIndex);
+    }
+
+    @Override
+    protected int getFilterPageId(ITreeIndexMetaDataFrame metadataFrame) {
+        return metadataFrame.getLSMComponentKeyRangePageId();
+    }
+
+    @Override
+    protected void setFilterPageId(ITreeIndexMetaDataFrame metadataFrame, int filterPageId) {
+        metadataFrame.setLSMComponentKeyRangePageId(filterPageId);
+    }
+}
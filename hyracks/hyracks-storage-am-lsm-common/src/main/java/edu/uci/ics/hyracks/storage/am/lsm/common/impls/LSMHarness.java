@@ -27,6 +27,7 @@ import edu.uci.ics.hyracks.storage.am.common.api.IIndexCursor;
 import edu.uci.ics.hyracks.storage.am.common.api.ISearchPredicate;
 import edu.uci.ics.hyracks.storage.am.common.api.IndexException;
 import edu.uci.ics.hyracks.storage.am.common.ophelpers.IndexOperation;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMAmplificationStatisticsProvider;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent.ComponentState;
 import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent.LSMComponentType;
@@ -53,6 +54,17 @@ public class LSMHarness implements ILSMHarness {
         fullMergeIsRequested = new AtomicBoolean();
     }
 
+    /**
+     * @return the amplification statistics of the merge policy to append to a log message, or an empty string if the
+     *         policy does not keep any
+     */
+    protected String getAmplificationStatistics() {
+        if (mergePolicy instanceof ILSMAmplificationStatisticsProvider) {
+            return ", " + ((ILSMAmplificationStatisticsProvider) mergePolicy).getStatistics();
+        }
+        return "";
+    }
+
     protected boolean getAndEnterComponents(ILSMIndexOperationContext ctx, LSMOperationType opType,
             boolean isTryOperation) throws HyracksDataException {
         synchronized (opTracker) {
@@ -370,7 +382,7 @@ public class LSMHarness implements ILSMHarness {
             operation.getCallback().afterFinalize(LSMOperationType.FLUSH, newComponent);
         }
         if (LOGGER.isLoggable(Level.INFO)) {
-            LOGGER.info("Finished the flush operation for index: " + lsmIndex);
+            LOGGER.info("Finished the flush operation for index: " + lsmIndex + getAmplificationStatistics());
         }
     }
 
@@ -418,7 +430,7 @@ public class LSMHarness implements ILSMHarness {
             operation.getCallback().afterFinalize(LSMOperationType.MERGE, newComponent);
         }
         if (LOGGER.isLoggable(Level.INFO)) {
-            LOGGER.info("Finished the merge operation for index: " + lsmIndex);
+            LOGGER.info("Finished the merge operation for index: " + lsmIndex + getAmplificationStatistics());
         }
     }
 
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.common.impls;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.storage.am.common.api.IndexException;
+import edu.uci.ics.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMAmplificationStatisticsProvider;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent.ComponentState;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndex;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
+
+/**
+ * Leveled merge policy. The newest flushed components form level 0. Older components are grouped into sorted runs,
+ * i.e. adjacent components with disjoint key ranges (see {@link LSMAmplificationStatistics#groupSortedRuns(List)}),
+ * and each run is assigned the level whose capacity fits its size. Level 1 holds
+ * size-ratio * level-0-component-count flushed components and each further level size-ratio times more.
+ * <ul>
+ * <li>Once level 0 has level-0-component-count components, they are merged together, and with the newest run if it is
+ * still on level 1.</li>
+ * <li>A run that reaches the level of the next older run is merged into it.</li>
+ * </ul>
+ * A run is only merged with the components of the older run whose key ranges overlap it, plus the newer components of
+ * that run that sit in between. With keys that grow over time, older partitions are never rewritten. This bounds the
+ * read amplification to level-0-component-count plus the number of levels, at a write amplification of about
+ * size-ratio per level.
+ */
+public class LeveledMergePolicy implements ILSMMergePolicy, ILSMAmplificationStatisticsProvider {
+
+    private final LSMAmplificationStatistics statistics = new LSMAmplificationStatistics();
+
+    private int level0ComponentCount;
+    private double sizeRatio;
+
+    @Override
+    public void diskComponentAdded(final ILSMIndex index, boolean fullMergeIsRequested) throws HyracksDataException,
+            IndexException {
+        statistics.componentsChanged(index);
+        // The components are ordered from newest to oldest.
+        List<ILSMComponent> immutableComponents = new ArrayList<ILSMComponent>(index.getImmutableComponents());
+        for (ILSMComponent c : immutableComponents) {
+            if (c.getState() != ComponentState.READABLE_UNWRITABLE) {
+                return;
+            }
+        }
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) index.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        if (fullMergeIsRequested) {
+            accessor.scheduleFullMerge(index.getIOOperationCallback());
+            return;
+        }
+        List<ILSMComponent> mergableComponents = findMerge(immutableComponents);
+        if (mergableComponents != null) {
+            accessor.scheduleMerge(index.getIOOperationCallback(), mergableComponents);
+        }
+    }
+
+    private List<ILSMComponent> findMerge(List<ILSMComponent> components) throws HyracksDataException {
+        int level0Count = 0;
+        while (level0Count < components.size() && statistics.isFlushed(components.get(level0Count))) {
+            level0Count++;
+        }
+        List<ILSMComponent> level0 = components.subList(0, level0Count);
+        List<List<ILSMComponent>> runs = LSMAmplificationStatistics.groupSortedRuns(components.subList(level0Count,
+                components.size()));
+
+        if (level0Count >= level0ComponentCount) {
+            List<ILSMComponent> mergableComponents = new ArrayList<ILSMComponent>(level0);
+            if (!runs.isEmpty() && getLevel(runs.get(0)) <= 1) {
+                addOverlappingComponents(mergableComponents, level0, runs.get(0));
+            }
+            return mergableComponents.size() > 1 ? mergableComponents : null;
+        }
+        if (statistics.getAverageFlushedComponentSize() == 0) {
+            // Nothing was flushed since the index was activated, so the levels are unknown.
+            return null;
+        }
+        for (int i = 0; i + 1 < runs.size(); i++) {
+            if (getLevel(runs.get(i)) >= getLevel(runs.get(i + 1))) {
+                List<ILSMComponent> mergableComponents = new ArrayList<ILSMComponent>(runs.get(i));
+                addOverlappingComponents(mergableComponents, runs.get(i), runs.get(i + 1));
+                if (mergableComponents.size() > 1) {
+                    return mergableComponents;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the components of the older run, from the newest one up to the oldest one that overlaps the newer run.
+     */
+    private void addOverlappingComponents(List<ILSMComponent> mergableComponents, List<ILSMComponent> newerRun,
+            List<ILSMComponent> olderRun) throws HyracksDataException {
+        int last = -1;
+        for (int i = 0; i < olderRun.size(); i++) {
+            for (ILSMComponent c : newerRun) {
+                if (LSMAmplificationStatistics.overlaps(c, olderRun.get(i))) {
+                    last = i;
+                    break;
+                }
+            }
+        }
+        mergableComponents.addAll(olderRun.subList(0, last + 1));
+    }
+
+    /**
+     * @return the smallest level whose capacity is at least the size of the run, starting at 1
+     */
+    private int getLevel(List<ILSMComponent> run) {
+        long size = LSMAmplificationStatistics.getComponentSize(run);
+        double capacity = (double) statistics.getAverageFlushedComponentSize() * level0ComponentCount * sizeRatio;
+        if (capacity <= 0) {
+            // Nothing was flushed since the index was activated, so there is nothing to size the levels by.
+            return 1;
+        }
+        int level = 1;
+        while (size > capacity) {
+            capacity *= sizeRatio;
+            level++;
+        }
+        return level;
+    }
+
+    @Override
+    public LSMAmplificationStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void configure(Map<String, String> properties) {
+        level0ComponentCount = Integer.parseInt(properties.get("level-0-component-count"));
+        sizeRatio = Double.parseDouble(properties.get("size-ratio"));
+        if (level0ComponentCount < 1) {
+            throw new IllegalArgumentException("level-0-component-count must be at least 1, but it is "
+                    + level0ComponentCount);
+        }
+        // The capacity of each level is size-ratio times that of the one below, so it has to grow.
+        if (!(sizeRatio > 1)) {
+            throw new IllegalArgumentException("size-ratio must be greater than 1, but it is " + sizeRatio);
+        }
+    }
+}
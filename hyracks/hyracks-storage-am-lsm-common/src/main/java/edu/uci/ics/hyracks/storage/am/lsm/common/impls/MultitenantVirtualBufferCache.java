@@ -65,6 +65,16 @@ public class MultitenantVirtualBufferCache implements IVirtualBufferCache {
         vbc.unpin(page);
     }
 
+    @Override
+    public void unpinUseOnce(ICachedPage page) throws HyracksDataException {
+        vbc.unpinUseOnce(page);
+    }
+
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+        vbc.prefetch(dpid, numPages);
+    }
+
     @Override
     public void flushDirtyPage(ICachedPage page) throws HyracksDataException {
         vbc.flushDirtyPage(page);
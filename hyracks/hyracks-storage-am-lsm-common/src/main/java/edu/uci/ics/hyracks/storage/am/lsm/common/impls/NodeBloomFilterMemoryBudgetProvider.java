@@ -0,0 +1,40 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.common.impls;
+
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.IBloomFilterMemoryBudgetProvider;
+
+/**
+ * Provides the bloom filter memory budget of the node controller that runs the task, or null if the node has no
+ * memory set aside for bloom filters.
+ */
+public class NodeBloomFilterMemoryBudgetProvider implements IBloomFilterMemoryBudgetProvider {
+
+    private static final long serialVersionUID = 1L;
+
+    public static NodeBloomFilterMemoryBudgetProvider INSTANCE = new NodeBloomFilterMemoryBudgetProvider();
+
+    @Override
+    public BloomFilterMemoryBudget getBloomFilterMemoryBudget(IHyracksTaskContext ctx) {
+        BloomFilterMemoryBudget budget = ctx.getJobletContext().getApplicationContext().getBloomFilterMemoryBudget();
+        return budget == null || budget.getCapacity() <= 0 ? null : budget;
+    }
+
+    // Enforce singleton.
+    private NodeBloomFilterMemoryBudgetProvider() {
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.common.impls;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.storage.am.common.api.IndexException;
+import edu.uci.ics.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMAmplificationStatisticsProvider;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent.ComponentState;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndex;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
+
+/**
+ * Size-tiered merge policy. Adjacent disk components of similar size form a tier, and a tier is merged into a single
+ * component once it has min-merge-component-count components. Each byte is rewritten about once per tier it moves
+ * through, so the write amplification grows with the logarithm of the index size to the base
+ * min-merge-component-count. The read amplification is bounded by max-component-count: above it, the adjacent
+ * components with the smallest total size are merged regardless of the tiers.
+ */
+public class TieredMergePolicy implements ILSMMergePolicy, ILSMAmplificationStatisticsProvider {
+
+    private final LSMAmplificationStatistics statistics = new LSMAmplificationStatistics();
+
+    // Components are in the same tier if the largest is at most size-ratio times the smallest.
+    private double sizeRatio;
+    private int minMergeComponentCount;
+    private int maxMergeComponentCount;
+    private int maxComponentCount;
+
+    @Override
+    public void diskComponentAdded(final ILSMIndex index, boolean fullMergeIsRequested) throws HyracksDataException,
+            IndexException {
+        statistics.componentsChanged(index);
+        // The components are ordered from newest to oldest.
+        List<ILSMComponent> immutableComponents = new ArrayList<ILSMComponent>(index.getImmutableComponents());
+        for (ILSMComponent c : immutableComponents) {
+            if (c.getState() != ComponentState.READABLE_UNWRITABLE) {
+                return;
+            }
+        }
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) index.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        if (fullMergeIsRequested) {
+            accessor.scheduleFullMerge(index.getIOOperationCallback());
+            return;
+        }
+        List<ILSMComponent> mergableComponents = findTier(immutableComponents);
+        if (mergableComponents == null) {
+            mergableComponents = findSmallestComponents(immutableComponents);
+        }
+        if (mergableComponents != null) {
+            accessor.scheduleMerge(index.getIOOperationCallback(), mergableComponents);
+        }
+    }
+
+    /**
+     * @return the newest tier that has enough components to be merged, or null if there is none
+     */
+    private List<ILSMComponent> findTier(List<ILSMComponent> components) {
+        for (int start = 0; start + minMergeComponentCount <= components.size(); start++) {
+            long minSize = Long.MAX_VALUE;
+            long maxSize = 0;
+            int end = start;
+            while (end < components.size() && end - start < maxMergeComponentCount) {
+                long size = Math.max(1, LSMAmplificationStatistics.getComponentSize(components.get(end)));
+                if (Math.max(maxSize, size) > sizeRatio * Math.min(minSize, size)) {
+                    break;
+                }
+                minSize = Math.min(minSize, size);
+                maxSize = Math.max(maxSize, size);
+                end++;
+            }
+            if (end - start >= minMergeComponentCount) {
+                return new ArrayList<ILSMComponent>(components.subList(start, end));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the adjacent components with the smallest total size whose merge brings the number of components back
+     *         to max-component-count, or null if there are not too many components
+     */
+    private List<ILSMComponent> findSmallestComponents(List<ILSMComponent> components) {
+        if (components.size() <= maxComponentCount) {
+            return null;
+        }
+        int count = Math.max(2, components.size() - maxComponentCount + 1);
+        int bestStart = 0;
+        long bestSize = Long.MAX_VALUE;
+        for (int start = 0; start + count <= components.size(); start++) {
+            long size = LSMAmplificationStatistics.getComponentSize(components.subList(start, start + count));
+            if (size < bestSize) {
+                bestSize = size;
+                bestStart = start;
+            }
+        }
+        return new ArrayList<ILSMComponent>(components.subList(bestStart, bestStart + count));
+    }
+
+    @Override
+    public LSMAmplificationStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void configure(Map<String, String> properties) {
+        sizeRatio = Double.parseDouble(properties.get("size-ratio"));
+        minMergeComponentCount = Integer.parseInt(properties.get("min-merge-component-count"));
+        maxMergeComponentCount = Integer.parseInt(properties.get("max-merge-component-count"));
+        maxComponentCount = Integer.parseInt(properties.get("max-component-count"));
+    }
+}
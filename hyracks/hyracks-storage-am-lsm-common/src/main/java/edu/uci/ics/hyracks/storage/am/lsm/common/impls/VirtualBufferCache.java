@@ -207,6 +207,14 @@ public class VirtualBufferCache implements IVirtualBufferCache {
     public void unpin(ICachedPage page) throws HyracksDataException {
     }
 
+    @Override
+    public void unpinUseOnce(ICachedPage page) throws HyracksDataException {
+    }
+
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+    }
+
     @Override
     public void flushDirtyPage(ICachedPage page) throws HyracksDataException {
     }
@@ -567,6 +567,11 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
             return ByteBuffer.allocate(bytes);
         }
 
+        @Override
+        public ByteBuffer allocateOutputFrame(int bytes) throws HyracksDataException {
+            return ByteBuffer.allocate(bytes);
+        }
+
         @Override public ByteBuffer reallocateFrame(ByteBuffer bytes, int newSizeInBytes, boolean copyOldData) throws HyracksDataException {
             throw new HyracksDataException("TODO");
         }
@@ -576,6 +581,10 @@ public class OnDiskInvertedIndex implements IInvertedIndex {
             // TODO Auto-generated method stub
 
         }
+
+        @Override
+        public void deallocateFrame(ByteBuffer frame) {
+        }
     }
 
     @Override
@@ -392,7 +392,7 @@ public class RTree extends AbstractTreeIndex {
             }
 
             case INSUFFICIENT_SPACE: {
-                int rightPageId = freePageManager.getFreePage(ctx.metaFrame);
+                int rightPageId = getFreePage(ctx.metaFrame);
                 ICachedPage rightNode = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, rightPageId), true);
                 rightNode.acquireWriteLatch();
 
@@ -436,7 +436,7 @@ public class RTree extends AbstractTreeIndex {
                 }
                 ctx.splitKey.setPages(pageId, rightPageId);
                 if (pageId == rootPage) {
-                    int newLeftId = freePageManager.getFreePage(ctx.metaFrame);
+                    int newLeftId = getFreePage(ctx.metaFrame);
                     ICachedPage newLeftNode = bufferCache
                             .pin(BufferedFileHandle.getDiskPageId(fileId, newLeftId), true);
                     newLeftNode.acquireWriteLatch();
@@ -905,7 +905,7 @@ public class RTree extends AbstractTreeIndex {
                 if (spaceUsed + spaceNeeded > leafMaxBytes) {
                     propagateBulk(1, false);
 
-                    leafFrontier.pageId = freePageManager.getFreePage(metaFrame);
+                    leafFrontier.pageId = getFreePage(metaFrame);
 
                     leafFrontier.page.releaseWriteLatch(true);
                     bufferCache.unpin(leafFrontier.page);
@@ -976,7 +976,7 @@ public class RTree extends AbstractTreeIndex {
 
                 frontier.page.releaseWriteLatch(true);
                 bufferCache.unpin(frontier.page);
-                frontier.pageId = freePageManager.getFreePage(metaFrame);
+                frontier.pageId = getFreePage(metaFrame);
 
                 frontier.page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, frontier.pageId), true);
                 frontier.page.acquireWriteLatch();
@@ -16,15 +16,26 @@ package edu.uci.ics.hyracks.storage.common.buffercache;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -33,7 +44,9 @@ import java.util.logging.Logger;
 import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
 import edu.uci.ics.hyracks.api.io.FileReference;
 import edu.uci.ics.hyracks.api.io.IFileHandle;
+import edu.uci.ics.hyracks.api.io.IIOFuture;
 import edu.uci.ics.hyracks.api.io.IIOManager;
+import edu.uci.ics.hyracks.api.io.IODeviceHandle;
 import edu.uci.ics.hyracks.api.lifecycle.ILifeCycleComponent;
 import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
 import edu.uci.ics.hyracks.storage.common.file.IFileMapManager;
@@ -45,6 +58,17 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
     private static final int MIN_CLEANED_COUNT_DIFF = 3;
     private static final int PIN_MAX_WAIT_TIME = 50;
 
+    /*
+     * While a victim is being rebound to a new dpid, its pin count is offset by this value. Optimistic pins that
+     * increment the pin count in the meantime observe a negative count, back off, and take the locked path.
+     */
+    private static final int VICTIM_CLAIMED = Integer.MIN_VALUE / 2;
+
+    // At most this fraction of the cache may be bound to outstanding prefetches.
+    private static final int PREFETCH_SHARE_DIVISOR = 8;
+    // Upper bound on the number of adjacent dirty pages the cleaner writes with one gathering write.
+    private static final int MAX_COALESCED_PAGES = 64;
+
     private final int pageSize;
     private final int maxOpenFiles;
     private final IIOManager ioManager;
@@ -52,11 +76,23 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
     private final IPageReplacementStrategy pageReplacementStrategy;
     private final IPageCleanerPolicy pageCleanerPolicy;
     private final IFileMapManager fileMapManager;
+    private final Executor executor;
     private final CleanerThread cleanerThread;
     private final Map<Integer, BufferedFileHandle> fileInfoMap;
     private final Set<Integer> virtualFiles;
 
-    private List<ICachedPageInternal> cachedPages = new ArrayList<ICachedPageInternal>();
+    private final List<ICachedPageInternal> cachedPages;
+
+    private final AtomicLong pageHits = new AtomicLong();
+    private final AtomicLong pageMisses = new AtomicLong();
+
+    private final Queue<CachedPage> prefetchedPages = new ConcurrentLinkedQueue<CachedPage>();
+    private final AtomicInteger outstandingPrefetches = new AtomicInteger();
+    private final AtomicLong prefetchCount = new AtomicLong();
+    private final int maxOutstandingPrefetches;
+
+    private final AtomicLong cleanerWrites = new AtomicLong();
+    private final AtomicLong cleanerPagesWritten = new AtomicLong();
 
     private boolean closed;
 
@@ -66,6 +102,9 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         this.ioManager = ioManager;
         this.pageSize = pageReplacementStrategy.getPageSize();
         this.maxOpenFiles = maxOpenFiles;
+        cachedPages = new ArrayList<ICachedPageInternal>(pageReplacementStrategy.getMaxAllowedNumPages());
+        maxOutstandingPrefetches = Math.max(1, pageReplacementStrategy.getMaxAllowedNumPages()
+                / PREFETCH_SHARE_DIVISOR);
         pageReplacementStrategy.setBufferCache(this);
         pageMap = new CacheBucket[pageReplacementStrategy.getMaxAllowedNumPages() * MAP_FACTOR];
         for (int i = 0; i < pageMap.length; ++i) {
@@ -75,7 +114,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         this.pageCleanerPolicy = pageCleanerPolicy;
         this.fileMapManager = fileMapManager;
 
-        Executor executor = Executors.newCachedThreadPool(threadFactory);
+        executor = Executors.newCachedThreadPool(threadFactory);
         fileInfoMap = new HashMap<Integer, BufferedFileHandle>();
         virtualFiles = new HashSet<Integer>();
         cleanerThread = new CleanerThread();
@@ -118,20 +157,37 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         CachedPage cPage = null;
         int hash = hash(dpid);
         CacheBucket bucket = pageMap[hash];
-        bucket.bucketLock.lock();
-        try {
-            cPage = bucket.cachedPage;
-            while (cPage != null) {
-                if (cPage.dpid == dpid) {
-                    cPage.pinCount.incrementAndGet();
-                    pageReplacementStrategy.notifyCachePageAccess(cPage);
-                    return cPage;
+        cPage = findPageOptimistic(dpid, bucket);
+        if (cPage == null) {
+            bucket.bucketLock.lock();
+            try {
+                cPage = bucket.cachedPage;
+                while (cPage != null) {
+                    if (cPage.dpid == dpid) {
+                        cPage.pinCount.incrementAndGet();
+                        break;
+                    }
+                    cPage = cPage.next;
+                }
+            } finally {
+                bucket.bucketLock.unlock();
+            }
+            if (cPage == null) {
+                return null;
+            }
+        }
+        // A page that is still being prefetched must not be handed out before its read completes, and a page whose
+        // prefetch failed holds no data.
+        if (cPage.pendingRead != null) {
+            synchronized (cPage) {
+                completePrefetch(cPage);
+                if (!cPage.valid) {
+                    cPage.pinCount.decrementAndGet();
+                    return null;
                 }
-                cPage = cPage.next;
             }
-        } finally {
-            bucket.bucketLock.unlock();
         }
+        pageReplacementStrategy.notifyCachePageAccess(cPage);
         return cPage;
     }
 
@@ -142,20 +198,126 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         CachedPage cPage = findPage(dpid, false);
         if (!newPage) {
             // Resolve race of multiple threads trying to read the page from
-            // disk.
-            synchronized (cPage) {
-                if (!cPage.valid) {
-                    read(cPage);
-                    cPage.valid = true;
+            // disk. Pages that are already valid skip the monitor.
+            if (!cPage.valid) {
+                synchronized (cPage) {
+                    completePrefetch(cPage);
+                    if (!cPage.valid) {
+                        read(cPage);
+                        cPage.valid = true;
+                    }
                 }
             }
         } else {
+            if (cPage.pendingRead != null) {
+                synchronized (cPage) {
+                    completePrefetch(cPage);
+                }
+            }
             cPage.valid = true;
         }
         pageReplacementStrategy.notifyCachePageAccess(cPage);
         return cPage;
     }
 
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+        reapPrefetches(false);
+        for (int i = 0; i < numPages; ++i) {
+            if (outstandingPrefetches.get() >= maxOutstandingPrefetches) {
+                return;
+            }
+            long pageDpid = dpid + i;
+            if (isCached(pageDpid)) {
+                continue;
+            }
+            CachedPage cPage = findPage(pageDpid, false);
+            synchronized (cPage) {
+                if (cPage.valid || cPage.pendingRead != null) {
+                    cPage.pinCount.decrementAndGet();
+                    continue;
+                }
+                // The pin taken by findPage() is kept until the read is completed.
+                BufferedFileHandle fInfo = getFileInfo(cPage);
+                cPage.buffer.clear();
+                cPage.pendingRead = ioManager.asyncRead(fInfo.getFileHandle(),
+                        (long) BufferedFileHandle.getPageId(pageDpid) * pageSize, cPage.buffer);
+                outstandingPrefetches.incrementAndGet();
+            }
+            prefetchedPages.offer(cPage);
+            prefetchCount.incrementAndGet();
+        }
+    }
+
+    private boolean isCached(long dpid) {
+        CachedPage cPage = pageMap[hash(dpid)].cachedPage;
+        while (cPage != null) {
+            if (cPage.dpid == dpid) {
+                return true;
+            }
+            cPage = cPage.next;
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the prefetch read of the page, if there is one, and releases the pin held by the prefetch.
+     * The caller must hold the monitor of the page. A failed read leaves the page invalid, so that the next pin
+     * reads it synchronously.
+     */
+    private void completePrefetch(CachedPage cPage) {
+        IIOFuture future = cPage.pendingRead;
+        if (future == null) {
+            return;
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.synchronize();
+                    cPage.valid = true;
+                    break;
+                } catch (InterruptedException e) {
+                    // The read still targets the page buffer, so the pin cannot be released before it finishes.
+                    interrupted = true;
+                } catch (HyracksDataException e) {
+                    if (LOGGER.isLoggable(Level.WARNING)) {
+                        LOGGER.log(Level.WARNING, "Prefetch of page " + cPage.dpid + " failed", e);
+                    }
+                    break;
+                }
+            }
+        } finally {
+            cPage.pendingRead = null;
+            outstandingPrefetches.decrementAndGet();
+            cPage.pinCount.decrementAndGet();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Completes prefetches whose reads have finished, or all of them if wait is set.
+     */
+    private void reapPrefetches(boolean wait) {
+        Iterator<CachedPage> i = prefetchedPages.iterator();
+        while (i.hasNext()) {
+            CachedPage cPage = i.next();
+            IIOFuture future = cPage.pendingRead;
+            if (future == null || wait || future.isComplete()) {
+                synchronized (cPage) {
+                    completePrefetch(cPage);
+                }
+                i.remove();
+            }
+        }
+    }
+
+    public long getPrefetchCount() {
+        return prefetchCount.get();
+    }
+
     @Override
     /**
      * Allocate and pin a virtual page. This is just like a normal page, except that it will never be flushed.
@@ -189,6 +351,27 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         return realPage;
     }
 
+    /**
+     * Looks up a page without taking the bucket lock and pins it by incrementing its pin count.
+     * The pin is only kept if the page was not claimed as a victim and still holds the requested dpid afterwards.
+     * A chain that is concurrently relinked can make the lookup miss, so a null result only means that the caller
+     * has to retry on the locked path.
+     */
+    private CachedPage findPageOptimistic(long dpid, CacheBucket bucket) {
+        CachedPage cPage = bucket.cachedPage;
+        while (cPage != null) {
+            if (cPage.dpid == dpid) {
+                if (cPage.pinCount.incrementAndGet() > 0 && cPage.dpid == dpid) {
+                    return cPage;
+                }
+                cPage.pinCount.decrementAndGet();
+                return null;
+            }
+            cPage = cPage.next;
+        }
+        return null;
+    }
+
     private CachedPage findPage(long dpid, boolean virtual) throws HyracksDataException {
         while (true) {
             int startCleanedCount = cleanerThread.cleanedCount;
@@ -200,12 +383,18 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
              */
             int hash = hash(dpid);
             CacheBucket bucket = pageMap[hash];
+            cPage = findPageOptimistic(dpid, bucket);
+            if (cPage != null) {
+                pageHits.incrementAndGet();
+                return cPage;
+            }
             bucket.bucketLock.lock();
             try {
                 cPage = bucket.cachedPage;
                 while (cPage != null) {
                     if (cPage.dpid == dpid) {
                         cPage.pinCount.incrementAndGet();
+                        pageHits.incrementAndGet();
                         return cPage;
                     }
                     cPage = cPage.next;
@@ -257,12 +446,14 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                         while (cPage != null) {
                             if (cPage.dpid == dpid) {
                                 cPage.pinCount.incrementAndGet();
+                                pageHits.incrementAndGet();
                                 victim.pinCount.decrementAndGet();
                                 return cPage;
                             }
                             cPage = cPage.next;
                         }
                         victim.reset(dpid);
+                        pageMisses.incrementAndGet();
                         victim.next = bucket.cachedPage;
                         bucket.cachedPage = victim;
                     } finally {
@@ -277,7 +468,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                      */
                     bucket.bucketLock.lock();
                     try {
-                        if (victim.pinCount.get() != 1) {
+                        if (!victim.pinCount.compareAndSet(1, VICTIM_CLAIMED + 1)) {
                             victim.pinCount.decrementAndGet();
                             continue;
                         }
@@ -285,12 +476,15 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                         while (cPage != null) {
                             if (cPage.dpid == dpid) {
                                 cPage.pinCount.incrementAndGet();
-                                victim.pinCount.decrementAndGet();
+                                pageHits.incrementAndGet();
+                                victim.pinCount.addAndGet(-VICTIM_CLAIMED - 1);
                                 return cPage;
                             }
                             cPage = cPage.next;
                         }
                         victim.reset(dpid);
+                        pageMisses.incrementAndGet();
+                        victim.pinCount.addAndGet(-VICTIM_CLAIMED);
                     } finally {
                         bucket.bucketLock.unlock();
                     }
@@ -308,7 +502,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                         victimBucket.bucketLock.lock();
                     }
                     try {
-                        if (victim.pinCount.get() != 1) {
+                        if (!victim.pinCount.compareAndSet(1, VICTIM_CLAIMED + 1)) {
                             victim.pinCount.decrementAndGet();
                             continue;
                         }
@@ -316,7 +510,8 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                         while (cPage != null) {
                             if (cPage.dpid == dpid) {
                                 cPage.pinCount.incrementAndGet();
-                                victim.pinCount.decrementAndGet();
+                                pageHits.incrementAndGet();
+                                victim.pinCount.addAndGet(-VICTIM_CLAIMED - 1);
                                 return cPage;
                             }
                             cPage = cPage.next;
@@ -332,8 +527,10 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                             victimPrev.next = victim.next;
                         }
                         victim.reset(dpid);
+                        pageMisses.incrementAndGet();
                         victim.next = bucket.cachedPage;
                         bucket.cachedPage = victim;
+                        victim.pinCount.addAndGet(-VICTIM_CLAIMED);
                     } finally {
                         victimBucket.bucketLock.unlock();
                         bucket.bucketLock.unlock();
@@ -392,6 +589,8 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
             }
         }
         buffer.append("Number of cached pages: ").append(nCachedPages).append('\n');
+        buffer.append("Page hits: ").append(pageHits.get()).append(", misses: ").append(pageMisses.get())
+                .append(", hit ratio: ").append(getHitRatio()).append('\n');
         return buffer.toString();
     }
 
@@ -431,13 +630,44 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
         ((CachedPage) page).pinCount.decrementAndGet();
     }
 
+    /**
+     * @return the number of pins that found their page in the cache
+     */
+    public long getPageHitCount() {
+        return pageHits.get();
+    }
+
+    /**
+     * @return the number of pins that had to bind a victim page to the requested page
+     */
+    public long getPageMissCount() {
+        return pageMisses.get();
+    }
+
+    public double getHitRatio() {
+        long hits = pageHits.get();
+        long total = hits + pageMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public void resetHitCounters() {
+        pageHits.set(0);
+        pageMisses.set(0);
+    }
+
+    @Override
+    public void unpinUseOnce(ICachedPage page) throws HyracksDataException {
+        pageReplacementStrategy.notifyCachePageUseOnce((CachedPage) page);
+        unpin(page);
+    }
+
     private int hash(long dpid) {
         return (int) (dpid % pageMap.length);
     }
 
     private static class CacheBucket {
         private final Lock bucketLock;
-        private CachedPage cachedPage;
+        private volatile CachedPage cachedPage;
 
         public CacheBucket() {
             bucketLock = new ReentrantLock();
@@ -513,11 +743,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
             try {
                 while (true) {
                     pageCleanerPolicy.notifyCleanCycleStart(this);
-                    int numPages = pageReplacementStrategy.getNumPages();
-                    for (int i = 0; i < numPages; ++i) {
-                        CachedPage cPage = (CachedPage) cachedPages.get(i);
-                        cleanPage(cPage, false);
-                    }
+                    cleanDirtyPages();
                     if (shutdownStart) {
                         break;
                     }
@@ -530,6 +756,225 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
                 notifyAll();
             }
         }
+
+        /*
+         * One cleaning cycle. The dirty pages are sorted by dpid, i.e. by file and offset, and split by the IO
+         * device of their file. Each device is cleaned by its own worker, which writes runs of adjacent pages with one
+         * gathering write. The cycle ends when all workers are done.
+         */
+        private void cleanDirtyPages() throws Exception {
+            int numPages = pageReplacementStrategy.getNumPages();
+            List<DirtyPage> dirtyPages = new ArrayList<DirtyPage>();
+            for (int i = 0; i < numPages; ++i) {
+                CachedPage cPage = (CachedPage) cachedPages.get(i);
+                if (cPage.dirty.get() && !cPage.virtual) {
+                    dirtyPages.add(new DirtyPage(cPage));
+                }
+            }
+            if (dirtyPages.isEmpty()) {
+                return;
+            }
+            Collections.sort(dirtyPages);
+
+            int numDevices = Math.max(1, ioManager.getIODevices().size());
+            List<List<DirtyPage>> deviceQueues = new ArrayList<List<DirtyPage>>(numDevices);
+            for (int i = 0; i < numDevices; ++i) {
+                deviceQueues.add(new ArrayList<DirtyPage>());
+            }
+            int currentFileId = -1;
+            int currentDevice = 0;
+            for (DirtyPage dirtyPage : dirtyPages) {
+                int fileId = BufferedFileHandle.getFileId(dirtyPage.dpid);
+                if (fileId != currentFileId) {
+                    currentFileId = fileId;
+                    currentDevice = getDeviceIndex(fileId);
+                }
+                deviceQueues.get(currentDevice).add(dirtyPage);
+            }
+
+            List<Future<Integer>> workers = new ArrayList<Future<Integer>>();
+            List<DirtyPage> inlineQueue = null;
+            for (final List<DirtyPage> deviceQueue : deviceQueues) {
+                if (deviceQueue.isEmpty()) {
+                    continue;
+                }
+                // The cleaner thread takes one device itself, and all of them during shutdown.
+                if (inlineQueue == null) {
+                    inlineQueue = deviceQueue;
+                    continue;
+                }
+                if (shutdownStart) {
+                    cleanedCount += cleanRuns(deviceQueue);
+                    continue;
+                }
+                FutureTask<Integer> worker = new FutureTask<Integer>(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return cleanRuns(deviceQueue);
+                    }
+                });
+                executor.execute(worker);
+                workers.add(worker);
+            }
+            cleanedCount += cleanRuns(inlineQueue);
+            for (Future<Integer> worker : workers) {
+                try {
+                    cleanedCount += worker.get();
+                } catch (ExecutionException e) {
+                    throw (Exception) e.getCause();
+                }
+            }
+        }
+
+        /**
+         * Writes the given dirty pages, which must be sorted by dpid, coalescing adjacent pages.
+         *
+         * @return the number of pages that were cleaned
+         */
+        private int cleanRuns(List<DirtyPage> dirtyPages) {
+            CachedPage[] run = new CachedPage[MAX_COALESCED_PAGES];
+            int cleaned = 0;
+            int i = 0;
+            int n = dirtyPages.size();
+            while (i < n) {
+                DirtyPage first = dirtyPages.get(i++);
+                if (!latchForCleaning(first)) {
+                    continue;
+                }
+                run[0] = first.page;
+                int runLength = 1;
+                while (i < n && runLength < MAX_COALESCED_PAGES) {
+                    DirtyPage next = dirtyPages.get(i);
+                    if (next.dpid != first.dpid + runLength) {
+                        break;
+                    }
+                    ++i;
+                    if (!latchForCleaning(next)) {
+                        break;
+                    }
+                    run[runLength++] = next.page;
+                }
+                cleaned += writeRun(run, runLength, first.dpid);
+            }
+            return cleaned;
+        }
+
+        /*
+         * Read latches a page for cleaning if it still holds the dpid it was collected with and is still dirty.
+         */
+        private boolean latchForCleaning(DirtyPage dirtyPage) {
+            CachedPage cPage = dirtyPage.page;
+            if (!cPage.latch.readLock().tryLock()) {
+                if (shutdownStart) {
+                    throw new IllegalStateException("Cache closed, but unable to acquire read lock on dirty page: "
+                            + cPage.dpid);
+                }
+                return false;
+            }
+            if (cPage.dpid != dirtyPage.dpid || !cPage.dirty.get()) {
+                cPage.latch.readLock().unlock();
+                return false;
+            }
+            return true;
+        }
+
+        /*
+         * Writes a run of read latched pages with consecutive dpids and releases their latches.
+         */
+        private int writeRun(CachedPage[] run, int runLength, long firstDpid) {
+            boolean cleaned = true;
+            try {
+                if (runLength == 1) {
+                    write(run[0]);
+                } else {
+                    BufferedFileHandle fInfo = getFileInfo(run[0]);
+                    if (!fInfo.fileHasBeenDeleted()) {
+                        ByteBuffer[] buffers = new ByteBuffer[runLength];
+                        for (int i = 0; i < runLength; ++i) {
+                            buffers[i] = run[i].buffer;
+                            buffers[i].position(0);
+                            buffers[i].limit(pageSize);
+                        }
+                        ioManager.syncWrite(fInfo.getFileHandle(), (long) BufferedFileHandle.getPageId(firstDpid)
+                                * pageSize, buffers);
+                    }
+                }
+                cleanerWrites.incrementAndGet();
+                cleanerPagesWritten.addAndGet(runLength);
+            } catch (HyracksDataException e) {
+                cleaned = false;
+            } finally {
+                for (int i = 0; i < runLength; ++i) {
+                    if (cleaned) {
+                        run[i].dirty.set(false);
+                        run[i].pinCount.decrementAndGet();
+                    }
+                    run[i].latch.readLock().unlock();
+                    run[i] = null;
+                }
+            }
+            if (!cleaned) {
+                return 0;
+            }
+            synchronized (cleanNotification) {
+                cleanNotification.notifyAll();
+            }
+            return runLength;
+        }
+    }
+
+    /*
+     * A dirty page together with the dpid it had when the cleaner collected it.
+     */
+    private static class DirtyPage implements Comparable<DirtyPage> {
+        private final CachedPage page;
+        private final long dpid;
+
+        DirtyPage(CachedPage page) {
+            this.page = page;
+            this.dpid = page.dpid;
+        }
+
+        @Override
+        public int compareTo(DirtyPage o) {
+            return dpid < o.dpid ? -1 : (dpid == o.dpid ? 0 : 1);
+        }
+    }
+
+    /*
+     * Maps a file to the index of its IO device, which selects the cleaner worker of the file.
+     */
+    private int getDeviceIndex(int fileId) {
+        List<IODeviceHandle> devices = ioManager.getIODevices();
+        if (devices.size() <= 1) {
+            return 0;
+        }
+        FileReference fileRef;
+        try {
+            fileRef = fileMapManager.lookupFileName(fileId);
+        } catch (HyracksDataException e) {
+            return 0;
+        }
+        IODeviceHandle dev = fileRef.getDeviceHandle();
+        String path = fileRef.getFile().getAbsolutePath();
+        for (int i = 0; i < devices.size(); ++i) {
+            IODeviceHandle device = devices.get(i);
+            if (device == dev || (dev == null && path.startsWith(device.getPath().getAbsolutePath()))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of writes issued by the cleaner; a write covers one or more adjacent pages
+     */
+    public long getCleanerWriteCount() {
+        return cleanerWrites.get();
+    }
+
+    public long getCleanerPagesWrittenCount() {
+        return cleanerPagesWritten.get();
     }
 
     @Override
@@ -637,6 +1082,7 @@ public class BufferCache implements IBufferCacheInternal, ILifeCycleComponent {
     }
 
     private void sweepAndFlush(int fileId, boolean flushDirtyPages) throws HyracksDataException {
+        reapPrefetches(true);
         for (int i = 0; i < pageMap.length; ++i) {
             CacheBucket bucket = pageMap[i];
             bucket.bucketLock.lock();
@@ -20,6 +20,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import edu.uci.ics.hyracks.api.io.IIOFuture;
+
 /**
  * @author yingyib
  */
@@ -32,9 +34,11 @@ class CachedPage implements ICachedPageInternal {
     private final Object replacementStrategyObject;
     private final IPageReplacementStrategy pageReplacementStrategy;
     volatile long dpid;
-    CachedPage next;
+    volatile CachedPage next;
     volatile boolean valid;
     volatile boolean virtual;
+    // The asynchronous read started by BufferCache.prefetch(), if it has not been completed yet.
+    volatile IIOFuture pendingRead;
 
     public CachedPage(int cpid, ByteBuffer buffer, IPageReplacementStrategy pageReplacementStrategy) {
         this.cpid = cpid;
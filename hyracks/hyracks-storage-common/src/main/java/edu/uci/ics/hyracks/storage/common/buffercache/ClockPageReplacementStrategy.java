@@ -15,6 +15,7 @@
 package edu.uci.ics.hyracks.storage.common.buffercache;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -23,9 +24,9 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
 
     private final Lock lock;
     private IBufferCacheInternal bufferCache;
-    private int clockPtr;
+    private final AtomicInteger clockPtr;
     private ICacheMemoryAllocator allocator;
-    private int numPages = 0;
+    private volatile int numPages = 0;
     private final int pageSize;
     private final int maxAllowedNumPages;
 
@@ -34,7 +35,7 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
         this.allocator = allocator;
         this.pageSize = pageSize;
         this.maxAllowedNumPages = maxAllowedNumPages;
-        clockPtr = 0;
+        clockPtr = new AtomicInteger(0);
     }
 
     @Override
@@ -57,8 +58,21 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
         getPerPageObject(cPage).set(true);
     }
 
+    @Override
+    public void notifyCachePageUseOnce(ICachedPageInternal cPage) {
+        getPerPageObject(cPage).set(false);
+    }
+
     @Override
     public ICachedPageInternal findVictim() {
+        /*
+         * Once the cache is fully allocated, numPages no longer changes and the clock is swept without the lock:
+         * threads advance the shared hand with a CAS and race on pinIfGoodVictim() for the page under it.
+         * The lock only serializes page allocation while the cache is still growing.
+         */
+        if (numPages >= maxAllowedNumPages) {
+            return findVictimByEviction();
+        }
         lock.lock();
         ICachedPageInternal cachedPage = null;
         try {
@@ -74,10 +88,10 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
     }
 
     private ICachedPageInternal findVictimByEviction() {
-        int startClockPtr = clockPtr;
-        int cycleCount = 0;
-        do {
-            ICachedPageInternal cPage = bufferCache.getPage(clockPtr);
+        int n = numPages;
+        int maxSteps = n * MAX_UNSUCCESSFUL_CYCLE_COUNT;
+        for (int step = 0; step < maxSteps; ++step) {
+            ICachedPageInternal cPage = bufferCache.getPage(advanceClock(n));
 
             /*
              * We do two things here:
@@ -93,24 +107,26 @@ public class ClockPageReplacementStrategy implements IPageReplacementStrategy {
                     return cPage;
                 }
             }
-            clockPtr = (clockPtr + 1) % numPages;
-            if (clockPtr == startClockPtr) {
-                ++cycleCount;
-            }
-        } while (cycleCount < MAX_UNSUCCESSFUL_CYCLE_COUNT);
+        }
         return null;
     }
 
+    /**
+     * @return the page id under the clock hand, moving the hand one page forward
+     */
+    private int advanceClock(int n) {
+        while (true) {
+            int current = clockPtr.get();
+            int next = current + 1 >= n ? 0 : current + 1;
+            if (clockPtr.compareAndSet(current, next)) {
+                return current < n ? current : 0;
+            }
+        }
+    }
+
     @Override
     public int getNumPages() {
-        int retNumPages = 0;
-        lock.lock();
-        try {
-            retNumPages = numPages;
-        } finally {
-            lock.unlock();
-        }
-        return retNumPages;
+        return numPages;
     }
 
     private ICachedPageInternal allocatePage() {
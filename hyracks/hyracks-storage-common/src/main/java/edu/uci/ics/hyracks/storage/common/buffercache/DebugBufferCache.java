@@ -88,6 +88,17 @@ public class DebugBufferCache implements IBufferCache {
         unpinCount.addAndGet(1);
     }
 
+    @Override
+    public void prefetch(long dpid, int numPages) throws HyracksDataException {
+        bufferCache.prefetch(dpid, numPages);
+    }
+
+    @Override
+    public void unpinUseOnce(ICachedPage page) throws HyracksDataException {
+        bufferCache.unpinUseOnce(page);
+        unpinCount.addAndGet(1);
+    }
+
     @Override
     public int getPageSize() {
         return bufferCache.getPageSize();
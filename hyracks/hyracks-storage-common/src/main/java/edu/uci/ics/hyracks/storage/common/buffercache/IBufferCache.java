@@ -34,12 +34,25 @@ public interface IBufferCache {
 
     public ICachedPage pin(long dpid, boolean newPage) throws HyracksDataException;
 
+    /**
+     * Starts asynchronous reads for the pages [dpid, dpid + numPages) that are not cached yet. The call does not
+     * wait for the reads; a later {@link #pin(long, boolean)} of a prefetched page waits for its read to complete.
+     * Prefetching is best-effort and may skip pages, e.g. when too many reads are outstanding.
+     */
+    public void prefetch(long dpid, int numPages) throws HyracksDataException;
+
     public ICachedPage pinVirtual(long vpid) throws HyracksDataException;
 
     public ICachedPage unpinVirtual(long vpid, long dpid) throws HyracksDataException;
 
     public void unpin(ICachedPage page) throws HyracksDataException;
 
+    /**
+     * Unpins a page that the caller does not expect to access again soon, e.g. a leaf visited by a merge or a
+     * disk-order scan. The page replacement strategy may evict such pages ahead of pages that are reused.
+     */
+    public void unpinUseOnce(ICachedPage page) throws HyracksDataException;
+
     public void flushDirtyPage(ICachedPage page) throws HyracksDataException;
 
     public void force(int fileId, boolean metadata) throws HyracksDataException;
@@ -23,6 +23,8 @@ public interface IPageReplacementStrategy {
 
     public void notifyCachePageAccess(ICachedPageInternal cPage);
 
+    public void notifyCachePageUseOnce(ICachedPageInternal cPage);
+
     public ICachedPageInternal findVictim();
 
     public int getNumPages();
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.common.buffercache;
+
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
+
+/**
+ * Issues {@link IBufferCache#prefetch(long, int)} requests ahead of a cursor that walks the pages of one file.
+ * The read-ahead window opens once two consecutive page visits land at most one window apart in ascending order,
+ * doubles every time the cursor has consumed half of the prefetched range, and closes again on a backward or far jump.
+ * Leaves of bulk-loaded B-trees are laid out nearly sequentially, so range scans and merges over disk components
+ * open the window, while point lookups and random page visits never do.
+ */
+public class SequentialPrefetcher {
+    public static final int DEFAULT_MIN_WINDOW = 4;
+    public static final int DEFAULT_MAX_WINDOW = 64;
+
+    private final int minWindow;
+    private final int maxWindow;
+
+    private IBufferCache bufferCache;
+    private int fileId = -1;
+    private int maxPageId = Integer.MAX_VALUE;
+    private int lastPageId = -1;
+    private int sequentialRun;
+    private int window;
+    private int prefetchedUpTo = -1;
+
+    public SequentialPrefetcher() {
+        this(DEFAULT_MIN_WINDOW, DEFAULT_MAX_WINDOW);
+    }
+
+    public SequentialPrefetcher(int minWindow, int maxWindow) {
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+    }
+
+    /**
+     * Starts a new scan of the given file.
+     *
+     * @param maxPageId
+     *            the last page that may be prefetched, or Integer.MAX_VALUE if the caller does not know it
+     */
+    public void reset(IBufferCache bufferCache, int fileId, int maxPageId) {
+        this.bufferCache = bufferCache;
+        this.fileId = fileId;
+        this.maxPageId = maxPageId;
+        lastPageId = -1;
+        sequentialRun = 0;
+        window = 0;
+        prefetchedUpTo = -1;
+    }
+
+    /**
+     * Tells the prefetcher that the cursor is about to visit the given page.
+     */
+    public void notifyPageVisit(int pageId) throws HyracksDataException {
+        if (bufferCache == null) {
+            return;
+        }
+        int distance = pageId - lastPageId;
+        lastPageId = pageId;
+        if (distance <= 0 || distance > Math.max(1, window)) {
+            sequentialRun = 0;
+            window = 0;
+            prefetchedUpTo = pageId;
+            return;
+        }
+        if (++sequentialRun < 2) {
+            return;
+        }
+        if (window == 0) {
+            window = minWindow;
+        } else if (pageId + window / 2 < prefetchedUpTo) {
+            return;
+        } else {
+            window = Math.min(window * 2, maxWindow);
+        }
+        int from = Math.max(pageId, prefetchedUpTo) + 1;
+        int to = (int) Math.min((long) pageId + window, maxPageId);
+        if (from <= to) {
+            bufferCache.prefetch(BufferedFileHandle.getDiskPageId(fileId, from), to - from + 1);
+            prefetchedUpTo = to;
+        }
+    }
+
+    public int getWindow() {
+        return window;
+    }
+}
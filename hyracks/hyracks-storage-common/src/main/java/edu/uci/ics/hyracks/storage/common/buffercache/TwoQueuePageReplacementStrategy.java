@@ -0,0 +1,317 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.common.buffercache;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A scan-resistant replacement strategy after 2Q (Johnson and Shasha, VLDB 1994).
+ * A page that is read for the first time enters the FIFO queue A1in. When it is evicted from there, only its dpid is
+ * remembered in the ghost queue A1out. A page that is read again while its dpid is in A1out enters the main queue Am,
+ * which is swept like a clock. A scan or a merge therefore only cycles through A1in and does not push the pages that
+ * are reused out of Am.
+ * Pages unpinned with {@link IBufferCache#unpinUseOnce(ICachedPage)} are evicted without leaving a ghost, so they
+ * never reach Am.
+ * Hits only set a per-page flag. The queues are only touched under the lock when a page is bound to a new dpid or
+ * when a victim is needed.
+ */
+public class TwoQueuePageReplacementStrategy implements IPageReplacementStrategy {
+    private static final int MAX_UNSUCCESSFUL_CYCLE_COUNT = 3;
+
+    private static final int NONE = 0;
+    private static final int A1IN = 1;
+    private static final int AM = 2;
+
+    private final Lock lock;
+    private IBufferCacheInternal bufferCache;
+    private ICacheMemoryAllocator allocator;
+    private volatile int numPages = 0;
+    private final int pageSize;
+    private final int maxAllowedNumPages;
+
+    private final int a1inTargetSize;
+    private final ArrayDeque<QueueEntry> a1in;
+    private final ArrayDeque<QueueEntry> am;
+    private final Map<Long, Boolean> a1out;
+    private int a1inSize;
+    private int amSize;
+
+    private final AtomicLong ghostHits;
+    private final AtomicLong a1inEvictions;
+    private final AtomicLong amEvictions;
+
+    public TwoQueuePageReplacementStrategy(ICacheMemoryAllocator allocator, int pageSize, int maxAllowedNumPages) {
+        this(allocator, pageSize, maxAllowedNumPages, 0.25, 0.5);
+    }
+
+    /**
+     * @param a1inFraction
+     *            the share of the cache that A1in may hold before victims are taken from it
+     * @param a1outFraction
+     *            the number of ghost entries in A1out, relative to the number of pages in the cache
+     */
+    public TwoQueuePageReplacementStrategy(ICacheMemoryAllocator allocator, int pageSize, int maxAllowedNumPages,
+            double a1inFraction, double a1outFraction) {
+        this.lock = new ReentrantLock();
+        this.allocator = allocator;
+        this.pageSize = pageSize;
+        this.maxAllowedNumPages = maxAllowedNumPages;
+        a1inTargetSize = Math.max(1, (int) (maxAllowedNumPages * a1inFraction));
+        final int a1outCapacity = Math.max(1, (int) (maxAllowedNumPages * a1outFraction));
+        a1in = new ArrayDeque<QueueEntry>();
+        am = new ArrayDeque<QueueEntry>();
+        a1out = new LinkedHashMap<Long, Boolean>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > a1outCapacity;
+            }
+        };
+        ghostHits = new AtomicLong();
+        a1inEvictions = new AtomicLong();
+        amEvictions = new AtomicLong();
+    }
+
+    @Override
+    public Object createPerPageStrategyObject(int cpid) {
+        return new PageState();
+    }
+
+    @Override
+    public void setBufferCache(IBufferCacheInternal bufferCache) {
+        this.bufferCache = bufferCache;
+    }
+
+    @Override
+    public void notifyCachePageReset(ICachedPageInternal cPage) {
+        PageState state = getPerPageObject(cPage);
+        long dpid = ((CachedPage) cPage).dpid;
+        lock.lock();
+        try {
+            state.accessed.set(false);
+            state.useOnce = false;
+            if (dpid < 0) {
+                // Free pages are the cheapest victims.
+                enqueue(cPage, state, A1IN, true);
+            } else if (a1out.remove(dpid) != null) {
+                ghostHits.incrementAndGet();
+                enqueue(cPage, state, AM, false);
+            } else {
+                enqueue(cPage, state, A1IN, false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void notifyCachePageAccess(ICachedPageInternal cPage) {
+        PageState state = getPerPageObject(cPage);
+        if (state.useOnce) {
+            state.useOnce = false;
+        }
+        if (!state.accessed.get()) {
+            state.accessed.set(true);
+        }
+    }
+
+    @Override
+    public void notifyCachePageUseOnce(ICachedPageInternal cPage) {
+        PageState state = getPerPageObject(cPage);
+        state.useOnce = true;
+        state.accessed.set(false);
+    }
+
+    @Override
+    public ICachedPageInternal findVictim() {
+        lock.lock();
+        try {
+            if (numPages < maxAllowedNumPages) {
+                return allocatePage();
+            }
+            ICachedPageInternal victim = null;
+            boolean a1inSwept = false;
+            if (a1inSize > a1inTargetSize || amSize == 0 || headIsFree()) {
+                victim = evictFromA1in();
+                a1inSwept = true;
+            }
+            if (victim == null) {
+                victim = evictFromAm();
+            }
+            if (victim == null && !a1inSwept) {
+                victim = evictFromA1in();
+            }
+            return victim;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ICachedPageInternal allocatePage() {
+        CachedPage cPage = new CachedPage(numPages, allocator.allocate(pageSize, 1)[0], this);
+        bufferCache.addPage(cPage);
+        enqueue(cPage, getPerPageObject(cPage), A1IN, false);
+        numPages++;
+        if (cPage.pinIfGoodVictim()) {
+            return cPage;
+        }
+        return null;
+    }
+
+    private boolean headIsFree() {
+        QueueEntry e;
+        while ((e = a1in.peekFirst()) != null && !isLive(e, A1IN)) {
+            a1in.pollFirst();
+        }
+        return e != null && ((CachedPage) e.page).dpid < 0;
+    }
+
+    /*
+     * A1in is a FIFO. Pinned pages are rotated to the tail. The victim is moved to the tail as well, so that it stays
+     * queued if the buffer cache hands it back without rebinding it.
+     */
+    private ICachedPageInternal evictFromA1in() {
+        for (int n = a1in.size(); n > 0; --n) {
+            QueueEntry e = a1in.pollFirst();
+            if (!isLive(e, A1IN)) {
+                continue;
+            }
+            a1in.addLast(e);
+            if (e.page.pinIfGoodVictim()) {
+                long dpid = ((CachedPage) e.page).dpid;
+                if (dpid >= 0 && !getPerPageObject(e.page).useOnce) {
+                    a1out.put(dpid, Boolean.TRUE);
+                }
+                a1inEvictions.incrementAndGet();
+                return e.page;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Am is swept like a clock: accessed pages get a second chance, use-once pages are taken right away.
+     */
+    private ICachedPageInternal evictFromAm() {
+        int maxSteps = am.size() * MAX_UNSUCCESSFUL_CYCLE_COUNT;
+        for (int step = 0; step < maxSteps && !am.isEmpty(); ++step) {
+            QueueEntry e = am.pollFirst();
+            if (!isLive(e, AM)) {
+                continue;
+            }
+            am.addLast(e);
+            PageState state = getPerPageObject(e.page);
+            if (!state.useOnce && state.accessed.compareAndSet(true, false)) {
+                continue;
+            }
+            if (e.page.pinIfGoodVictim()) {
+                amEvictions.incrementAndGet();
+                return e.page;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * A page has exactly one live entry, the one carrying its current stamp. Entries left behind when a page moves
+     * to another queue are dropped when the sweep reaches them.
+     */
+    private void enqueue(ICachedPageInternal cPage, PageState state, int queue, boolean first) {
+        if (state.queue == A1IN) {
+            --a1inSize;
+        } else if (state.queue == AM) {
+            --amSize;
+        }
+        state.queue = queue;
+        QueueEntry e = new QueueEntry(cPage, ++state.stamp);
+        ArrayDeque<QueueEntry> deque;
+        if (queue == A1IN) {
+            ++a1inSize;
+            deque = a1in;
+        } else {
+            ++amSize;
+            deque = am;
+        }
+        if (first) {
+            deque.addFirst(e);
+        } else {
+            deque.addLast(e);
+        }
+    }
+
+    private boolean isLive(QueueEntry e, int queue) {
+        PageState state = getPerPageObject(e.page);
+        return state.queue == queue && state.stamp == e.stamp;
+    }
+
+    @Override
+    public int getNumPages() {
+        return numPages;
+    }
+
+    private PageState getPerPageObject(ICachedPageInternal cPage) {
+        return (PageState) cPage.getReplacementStrategyObject();
+    }
+
+    @Override
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public int getMaxAllowedNumPages() {
+        return maxAllowedNumPages;
+    }
+
+    /**
+     * @return the number of pages that were bound while their dpid was remembered in A1out
+     */
+    public long getGhostHitCount() {
+        return ghostHits.get();
+    }
+
+    public long getA1inEvictionCount() {
+        return a1inEvictions.get();
+    }
+
+    public long getAmEvictionCount() {
+        return amEvictions.get();
+    }
+
+    private static class PageState {
+        private final AtomicBoolean accessed = new AtomicBoolean();
+        private volatile boolean useOnce;
+        // Guarded by the strategy lock.
+        private int queue = NONE;
+        private int stamp;
+    }
+
+    private static class QueueEntry {
+        private final ICachedPageInternal page;
+        private final int stamp;
+
+        QueueEntry(ICachedPageInternal page, int stamp) {
+            this.page = page;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -37,11 +37,16 @@ public class TestJobletContext implements IHyracksJobletContext {
     private WorkspaceFileFactory fileFactory;
 
     public TestJobletContext(int frameSize, INCApplicationContext appContext, JobId jobId) throws HyracksException {
+        this(frameSize, appContext, jobId, false);
+    }
+
+    public TestJobletContext(int frameSize, INCApplicationContext appContext, JobId jobId, boolean directFrames)
+            throws HyracksException {
         this.frameSize = frameSize;
         this.appContext = appContext;
         this.jobId = jobId;
         fileFactory = new WorkspaceFileFactory(this, (IOManager) getIOManager());
-        this.frameManger = new FrameManager(frameSize);
+        this.frameManger = new FrameManager(frameSize, null, directFrames);
     }
 
     ByteBuffer allocateFrame() throws HyracksDataException {
@@ -52,6 +57,10 @@ public class TestJobletContext implements IHyracksJobletContext {
         return frameManger.allocateFrame(bytes);
     }
 
+    ByteBuffer allocateOutputFrame(int bytes) throws HyracksDataException {
+        return frameManger.allocateOutputFrame(bytes);
+    }
+
     ByteBuffer reallocateFrame(ByteBuffer tobeDeallocate, int newFrameSizeInBytes, boolean copyOldData) throws HyracksDataException {
         return frameManger.reallocateFrame(tobeDeallocate, newFrameSizeInBytes, copyOldData);
     }
@@ -60,6 +69,10 @@ public class TestJobletContext implements IHyracksJobletContext {
         frameManger.deallocateFrames(bytes);
     }
 
+    void deallocateFrame(ByteBuffer frame) {
+        frameManger.deallocateFrame(frame);
+    }
+
     public int getFrameSize() {
         return frameSize;
     }
@@ -108,6 +121,11 @@ public class TestJobletContext implements IHyracksJobletContext {
         return null;
     }
 
+    @Override
+    public byte[] getJobParameters() {
+        return null;
+    }
+
     @Override
     public Class<?> loadClass(String className) {
         try {
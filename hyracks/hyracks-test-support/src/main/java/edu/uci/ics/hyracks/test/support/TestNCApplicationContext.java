@@ -24,6 +24,7 @@ import edu.uci.ics.hyracks.api.job.IJobSerializerDeserializerContainer;
 import edu.uci.ics.hyracks.api.lifecycle.ILifeCycleComponentManager;
 import edu.uci.ics.hyracks.api.lifecycle.LifeCycleComponentManager;
 import edu.uci.ics.hyracks.api.messages.IMessageBroker;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
 import edu.uci.ics.hyracks.api.resources.memory.IMemoryManager;
 
 public class TestNCApplicationContext implements INCApplicationContext {
@@ -36,7 +37,17 @@ public class TestNCApplicationContext implements INCApplicationContext {
 
     private final IMemoryManager mm;
 
+    private final BloomFilterMemoryBudget bloomFilterMemoryBudget;
+
     public TestNCApplicationContext(IHyracksRootContext rootCtx, String nodeId) {
+        this(rootCtx, nodeId, 0);
+    }
+
+    /**
+     * @param bloomFilterMemory
+     *            the capacity of the bloom filter memory budget of the node, like -bloom-filter-memory
+     */
+    public TestNCApplicationContext(IHyracksRootContext rootCtx, String nodeId, long bloomFilterMemory) {
         this.lccm = new LifeCycleComponentManager();
         this.rootCtx = rootCtx;
         this.nodeId = nodeId;
@@ -60,7 +71,13 @@ public class TestNCApplicationContext implements INCApplicationContext {
             public boolean allocate(long memory) {
                 return true;
             }
+
+            @Override
+            public void charge(long memory) {
+
+            }
         };
+        bloomFilterMemoryBudget = new BloomFilterMemoryBudget(bloomFilterMemory, mm);
     }
 
     @Override
@@ -107,6 +124,11 @@ public class TestNCApplicationContext implements INCApplicationContext {
         return mm;
     }
 
+    @Override
+    public BloomFilterMemoryBudget getBloomFilterMemoryBudget() {
+        return bloomFilterMemoryBudget;
+    }
+
     @Override
     public ThreadFactory getThreadFactory() {
         return null;
@@ -52,6 +52,11 @@ public class TestTaskContext implements IHyracksTaskContext {
         return jobletContext.allocateFrame(bytes);
     }
 
+    @Override
+    public ByteBuffer allocateOutputFrame(int bytes) throws HyracksDataException {
+        return jobletContext.allocateOutputFrame(bytes);
+    }
+
     @Override
     public ByteBuffer reallocateFrame(ByteBuffer tobeDeallocate, int newSizeInBytes, boolean copyOldData)
             throws HyracksDataException {
@@ -64,6 +69,11 @@ public class TestTaskContext implements IHyracksTaskContext {
         jobletContext.deallocateFrames(bytes);
     }
 
+    @Override
+    public void deallocateFrame(ByteBuffer frame) {
+        jobletContext.deallocateFrame(frame);
+    }
+
     @Override
     public int getInitialFrameSize() {
         return jobletContext.getFrameSize();
@@ -26,10 +26,18 @@ import edu.uci.ics.hyracks.api.job.JobId;
 
 public class TestUtils {
     public static IHyracksTaskContext create(int frameSize) {
+        return create(frameSize, false);
+    }
+
+    /**
+     * @param directFrames
+     *            whether the output frames of the task are off-heap, like on a node controller run with -direct-frames
+     */
+    public static IHyracksTaskContext create(int frameSize, boolean directFrames) {
         try {
             IHyracksRootContext rootCtx = new TestRootContext();
             INCApplicationContext appCtx = new TestNCApplicationContext(rootCtx, null);
-            TestJobletContext jobletCtx = new TestJobletContext(frameSize, appCtx, new JobId(0));
+            TestJobletContext jobletCtx = new TestJobletContext(frameSize, appCtx, new JobId(0), directFrames);
             TaskAttemptId tid = new TaskAttemptId(new TaskId(new ActivityId(new OperatorDescriptorId(0), 0), 0), 0);
             IHyracksTaskContext taskCtx = new TestTaskContext(jobletCtx, tid);
             return taskCtx;
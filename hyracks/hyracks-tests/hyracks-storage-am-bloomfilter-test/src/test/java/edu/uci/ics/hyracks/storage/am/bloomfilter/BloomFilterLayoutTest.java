@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.hyracks.storage.am.bloomfilter;
+
+import java.io.File;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import edu.uci.ics.hyracks.dataflow.common.util.TupleUtils;
+import edu.uci.ics.hyracks.storage.am.bloomfilter.impls.BloomCalculations;
+import edu.uci.ics.hyracks.storage.am.bloomfilter.impls.BloomFilter;
+import edu.uci.ics.hyracks.storage.am.bloomfilter.impls.BloomFilterSpecification;
+import edu.uci.ics.hyracks.storage.am.bloomfilter.util.AbstractBloomFilterTest;
+import edu.uci.ics.hyracks.storage.am.common.api.IIndexBulkLoader;
+import edu.uci.ics.hyracks.storage.common.buffercache.BufferCache;
+
+/**
+ * Builds a standard and a blocked bloom filter over the same keys and compares their false positive rate, the number
+ * of pages pinned per probe and the probe throughput.
+ */
+public class BloomFilterLayoutTest extends AbstractBloomFilterTest {
+    private static final int NUM_ELEMENTS = 20000;
+    private static final int NUM_PROBES = 100000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    public void layoutComparisonTest() throws Exception {
+        LayoutResult standard = runLayout(harness.getFileReference(), false);
+        LayoutResult blocked = runLayout(new FileReference(new File(harness.getFileName() + "-blocked")), true);
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Standard layout: " + standard);
+            LOGGER.info("Blocked layout: " + blocked);
+        }
+        Assert.assertEquals(1.0, blocked.pinsPerProbe, 0.0);
+        Assert.assertTrue(standard.pinsPerProbe > blocked.pinsPerProbe);
+        // Blocking costs some accuracy, but must stay in the same range.
+        Assert.assertTrue(blocked.falsePositiveRate < FALSE_POSITIVE_RATE * 3);
+    }
+
+    private LayoutResult runLayout(FileReference file, boolean blockedLayout) throws Exception {
+        BufferCache bufferCache = (BufferCache) harness.getBufferCache();
+        int[] keyFields = { 0 };
+        BloomFilter bf = new BloomFilter(bufferCache, harness.getFileMapProvider(), file, keyFields, blockedLayout);
+        int maxBucketsPerElement = BloomCalculations.maxBucketsPerElement(NUM_ELEMENTS);
+        BloomFilterSpecification bloomFilterSpec = BloomCalculations.computeBloomSpec(maxBucketsPerElement,
+                FALSE_POSITIVE_RATE);
+
+        bf.create();
+        bf.activate();
+        IIndexBulkLoader builder = bf.createBuilder(NUM_ELEMENTS, bloomFilterSpec.getNumHashes(),
+                bloomFilterSpec.getNumBucketsPerElements());
+        ArrayTupleBuilder tupleBuilder = new ArrayTupleBuilder(1);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        // Even keys are inserted, odd keys are probed for false positives.
+        for (int i = 0; i < NUM_ELEMENTS; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i * 2);
+            builder.add(tuple);
+        }
+        builder.end();
+        Assert.assertEquals(blockedLayout, bf.isBlocked());
+
+        long[] hashes = new long[2];
+        for (int i = 0; i < NUM_ELEMENTS; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i * 2);
+            Assert.assertTrue(bf.contains(tuple, hashes));
+        }
+
+        bufferCache.resetHitCounters();
+        int falsePositives = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_PROBES; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i * 2 + 1);
+            if (bf.contains(tuple, hashes)) {
+                ++falsePositives;
+            }
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        long pins = bufferCache.getPageHitCount() + bufferCache.getPageMissCount();
+
+        bf.deactivate();
+        bf.destroy();
+
+        LayoutResult result = new LayoutResult();
+        result.falsePositiveRate = (double) falsePositives / NUM_PROBES;
+        result.pinsPerProbe = (double) pins / NUM_PROBES;
+        result.probesPerSecond = NUM_PROBES * 1000000000L / elapsed;
+        return result;
+    }
+
+    private static class LayoutResult {
+        private double falsePositiveRate;
+        private double pinsPerProbe;
+        private long probesPerSecond;
+
+        @Override
+        public String toString() {
+            return "false positive rate " + falsePositiveRate + ", " + pinsPerProbe + " pins/probe, "
+                    + probesPerSecond + " probes/s";
+        }
+    }
+}
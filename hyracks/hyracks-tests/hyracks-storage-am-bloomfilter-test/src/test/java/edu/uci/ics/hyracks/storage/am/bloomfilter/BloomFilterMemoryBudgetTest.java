@@ -0,0 +1,130 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package edu.uci.ics.hyracks.storage.am.bloomfilter;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import edu.uci.ics.hyracks.dataflow.common.util.TupleUtils;
+import edu.uci.ics.hyracks.storage.am.bloomfilter.impls.BloomCalculations;
+import edu.uci.ics.hyracks.storage.am.bloomfilter.impls.BloomFilter;
+import edu.uci.ics.hyracks.storage.am.bloomfilter.impls.BloomFilterSpecification;
+import edu.uci.ics.hyracks.storage.am.bloomfilter.util.AbstractBloomFilterTest;
+import edu.uci.ics.hyracks.storage.am.common.api.IIndexBulkLoader;
+import edu.uci.ics.hyracks.storage.common.buffercache.BufferCache;
+
+public class BloomFilterMemoryBudgetTest extends AbstractBloomFilterTest {
+    private static final int NUM_ELEMENTS = 5000;
+
+    private final ArrayTupleBuilder tupleBuilder = new ArrayTupleBuilder(1);
+    private final ArrayTupleReference tuple = new ArrayTupleReference();
+    private final long[] hashes = new long[2];
+
+    @Test
+    public void residentFilterTest() throws Exception {
+        BufferCache bufferCache = (BufferCache) harness.getBufferCache();
+        BloomFilterMemoryBudget budget = new BloomFilterMemoryBudget(1024 * 1024);
+        for (boolean blocked : new boolean[] { false, true }) {
+            FileReference file = new FileReference(new File(harness.getFileName() + (blocked ? "-blocked" : "")));
+            BloomFilter bf = new BloomFilter(bufferCache, harness.getFileMapProvider(), file, new int[] { 0 },
+                    blocked, budget);
+            build(bf);
+            Assert.assertTrue(bf.isResident());
+            Assert.assertEquals((long) bf.getNumPages() * harness.getPageSize(), budget.getUsed());
+
+            // Probes of a resident filter do not go through the buffer cache.
+            bufferCache.resetHitCounters();
+            checkMembers(bf);
+            Assert.assertEquals(0, bufferCache.getPageHitCount() + bufferCache.getPageMissCount());
+
+            // The bits are loaded again from the file on the next activation.
+            bf.deactivate();
+            Assert.assertEquals(0, budget.getUsed());
+            Assert.assertEquals(0, budget.getResidentFilterCount());
+            bf.activate();
+            Assert.assertTrue(bf.isResident());
+            checkMembers(bf);
+
+            bf.deactivate();
+            bf.destroy();
+        }
+        Assert.assertEquals(0, budget.getUsed());
+        Assert.assertTrue(budget.getPeakUsed() > 0);
+    }
+
+    @Test
+    public void exhaustedBudgetTest() throws Exception {
+        BufferCache bufferCache = (BufferCache) harness.getBufferCache();
+        BloomFilter first = new BloomFilter(bufferCache, harness.getFileMapProvider(), harness.getFileReference(),
+                new int[] { 0 }, false, null);
+        build(first);
+        long filterBytes = (long) first.getNumPages() * harness.getPageSize();
+        first.deactivate();
+        first.destroy();
+
+        // Room for one filter only.
+        BloomFilterMemoryBudget budget = new BloomFilterMemoryBudget(filterBytes);
+        BloomFilter resident = new BloomFilter(bufferCache, harness.getFileMapProvider(), new FileReference(
+                new File(harness.getFileName() + "-1")), new int[] { 0 }, false, budget);
+        BloomFilter cached = new BloomFilter(bufferCache, harness.getFileMapProvider(), new FileReference(new File(
+                harness.getFileName() + "-2")), new int[] { 0 }, false, budget);
+        build(resident);
+        build(cached);
+        Assert.assertTrue(resident.isResident());
+        Assert.assertFalse(cached.isResident());
+        Assert.assertEquals(1, budget.getRejectedReservationCount());
+        checkMembers(resident);
+        checkMembers(cached);
+
+        // Once the first filter is deactivated, the second one fits.
+        resident.deactivate();
+        cached.deactivate();
+        cached.activate();
+        Assert.assertTrue(cached.isResident());
+        checkMembers(cached);
+        cached.deactivate();
+        Assert.assertEquals(0, budget.getUsed());
+        resident.destroy();
+        cached.destroy();
+    }
+
+    private void build(BloomFilter bf) throws Exception {
+        int maxBucketsPerElement = BloomCalculations.maxBucketsPerElement(NUM_ELEMENTS);
+        BloomFilterSpecification bloomFilterSpec = BloomCalculations.computeBloomSpec(maxBucketsPerElement, 0.01);
+        bf.create();
+        bf.activate();
+        IIndexBulkLoader builder = bf.createBuilder(NUM_ELEMENTS, bloomFilterSpec.getNumHashes(),
+                bloomFilterSpec.getNumBucketsPerElements());
+        for (int i = 0; i < NUM_ELEMENTS; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i);
+            builder.add(tuple);
+        }
+        builder.end();
+    }
+
+    private void checkMembers(BloomFilter bf) throws Exception {
+        for (int i = 0; i < NUM_ELEMENTS; ++i) {
+            TupleUtils.createIntegerTuple(tupleBuilder, tuple, i);
+            Assert.assertTrue(bf.contains(tuple, hashes));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.btree;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.ITypeTraits;
+import edu.uci.ics.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import edu.uci.ics.hyracks.data.std.primitive.IntegerPointable;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import edu.uci.ics.hyracks.dataflow.common.util.TupleUtils;
+import edu.uci.ics.hyracks.storage.am.btree.impls.RangePredicate;
+import edu.uci.ics.hyracks.storage.am.common.api.IIndexCursor;
+import edu.uci.ics.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import edu.uci.ics.hyracks.storage.am.common.ophelpers.IndexOperation;
+import edu.uci.ics.hyracks.storage.am.common.ophelpers.MultiComparator;
+import edu.uci.ics.hyracks.storage.am.lsm.btree.impls.LSMBTree;
+import edu.uci.ics.hyracks.storage.am.lsm.btree.impls.LSMBTreeDiskComponent;
+import edu.uci.ics.hyracks.storage.am.lsm.btree.impls.LSMBTreeOpContext;
+import edu.uci.ics.hyracks.storage.am.lsm.btree.util.LSMBTreeTestHarness;
+import edu.uci.ics.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+
+/**
+ * Flushes disjoint key ranges into separate disk components and checks that searches only visit the components whose
+ * smallest and largest key admit a match, before and after the index is reopened and after a full merge.
+ */
+public class LSMBTreeKeyRangeTest {
+    private static final int NUM_COMPONENTS = 4;
+    private static final int KEYS_PER_COMPONENT = 100;
+    private static final int COMPONENT_KEY_SPACING = 1000;
+
+    private final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
+    private final ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+    private final ArrayTupleReference tuple = new ArrayTupleReference();
+    private final IBinaryComparatorFactory[] cmpFactories = { PointableBinaryComparatorFactory
+            .of(IntegerPointable.FACTORY) };
+    private LSMBTree lsmBTree;
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+        ITypeTraits[] typeTraits = { IntegerPointable.TYPE_TRAITS, IntegerPointable.TYPE_TRAITS };
+        lsmBTree = LSMBTreeUtils.createLSMTree(harness.getVirtualBufferCaches(), harness.getFileReference(),
+                harness.getDiskBufferCache(), harness.getDiskFileMapProvider(), typeTraits, cmpFactories,
+                new int[] { 0 }, harness.getBoomFilterFalsePositiveRate(), harness.getMergePolicy(),
+                harness.getOperationTracker(), harness.getIOScheduler(), harness.getIOOperationCallback(), true, null,
+                null, null, null, true);
+        lsmBTree.create();
+        lsmBTree.activate();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        lsmBTree.deactivate();
+        lsmBTree.destroy();
+        harness.tearDown();
+    }
+
+    @Test
+    public void keyRangePruningTest() throws Exception {
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) lsmBTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        for (int c = 0; c < NUM_COMPONENTS; c++) {
+            for (int i = 0; i < KEYS_PER_COMPONENT; i++) {
+                TupleUtils.createIntegerTuple(tb, tuple, c * COMPONENT_KEY_SPACING + i, i);
+                accessor.insert(tuple);
+            }
+            if (c == NUM_COMPONENTS - 1) {
+                // The antimatter tuple widens the range of the newest component, which must still be searched.
+                TupleUtils.createIntegerTuple(tb, tuple, COMPONENT_KEY_SPACING + 5, 5);
+                accessor.delete(tuple);
+            }
+            accessor.scheduleFlush(NoOpIOOperationCallback.INSTANCE);
+        }
+        for (ILSMComponent c : lsmBTree.getImmutableComponents()) {
+            Assert.assertNotNull(((LSMBTreeDiskComponent) c).getKeyRange().getMinTuple());
+        }
+        checkSearches(accessor, NUM_COMPONENTS);
+
+        // The key ranges are read back from the components.
+        lsmBTree.deactivate();
+        lsmBTree.activate();
+        accessor = (ILSMIndexAccessor) lsmBTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        checkSearches(accessor, NUM_COMPONENTS);
+
+        accessor.scheduleFullMerge(NoOpIOOperationCallback.INSTANCE);
+        Assert.assertEquals(1, lsmBTree.getImmutableComponents().size());
+        checkSearches(accessor, 1);
+    }
+
+    private void checkSearches(ILSMIndexAccessor accessor, int numComponents) throws Exception {
+        // Only the second component and the newest one (because of its antimatter tuple) may hold keys 1000-1010.
+        Assert.assertEquals(numComponents == 1 ? 1 : 2, countSearchedComponents(1000, 1010));
+        Assert.assertEquals(10, countResults(accessor, 1000, 1010));
+        // Keys between the components are only in the range of the newest one.
+        Assert.assertEquals(1, countSearchedComponents(2500, 2600));
+        Assert.assertEquals(0, countResults(accessor, 2500, 2600));
+        // Keys outside of all components.
+        Assert.assertEquals(0, countSearchedComponents(3500, 3600));
+        Assert.assertEquals(0, countResults(accessor, 3500, 3600));
+        Assert.assertEquals(0, countSearchedComponents(-10, -1));
+        // Point searches.
+        Assert.assertEquals(numComponents == 1 ? 1 : 2, countSearchedComponents(2050, 2050));
+        Assert.assertEquals(1, countResults(accessor, 2050, 2050));
+        Assert.assertEquals(0, countResults(accessor, 1005, 1005));
+        // Open ranges.
+        Assert.assertEquals(numComponents, countSearchedComponents(null, null));
+        Assert.assertEquals(NUM_COMPONENTS * KEYS_PER_COMPONENT - 1, countResults(accessor, null, null));
+    }
+
+    private int countSearchedComponents(Integer low, Integer high) throws Exception {
+        LSMBTreeOpContext ctx = lsmBTree.createOpContext(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        ctx.setOperation(IndexOperation.SEARCH);
+        ctx.setSearchPredicate(createPredicate(low, high));
+        lsmBTree.getOperationalComponents(ctx);
+        int numDiskComponents = 0;
+        for (ILSMComponent c : ctx.getComponentHolder()) {
+            if (c instanceof LSMBTreeDiskComponent) {
+                numDiskComponents++;
+            }
+        }
+        return numDiskComponents;
+    }
+
+    private int countResults(ILSMIndexAccessor accessor, Integer low, Integer high) throws Exception {
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, createPredicate(low, high));
+        int count = 0;
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return count;
+    }
+
+    private RangePredicate createPredicate(Integer low, Integer high) throws Exception {
+        MultiComparator cmp = MultiComparator.create(cmpFactories);
+        return new RangePredicate(createKey(low), createKey(high), true, true, cmp, cmp);
+    }
+
+    private ArrayTupleReference createKey(Integer key) throws Exception {
+        if (key == null) {
+            return null;
+        }
+        ArrayTupleBuilder keyTb = new ArrayTupleBuilder(1);
+        ArrayTupleReference keyTuple = new ArrayTupleReference();
+        TupleUtils.createIntegerTuple(keyTb, keyTuple, key);
+        return keyTuple;
+    }
+}
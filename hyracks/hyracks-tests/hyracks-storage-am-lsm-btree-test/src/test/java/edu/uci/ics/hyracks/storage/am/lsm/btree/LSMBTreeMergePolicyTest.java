@@ -0,0 +1,209 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.btree;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.dataflow.value.IBinaryComparatorFactory;
+import edu.uci.ics.hyracks.api.dataflow.value.ITypeTraits;
+import edu.uci.ics.hyracks.data.std.accessors.PointableBinaryComparatorFactory;
+import edu.uci.ics.hyracks.data.std.primitive.IntegerPointable;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleBuilder;
+import edu.uci.ics.hyracks.dataflow.common.comm.io.ArrayTupleReference;
+import edu.uci.ics.hyracks.dataflow.common.util.TupleUtils;
+import edu.uci.ics.hyracks.storage.am.btree.impls.RangePredicate;
+import edu.uci.ics.hyracks.storage.am.common.api.IIndexCursor;
+import edu.uci.ics.hyracks.storage.am.common.impls.NoOpOperationCallback;
+import edu.uci.ics.hyracks.storage.am.lsm.btree.impls.LSMBTree;
+import edu.uci.ics.hyracks.storage.am.lsm.btree.util.LSMBTreeTestHarness;
+import edu.uci.ics.hyracks.storage.am.lsm.btree.util.LSMBTreeUtils;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMAmplificationStatisticsProvider;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndexAccessor;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMMergePolicy;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.LSMAmplificationStatistics;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.LeveledMergePolicy;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.NoOpIOOperationCallback;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.TieredMergePolicy;
+
+/**
+ * Runs the same upsert workloads under the tiered and the leveled merge policy, checks that each keeps its
+ * amplification targets, and logs the measured write and read amplification.
+ */
+public class LSMBTreeMergePolicyTest {
+    private static final Logger LOGGER = Logger.getLogger(LSMBTreeMergePolicyTest.class.getName());
+
+    private static final int NUM_FLUSHES = 40;
+    private static final int UPSERTS_PER_FLUSH = 500;
+    private static final int KEY_SPACE = 10000;
+
+    private static final int MAX_COMPONENT_COUNT = 8;
+    private static final int LEVEL_0_COMPONENT_COUNT = 4;
+
+    private final LSMBTreeTestHarness harness = new LSMBTreeTestHarness();
+    private final IBinaryComparatorFactory[] cmpFactories = { PointableBinaryComparatorFactory
+            .of(IntegerPointable.FACTORY) };
+
+    @Before
+    public void setUp() throws Exception {
+        harness.setUp();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        harness.tearDown();
+    }
+
+    @Test
+    public void tieredRandomKeysTest() throws Exception {
+        TieredMergePolicy policy = createTieredMergePolicy();
+        LSMAmplificationStatistics statistics = runWorkload(policy, false);
+        Assert.assertTrue(statistics.getMergeCount() > 0);
+        Assert.assertTrue(statistics.getMaxReadAmplification() <= MAX_COMPONENT_COUNT + 1);
+    }
+
+    @Test
+    public void leveledRandomKeysTest() throws Exception {
+        LeveledMergePolicy policy = createLeveledMergePolicy();
+        LSMAmplificationStatistics statistics = runWorkload(policy, false);
+        Assert.assertTrue(statistics.getMergeCount() > 0);
+        Assert.assertTrue(statistics.getMaxReadAmplification() <= MAX_COMPONENT_COUNT + 1);
+    }
+
+    @Test
+    public void leveledSequentialKeysTest() throws Exception {
+        LeveledMergePolicy policy = createLeveledMergePolicy();
+        LSMAmplificationStatistics statistics = runWorkload(policy, true);
+        // The components do not overlap, so each flushed byte is merged once, when level 0 is full.
+        Assert.assertTrue(statistics.getWriteAmplification() < 2.5);
+        Assert.assertTrue(statistics.getMaxReadAmplification() <= LEVEL_0_COMPONENT_COUNT + 1);
+    }
+
+    @Test
+    public void amplificationComparisonTest() throws Exception {
+        LSMAmplificationStatistics tiered = runWorkload(createTieredMergePolicy(), false);
+        harness.tearDown();
+        harness.setUp();
+        LSMAmplificationStatistics leveled = runWorkload(createLeveledMergePolicy(), false);
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Tiered: " + tiered);
+            LOGGER.info("Leveled: " + leveled);
+        }
+        // Leveling trades writes for reads.
+        Assert.assertTrue(leveled.getWriteAmplification() > tiered.getWriteAmplification());
+    }
+
+    @Test
+    public void leveledInvalidPropertiesTest() {
+        assertLeveledPropertiesRejected("0", "4");
+        assertLeveledPropertiesRejected("-1", "4");
+        assertLeveledPropertiesRejected("4", "1");
+        assertLeveledPropertiesRejected("4", "0.5");
+        assertLeveledPropertiesRejected("4", "0");
+        assertLeveledPropertiesRejected("4", "NaN");
+    }
+
+    private void assertLeveledPropertiesRejected(String level0ComponentCount, String sizeRatio) {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("level-0-component-count", level0ComponentCount);
+        properties.put("size-ratio", sizeRatio);
+        try {
+            new LeveledMergePolicy().configure(properties);
+            Assert.fail("level-0-component-count " + level0ComponentCount + " and size-ratio " + sizeRatio
+                    + " were accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private TieredMergePolicy createTieredMergePolicy() {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("size-ratio", "2");
+        properties.put("min-merge-component-count", "4");
+        properties.put("max-merge-component-count", "16");
+        properties.put("max-component-count", Integer.toString(MAX_COMPONENT_COUNT));
+        TieredMergePolicy policy = new TieredMergePolicy();
+        policy.configure(properties);
+        return policy;
+    }
+
+    private LeveledMergePolicy createLeveledMergePolicy() {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("level-0-component-count", Integer.toString(LEVEL_0_COMPONENT_COUNT));
+        properties.put("size-ratio", "4");
+        LeveledMergePolicy policy = new LeveledMergePolicy();
+        policy.configure(properties);
+        return policy;
+    }
+
+    private LSMAmplificationStatistics runWorkload(ILSMMergePolicy policy, boolean sequentialKeys) throws Exception {
+        ITypeTraits[] typeTraits = { IntegerPointable.TYPE_TRAITS, IntegerPointable.TYPE_TRAITS };
+        LSMBTree lsmBTree = LSMBTreeUtils.createLSMTree(harness.getVirtualBufferCaches(), harness.getFileReference(),
+                harness.getDiskBufferCache(), harness.getDiskFileMapProvider(), typeTraits, cmpFactories,
+                new int[] { 0 }, harness.getBoomFilterFalsePositiveRate(), policy, harness.getOperationTracker(),
+                harness.getIOScheduler(), harness.getIOOperationCallback(), true, null, null, null, null, true);
+        lsmBTree.create();
+        lsmBTree.activate();
+        ILSMIndexAccessor accessor = (ILSMIndexAccessor) lsmBTree.createAccessor(NoOpOperationCallback.INSTANCE,
+                NoOpOperationCallback.INSTANCE);
+        ArrayTupleBuilder tb = new ArrayTupleBuilder(2);
+        ArrayTupleReference tuple = new ArrayTupleReference();
+        Random rnd = new Random(50);
+        Set<Integer> keys = new HashSet<Integer>();
+        int nextKey = 0;
+        for (int f = 0; f < NUM_FLUSHES; f++) {
+            for (int i = 0; i < UPSERTS_PER_FLUSH; i++) {
+                int key = sequentialKeys ? nextKey++ : rnd.nextInt(KEY_SPACE);
+                TupleUtils.createIntegerTuple(tb, tuple, key, f);
+                accessor.upsert(tuple);
+                keys.add(key);
+            }
+            accessor.scheduleFlush(NoOpIOOperationCallback.INSTANCE);
+        }
+
+        IIndexCursor cursor = accessor.createSearchCursor(false);
+        accessor.search(cursor, new RangePredicate(null, null, true, true, null, null));
+        int count = 0;
+        try {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+        Assert.assertEquals(keys.size(), count);
+
+        lsmBTree.deactivate();
+        lsmBTree.destroy();
+        LSMAmplificationStatistics statistics = ((ILSMAmplificationStatisticsProvider) policy).getStatistics();
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(policy.getClass().getSimpleName() + (sequentialKeys ? " sequential" : " random") + ": "
+                    + statistics);
+        }
+        Assert.assertEquals(NUM_FLUSHES, statistics.getFlushCount());
+        return statistics;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMComponent;
+import edu.uci.ics.hyracks.storage.am.lsm.common.api.ILSMIndex;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.AbstractDiskLSMComponent;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.LSMAmplificationStatistics;
+
+public class LSMAmplificationStatisticsTest {
+
+    private final List<ILSMComponent> components = new ArrayList<ILSMComponent>();
+
+    private final ILSMIndex index = (ILSMIndex) Proxy.newProxyInstance(ILSMIndex.class.getClassLoader(),
+            new Class<?>[] { ILSMIndex.class }, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("getImmutableComponents")) {
+                        return components;
+                    }
+                    if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+    @Test
+    public void flushAndMergeInOneChangeTest() throws HyracksDataException {
+        LSMAmplificationStatistics statistics = new LSMAmplificationStatistics();
+        ILSMComponent c1 = new TestComponent(100);
+        ILSMComponent c2 = new TestComponent(100);
+        setComponents(statistics, c1);
+        setComponents(statistics, c2, c1);
+        assertEquals(2, statistics.getFlushCount());
+
+        // c1 and c2 were merged while c3 was flushed, and the policy hears about both at once.
+        ILSMComponent c3 = new TestComponent(100);
+        ILSMComponent m1 = new TestComponent(200);
+        setComponents(statistics, c3, m1);
+        assertEquals(3, statistics.getFlushCount());
+        assertEquals(1, statistics.getMergeCount());
+        assertEquals(300, statistics.getFlushedBytes());
+        assertEquals(200, statistics.getMergedBytes());
+        assertTrue(statistics.isFlushed(c3));
+        assertFalse(statistics.isFlushed(m1));
+
+        // A merge of components in the middle of the index, again together with a flush.
+        ILSMComponent c4 = new TestComponent(100);
+        ILSMComponent c5 = new TestComponent(100);
+        setComponents(statistics, c4, c3, m1);
+        setComponents(statistics, c5, c4, c3, m1);
+        ILSMComponent c6 = new TestComponent(100);
+        ILSMComponent m2 = new TestComponent(200);
+        setComponents(statistics, c6, c5, m2, m1);
+        assertEquals(6, statistics.getFlushCount());
+        assertEquals(2, statistics.getMergeCount());
+        assertEquals(600, statistics.getFlushedBytes());
+        assertEquals(400, statistics.getMergedBytes());
+        assertTrue(statistics.isFlushed(c6));
+        assertFalse(statistics.isFlushed(m2));
+        assertEquals(4, statistics.getReadAmplification());
+    }
+
+    @Test
+    public void mergeOfOldestComponentsTest() throws HyracksDataException {
+        LSMAmplificationStatistics statistics = new LSMAmplificationStatistics();
+        ILSMComponent c1 = new TestComponent(100);
+        ILSMComponent c2 = new TestComponent(100);
+        ILSMComponent c3 = new TestComponent(100);
+        setComponents(statistics, c1);
+        setComponents(statistics, c2, c1);
+        setComponents(statistics, c3, c2, c1);
+        ILSMComponent m1 = new TestComponent(200);
+        setComponents(statistics, c3, m1);
+        assertEquals(3, statistics.getFlushCount());
+        assertEquals(1, statistics.getMergeCount());
+        assertEquals(500.0 / 300.0, statistics.getWriteAmplification(), 1e-9);
+        assertEquals(3, statistics.getMaxReadAmplification());
+    }
+
+    private void setComponents(LSMAmplificationStatistics statistics, ILSMComponent... newComponents)
+            throws HyracksDataException {
+        components.clear();
+        components.addAll(Arrays.asList(newComponents));
+        statistics.componentsChanged(index);
+    }
+
+    private static class TestComponent extends AbstractDiskLSMComponent {
+        private final long size;
+
+        public TestComponent(long size) {
+            this.size = size;
+        }
+
+        @Override
+        protected void destroy() throws HyracksDataException {
+        }
+
+        @Override
+        public long getComponentSize() {
+            return size;
+        }
+
+        @Override
+        public int getFileReferenceCount() {
+            return 0;
+        }
+    }
+}
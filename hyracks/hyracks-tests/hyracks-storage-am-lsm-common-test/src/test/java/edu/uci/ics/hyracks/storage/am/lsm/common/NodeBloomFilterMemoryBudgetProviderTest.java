@@ -0,0 +1,71 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.am.lsm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.dataflow.ActivityId;
+import edu.uci.ics.hyracks.api.dataflow.OperatorDescriptorId;
+import edu.uci.ics.hyracks.api.dataflow.TaskAttemptId;
+import edu.uci.ics.hyracks.api.dataflow.TaskId;
+import edu.uci.ics.hyracks.api.job.JobId;
+import edu.uci.ics.hyracks.api.resources.memory.BloomFilterMemoryBudget;
+import edu.uci.ics.hyracks.storage.am.lsm.common.impls.NodeBloomFilterMemoryBudgetProvider;
+import edu.uci.ics.hyracks.test.support.TestJobletContext;
+import edu.uci.ics.hyracks.test.support.TestNCApplicationContext;
+import edu.uci.ics.hyracks.test.support.TestRootContext;
+import edu.uci.ics.hyracks.test.support.TestTaskContext;
+import edu.uci.ics.hyracks.test.support.TestUtils;
+
+public class NodeBloomFilterMemoryBudgetProviderTest {
+
+    private static final int FRAME_SIZE = 256;
+    private static final long BLOOM_FILTER_MEMORY = 1024 * 1024;
+
+    @Test
+    public void noBudgetWithoutBloomFilterMemory() {
+        IHyracksTaskContext ctx = TestUtils.create(FRAME_SIZE);
+        assertNull(NodeBloomFilterMemoryBudgetProvider.INSTANCE.getBloomFilterMemoryBudget(ctx));
+    }
+
+    @Test
+    public void tasksShareTheNodeBudget() throws Exception {
+        TestNCApplicationContext appCtx = new TestNCApplicationContext(new TestRootContext(), null,
+                BLOOM_FILTER_MEMORY);
+        IHyracksTaskContext ctx1 = createTaskContext(appCtx, 0);
+        IHyracksTaskContext ctx2 = createTaskContext(appCtx, 1);
+        BloomFilterMemoryBudget budget = NodeBloomFilterMemoryBudgetProvider.INSTANCE.getBloomFilterMemoryBudget(ctx1);
+        assertSame(appCtx.getBloomFilterMemoryBudget(), budget);
+        assertSame(budget, NodeBloomFilterMemoryBudgetProvider.INSTANCE.getBloomFilterMemoryBudget(ctx2));
+        assertEquals(BLOOM_FILTER_MEMORY, budget.getCapacity());
+
+        assertTrue(budget.reserve(BLOOM_FILTER_MEMORY / 2));
+        assertEquals(BLOOM_FILTER_MEMORY / 2, appCtx.getBloomFilterMemoryBudget().getUsed());
+        budget.release(BLOOM_FILTER_MEMORY / 2);
+        assertEquals(0, budget.getUsed());
+    }
+
+    private IHyracksTaskContext createTaskContext(TestNCApplicationContext appCtx, int jobId) throws Exception {
+        TestJobletContext jobletCtx = new TestJobletContext(FRAME_SIZE, appCtx, new JobId(jobId));
+        TaskAttemptId tid = new TaskAttemptId(new TaskId(new ActivityId(new OperatorDescriptorId(0), 0), 0), 0);
+        return new TestTaskContext(jobletCtx, tid);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.common;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.storage.common.buffercache.BufferCache;
+import edu.uci.ics.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import edu.uci.ics.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import edu.uci.ics.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import edu.uci.ics.hyracks.storage.common.buffercache.ICachedPage;
+import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
+import edu.uci.ics.hyracks.storage.common.file.TransientFileMapManager;
+import edu.uci.ics.hyracks.test.support.TestUtils;
+
+/**
+ * Dirties the pages of two files in an interleaved order and lets the cleaner write them when the cache is closed.
+ * The cleaner must write adjacent pages together, and a second cache must read back what the first one wrote.
+ */
+public class BufferCacheCleanerTest {
+    private static final Logger LOGGER = Logger.getLogger(BufferCacheCleanerTest.class.getName());
+
+    protected static final List<String> openedFiles = new ArrayList<String>();
+    protected static final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("ddMMyy-hhmmssSS");
+    protected static final String tmpDir = System.getProperty("java.io.tmpdir");
+    protected static final String sep = System.getProperty("file.separator");
+
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 512;
+    private static final int MAX_OPEN_FILES = 20;
+    private static final int FILE_PAGES = 200;
+    private static final int HYRACKS_FRAME_SIZE = PAGE_SIZE;
+
+    private IHyracksTaskContext ctx = TestUtils.create(HYRACKS_FRAME_SIZE);
+
+    private final static ThreadFactory threadFactory = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            return new Thread(r);
+        }
+    };
+
+    private String getFileName() {
+        String fileName = tmpDir + sep + simpleDateFormat.format(new Date()) + "-cleaner-" + openedFiles.size();
+        openedFiles.add(fileName);
+        return fileName;
+    }
+
+    private BufferCache createBufferCache(TransientFileMapManager fileMapManager) {
+        // The delay keeps the cleaner idle until the cache is closed.
+        return new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(new HeapBufferAllocator(),
+                PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(600000), fileMapManager, MAX_OPEN_FILES,
+                threadFactory);
+    }
+
+    @Test
+    public void coalescedWriteTest() throws HyracksDataException {
+        TransientFileMapManager fileMapManager = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fileMapManager);
+        int[] fileIds = new int[2];
+        for (int f = 0; f < fileIds.length; f++) {
+            FileReference file = new FileReference(new File(getFileName()));
+            bufferCache.createFile(file);
+            fileIds[f] = fileMapManager.lookupFileId(file);
+            bufferCache.openFile(fileIds[f]);
+        }
+
+        // Dirty the pages backwards and alternate between the files, so that the cleaner has to sort them.
+        for (int i = FILE_PAGES - 1; i >= 0; i--) {
+            for (int f = 0; f < fileIds.length; f++) {
+                ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileIds[f], i), true);
+                page.acquireWriteLatch();
+                try {
+                    page.getBuffer().putInt(0, f);
+                    page.getBuffer().putInt(4, i);
+                    page.getBuffer().putInt(PAGE_SIZE - 4, -i);
+                } finally {
+                    page.releaseWriteLatch(true);
+                    bufferCache.unpin(page);
+                }
+            }
+        }
+        for (int f = 0; f < fileIds.length; f++) {
+            bufferCache.closeFile(fileIds[f]);
+        }
+        bufferCache.close();
+
+        long writes = bufferCache.getCleanerWriteCount();
+        long pagesWritten = bufferCache.getCleanerPagesWrittenCount();
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Cleaner wrote " + pagesWritten + " pages with " + writes + " writes");
+        }
+        Assert.assertEquals(fileIds.length * FILE_PAGES, pagesWritten);
+        Assert.assertTrue(writes * 8 < pagesWritten);
+
+        BufferCache readCache = createBufferCache(fileMapManager);
+        for (int f = 0; f < fileIds.length; f++) {
+            readCache.openFile(fileIds[f]);
+            for (int i = 0; i < FILE_PAGES; i++) {
+                ICachedPage page = readCache.pin(BufferedFileHandle.getDiskPageId(fileIds[f], i), false);
+                page.acquireReadLatch();
+                try {
+                    Assert.assertEquals(f, page.getBuffer().getInt(0));
+                    Assert.assertEquals(i, page.getBuffer().getInt(4));
+                    Assert.assertEquals(-i, page.getBuffer().getInt(PAGE_SIZE - 4));
+                } finally {
+                    page.releaseReadLatch();
+                    readCache.unpin(page);
+                }
+            }
+            readCache.closeFile(fileIds[f]);
+        }
+        readCache.close();
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        for (String s : openedFiles) {
+            File f = new File(s);
+            f.deleteOnExit();
+        }
+    }
+}
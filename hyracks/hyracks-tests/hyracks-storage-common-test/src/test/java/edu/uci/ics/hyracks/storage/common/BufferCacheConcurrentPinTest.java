@@ -0,0 +1,150 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.common;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.storage.common.buffercache.IBufferCache;
+import edu.uci.ics.hyracks.storage.common.buffercache.ICachedPage;
+import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
+import edu.uci.ics.hyracks.storage.common.file.IFileMapProvider;
+import edu.uci.ics.hyracks.test.support.TestStorageManagerComponentHolder;
+import edu.uci.ics.hyracks.test.support.TestUtils;
+
+/**
+ * Pins and unpins pages of one file from several threads at once and checks that every pinned page holds the
+ * contents of the requested page. The file is larger than the cache, so hits race with evictions.
+ * The pin throughput for each thread count is logged.
+ */
+public class BufferCacheConcurrentPinTest {
+    private static final Logger LOGGER = Logger.getLogger(BufferCacheConcurrentPinTest.class.getName());
+
+    protected static final List<String> openedFiles = new ArrayList<String>();
+    protected static final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("ddMMyy-hhmmssSS");
+    protected static final String tmpDir = System.getProperty("java.io.tmpdir");
+    protected static final String sep = System.getProperty("file.separator");
+
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 64;
+    private static final int NUM_FILE_PAGES = 96;
+    private static final int MAX_OPEN_FILES = 20;
+    private static final int HYRACKS_FRAME_SIZE = PAGE_SIZE;
+    private static final int PINS_PER_THREAD = 20000;
+    private static final int[] THREAD_COUNTS = new int[] { 1, 2, 4, 8 };
+
+    private IHyracksTaskContext ctx = TestUtils.create(HYRACKS_FRAME_SIZE);
+
+    private String getFileName() {
+        String fileName = tmpDir + sep + simpleDateFormat.format(new Date()) + "-concurrent-" + openedFiles.size();
+        openedFiles.add(fileName);
+        return fileName;
+    }
+
+    @Test
+    public void concurrentPinUnpinTest() throws Exception {
+        TestStorageManagerComponentHolder.init(PAGE_SIZE, NUM_PAGES, MAX_OPEN_FILES);
+        final IBufferCache bufferCache = TestStorageManagerComponentHolder.getBufferCache(ctx);
+        IFileMapProvider fmp = TestStorageManagerComponentHolder.getFileMapProvider(ctx);
+        FileReference file = new FileReference(new File(getFileName()));
+        bufferCache.createFile(file);
+        final int fileId = fmp.lookupFileId(file);
+        bufferCache.openFile(fileId);
+
+        for (int i = 0; i < NUM_FILE_PAGES; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                for (int j = 0; j < PAGE_SIZE / 4; j++) {
+                    page.getBuffer().putInt(j * 4, i);
+                }
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+
+        for (int numThreads : THREAD_COUNTS) {
+            final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+            final AtomicLong pins = new AtomicLong();
+            Thread[] threads = new Thread[numThreads];
+            for (int t = 0; t < numThreads; t++) {
+                final Random rnd = new Random(t);
+                threads[t] = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int i = 0; i < PINS_PER_THREAD && failure.get() == null; i++) {
+                                int pageId = rnd.nextInt(NUM_FILE_PAGES);
+                                ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId),
+                                        false);
+                                page.acquireReadLatch();
+                                try {
+                                    Assert.assertEquals(pageId, page.getBuffer().getInt(0));
+                                    Assert.assertEquals(pageId, page.getBuffer().getInt(PAGE_SIZE - 4));
+                                } finally {
+                                    page.releaseReadLatch();
+                                    bufferCache.unpin(page);
+                                }
+                                pins.incrementAndGet();
+                            }
+                        } catch (Throwable th) {
+                            failure.compareAndSet(null, th);
+                        }
+                    }
+                };
+            }
+            long start = System.nanoTime();
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            if (failure.get() != null) {
+                throw new HyracksDataException(failure.get());
+            }
+            Assert.assertEquals((long) numThreads * PINS_PER_THREAD, pins.get());
+            if (LOGGER.isLoggable(Level.INFO)) {
+                LOGGER.info(numThreads + " thread(s): " + pins.get() * 1000000000L / elapsed + " pins/s");
+            }
+        }
+        bufferCache.closeFile(fileId);
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        for (String s : openedFiles) {
+            File f = new File(s);
+            f.deleteOnExit();
+        }
+    }
+}
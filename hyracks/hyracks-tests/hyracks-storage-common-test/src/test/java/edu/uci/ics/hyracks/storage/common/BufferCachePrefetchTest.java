@@ -0,0 +1,222 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.common;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.storage.common.buffercache.BufferCache;
+import edu.uci.ics.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import edu.uci.ics.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import edu.uci.ics.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import edu.uci.ics.hyracks.storage.common.buffercache.ICachedPage;
+import edu.uci.ics.hyracks.storage.common.buffercache.SequentialPrefetcher;
+import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
+import edu.uci.ics.hyracks.storage.common.file.TransientFileMapManager;
+import edu.uci.ics.hyracks.test.support.TestUtils;
+
+public class BufferCachePrefetchTest {
+    protected static final List<String> openedFiles = new ArrayList<String>();
+    protected static final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("ddMMyy-hhmmssSS");
+    protected static final String tmpDir = System.getProperty("java.io.tmpdir");
+    protected static final String sep = System.getProperty("file.separator");
+
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 64;
+    private static final int MAX_OPEN_FILES = 20;
+    private static final int FILE_PAGES = 500;
+    private static final int HYRACKS_FRAME_SIZE = PAGE_SIZE;
+
+    private IHyracksTaskContext ctx = TestUtils.create(HYRACKS_FRAME_SIZE);
+
+    private final static ThreadFactory threadFactory = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            return new Thread(r);
+        }
+    };
+
+    private String getFileName() {
+        String fileName = tmpDir + sep + simpleDateFormat.format(new Date()) + "-prefetch-" + openedFiles.size();
+        openedFiles.add(fileName);
+        return fileName;
+    }
+
+    private BufferCache createBufferCache(TransientFileMapManager fileMapManager) {
+        return new BufferCache(ctx.getIOManager(), new ClockPageReplacementStrategy(new HeapBufferAllocator(),
+                PAGE_SIZE, NUM_PAGES), new DelayPageCleanerPolicy(1000), fileMapManager, MAX_OPEN_FILES,
+                threadFactory);
+    }
+
+    private int createFile(BufferCache bufferCache, TransientFileMapManager fileMapManager)
+            throws HyracksDataException {
+        FileReference file = new FileReference(new File(getFileName()));
+        bufferCache.createFile(file);
+        int fileId = fileMapManager.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        for (int i = 0; i < FILE_PAGES; i++) {
+            ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+            page.acquireWriteLatch();
+            try {
+                page.getBuffer().putInt(0, i);
+                page.getBuffer().putInt(PAGE_SIZE - 4, -i);
+            } finally {
+                page.releaseWriteLatch(true);
+                bufferCache.unpin(page);
+            }
+        }
+        return fileId;
+    }
+
+    private void checkPage(BufferCache bufferCache, int fileId, int pageId) throws HyracksDataException {
+        ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, pageId), false);
+        page.acquireReadLatch();
+        try {
+            Assert.assertEquals(pageId, page.getBuffer().getInt(0));
+            Assert.assertEquals(-pageId, page.getBuffer().getInt(PAGE_SIZE - 4));
+        } finally {
+            page.releaseReadLatch();
+            bufferCache.unpin(page);
+        }
+    }
+
+    @Test
+    public void sequentialScanTest() throws HyracksDataException {
+        TransientFileMapManager fileMapManager = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fileMapManager);
+        int fileId = createFile(bufferCache, fileMapManager);
+        SequentialPrefetcher prefetcher = new SequentialPrefetcher();
+        prefetcher.reset(bufferCache, fileId, FILE_PAGES - 1);
+        long prefetchesBefore = bufferCache.getPrefetchCount();
+        for (int i = 0; i < FILE_PAGES; i++) {
+            prefetcher.notifyPageVisit(i);
+            checkPage(bufferCache, fileId, i);
+        }
+        Assert.assertTrue(bufferCache.getPrefetchCount() > prefetchesBefore);
+        Assert.assertEquals(SequentialPrefetcher.DEFAULT_MAX_WINDOW, prefetcher.getWindow());
+        // Closing the file must not trip over pages that are still pinned by outstanding prefetches.
+        bufferCache.closeFile(fileId);
+        bufferCache.deleteFile(fileId, false);
+        bufferCache.close();
+    }
+
+    @Test
+    public void randomAccessTest() throws HyracksDataException {
+        TransientFileMapManager fileMapManager = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fileMapManager);
+        int fileId = createFile(bufferCache, fileMapManager);
+        SequentialPrefetcher prefetcher = new SequentialPrefetcher();
+        prefetcher.reset(bufferCache, fileId, FILE_PAGES - 1);
+        long prefetchesBefore = bufferCache.getPrefetchCount();
+        Random rnd = new Random(50);
+        int pageId = 0;
+        for (int i = 0; i < FILE_PAGES; i++) {
+            // Never two sequential steps in a row.
+            if (i % 2 == 0) {
+                int next;
+                do {
+                    next = rnd.nextInt(FILE_PAGES - 1);
+                } while (next == pageId + 1);
+                pageId = next;
+            } else {
+                pageId++;
+            }
+            prefetcher.notifyPageVisit(pageId);
+            checkPage(bufferCache, fileId, pageId);
+        }
+        Assert.assertEquals(prefetchesBefore, bufferCache.getPrefetchCount());
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+    }
+
+    @Test
+    public void explicitPrefetchTest() throws HyracksDataException {
+        TransientFileMapManager fileMapManager = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fileMapManager);
+        int fileId = createFile(bufferCache, fileMapManager);
+        for (int start = 0; start + 8 <= FILE_PAGES; start += 8) {
+            bufferCache.prefetch(BufferedFileHandle.getDiskPageId(fileId, start), 8);
+            for (int i = start; i < start + 8; i++) {
+                checkPage(bufferCache, fileId, i);
+            }
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+    }
+
+    @Test
+    public void tryPinPrefetchedPageTest() throws HyracksDataException {
+        TransientFileMapManager fileMapManager = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fileMapManager);
+        int fileId = createFile(bufferCache, fileMapManager);
+        for (int start = 0; start + 4 <= FILE_PAGES; start += 4) {
+            bufferCache.prefetch(BufferedFileHandle.getDiskPageId(fileId, start), 4);
+            for (int i = start; i < start + 4; i++) {
+                // tryPin() must wait for the outstanding read instead of returning an unread page.
+                ICachedPage page = bufferCache.tryPin(BufferedFileHandle.getDiskPageId(fileId, i));
+                Assert.assertNotNull(page);
+                page.acquireReadLatch();
+                try {
+                    Assert.assertEquals(i, page.getBuffer().getInt(0));
+                    Assert.assertEquals(-i, page.getBuffer().getInt(PAGE_SIZE - 4));
+                } finally {
+                    page.releaseReadLatch();
+                    bufferCache.unpin(page);
+                }
+            }
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+    }
+
+    @Test
+    public void boundedScanTest() throws HyracksDataException {
+        TransientFileMapManager fileMapManager = new TransientFileMapManager();
+        BufferCache bufferCache = createBufferCache(fileMapManager);
+        int fileId = createFile(bufferCache, fileMapManager);
+        int maxPageId = FILE_PAGES / 2 - 1;
+        SequentialPrefetcher prefetcher = new SequentialPrefetcher();
+        prefetcher.reset(bufferCache, fileId, maxPageId);
+        for (int i = 0; i <= maxPageId; i++) {
+            prefetcher.notifyPageVisit(i);
+            checkPage(bufferCache, fileId, i);
+        }
+        // The read-ahead must stop at the bound, so none of the following pages may have been brought back in.
+        for (int i = maxPageId + 1; i <= maxPageId + SequentialPrefetcher.DEFAULT_MAX_WINDOW; i++) {
+            Assert.assertNull(bufferCache.tryPin(BufferedFileHandle.getDiskPageId(fileId, i)));
+        }
+        bufferCache.closeFile(fileId);
+        bufferCache.close();
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        for (String s : openedFiles) {
+            File f = new File(s);
+            f.deleteOnExit();
+        }
+    }
+}
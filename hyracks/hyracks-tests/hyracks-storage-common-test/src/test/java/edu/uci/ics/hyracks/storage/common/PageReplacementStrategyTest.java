@@ -0,0 +1,158 @@
+/*
+ * Copyright 2009-2013 by The Regents of the University of California
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * you may obtain a copy of the License from
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.uci.ics.hyracks.storage.common;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.hyracks.api.context.IHyracksTaskContext;
+import edu.uci.ics.hyracks.api.exceptions.HyracksDataException;
+import edu.uci.ics.hyracks.api.io.FileReference;
+import edu.uci.ics.hyracks.storage.common.buffercache.BufferCache;
+import edu.uci.ics.hyracks.storage.common.buffercache.ClockPageReplacementStrategy;
+import edu.uci.ics.hyracks.storage.common.buffercache.DelayPageCleanerPolicy;
+import edu.uci.ics.hyracks.storage.common.buffercache.HeapBufferAllocator;
+import edu.uci.ics.hyracks.storage.common.buffercache.ICachedPage;
+import edu.uci.ics.hyracks.storage.common.buffercache.IPageReplacementStrategy;
+import edu.uci.ics.hyracks.storage.common.buffercache.TwoQueuePageReplacementStrategy;
+import edu.uci.ics.hyracks.storage.common.file.BufferedFileHandle;
+import edu.uci.ics.hyracks.storage.common.file.TransientFileMapManager;
+import edu.uci.ics.hyracks.test.support.TestUtils;
+
+/**
+ * Runs point lookups on a small hot set of pages interleaved with use-once scans over a much larger range, and
+ * compares the hit ratio of the point lookups under the clock and the 2Q strategy.
+ */
+public class PageReplacementStrategyTest {
+    private static final Logger LOGGER = Logger.getLogger(PageReplacementStrategyTest.class.getName());
+
+    protected static final List<String> openedFiles = new ArrayList<String>();
+    protected static final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("ddMMyy-hhmmssSS");
+    protected static final String tmpDir = System.getProperty("java.io.tmpdir");
+    protected static final String sep = System.getProperty("file.separator");
+
+    private static final int PAGE_SIZE = 256;
+    private static final int NUM_PAGES = 40;
+    private static final int MAX_OPEN_FILES = 20;
+    private static final int HOT_PAGES = 16;
+    private static final int SCAN_PAGES = 200;
+    private static final int ROUNDS = 20;
+    private static final int HYRACKS_FRAME_SIZE = PAGE_SIZE;
+
+    private IHyracksTaskContext ctx = TestUtils.create(HYRACKS_FRAME_SIZE);
+
+    private final static ThreadFactory threadFactory = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            return new Thread(r);
+        }
+    };
+
+    private String getFileName() {
+        String fileName = tmpDir + sep + simpleDateFormat.format(new Date()) + "-prs-" + openedFiles.size();
+        openedFiles.add(fileName);
+        return fileName;
+    }
+
+    @Test
+    public void scanResistanceTest() throws HyracksDataException {
+        double clockRatio = runMixedWorkload(new ClockPageReplacementStrategy(new HeapBufferAllocator(), PAGE_SIZE,
+                NUM_PAGES));
+        TwoQueuePageReplacementStrategy twoQueue = new TwoQueuePageReplacementStrategy(new HeapBufferAllocator(),
+                PAGE_SIZE, NUM_PAGES);
+        double twoQueueRatio = runMixedWorkload(twoQueue);
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info("Point lookup hit ratio, clock: " + clockRatio + ", 2Q: " + twoQueueRatio + " (ghost hits: "
+                    + twoQueue.getGhostHitCount() + ", A1in evictions: " + twoQueue.getA1inEvictionCount()
+                    + ", Am evictions: " + twoQueue.getAmEvictionCount() + ")");
+        }
+        Assert.assertTrue(twoQueueRatio > 0.8);
+        Assert.assertTrue(twoQueueRatio > clockRatio);
+    }
+
+    private double runMixedWorkload(IPageReplacementStrategy prs) throws HyracksDataException {
+        TransientFileMapManager fileMapManager = new TransientFileMapManager();
+        BufferCache bufferCache = new BufferCache(ctx.getIOManager(), prs, new DelayPageCleanerPolicy(1000),
+                fileMapManager, MAX_OPEN_FILES, threadFactory);
+        FileReference file = new FileReference(new File(getFileName()));
+        bufferCache.createFile(file);
+        int fileId = fileMapManager.lookupFileId(file);
+        bufferCache.openFile(fileId);
+        try {
+            for (int i = 0; i < HOT_PAGES + SCAN_PAGES; i++) {
+                ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), true);
+                page.acquireWriteLatch();
+                try {
+                    page.getBuffer().putInt(0, i);
+                } finally {
+                    page.releaseWriteLatch(true);
+                    bufferCache.unpinUseOnce(page);
+                }
+            }
+
+            long hits = 0;
+            long lookups = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                bufferCache.resetHitCounters();
+                for (int i = 0; i < HOT_PAGES; i++) {
+                    ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false);
+                    page.acquireReadLatch();
+                    try {
+                        Assert.assertEquals(i, page.getBuffer().getInt(0));
+                    } finally {
+                        page.releaseReadLatch();
+                        bufferCache.unpin(page);
+                    }
+                }
+                // The first two rounds warm the cache up.
+                if (r >= 2) {
+                    hits += bufferCache.getPageHitCount();
+                    lookups += bufferCache.getPageHitCount() + bufferCache.getPageMissCount();
+                }
+                for (int i = HOT_PAGES; i < HOT_PAGES + SCAN_PAGES; i++) {
+                    ICachedPage page = bufferCache.pin(BufferedFileHandle.getDiskPageId(fileId, i), false);
+                    page.acquireReadLatch();
+                    try {
+                        Assert.assertEquals(i, page.getBuffer().getInt(0));
+                    } finally {
+                        page.releaseReadLatch();
+                        bufferCache.unpinUseOnce(page);
+                    }
+                }
+            }
+            return (double) hits / lookups;
+        } finally {
+            bufferCache.closeFile(fileId);
+            bufferCache.close();
+        }
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        for (String s : openedFiles) {
+            File f = new File(s);
+            f.deleteOnExit();
+        }
+    }
+}